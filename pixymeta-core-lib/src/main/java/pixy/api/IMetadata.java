@@ -37,6 +37,9 @@ public interface IMetadata extends MetadataReader {
 
 	void merge(byte[] data);
 
+	/** Same as {@link #merge(byte[])} with the slice of data. data is not modified */
+	void merge(byte[] data, int offset, int length);
+
 	String getDebugMessage();
 	void setDebugMessageBuffer(StringBuilder debugMessageBuffer);
 }
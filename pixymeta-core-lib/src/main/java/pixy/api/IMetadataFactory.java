@@ -0,0 +1,17 @@
+package pixy.api;
+
+/**
+ * Creates {@link IMetadata} from the raw content of an image segment.
+ *
+ * Plugins register an implementation so that the metadata can be
+ * constructed without reflection.
+ */
+public interface IMetadataFactory {
+	/**
+	 * @param data buffer that contains the raw content. It must not be modified.
+	 * @param offset index of the first byte of the content in data
+	 * @param length number of bytes of the content
+	 * @return the metadata
+	 */
+	IMetadata create(byte[] data, int offset, int length);
+}
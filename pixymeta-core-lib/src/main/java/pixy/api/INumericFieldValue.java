@@ -0,0 +1,28 @@
+package pixy.api;
+
+/**
+ * A {@link IFieldValue} that consists of 0 or more numbers
+ * (i.e. exif {@link pixy.image.exifFields.ExifField}).
+ * <p>
+ * The values can be read without formatting them as text and
+ * without allocating arrays.
+ */
+public interface INumericFieldValue extends IFieldValue {
+    /** return the number of values. A rational counts as one value. */
+    int getCount();
+
+    /** return value number index as int. Rationals and floating point values are truncated. */
+    int getInt(int index);
+
+    /** return value number index as long. Unsigned types are not sign extended. */
+    long getLong(int index);
+
+    /** return value number index as double. Rationals are divided. */
+    double getDouble(int index);
+
+    /** return the numerator of rational number index or {@link #getLong(int)} if this is not a rational. */
+    long getNumerator(int index);
+
+    /** return the denominator of rational number index or 1 if this is not a rational. */
+    long getDenominator(int index);
+}
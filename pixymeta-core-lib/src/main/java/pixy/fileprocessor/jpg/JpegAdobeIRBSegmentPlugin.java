@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.adobe.AdobeIRBSegment;
@@ -14,14 +16,22 @@ import pixy.meta.iptc.IPTCApplicationTag;
  * Created by k3b on 09.07.2016.
  */
 public class JpegAdobeIRBSegmentPlugin extends AdobeIRBSegment {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegAdobeIRBSegmentPlugin(data, offset, length);
+        }
+    };
+
     static {
         JpgSegmentPluginFactory.register(MetadataType.PHOTOSHOP_IRB, JpegSegmentMarker.JPG_SEGMENT_IPTC_APP13,
-                JpegMetaDef.PHOTOSHOP_IRB_ID, JpegAdobeIRBSegmentPlugin.class); // , IPTCApplicationTag.class)
+                JpegMetaDef.PHOTOSHOP_IRB_ID, JpegAdobeIRBSegmentPlugin.class, FACTORY); // , IPTCApplicationTag.class)
                 // .setDebug(true)
         ;
 
         JpgSegmentPluginFactory.register(MetadataType.IPTC, null,
-                MetadataType.IPTC.toString(), JpegAdobeIRBSegmentPlugin.class, IPTCApplicationTag.class)
+                MetadataType.IPTC.toString(), JpegAdobeIRBSegmentPlugin.class, FACTORY, IPTCApplicationTag.class)
         // .setDebug(true)
         ;
     }
@@ -29,9 +39,13 @@ public class JpegAdobeIRBSegmentPlugin extends AdobeIRBSegment {
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
     public JpegAdobeIRBSegmentPlugin(byte[] data) {
         super(data);
     }
 
+    /** Created by {@link #FACTORY} */
+    public JpegAdobeIRBSegmentPlugin(byte[] data, int offset, int length) {
+        super(data, offset, length);
+    }
+
 }
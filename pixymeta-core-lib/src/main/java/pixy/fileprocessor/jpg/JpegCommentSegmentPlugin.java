@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.image.Comments;
@@ -9,17 +11,25 @@ import pixy.meta.image.Comments;
  * Created by k3b on 11.07.2016.
  */
 public class JpegCommentSegmentPlugin extends Comments {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegCommentSegmentPlugin(JpgSegmentPluginFactory.toByteArray(data, offset, length));
+        }
+    };
+
     static {
         JpgSegmentPluginFactory.register(MetadataType.COMMENT, JpegSegmentMarker.JPG_SEGMENT_COMMNENTS_COM,
-                null, JpegCommentSegmentPlugin.class, CommentTag.getClass());
+                null, JpegCommentSegmentPlugin.class, FACTORY, CommentTag.getClass());
         JpgSegmentPluginFactory.register(MetadataType.COMMENT, JpegSegmentMarker.JPG_SEGMENT_COMMENT_APP10,
-                null, JpegCommentSegmentPlugin.class, CommentTag.getClass());
+                null, JpegCommentSegmentPlugin.class, FACTORY, CommentTag.getClass());
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
+    /** Created by {@link #FACTORY} */
     public JpegCommentSegmentPlugin(byte[] data) {
         super(data);
     }
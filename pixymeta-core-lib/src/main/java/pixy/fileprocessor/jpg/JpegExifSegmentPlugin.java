@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.exif.ExifCompositeTag;
@@ -15,18 +17,30 @@ import pixy.fileprocessor.jpg.JpegMetaDef;
  * Created by k3b on 09.07.2016.
  */
 public class JpegExifSegmentPlugin extends JpegExif {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegExifSegmentPlugin(data, offset, length);
+        }
+    };
+
     static {
         JpgSegmentPluginFactory.register(MetadataType.EXIF, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1,
-                JpegMetaDef.EXIF_ID, JpegExifSegmentPlugin.class,
+                JpegMetaDef.EXIF_ID, JpegExifSegmentPlugin.class, FACTORY,
                 ExifSubTag.class, GPSTag.class, ExifImageTag.class, ExifCompositeTag.class);
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
     public JpegExifSegmentPlugin(byte[] data) {
         super(data);
     }
 
+    /** Created by {@link #FACTORY} */
+    public JpegExifSegmentPlugin(byte[] data, int offset, int length) {
+        super(data, offset, length);
+    }
+
 }
@@ -2,15 +2,14 @@ package pixy.fileprocessor.jpg;
 
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-
+import pixy.api.IFieldValue;
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
-import pixy.io.IOUtils;
 import pixy.meta.MetadataType;
+import pixy.meta.jpeg.ExtendedXmpBuffer;
 import pixy.meta.jpeg.JpegXMP;
 import pixy.meta.xmp.XmpTag;
-import pixy.string.XMLUtils;
-import pixy.util.ArrayUtils;
 
 /**
  * A jpg-file specific {@link JpegXMP} plugin for {@link JpgFileProcessor}
@@ -20,13 +19,21 @@ public class JpegXMPSegmentPlugin extends JpegXMP {
     // Obtain a logger instance
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(JpegXMPSegmentPlugin.class);
 
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegXMPSegmentPlugin(data, offset, length);
+        }
+    };
+
     static {
         JpgSegmentPluginFactory.register(MetadataType.XMP, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1,
-                JpegMetaDef.XMP_ID, JpegXMPSegmentPlugin.class);
+                JpegMetaDef.XMP_ID, JpegXMPSegmentPlugin.class, FACTORY, XmpTag.class);
         JpgSegmentPluginFactory.register(MetadataType.XMP, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1,
-                JpegMetaDef.NON_STANDARD_XMP_ID, JpegXMPSegmentPlugin.class);
+                JpegMetaDef.NON_STANDARD_XMP_ID, JpegXMPSegmentPlugin.class, FACTORY);
         JpgSegmentPluginFactory.register(MetadataType.XMP, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1,
-                JpegMetaDef.XMP_EXT_ID, JpegXMPSegmentPlugin.class);
+                JpegMetaDef.XMP_EXT_ID, JpegXMPSegmentPlugin.class, FACTORY);
     }
 
     /**
@@ -35,75 +42,80 @@ public class JpegXMPSegmentPlugin extends JpegXMP {
     public static void register() {
     }
 
-    /**
-     * Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory}
-     */
     public JpegXMPSegmentPlugin(byte[] data) {
         super(data);
     }
 
-    private byte[] extendedXMP = null;
+    /** Created by {@link #FACTORY} */
+    public JpegXMPSegmentPlugin(byte[] data, int offset, int length) {
+        super(data, offset, length);
+    }
+
+    /** if true the reassembled extended xmp is only used if its md5 matches the GUID */
+    private boolean verifyExtendedXmpChecksum = false;
+
+    /** chunks of the extended xmp collected so far or null if there are none */
+    private ExtendedXmpBuffer extendedXMP = null;
+
+    /** if true the reassembled extended xmp is only used if its md5 matches the GUID */
+    public JpegXMPSegmentPlugin setVerifyExtendedXmpChecksum(boolean verifyExtendedXmpChecksum) {
+        this.verifyExtendedXmpChecksum = verifyExtendedXmpChecksum;
+        return this;
+    }
 
     /**
-     * data non-null: collect extendedXMP without processing.
+     * data non-null: collect extendedXMP chunk (behind the XMP_EXT_ID sub marker) without processing.
      * data null: start processing extended xmp if available
      * @param data
      */
     @Override
     public void merge(byte[] data) {
         if (data != null) {
-            // We found ExtendedXMP, add the data to ExtendedXMP memory buffer
-
-            String xmpGUID = XMLUtils.getAttribute(getXmpDocument(), XmpTag.Note_HasExtendedXMP.getXmlElementName(), XmpTag.Note_HasExtendedXMP.getAttribute());
-
-            int i = 0;
-            // 128-bit MD5 digest of the full ExtendedXMP serialization
-            String guid = new String(data, i, i + 32); //  ArrayUtils.subArray(data, i, 32);
-            if (Arrays.equals(guid.getBytes(), xmpGUID.getBytes())) { // We have matched the GUID, copy it
-                i += 32;
-                long extendedXMPLength = IOUtils.readUnsignedIntMM(data, i);
-                i += 4;
-                //!!! else assert extendedXMPLength == extendedXMP.size
-                // Offset for the current jpegSegment
-                long offset = IOUtils.readUnsignedIntMM(data, i);
-                i += 4;
-                final int curSegmentDataLenght = data.length - i; // -41
-
-                final String mergeContext = offset +
-                        ".." + (offset + curSegmentDataLenght) +
-                        " > " + extendedXMPLength;
-                if (extendedXMP == null) {
-                    if (extendedXmpLogging) {
-                        LOGGER.info(this.getClass().getSimpleName() + ".merge create extendet: " + mergeContext);
-                    }
-                    extendedXMP = new byte[(int) extendedXMPLength];
-                } else {
-                    if (extendedXMPLength != extendedXMP.length) {
-                        String dbg = new String(data);
-                        LOGGER.error(this.getClass().getSimpleName()
-                                + ".merge create append size mismatch: got " + extendedXMPLength +
-                                ". expected " + extendedXMP.length +
-                                " for " + mergeContext+ "\n" + dbg);
-                        return;
-                    }
-                    if (extendedXmpLogging) {
-                        LOGGER.info(this.getClass().getSimpleName() + ".merge append extendet: " + mergeContext);
-                    }
-                }
+            merge(data, 0, data.length);
+        } else {
+            mergeExtendedXmp();
+        }
+    }
+
+    /** collects the extendedXMP chunk in the slice of data: it is copied only once into the buffer */
+    @Override
+    public void merge(byte[] data, int offset, int length) {
+        if (data == null) {
+            mergeExtendedXmp();
+        } else {
+            if (extendedXMP == null) {
+                IFieldValue xmpGUID = getValue(XmpTag.Note_HasExtendedXMP);
+                extendedXMP = new ExtendedXmpBuffer((xmpGUID == null) ? null : xmpGUID.getValueAsString());
+            }
 
-                byte[] xmpBytes = ArrayUtils.subArray(data, i, curSegmentDataLenght);
-                System.arraycopy(xmpBytes, 0, extendedXMP, (int) offset, xmpBytes.length);
+            if (extendedXMP.add(data, offset, length)) {
+                if (extendedXmpLogging) {
+                    LOGGER.info(this.getClass().getSimpleName() + ".merge extended: "
+                            + extendedXMP.getReceivedLength() + " bytes received");
+                }
             } else {
-                String dbg = new String(data);
+                String guid = new String(data, offset, Math.min(length, ExtendedXmpBuffer.GUID_LEN));
                 LOGGER.error(this.getClass().getSimpleName()
-                        + ".merge ignoring wrong guid: got " + guid +
-                        ". expected " + xmpGUID +
-                        " for \n" + dbg);
+                        + ".merge ignoring repeated or invalid extended xmp chunk: got guid " + guid +
+                        ". expected " + extendedXMP.getGuid());
             }
-        } else if (extendedXMP != null) {
+        }
+    }
+
+    private void mergeExtendedXmp() {
+        if (extendedXMP != null) {
             // here actual merging happens
-            super.merge(extendedXMP);
+            ExtendedXmpBuffer extended = extendedXMP;
             extendedXMP = null;
+            if (!extended.isComplete()) {
+                LOGGER.error(this.getClass().getSimpleName() + ".merge ignoring incomplete extended xmp: got "
+                        + extended.getReceivedLength() + " bytes");
+            } else if (verifyExtendedXmpChecksum && !extended.isChecksumValid()) {
+                LOGGER.error(this.getClass().getSimpleName() + ".merge ignoring extended xmp with wrong md5: "
+                        + extended.getGuid());
+            } else {
+                super.merge(extended.getData());
+            }
         }
     }
 
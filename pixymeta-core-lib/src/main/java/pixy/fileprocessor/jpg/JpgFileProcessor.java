@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import pixy.api.DebuggableBase;
 import pixy.api.IFieldDefinition;
@@ -15,7 +16,6 @@ import pixy.api.IMetadata;
 import pixy.image.jpeg.JpegSegment;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.image.jpeg.UnknownSegment;
-import pixy.io.FileCacheRandomAccessInputStream;
 import pixy.io.IOUtils;
 import pixy.io.RandomAccessInputStream;
 import pixy.meta.MetadataType;
@@ -44,10 +44,37 @@ public class JpgFileProcessor extends DebuggableBase {
     // interpreted meta data
     private Map<MetadataType, IMetadata> metadataMap = new HashMap<MetadataType, IMetadata>();
 
+    // segments that could not be interpreted
+    private final List<JpgSegmentPluginFactory.CreateResult> errors = new ArrayList<JpgSegmentPluginFactory.CreateResult>();
+
     private final InputStream is;
 
+    /** the metadata types to be loaded or null to load all segments */
+    private final Set<MetadataType> metadataTypes;
+
+    /** if true the reassembled extended xmp is only used if its md5 matches the GUID */
+    private boolean verifyExtendedXmpChecksum = false;
+
     public JpgFileProcessor(InputStream is) {
+        this(is, null);
+    }
+
+    /**
+     * @param metadataTypes the metadata types to be loaded (i.e. EnumSet.of(MetadataType.EXIF))
+     *                      or null to load all segments.
+     *                      The payload of all other segments is skipped without being read into memory.
+     *                      Skipped segments are not written by {@link #save(OutputStream)}
+     *                      so use it for reading only.
+     */
+    public JpgFileProcessor(InputStream is, Set<MetadataType> metadataTypes) {
         this.is = is;
+        this.metadataTypes = metadataTypes;
+    }
+
+    /** if true the reassembled extended xmp is only used if its md5 matches the GUID */
+    public JpgFileProcessor setVerifyExtendedXmpChecksum(boolean verifyExtendedXmpChecksum) {
+        this.verifyExtendedXmpChecksum = verifyExtendedXmpChecksum;
+        return this;
     }
 
     public void load() throws IOException {
@@ -70,7 +97,7 @@ public class JpgFileProcessor extends DebuggableBase {
         }
         // Close the input stream in case it's an instance of RandomAccessInputStream
         if(is instanceof RandomAccessInputStream) {
-            ((FileCacheRandomAccessInputStream) is).shallowClose();
+            ((RandomAccessInputStream) is).shallowClose();
         }
     }
 
@@ -91,7 +118,8 @@ public class JpgFileProcessor extends DebuggableBase {
         currentJpegSegmentMarkerCode = IOUtils.readShortMM(is);
         currentJpegSegmentMarker = JpegSegmentMarker.fromShort(currentJpegSegmentMarkerCode);
 
-        while (currentJpegSegmentMarker != JpegSegmentMarker.SOS) { // Read through and add the jpegSegments to a list until SOS
+        // Read through and add the jpegSegments to a list until SOS
+        while ((currentJpegSegmentMarker != JpegSegmentMarker.SOS) && !isLoadComplete()) {
             if (currentJpegSegmentMarker == JpegSegmentMarker.JPG_SEGMENT_PADDING) {
                 // padding without prior segment
                 int paddingCount = 1; // 2 bytes of current marker minus first 0xff of next marker
@@ -113,6 +141,7 @@ public class JpgFileProcessor extends DebuggableBase {
                     IOUtils.skipFully(is, segLengthInclMarker - 2);
                 } else {
                     // copy segment to buffer
+                    // null if skipped because its metadata type was not requested
                     lastSegment = onReadSegment(is, jpegSegments, segLengthInclMarker, currentJpegSegmentMarker);
                 }
                 currentJpegSegmentMarkerCode = IOUtils.readShortMM(is);
@@ -138,6 +167,15 @@ public class JpgFileProcessor extends DebuggableBase {
         return jpegSegments;
     }
 
+    /**
+     * To be overwritten: if reading of segments can stop before SOS is reached
+     * because all required data has been found.
+     * The stream is then positioned behind the marker of the next segment.
+     */
+    protected boolean isLoadComplete() {
+        return false;
+    }
+
     /**
      * To be overwritten: if segmentes should not be processed and not be copied to outputstream
      *
@@ -148,12 +186,23 @@ public class JpgFileProcessor extends DebuggableBase {
         return false;
     }
 
-    /** load one un-interpreted meta data segment from jpg */
+    /**
+     * load one un-interpreted meta data segment from jpg.
+     *
+     * @return the segment or null if it was skipped because it does not contain one
+     * of the requested metadata types.
+     */
     protected JpegSegment onReadSegment(InputStream is, List<JpegSegment> jpegSegments,
                                int segLengthInclMarker,
                                JpegSegmentMarker currentJpegSegmentMarker) throws IOException {
-        byte[] buf = new byte[segLengthInclMarker-2];
-        IOUtils.readFully(is, buf);
+        byte[] buf;
+        if (metadataTypes == null) {
+            buf = new byte[segLengthInclMarker - 2];
+            IOUtils.readFully(is, buf);
+        } else {
+            buf = readSegmentIfRequested(is, segLengthInclMarker - 2, currentJpegSegmentMarker);
+            if (buf == null) return null;
+        }
         JpegSegment segment;
         if (currentJpegSegmentMarker == JpegSegmentMarker.JPG_SEGMENT_UNKNOWN) {
             segment = new UnknownSegment(currentJpegSegmentMarker.getValue(), buf);
@@ -164,8 +213,40 @@ public class JpgFileProcessor extends DebuggableBase {
         return segment;
     }
 
+    /**
+     * Reads the sub marker of the segment to find out its metadata type.
+     *
+     * @return the content of the segment or null if the rest of it was skipped
+     * because its metadata type was not requested.
+     */
+    private byte[] readSegmentIfRequested(InputStream is, int length,
+                                          JpegSegmentMarker currentJpegSegmentMarker) throws IOException {
+        int headerLength = Math.min(length, JpgSegmentPluginFactory.getMaxSubMarkerLength());
+        byte[] header = new byte[headerLength];
+        IOUtils.readFully(is, header);
+
+        JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(currentJpegSegmentMarker, header, 0, headerLength);
+        if ((definition == null) || !isRequested(definition.getMetadataType())) {
+            IOUtils.skipFully(is, length - headerLength);
+            return null;
+        }
+
+        byte[] buf = new byte[length];
+        System.arraycopy(header, 0, buf, 0, headerLength);
+        IOUtils.readFully(is, buf, headerLength, length - headerLength);
+        return buf;
+    }
+
+    /** @return true if segments of metadataType have to be loaded */
+    protected boolean isRequested(MetadataType metadataType) {
+        if (metadataTypes == null) return true;
+        if (metadataTypes.contains(metadataType)) return true;
+
+        // iptc is embedded in the photoshop segment
+        return (metadataType == MetadataType.PHOTOSHOP_IRB) && metadataTypes.contains(MetadataType.IPTC);
+    }
+
     protected void interpretAllJpgSegments(List<JpegSegment> jpegSegments) {
-        dataParsed = true;
         if (jpegSegments != null) {
             for (JpegSegment segment : jpegSegments) {
                 if (segment != null) {
@@ -173,43 +254,83 @@ public class JpgFileProcessor extends DebuggableBase {
                 }
             }
         }
+        finishInterpretation();
+    }
+
+    /**
+     * Called after all segments have been interpreted: extracts the embedded iptc and
+     * merges the extended xmp.
+     */
+    protected void finishInterpretation() {
+        dataParsed = true;
+        IMetadata iptc = createIptc();
+        if (iptc != null) {
+            metadataMap.put(MetadataType.IPTC, iptc);
+        }
 
+        IMetadata xmp = metadataMap.get(MetadataType.XMP);
+        if ((xmp != null)) {
+            if (xmp instanceof JpegXMPSegmentPlugin) {
+                ((JpegXMPSegmentPlugin) xmp).setVerifyExtendedXmpChecksum(verifyExtendedXmpChecksum);
+            }
+            xmp.merge(null); // non-null: collect extendedXMP without processing. null: start processing extended xmp if available
+        }
+    }
+
+    /** @return IPTC extracted from the photoshop segment as stand-alone meta or null if there is none */
+    private IMetadata createIptc() {
         AdobeIRBSegment adobeIrbSegment = (AdobeIRBSegment) metadataMap.get(MetadataType.PHOTOSHOP_IRB);
         if ((adobeIrbSegment != null)) {
             AdobyMetadataBase iptc = adobeIrbSegment.get8BIM(ImageResourceID.IPTC_NAA.getValue());
 
-            // Extract IPTC as stand-alone meta
             if (iptc != null) {
-                metadataMap.put(MetadataType.IPTC, new IPTC(iptc.getData()));
+                return new IPTC(iptc.getData());
             }
         }
+        return null;
+    }
 
-        IMetadata xmp = metadataMap.get(MetadataType.XMP);
-        if ((xmp != null)) {
-            xmp.merge(null); // non-null: collect extendedXMP without processing. null: start processing extended xmp if available
+    /**
+     * @return the metadata of the segments that have been interpreted so far
+     * without interpreting the remaining segments or null if there is none.
+     */
+    protected IMetadata getInterpretedMetadata(MetadataType metadataType) {
+        IMetadata result = metadataMap.get(metadataType);
+        if ((result == null) && !dataParsed && (metadataType == MetadataType.IPTC)) {
+            // not cached: the photoshop segment may be continued in the next segment
+            result = createIptc();
         }
+        return result;
     }
 
     protected void interpretJpgSegment(JpegSegment jpegSegment) {
-        final byte[] jpegSegmentData = jpegSegment.getData();
+        // work on the buffer of the segment without copying it
+        final byte[] jpegSegmentData = jpegSegment.getDataBuffer();
+        final int offset = jpegSegment.getDataOffset();
+        final int length = jpegSegment.getDataLength();
         final JpegSegmentMarker jpegSegmentMarker = jpegSegment.getJpegSegmentMarker();
-        JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(jpegSegmentMarker, jpegSegmentData);
+        JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(jpegSegmentMarker, jpegSegmentData, offset, length);
         if (definition != null) {
             IMetadata meta = metadataMap.get(definition.getMetadataType());
 
             if (meta == null) {
-                meta = definition.create(jpegSegmentData);
-                if (meta != null) {
-                    metadataMap.put(definition.getMetadataType(), meta);
+                JpgSegmentPluginFactory.CreateResult result = definition.tryCreate(jpegSegmentData, offset, length);
+                if (result.isSuccess()) {
+                    metadataMap.put(definition.getMetadataType(), result.getMetadata());
+                } else {
+                    errors.add(result);
+                    if (isDebugEnabled()) debug("Cannot interpret jpeg segment: " + result);
                 }
             } else {
-                meta.merge(definition.getBytesWithoutHeader(jpegSegmentData));
+                // the slice behind the sub marker: the metadata copies only what it keeps
+                final int subMarkerLen = definition.getSubMarkerLength();
+                meta.merge(jpegSegmentData, offset + subMarkerLen, length - subMarkerLen);
             }
         } else  if (isDebugEnabled()) {
             String message = "Unknown jpeg segment: " + jpegSegmentMarker;
-            int len = IOUtils.find(jpegSegmentData, (byte) 0, (byte) 31, 0);
+            int len = (jpegSegmentData == null) ? -1 : IOUtils.find(jpegSegmentData, (byte) 0, (byte) 31, offset) - offset;
             if ((len > 0) && (len < 40)) {
-                message += "+" + new String(jpegSegmentData, 0, len);
+                message += "+" + new String(jpegSegmentData, offset, len);
             }
             debug(message);
         }
@@ -243,6 +364,13 @@ public class JpgFileProcessor extends DebuggableBase {
         return metadataMap;
     }
 
+    /** @return the segments that could not be interpreted by {@link #getMetadataMap()} */
+    public List<JpgSegmentPluginFactory.CreateResult> getErrors() {
+        if (!dataParsed) interpretAllJpgSegments(this.jpegSegments);
+
+        return errors;
+    }
+
     public IFieldValue getValue(IFieldDefinition tag) {
         JpgSegmentPluginFactory found = JpgSegmentPluginFactory.find(tag.getClass());
         MetadataType metadataType = (found == null) ? null : found.getMetadataType();
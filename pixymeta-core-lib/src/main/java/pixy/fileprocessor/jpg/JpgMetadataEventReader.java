@@ -0,0 +1,178 @@
+package pixy.fileprocessor.jpg;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import pixy.image.jpeg.JpegSegmentMarker;
+import pixy.io.ByteArrayRandomAccessInputStream;
+import pixy.io.IOUtils;
+import pixy.meta.MetadataEventReader;
+import pixy.meta.MetadataType;
+
+/**
+ * {@link MetadataEventReader} for jpg files: walks the segments like
+ * {@link JpgFileProcessor#onReadSegments(InputStream)} until SOS is reached.
+ *
+ * * every APPn and COM segment is reported as START_SEGMENT ... END_SEGMENT.
+ *   Other segments (i.e. quantization tables) are skipped.
+ * * the payload of a segment is only read if its content is requested by calling next()
+ *   after START_SEGMENT. {@link #skipSegment()} skips it without reading it into memory.
+ * * exif is reported as IFD events, photoshop APP13 as IPTC events and xmp as XMP events.
+ */
+public class JpgMetadataEventReader extends MetadataEventReader {
+    private final InputStream is;
+
+    /** payload of the current segment. Reused for all segments */
+    private byte[] buffer = new byte[1024];
+
+    private boolean started = false;
+    private boolean inSegment = false;
+    private boolean contentPending = false;
+
+    /** length of the payload of the current segment */
+    private int segmentLength = 0;
+
+    /** number of bytes of the current segment that are already in buffer */
+    private int bufferedLength = 0;
+
+    /** length of the sub marker (i.e. "Exif\0\0") of the current segment */
+    private int subMarkerLength = 0;
+
+    public JpgMetadataEventReader(InputStream is) {
+        JpegMetaDef.register();
+        this.is = is;
+    }
+
+    @Override
+    protected Event nextContainerEvent() throws IOException {
+        if (!started) {
+            started = true;
+            if (JpegSegmentMarker.fromShort(IOUtils.readShortMM(is)) != JpegSegmentMarker.JPG_SEGMENT_START_OF_IMAGE_SOI) {
+                throw new IOException("Invalid JPEG image, expected JPG_SEGMENT_START_OF_IMAGE_SOI currentJpegSegmentMarkerCode not found!");
+            }
+        }
+
+        if (inSegment) {
+            if (contentPending) {
+                contentPending = false;
+                Event event = startContent();
+                if (event != null) return event;
+            }
+            IOUtils.skipFully(is, segmentLength - bufferedLength);
+            inSegment = false;
+            return Event.END_SEGMENT;
+        }
+
+        while (true) {
+            short code = readMarker();
+            JpegSegmentMarker marker = JpegSegmentMarker.fromShort(code);
+            if ((marker == JpegSegmentMarker.SOS) || (marker == JpegSegmentMarker.JPG_SEGMENT_END_OF_IMAGE_EOI)) {
+                return Event.END_DOCUMENT;
+            }
+
+            segmentLength = IOUtils.readUnsignedShortMM(is) - 2;
+            if (!isMetadataSegment(code)) {
+                IOUtils.skipFully(is, segmentLength);
+                continue;
+            }
+
+            // the sub marker determines the metadata type
+            int headerLength = Math.min(segmentLength, JpgSegmentPluginFactory.getMaxSubMarkerLength());
+            bufferedLength = 0;
+            ensureBuffer(headerLength);
+            bufferedLength = headerLength;
+            IOUtils.readFully(is, buffer, 0, bufferedLength);
+
+            JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(marker, buffer, 0, bufferedLength);
+            MetadataType metadataType = (definition == null) ? null : definition.getMetadataType();
+            String subMarker = (definition == null) ? null : definition.getSubMarker();
+            subMarkerLength = (subMarker == null) ? 0 : subMarker.length();
+            inSegment = true;
+            contentPending = true;
+
+            Event event = startSegment(metadataType);
+            if (marker == JpegSegmentMarker.JPG_SEGMENT_COMMNENTS_COM) {
+                // comments are small: available with getString() at START_SEGMENT
+                readSegment();
+                setValue(buffer, 0, segmentLength);
+            }
+            return event;
+        }
+    }
+
+    /** @return the first content event of the current segment or null if it has none */
+    private Event startContent() throws IOException {
+        MetadataType metadataType = getMetadataType();
+        if (metadataType == MetadataType.EXIF) {
+            readSegment();
+            return startTiff(new ByteArrayRandomAccessInputStream(buffer, subMarkerLength, segmentLength - subMarkerLength),
+                    segmentLength - subMarkerLength);
+        }
+        if (metadataType == MetadataType.PHOTOSHOP_IRB) {
+            readSegment();
+            return startPhotoshopIrb(buffer, subMarkerLength, segmentLength - subMarkerLength);
+        }
+        if ((metadataType == MetadataType.XMP) && startsWith(JpegMetaDef.XMP_ID)) {
+            // extended xmp is a fragment without properties of its own
+            readSegment();
+            return startXmp(buffer, subMarkerLength, segmentLength - subMarkerLength);
+        }
+        return null;
+    }
+
+    @Override
+    protected void onSkipSegment() {
+        contentPending = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        is.close();
+    }
+
+    /** reads the rest of the current segment into buffer */
+    private void readSegment() throws IOException {
+        if (bufferedLength < segmentLength) {
+            ensureBuffer(segmentLength);
+            IOUtils.readFully(is, buffer, bufferedLength, segmentLength - bufferedLength);
+            bufferedLength = segmentLength;
+        }
+    }
+
+    private void ensureBuffer(int size) {
+        if (buffer.length < size) {
+            byte[] newBuffer = new byte[Math.max(size, 2 * buffer.length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, bufferedLength);
+            buffer = newBuffer;
+        }
+    }
+
+    private boolean startsWith(String subMarker) {
+        if (subMarkerLength != subMarker.length()) return false;
+        for (int i = 0; i < subMarkerLength; i++) {
+            if (buffer[i] != subMarker.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** @return the next marker. Padding 0xff bytes in front of it are skipped */
+    private short readMarker() throws IOException {
+        short code = IOUtils.readShortMM(is);
+        if (code == JpegSegmentMarker.JPG_SEGMENT_PADDING.getValue()) {
+            int nextByte;
+            while ((nextByte = IOUtils.read(is)) == 0xff) {
+                // skip padding
+            }
+            // last 0xff is first part of next marker
+            code = (short) ((0xff << 8) | nextByte);
+        }
+        return code;
+    }
+
+    /** @return true for APPn and COM segments */
+    private static boolean isMetadataSegment(short code) {
+        int unsigned = code & 0xffff;
+        return ((unsigned >= 0xffe0) && (unsigned <= 0xffef))
+                || (code == JpegSegmentMarker.JPG_SEGMENT_COMMNENTS_COM.getValue());
+    }
+}
@@ -4,11 +4,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import pixy.api.IFieldDefinition;
 import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.io.IOUtils;
 import pixy.meta.MetadataType;
@@ -22,60 +29,243 @@ public class JpgSegmentPluginFactory {
     // Obtain a logger instance
     private static final Logger LOGGER = LoggerFactory.getLogger(JpgSegmentPluginFactory.class);
 
+    // sub markers are plain ascii, independent of the platform charset
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
     static List<JpgSegmentPluginFactory> factories = new ArrayList<JpgSegmentPluginFactory>();
 
+    /**
+     * factories indexed by segment marker in registration order.
+     * Copy on write: it is replaced as a whole by {@link #register}.
+     */
+    private static volatile Map<JpegSegmentMarker, JpgSegmentPluginFactory[]> factoriesByMarker =
+            new EnumMap<JpegSegmentMarker, JpgSegmentPluginFactory[]>(JpegSegmentMarker.class);
+
+    /** cache for {@link #find(Class)}. Contains null values for classes without factory. */
+    private static final Map<Class<? extends IFieldDefinition>, JpgSegmentPluginFactory> factoriesByFieldDefClass =
+            new HashMap<Class<? extends IFieldDefinition>, JpgSegmentPluginFactory>();
+
     private final MetadataType metadataType;
     private final JpegSegmentMarker segmentMarker;
     private final String subMarker;
+    // subMarker as bytes to compare with the segment data without allocation
+    private final byte[] subMarkerBytes;
     private final Class<? extends IMetadata> metadataClass;
-    private final Class<? extends IFieldDefinition>[] fieldDefClasses;
-    private static boolean debug = true;
+    private final List<Class<? extends IFieldDefinition>> fieldDefClasses;
+    // creates the metadata without reflection
+    private final IMetadataFactory metadataFactory;
+    // length of the longest subMarker of all registered factories
+    private static volatile int maxSubMarkerLength = 0;
+    // true: created metadata collect their debug messages
+    private static boolean debug = false;
+    // true: every lookup is logged. Off by default because find() is called for every segment.
+    private static boolean debugFind = false;
 
     private JpgSegmentPluginFactory(MetadataType metadataType, JpegSegmentMarker segmentMarker
             , String subMarker
             , Class<? extends IMetadata> metadataClass
-            , Class<? extends IFieldDefinition>... fieldDefClasses) {
+            , IMetadataFactory metadataFactory
+            , List<Class<? extends IFieldDefinition>> fieldDefClasses) {
         this.metadataType = metadataType;
         this.segmentMarker = segmentMarker;
         this.subMarker = subMarker;
+        this.subMarkerBytes = (subMarker == null) ? null : subMarker.getBytes(US_ASCII);
         this.metadataClass = metadataClass;
+        this.metadataFactory = metadataFactory;
         this.fieldDefClasses = fieldDefClasses;
     }
 
-    /** each plugin implementation registeres here in it-s static constructor */
+    /**
+     * Creates metadata of metadataClass via reflection for plugins that do not
+     * provide an {@link IMetadataFactory}. Uses the constructor
+     * (byte[] data, int offset, int length) if available, else (byte[] data) with a copy of the slice.
+     */
+    public static class ReflectionMetadataFactory implements IMetadataFactory {
+        private final Class<? extends IMetadata> metadataClass;
+        // zero-copy constructor of metadataClass or null
+        private final Constructor<? extends IMetadata> sliceConstructor;
+
+        public ReflectionMetadataFactory(Class<? extends IMetadata> metadataClass) {
+            this.metadataClass = metadataClass;
+            Constructor<? extends IMetadata> constructor;
+            try {
+                constructor = metadataClass.getConstructor(byte[].class, int.class, int.class);
+            } catch (NoSuchMethodException e) {
+                constructor = null;
+            }
+            this.sliceConstructor = constructor;
+        }
+
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            try {
+                if (sliceConstructor != null) {
+                    return sliceConstructor.newInstance(data, offset, length);
+                }
+                return metadataClass.getConstructor(byte[].class).newInstance(toByteArray(data, offset, length));
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IllegalStateException("Cannot create " + metadataClass.getSimpleName(), cause);
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot create " + metadataClass.getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * The result of {@link #tryCreate(byte[], int, int)}: either the metadata or the error
+     * that prevented its creation.
+     */
+    public static class CreateResult {
+        private final JpgSegmentPluginFactory factory;
+        private final IMetadata metadata;
+        private final RuntimeException error;
+
+        private CreateResult(JpgSegmentPluginFactory factory, IMetadata metadata, RuntimeException error) {
+            this.factory = factory;
+            this.metadata = metadata;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return metadata != null;
+        }
+
+        /** @return the created metadata or null on error */
+        public IMetadata getMetadata() {
+            return metadata;
+        }
+
+        /** @return the cause of the failure or null on success */
+        public RuntimeException getError() {
+            return error;
+        }
+
+        public JpgSegmentPluginFactory getFactory() {
+            return factory;
+        }
+
+        @Override public String toString() {
+            return factory + ((error == null) ? " : ok" : " : " + error);
+        }
+    }
+
+    /**
+     * each plugin implementation registeres here in it-s static constructor.
+     *
+     * The metadata is created via reflection.
+     * Use {@link #register(MetadataType, JpegSegmentMarker, String, Class, IMetadataFactory, Class[])} instead.
+     */
+    @SafeVarargs
     public static JpgSegmentPluginFactory register(MetadataType metadataType
             , JpegSegmentMarker segmentMarker, String subMarker
             , Class<? extends IMetadata> metadataClass
             , Class<? extends IFieldDefinition>... fieldDefClasses) {
+        return register(metadataType, segmentMarker, subMarker, metadataClass,
+                new ReflectionMetadataFactory(metadataClass), fieldDefClasses);
+    }
+
+    /**
+     * each plugin implementation registeres here in it-s static constructor.
+     *
+     * @param metadataFactory creates instances of metadataClass from the segment content behind the subMarker
+     */
+    @SafeVarargs
+    public static synchronized JpgSegmentPluginFactory register(MetadataType metadataType
+            , JpegSegmentMarker segmentMarker, String subMarker
+            , Class<? extends IMetadata> metadataClass
+            , IMetadataFactory metadataFactory
+            , Class<? extends IFieldDefinition>... fieldDefClasses) {
         String message = "JpgSegmentPluginFactory.register " + metadataClass.getSimpleName() + "; " + segmentMarker;
         if (subMarker != null) message += " + " + subMarker;
         LOGGER.info(message);
-        final JpgSegmentPluginFactory factory = new JpgSegmentPluginFactory(metadataType, segmentMarker, subMarker, metadataClass, fieldDefClasses);
+        // copy of the varargs array: it is not stored itself
+        List<Class<? extends IFieldDefinition>> fieldDefClassList = new ArrayList<Class<? extends IFieldDefinition>>(fieldDefClasses.length);
+        for (Class<? extends IFieldDefinition> fieldDefClass : fieldDefClasses) {
+            fieldDefClassList.add(fieldDefClass);
+        }
+        final JpgSegmentPluginFactory factory = new JpgSegmentPluginFactory(metadataType, segmentMarker, subMarker, metadataClass, metadataFactory, fieldDefClassList);
         factories.add(factory);
+        if ((factory.subMarkerBytes != null) && (factory.subMarkerBytes.length > maxSubMarkerLength)) {
+            maxSubMarkerLength = factory.subMarkerBytes.length;
+        }
+
+        if (segmentMarker != null) {
+            Map<JpegSegmentMarker, JpgSegmentPluginFactory[]> newFactoriesByMarker =
+                    new EnumMap<JpegSegmentMarker, JpgSegmentPluginFactory[]>(factoriesByMarker);
+            JpgSegmentPluginFactory[] old = newFactoriesByMarker.get(segmentMarker);
+            int oldLength = (old == null) ? 0 : old.length;
+            JpgSegmentPluginFactory[] candidates = new JpgSegmentPluginFactory[oldLength + 1];
+            if (old != null) System.arraycopy(old, 0, candidates, 0, oldLength);
+            candidates[oldLength] = factory;
+            newFactoriesByMarker.put(segmentMarker, candidates);
+            factoriesByMarker = newFactoriesByMarker;
+        }
+        synchronized (factoriesByFieldDefClass) {
+            factoriesByFieldDefClass.clear();
+        }
         return factory;
     }
 
+    /** removes a factory that was added with register, i.e. by tests */
+    public static synchronized void unregister(JpgSegmentPluginFactory factory) {
+        if (!factories.remove(factory)) return;
+
+        int maxLength = 0;
+        for (JpgSegmentPluginFactory candidate : factories) {
+            if ((candidate.subMarkerBytes != null) && (candidate.subMarkerBytes.length > maxLength)) {
+                maxLength = candidate.subMarkerBytes.length;
+            }
+        }
+        maxSubMarkerLength = maxLength;
+
+        JpgSegmentPluginFactory[] old = factoriesByMarker.get(factory.segmentMarker);
+        if (old != null) {
+            Map<JpegSegmentMarker, JpgSegmentPluginFactory[]> newFactoriesByMarker =
+                    new EnumMap<JpegSegmentMarker, JpgSegmentPluginFactory[]>(factoriesByMarker);
+            List<JpgSegmentPluginFactory> candidates = new ArrayList<JpgSegmentPluginFactory>(Arrays.asList(old));
+            candidates.remove(factory);
+            if (candidates.isEmpty()) {
+                newFactoriesByMarker.remove(factory.segmentMarker);
+            } else {
+                newFactoriesByMarker.put(factory.segmentMarker, candidates.toArray(new JpgSegmentPluginFactory[candidates.size()]));
+            }
+            factoriesByMarker = newFactoriesByMarker;
+        }
+        synchronized (factoriesByFieldDefClass) {
+            factoriesByFieldDefClass.clear();
+        }
+    }
+
     public static JpgSegmentPluginFactory find(JpegSegmentMarker marker, byte[] data) {
-        if (data != null) {
-            for (JpgSegmentPluginFactory processor : factories) {
-                if ((processor.segmentMarker != null) && (marker == processor.segmentMarker)) {
-                    String subMarker = processor.subMarker;
-                    final String currentSubMarker = (subMarker == null) ? null : new String(data, 0, subMarker.length());
-                    if ((subMarker == null) || (subMarker.equals(currentSubMarker))) {
-                        if (debug) {
+        return (data == null) ? null : find(marker, data, 0, data.length);
+    }
+
+    /**
+     * same as {@link #find(JpegSegmentMarker, byte[])} for the slice of data starting at offset.
+     * Only the factories registered for marker are compared with the data.
+     */
+    public static JpgSegmentPluginFactory find(JpegSegmentMarker marker, byte[] data, int offset, int length) {
+        if ((data != null) && (marker != null)) {
+            JpgSegmentPluginFactory[] candidates = factoriesByMarker.get(marker);
+            if (candidates != null) {
+                for (JpgSegmentPluginFactory processor : candidates) {
+                    if (processor.matches(data, offset, length)) {
+                        if (debugFind) {
                             String message = "find-byMarker(" + marker;
-                            if (subMarker != null) message += " + " + subMarker;
+                            if (processor.subMarker != null) message += " + " + processor.subMarker;
                             LOGGER.info(message + ") : " + processor);
                         }
                         return processor;
                     }
                 }
             }
-            if (debug) {
+            if (debugFind) {
                 String message = "find-byMarker(" + marker;
-                int len = IOUtils.find(data, (byte) 0, (byte) 31, 0);
+                int len = IOUtils.find(data, (byte) 0, (byte) 31, offset) - offset;
                 if ((len > 0) && (len < 40)) {
-                    message += " + " + new String(data, 0, len);
+                    message += " + " + new String(data, offset, len);
                 }
                 LOGGER.info(message + ") : " + null);
             }
@@ -83,43 +273,110 @@ public class JpgSegmentPluginFactory {
         return null;
     }
 
+    /**
+     * @return number of bytes at the start of a segment that are sufficient
+     * for {@link #find(JpegSegmentMarker, byte[], int, int)} to find the factory.
+     */
+    public static int getMaxSubMarkerLength() {
+        return maxSubMarkerLength;
+    }
+
+    /** @return true if the slice of data starts with subMarker */
+    private boolean matches(byte[] data, int offset, int length) {
+        if (subMarkerBytes == null) return true;
+        if (subMarkerBytes.length > length) return false;
+        for (int i = 0; i < subMarkerBytes.length; i++) {
+            if (data[offset + i] != subMarkerBytes[i]) return false;
+        }
+        return true;
+    }
+
     public static JpgSegmentPluginFactory find(Class<? extends IFieldDefinition> tagClass) {
-        if (tagClass != null) {
-            for (JpgSegmentPluginFactory processor : factories) {
-                if (processor != null) {
-                    for (Class<? extends IFieldDefinition> candidate : processor.fieldDefClasses) {
-                        if (candidate.isAssignableFrom(tagClass))
-                        {
-                            if (debug) LOGGER.info("find-byClass(" + tagClass + ") : " + processor);
-                            return processor;
-                        }
+        if (tagClass == null) {
+            if (debugFind) LOGGER.info("find-byClass(" + tagClass + ") : " + null);
+            return null;
+        }
+        synchronized (factoriesByFieldDefClass) {
+            if (factoriesByFieldDefClass.containsKey(tagClass)) {
+                return factoriesByFieldDefClass.get(tagClass);
+            }
+        }
+        JpgSegmentPluginFactory result = findUncached(tagClass);
+        synchronized (factoriesByFieldDefClass) {
+            factoriesByFieldDefClass.put(tagClass, result);
+        }
+        return result;
+    }
+
+    private static synchronized JpgSegmentPluginFactory findUncached(Class<? extends IFieldDefinition> tagClass) {
+        for (JpgSegmentPluginFactory processor : factories) {
+            if (processor != null) {
+                for (Class<? extends IFieldDefinition> candidate : processor.fieldDefClasses) {
+                    if (candidate.isAssignableFrom(tagClass))
+                    {
+                        if (debugFind) LOGGER.info("find-byClass(" + tagClass + ") : " + processor);
+                        return processor;
                     }
                 }
             }
         }
-        if (debug) LOGGER.info("find-byClass(" + tagClass + ") : " + null);
+        if (debugFind) LOGGER.info("find-byClass(" + tagClass + ") : " + null);
         return null;
     }
 
     public IMetadata create(byte[] data) {
+        return create(data, 0, data.length);
+    }
+
+    /**
+     * Creates the metadata from the slice of data that starts with the sub marker.
+     *
+     * @return the metadata or null if it cannot be created. Use {@link #tryCreate(byte[], int, int)} to get the cause.
+     */
+    public IMetadata create(byte[] data, int offset, int length) {
+        CreateResult result = tryCreate(data, offset, length);
+        if (!result.isSuccess()) {
+            LOGGER.error("create " + this, result.getError());
+        }
+        return result.getMetadata();
+    }
+
+    /**
+     * Creates the metadata from the slice of data that starts with the sub marker.
+     */
+    public CreateResult tryCreate(byte[] data, int offset, int length) {
+        final int subMarkerLen = (subMarkerBytes == null) ? 0 : subMarkerBytes.length;
         try {
-            data = getBytesWithoutHeader(data);
-            Constructor<? extends IMetadata> constructor = metadataClass.getConstructor(byte[].class);
-            final IMetadata metadata = constructor.newInstance(data);
+            final IMetadata metadata = metadataFactory.create(data, offset + subMarkerLen, length - subMarkerLen);
+            if (metadata == null) {
+                return new CreateResult(this, null, new IllegalStateException("No metadata created"));
+            }
             if (debug) {
                 metadata.setDebugMessageBuffer(new StringBuilder());
             }
-            return metadata;
-        } catch (Exception e) {
-            e.printStackTrace();
+            return new CreateResult(this, metadata, null);
+        } catch (RuntimeException e) {
+            return new CreateResult(this, null, e);
         }
-        return null;
+    }
+
+    /**
+     * @return the slice of data as an array: data itself if the slice covers all of it, else a copy.
+     * For {@link IMetadataFactory}-s of metadata classes without a slice constructor.
+     */
+    public static byte[] toByteArray(byte[] data, int offset, int length) {
+        if ((offset == 0) && (length == data.length)) return data;
+        return ArrayUtils.subArray(data, offset, length);
     }
 
     public byte[] getBytesWithoutHeader(byte[] data) {
-        final int subMarkerLen = (subMarker == null) ? 0 : subMarker.length();
-        data = ArrayUtils.subArray(data, subMarkerLen, data.length - subMarkerLen);
-        return data;
+        final int subMarkerLen = getSubMarkerLength();
+        return ArrayUtils.subArray(data, subMarkerLen, data.length - subMarkerLen);
+    }
+
+    /** @return number of bytes of the sub marker in front of the metadata in a segment */
+    public int getSubMarkerLength() {
+        return (subMarkerBytes == null) ? 0 : subMarkerBytes.length;
     }
 
     @Override public String toString() {
@@ -130,9 +387,15 @@ public class JpgSegmentPluginFactory {
 
     public JpgSegmentPluginFactory setDebug(boolean newDebugValue) {
         debug = newDebugValue;
+        debugFind = newDebugValue;
         return this;
     }
 
+    /** true: created metadata collect their debug messages. Off by default to save the allocations. */
+    public static void setCollectDebugMessages(boolean collect) {
+        debug = collect;
+    }
+
     public JpegSegmentMarker getSegmentMarker() {
         return segmentMarker;
     }
@@ -140,4 +403,12 @@ public class JpgSegmentPluginFactory {
     public MetadataType getMetadataType() {
         return metadataType;
     }
+
+    public String getSubMarker() {
+        return subMarker;
+    }
+
+    public Class<? extends IMetadata> getMetadataClass() {
+        return metadataClass;
+    }
 }
@@ -0,0 +1,186 @@
+package pixy.fileprocessor.jpg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pixy.api.IFieldDefinition;
+import pixy.api.IFieldValue;
+import pixy.api.IMetadata;
+import pixy.image.exifFields.IFD;
+import pixy.image.jpeg.JpegSegment;
+import pixy.image.jpeg.JpegSegmentMarker;
+import pixy.io.ByteArrayRandomAccessInputStream;
+import pixy.meta.MetadataType;
+import pixy.meta.exif.ExifImageTag;
+import pixy.meta.exif.ExifMetaSegment;
+import pixy.meta.exif.ExifSubTag;
+import pixy.meta.exif.GPSTag;
+import pixy.meta.exif.IfdMetaUtils;
+import pixy.meta.exif.Tag;
+
+/**
+ * Reads only some tags from a jpg file (i.e. for indexing) without loading all metadata:
+ *
+ * * only segments that can contain one of the tags are read.
+ * * of the exif segment only IFD0 and the required sub IFDs are read.
+ * * reading stops as soon as all tags have been found.
+ *
+ * Usage: IFieldValue[] values = JpgTagExtractor.extract(is, ExifSubTag.DATE_TIME_ORIGINAL, ExifImageTag.ORIENTATION);
+ */
+public class JpgTagExtractor extends JpgFileProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpgTagExtractor.class);
+
+    private final IFieldDefinition[] tags;
+
+    /** result: values[i] belongs to tags[i] */
+    private final IFieldValue[] values;
+
+    /** number of tags that have not been found yet but might be contained in a segment */
+    private int missingCount = 0;
+
+    /** sub IFDs of the exif segment that are read */
+    private final Set<Class<? extends Tag>> subIfdTagClasses = new HashSet<Class<? extends Tag>>();
+
+    /** IFD0 of the exif segment or null if not read yet */
+    private IFD imageIFD = null;
+
+    private JpgTagExtractor(InputStream is, IFieldDefinition[] tags) {
+        super(is, getMetadataTypes(tags));
+        this.tags = tags;
+        this.values = new IFieldValue[tags.length];
+
+        for (IFieldDefinition tag : tags) {
+            if (findMetadataType(tag) != null) missingCount++;
+            if (tag instanceof ExifSubTag) subIfdTagClasses.add(ExifSubTag.class);
+            if (ExifMetaSegment.Directory.of(tag) == ExifMetaSegment.Directory.GPS) subIfdTagClasses.add(GPSTag.class);
+        }
+    }
+
+    /**
+     * Reads the values of tags from a jpg stream.
+     *
+     * @return the values in the same order as tags. An element is null if the tag was not found.
+     * On return the stream is positioned behind the marker of the segment that follows the segment
+     * containing the last missing tag or behind the SOS marker.
+     */
+    public static IFieldValue[] extract(InputStream is, IFieldDefinition... tags) throws IOException {
+        JpgTagExtractor extractor = new JpgTagExtractor(is, tags);
+        if (extractor.missingCount > 0) {
+            extractor.load();
+            extractor.extractMissing();
+        }
+        return extractor.values;
+    }
+
+    /**
+     * Reads the values of tags from a jpg stream.
+     *
+     * @return the values in the iteration order of tags (i.e. use a LinkedHashSet).
+     * An element is null if the tag was not found.
+     */
+    public static IFieldValue[] extract(InputStream is, Set<? extends IFieldDefinition> tags) throws IOException {
+        return extract(is, tags.toArray(new IFieldDefinition[tags.size()]));
+    }
+
+    private static Set<MetadataType> getMetadataTypes(IFieldDefinition[] tags) {
+        Set<MetadataType> result = EnumSet.noneOf(MetadataType.class);
+        for (IFieldDefinition tag : tags) {
+            MetadataType metadataType = findMetadataType(tag);
+            if (metadataType != null) result.add(metadataType);
+        }
+        return result;
+    }
+
+    private static MetadataType findMetadataType(IFieldDefinition tag) {
+        JpgSegmentPluginFactory found = (tag == null) ? null : JpgSegmentPluginFactory.find(tag.getClass());
+        return (found == null) ? null : found.getMetadataType();
+    }
+
+    @Override
+    protected boolean isLoadComplete() {
+        return missingCount == 0;
+    }
+
+    @Override
+    protected JpegSegment onReadSegment(InputStream is, List<JpegSegment> jpegSegments, int segLengthInclMarker,
+                                        JpegSegmentMarker currentJpegSegmentMarker) throws IOException {
+        JpegSegment segment = super.onReadSegment(is, jpegSegments, segLengthInclMarker, currentJpegSegmentMarker);
+        if (segment != null) {
+            final byte[] data = segment.getDataBuffer();
+            final int offset = segment.getDataOffset();
+            final int length = segment.getDataLength();
+            JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(currentJpegSegmentMarker, data, offset, length);
+
+            if ((definition != null) && (definition.getMetadataType() == MetadataType.EXIF)) {
+                if (imageIFD == null) {
+                    // skip thumbnail and unused sub IFDs of the exif segment
+                    int subMarkerLength = definition.getSubMarker().length();
+                    try {
+                        imageIFD = IfdMetaUtils.readImageIFD(new ByteArrayRandomAccessInputStream(
+                                data, offset + subMarkerLength, length - subMarkerLength), subIfdTagClasses);
+                    } catch (RuntimeException ex) {
+                        // invalid tiff header: the other segments may still contain tags
+                        LOGGER.warn("JpgTagExtractor: ignoring corrupt exif segment: " + ex.getMessage());
+                    } catch (IOException ex) {
+                        // exif data is truncated
+                        LOGGER.warn("JpgTagExtractor: ignoring corrupt exif segment: " + ex.getMessage());
+                    }
+                }
+            } else {
+                interpretJpgSegment(segment);
+            }
+            findMissing();
+        }
+        return segment;
+    }
+
+    /** called after all segments have been read */
+    private void extractMissing() {
+        if (missingCount > 0) {
+            // i.e. extended xmp or iptc spread over several photoshop segments
+            finishInterpretation();
+            findMissing();
+        }
+    }
+
+    private void findMissing() {
+        for (int i = 0; i < tags.length; i++) {
+            if (values[i] == null) {
+                IFieldDefinition tag = tags[i];
+                MetadataType metadataType = findMetadataType(tag);
+                if (metadataType != null) {
+                    values[i] = getValue(tag, metadataType);
+                    if (values[i] != null) missingCount--;
+                }
+            }
+        }
+    }
+
+    private IFieldValue getValue(IFieldDefinition tag, MetadataType metadataType) {
+        if (metadataType == MetadataType.EXIF) {
+            IFD ifd = getExifIfd(ExifMetaSegment.Directory.of(tag));
+            return (ifd == null) ? null : ifd.getValue(tag);
+        }
+        IMetadata metadata = getInterpretedMetadata(metadataType);
+        return (metadata == null) ? null : metadata.getValue(tag);
+    }
+
+    private IFD getExifIfd(ExifMetaSegment.Directory directory) {
+        if ((directory == null) || (imageIFD == null)) return null;
+        switch (directory) {
+            case EXIF:
+                return imageIFD.getChild(ExifImageTag.EXIF_SUB_IFD);
+            case GPS:
+                return imageIFD.getChild(ExifImageTag.GPS_SUB_IFD);
+            default:
+                return imageIFD;
+        }
+    }
+}
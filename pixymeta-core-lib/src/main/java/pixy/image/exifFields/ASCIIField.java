@@ -11,8 +11,10 @@
 package pixy.image.exifFields;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 
 /**
  * TIFF ASCII type field.
@@ -24,24 +26,33 @@ public final class ASCIIField extends ExifField<String> {
 
 	public ASCIIField(pixy.meta.exif.Tag tag, String data) { // ASCII field is NUL- terminated ASCII string
 		super(tag, FieldType.ASCII, data.trim().length() + 1); // Remove white spaces
-		this.data = data.trim() + '\0'; // Add NULL to the end of the string
+		setData(data.trim() + '\0'); // Add NULL to the end of the string
+	}
+
+	/**
+	 * Decodes the string the same way as the constructor is called by IfdMetaUtils.readIFD.
+	 * Not used for lazy fields: the length of an ASCIIField is only known after trimming.
+	 */
+	@Override
+	protected String decode(byte[] source, int offset, ReadStrategy strategy) {
+		return new String(source, offset, getLength(), Charset.forName("UTF-8")).trim() + '\0';
 	}
 
 	@Override
 	public String getDataAsString() {
 		// ASCII field allows for multiple NUL separated strings
-		return data.trim().replace("\0", "; ");
+		return data().trim().replace("\0", "; ");
 	}
 
 	@Override
 	public void setValue(String value) {
-		data = value;
+		setData(value);
 	}
 
 	@Override
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
 		
-		byte[] buf = data.getBytes("iso-8859-1");
+		byte[] buf = data().getBytes("iso-8859-1");
         
 		if (buf.length <= 4) {
 			dataOffset = (int)os.getStreamPointer();
@@ -19,28 +19,47 @@ package pixy.image.exifFields;
 import java.io.IOException;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
-public abstract class AbstractByteField extends ExifField<byte[]> {
+public abstract class AbstractByteField extends AbstractNumericField<byte[]> {
 
 	public AbstractByteField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, byte[] data) {
 		super(tag, fieldType, data.length);
-		this.data = data;
+		setData(data);
+	}
+
+	/** Creates a field that copies its value from source on first access */
+	protected AbstractByteField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int length, byte[] source, int offset) {
+		super(tag, fieldType, length, source, offset, null);
+	}
+
+	@Override
+	protected byte[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		byte[] result = new byte[getLength()];
+		System.arraycopy(source, offset, result, 0, result.length);
+		return result;
 	}
 	
 	public byte[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return data()[index] & 0xff;
 	}
 	
 	public String getDataAsString() {
-		return StringUtils.toHexListString(data, 0, 10);
+		return StringUtils.toHexListString(data(), 0, 10);
 	}
 
 	public void setValue(String value) {
-		data = StringUtils.parseHexByteList(value);
+		setData(StringUtils.parseHexByteList(value));
 	}
 
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final byte[] data = data();
 	
 		if (data.length <= 4) {
 			dataOffset = (int)os.getStreamPointer();
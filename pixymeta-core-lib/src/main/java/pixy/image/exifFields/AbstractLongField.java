@@ -14,17 +14,38 @@ import java.io.IOException;
 
 import pixy.api.IIntableField;
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
-public abstract class AbstractLongField extends ExifField<int[]> implements IIntableField {
+public abstract class AbstractLongField extends AbstractNumericField<int[]> implements IIntableField {
 
 	public AbstractLongField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int[] data) {
 		super(tag, fieldType, data.length);
-		this.data = data;
+		setData(data);
+	}
+
+	/** Creates a field that decodes its value from source on first access */
+	protected AbstractLongField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int length,
+								byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, fieldType, length, source, offset, strategy);
+	}
+
+	@Override
+	protected int[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		int[] result = new int[getLength()];
+		for (int i = 0; i < result.length; i++, offset += 4) {
+			result[i] = strategy.readInt(source, offset);
+		}
+		return result;
 	}
 	
 	public int[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return data()[index];
 	}
 
 	@Override
@@ -36,10 +57,11 @@ public abstract class AbstractLongField extends ExifField<int[]> implements IInt
 	// [var, var, var]
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseIntList(value);
+		setData(StringUtils.parseIntList(value));
 	}
 
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final int[] data = data();
 		
 		if (data.length == 1) {
 			dataOffset = (int)os.getStreamPointer();
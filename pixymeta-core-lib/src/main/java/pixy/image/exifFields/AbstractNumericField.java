@@ -0,0 +1,56 @@
+package pixy.image.exifFields;
+
+import pixy.api.INumericFieldValue;
+import pixy.io.ReadStrategy;
+
+/**
+ * Base of the exif fields whose values are numbers: all field types except ASCII.
+ * Sub-classes implement {@link #getInt(int)} and override the other accessors where
+ * the value does not fit into an int (unsigned long, rational and floating point values).
+ */
+public abstract class AbstractNumericField<T> extends ExifField<T> implements INumericFieldValue {
+
+	public AbstractNumericField(pixy.meta.exif.Tag tag, FieldType fieldType, int length) {
+		super(tag, fieldType, length);
+	}
+
+	/** Creates a field that decodes its value from source on first access */
+	protected AbstractNumericField(pixy.meta.exif.Tag tag, FieldType fieldType, int length,
+								   byte[] source, int sourceOffset, ReadStrategy strategy) {
+		super(tag, fieldType, length, source, sourceOffset, strategy);
+	}
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public int getCount() {
+		return getLength();
+	}
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public abstract int getInt(int index);
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public long getLong(int index) {
+		return getInt(index);
+	}
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public double getDouble(int index) {
+		return getLong(index);
+	}
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public long getNumerator(int index) {
+		return getLong(index);
+	}
+
+	// implementation of api.INumericFieldValue
+	@Override
+	public long getDenominator(int index) {
+		return 1;
+	}
+}
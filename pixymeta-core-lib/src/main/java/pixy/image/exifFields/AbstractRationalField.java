@@ -14,16 +14,52 @@ import java.io.IOException;
 
 import pixy.api.IIntableField;
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 
-public abstract class AbstractRationalField extends ExifField<int[]> implements IIntableField {
+public abstract class AbstractRationalField extends AbstractNumericField<int[]> implements IIntableField {
 
 	public AbstractRationalField(pixy.meta.exif.Tag tag, FieldType fieldType, int[] data) {
 		super(tag, fieldType, data.length>>1);
-		this.data = data;
+		setData(data);
+	}
+
+	/**
+	 * Creates a field that decodes its value from source on first access
+	 *
+	 * @param length number of rationals
+	 */
+	protected AbstractRationalField(pixy.meta.exif.Tag tag, FieldType fieldType, int length,
+									byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, fieldType, length, source, offset, strategy);
+	}
+
+	@Override
+	protected int[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		// numerator and denominator per rational
+		int[] result = new int[getLength() << 1];
+		for (int i = 0; i < result.length; i++, offset += 4) {
+			result[i] = strategy.readInt(source, offset);
+		}
+		return result;
 	}
 	
 	public int[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return (int) getDouble(index);
+	}
+
+	@Override
+	public long getLong(int index) {
+		return (long) getDouble(index);
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return (double) getNumerator(index) / getDenominator(index);
 	}
 	
 	@Override
@@ -32,6 +68,7 @@ public abstract class AbstractRationalField extends ExifField<int[]> implements
 	}
 
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final int[] data = data();
 		//
 		dataOffset = toOffset;
 		os.writeInt(toOffset);
@@ -13,19 +13,36 @@ package pixy.image.exifFields;
 import java.io.IOException;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 
-public abstract class AbstractShortField extends ExifField<short[]> {
+public abstract class AbstractShortField extends AbstractNumericField<short[]> {
 
 	public AbstractShortField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, short[] data) {
 		super(tag, fieldType, data.length);
-		this.data = data;	
+		setData(data);
+	}
+
+	/** Creates a field that decodes its value from source on first access */
+	protected AbstractShortField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int length,
+								 byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, fieldType, length, source, offset, strategy);
+	}
+
+	@Override
+	protected short[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		short[] result = new short[getLength()];
+		for (int i = 0; i < result.length; i++, offset += 2) {
+			result[i] = strategy.readShort(source, offset);
+		}
+		return result;
 	}
 	
 	public short[] getData() {
-		return data.clone();
+		return data().clone();
 	}
 
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final short[] data = data();
 		if (data.length <= 2) {
 			dataOffset = (int)os.getStreamPointer();
 			short[] tmp = new short[2];
@@ -21,4 +21,9 @@ public final class ByteField extends AbstractByteField {
 	public ByteField(pixy.meta.exif.Tag tag, byte[] data) {
 		super(tag, FieldType.BYTE, data);
 	}
+
+	/** Creates a field that copies its value from source on first access */
+	public ByteField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset) {
+		super(tag, FieldType.BYTE, length, source, offset);
+	}
 }
\ No newline at end of file
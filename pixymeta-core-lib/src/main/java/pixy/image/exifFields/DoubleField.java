@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -22,30 +23,60 @@ import pixy.string.StringUtils;
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 12/04/2014
  */
-public class DoubleField extends ExifField<double[]> {
+public class DoubleField extends AbstractNumericField<double[]> {
 
 	public DoubleField(pixy.meta.exif.Tag tag, double[] data) {
 		super(tag, pixy.image.exifFields.FieldType.DOUBLE, data.length);
-		this.data = data;
+		setData(data);
+	}
+
+	/** Creates a field that decodes its value from source on first access */
+	public DoubleField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, pixy.image.exifFields.FieldType.DOUBLE, length, source, offset, strategy);
+	}
+
+	@Override
+	protected double[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		double[] result = new double[getLength()];
+		for (int i = 0; i < result.length; i++, offset += 8) {
+			result[i] = Double.longBitsToDouble(strategy.readLong(source, offset));
+		}
+		return result;
 	}
 	
 	public double[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return (int) data()[index];
+	}
+
+	@Override
+	public long getLong(int index) {
+		return (long) data()[index];
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return data()[index];
 	}
 	
 	public String getDataAsString() {
-		return Arrays.toString(data);
+		return Arrays.toString(data());
 	}
 
 	// [var, var, var]
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseDoubleList(value);
+		setData(StringUtils.parseDoubleList(value));
 	}
 
 	@Override
 	protected int writeData(RandomAccessOutputStream os, int toOffset)
 			throws IOException {
+		final double[] data = data();
 		//
 		dataOffset = toOffset;
 		os.writeInt(toOffset);
@@ -16,6 +16,7 @@ import pixy.api.IDataType;
 import pixy.api.IFieldDefinition;
 import pixy.api.IFieldValue;
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.meta.exif.Tag;
 
 /**
@@ -41,18 +42,78 @@ import pixy.meta.exif.Tag;
  * ====  =======    =================================================
  * k3b	 july2016	refactored; Added interface supoort for common tag handling
  */
-public abstract class ExifField<T> implements Comparable<ExifField<?>>, IFieldValue{
+public abstract class ExifField<T> implements Comparable<ExifField<?>>, IFieldValue {
 	private final pixy.image.exifFields.FieldType fieldType;
 	private final int length;
 	private final pixy.meta.exif.Tag tag;
-	protected T data;
+	private volatile T data;
+
+	// lazy decoding: while source is not null the value has not been decoded yet.
+	// data is written before source is cleared, so a reader that sees source == null also sees data
+	private volatile byte[] source;
+	private final int sourceOffset;
+	private final ReadStrategy sourceStrategy;
 
 	protected int dataOffset;
 	
 	public ExifField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int length) {
+		this(tag, fieldType, length, null, 0, null);
+	}
+
+	/**
+	 * Creates a field whose value is decoded by {@link #decode(byte[], int, ReadStrategy)}
+	 * on first access instead of up front.
+	 *
+	 * @param length number of values
+	 * @param source buffer that contains the value, i.e. the exif segment.
+	 *               It is not copied so it must not be modified afterwards.
+	 * @param sourceOffset index of the first byte of the value in source
+	 * @param strategy byte order of the value
+	 */
+	protected ExifField(pixy.meta.exif.Tag tag, pixy.image.exifFields.FieldType fieldType, int length,
+						byte[] source, int sourceOffset, ReadStrategy strategy) {
 		this.fieldType = fieldType;
 		this.length = length;
 		this.tag = tag;
+		this.source = source;
+		this.sourceOffset = sourceOffset;
+		this.sourceStrategy = strategy;
+	}
+
+	/**
+	 * @return the value. Decodes it on first access if the field was created lazily.
+	 * Safe to call from several threads: the value is decoded only once.
+	 */
+	protected final T data() {
+		if (source != null) {
+			synchronized (this) {
+				final byte[] pending = source;
+				if (pending != null) {
+					data = decode(pending, sourceOffset, sourceStrategy);
+					source = null;
+				}
+			}
+		}
+		return data;
+	}
+
+	protected final synchronized void setData(T data) {
+		this.data = data;
+		this.source = null;
+	}
+
+	/**
+	 * Decodes {@link #getLength()} values of a field that was created lazily.
+	 *
+	 * @param source buffer that contains the value
+	 * @param offset index of the first byte of the value in source
+	 * @param strategy byte order of the value
+	 */
+	protected abstract T decode(byte[] source, int offset, ReadStrategy strategy);
+
+	/** @return false if the field was created lazily and its value has not been decoded yet */
+	public boolean isDecoded() {
+		return source == null;
 	}
 	
 	public int compareTo(ExifField<?> that) {
@@ -60,7 +121,7 @@ public abstract class ExifField<T> implements Comparable<ExifField<?>>, IFieldVa
     }
 	
 	public T getData() {
-		return data;
+		return data();
 	}
 
 	/** Return an integer array representing TIFF long field */
@@ -77,7 +138,7 @@ public abstract class ExifField<T> implements Comparable<ExifField<?>>, IFieldVa
 	public int getLength() {
 		return length;
 	}
-	
+
 	/**
 	 * Used to update field data when necessary.
 	 * <p>
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -22,30 +23,60 @@ import pixy.string.StringUtils;
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 12/04/2014
  */
-public class FloatField extends ExifField<float[]> {
+public class FloatField extends AbstractNumericField<float[]> {
 
 	public FloatField(pixy.meta.exif.Tag tag, float[] data) {
 		super(tag, pixy.image.exifFields.FieldType.FLOAT, data.length);
-		this.data = data;
+		setData(data);
+	}
+
+	/** Creates a field that decodes its value from source on first access */
+	public FloatField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, pixy.image.exifFields.FieldType.FLOAT, length, source, offset, strategy);
+	}
+
+	@Override
+	protected float[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		float[] result = new float[getLength()];
+		for (int i = 0; i < result.length; i++, offset += 4) {
+			result[i] = Float.intBitsToFloat(strategy.readInt(source, offset));
+		}
+		return result;
 	}
 	
 	public float[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return (int) data()[index];
+	}
+
+	@Override
+	public long getLong(int index) {
+		return (long) data()[index];
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return data()[index];
 	}
 
 	@Override
 	public String getDataAsString() {
-		return Arrays.toString(data);
+		return Arrays.toString(data());
 	}
 
 	// [var, var, var]
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseFloatList(value);
+		setData(StringUtils.parseFloatList(value));
 	}
 
 	@Override
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final float[] data = data();
 		if (data.length == 1) {
 			dataOffset = (int)os.getStreamPointer();
 			os.writeFloat(data[0]);
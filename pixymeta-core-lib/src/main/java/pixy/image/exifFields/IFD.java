@@ -23,13 +23,12 @@ package pixy.image.exifFields;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import pixy.api.DefaultApiImpl;
 import pixy.api.IDirectory;
@@ -37,7 +36,6 @@ import pixy.api.IFieldDefinition;
 import pixy.api.IFieldValue;
 import pixy.io.RandomAccessOutputStream;
 import pixy.meta.exif.ExifCompositeTag;
-import pixy.meta.exif.Tag;
 import pixy.string.StringUtils;
 
 /**
@@ -46,6 +44,10 @@ import pixy.string.StringUtils;
  *
  * Image File Directory containing meta-data-fields and sub-IFDs
  *
+ * The fields are kept in an array sorted by the unsigned tag id which is the order
+ * TIFF requires when writing. Lookup is a binary search on the tag id.
+ * Values of {@link ExifCompositeTag}s are not stored but calculated when requested.
+ *
  * Exif file Segments (or Image File Directories {@link pixy.image.exifFields.IFD}s)
  * for exif-tags {@link pixy.meta.exif.Tag}
  * contain {@link pixy.image.exifFields.ExifField}s
@@ -67,20 +69,32 @@ public class IFD implements IDirectory {
 	 */	 
 	private Map<pixy.meta.exif.Tag, IFD> children = new HashMap<pixy.meta.exif.Tag, IFD>();
 
-	/** Create a fields map to hold all of the fields for this IFD */
-	private Map<IFieldDefinition, ExifField<?>> tiffFields = new HashMap<IFieldDefinition, ExifField<?>>();
+	private static final ExifField<?>[] NO_FIELDS = new ExifField<?>[0];
+
+	/** The fields of this IFD sorted by unsigned tag id. Only the first fieldCount entries are used. */
+	private ExifField<?>[] tiffFields = NO_FIELDS;
+	private int fieldCount;
+
+	/** Values of the {@link ExifCompositeTag}s calculated by {@link #getValues()} or null if not calculated yet. */
+	private List<IFieldValue> compositeValues;
 
 	private int endOffset;
 	
 	private int startOffset;
 
 	public IFD() {}
+
+	/** @param capacity number of fields that can be added without growing the internal array */
+	public IFD(int capacity) {
+		if (capacity > 0) tiffFields = new ExifField<?>[capacity];
+	}
 	
 	// Copy constructor
 	public IFD(IFD other) {
 		// Defensive copy
 		this.children = Collections.unmodifiableMap(other.children);
-		this.tiffFields = Collections.unmodifiableMap(other.tiffFields);
+		this.tiffFields = Arrays.copyOf(other.tiffFields, other.fieldCount);
+		this.fieldCount = other.fieldCount;
 		this.startOffset = other.startOffset;
 		this.endOffset = other.endOffset;
 	}
@@ -90,16 +104,45 @@ public class IFD implements IDirectory {
 		return this;
 	}
 
+	/** Adds exifField or replaces the field with the same tag id */
 	public void addField(ExifField<?> exifField) {
-		tiffFields.put(exifField.getDefinition(), exifField);
-		ExifCompositeTag replacement = ExifCompositeTag.getReplacement(exifField.getDefinition());
-		if (replacement != null) {
-			// may re-add field because an additional src field was just added
-			ExifField virtualValue = replacement.createVirtualField(this);
-			if (virtualValue != null) {
-				tiffFields.put(replacement, virtualValue);
-			} // else null because not all src fields are added yet
+		// virtual values are calculated from their source fields when requested
+		if (exifField.getDefinition() instanceof ExifCompositeTag) return;
+
+		int index = indexOf(exifField.getTag());
+		if (index >= 0) {
+			tiffFields[index] = exifField;
+		} else {
+			index = -(index + 1);
+			if (fieldCount == tiffFields.length) {
+				tiffFields = Arrays.copyOf(tiffFields, Math.max(8, fieldCount * 2));
+			}
+			System.arraycopy(tiffFields, index, tiffFields, index + 1, fieldCount - index);
+			tiffFields[index] = exifField;
+			fieldCount++;
 		}
+		compositeValues = null;
+	}
+
+	/**
+	 * @return index of the field with the tag id or (-(insertion point) - 1) if there is none.
+	 */
+	private int indexOf(short tag) {
+		int key = tag & 0xffff;
+		int low = 0;
+		int high = fieldCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midKey = tiffFields[mid].getTag() & 0xffff;
+			if (midKey < key) {
+				low = mid + 1;
+			} else if (midKey > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
 	}
 	
 	public void addFields(Collection<ExifField<?>> exifFields) {
@@ -122,7 +165,15 @@ public class IFD implements IDirectory {
 	}
 	
 	public ExifField<?> getField(pixy.meta.exif.Tag tag) {
-		return tiffFields.get(tag);
+		if (tag instanceof ExifCompositeTag) {
+			return ((ExifCompositeTag) tag).createVirtualField(this);
+		}
+		int index = indexOf(tag.getValue());
+		if (index < 0) return null;
+
+		// a tag of an other directory with the same id does not match
+		ExifField<?> result = tiffFields[index];
+		return tag.equals(result.getDefinition()) ? result : null;
 	}
 
 	/**
@@ -132,10 +183,10 @@ public class IFD implements IDirectory {
 	 */
 	@Override
 	public IFieldValue getValue(IFieldDefinition fieldDefinition) {
-		if (fieldDefinition instanceof ExifCompositeTag) {
-			return ((ExifCompositeTag) fieldDefinition).createVirtualField(this);
+		if (fieldDefinition instanceof pixy.meta.exif.Tag) {
+			return getField((pixy.meta.exif.Tag) fieldDefinition);
 		}
-		return tiffFields.get(fieldDefinition);
+		return null;
 	}
 	/**
 	 * Return a String representation of the field 
@@ -143,7 +194,7 @@ public class IFD implements IDirectory {
 	 * @return a String representation of the field
 	 */
 	public String getFieldAsString(pixy.meta.exif.Tag tag) {
-		ExifField<?> field = tiffFields.get(tag);
+		ExifField<?> field = getField(tag);
 		if(field != null) {
 			FieldType ftype = field.getType();
 			String suffix = null;
@@ -157,13 +208,13 @@ public class IFD implements IDirectory {
 		return "";
 	}
 	
-	/** Get all the fields for this IFD from the internal map. */
+	/** Get all the fields for this IFD sorted by tag id. */
 	public Collection<ExifField<?>> getFields() {
-		return Collections.unmodifiableCollection(tiffFields.values());
+		return Collections.unmodifiableList(Arrays.asList(tiffFields).subList(0, fieldCount));
 	}
 	
 	public int getSize() {
-		return tiffFields.size();
+		return fieldCount;
 	}
 	
 	public int getStartOffset() {
@@ -172,7 +223,9 @@ public class IFD implements IDirectory {
 	
 	/** Remove all the entries from the IDF fields map */
 	public void removeAllFields() {
-		tiffFields.clear();
+		Arrays.fill(tiffFields, 0, fieldCount, null);
+		fieldCount = 0;
+		compositeValues = null;
 	}
 	
 	public IFD removeChild(pixy.meta.exif.Tag tag) {
@@ -181,7 +234,14 @@ public class IFD implements IDirectory {
 	
 	/** Remove a specific field associated with the given tag */
 	public ExifField<?> removeField(pixy.meta.exif.Tag tag) {
-		return tiffFields.remove(tag);
+		int index = indexOf(tag.getValue());
+		if (index < 0 || !tag.equals(tiffFields[index].getDefinition())) return null;
+
+		ExifField<?> result = tiffFields[index];
+		System.arraycopy(tiffFields, index + 1, tiffFields, index, fieldCount - index - 1);
+		tiffFields[--fieldCount] = null;
+		compositeValues = null;
+		return result;
 	}
 	
 	/**
@@ -209,24 +269,20 @@ public class IFD implements IDirectory {
 	public int write(RandomAccessOutputStream os, int offset) throws IOException {
 		startOffset = offset;
 		// Write this IFD and its children, if any, to the RandomAccessOutputStream
-		List<ExifField<?>> list = new ArrayList<ExifField<?>>(tiffFields.values());
-		// Make sure tiffFields are in incremental order.
-		Collections.sort(list);
+		// tiffFields are already in incremental order.
 		os.seek(offset);
-		os.writeShort(list.size());
+		os.writeShort(fieldCount);
 		offset += 2;
-		endOffset = offset + list.size() * 12 + 4;			
+		endOffset = offset + fieldCount * 12 + 4;
 		// The first available offset to write tiffFields. 
 		int toOffset = endOffset;
 		os.seek(offset); // Set first field offset.
 				
-		for (ExifField<?> exifField : list)
+		for (int i = 0; i < fieldCount; i++)
 		{
-			if (exifField.getType().getValue() != Tag.DONOT_WRITE) {
-				toOffset = exifField.write(os, toOffset);
-				offset += 12; // Move to next field. Each field is of fixed length 12.
-				os.seek(offset); // Reset position to next directory field.
-			}
+			toOffset = tiffFields[i].write(os, toOffset);
+			offset += 12; // Move to next field. Each field is of fixed length 12.
+			os.seek(offset); // Reset position to next directory field.
 		}
 		
 		/* Set the stream position at the end of the IFD to update
@@ -278,11 +334,24 @@ public class IFD implements IDirectory {
 	// implementation of api.IDirectory
 	@Override
 	public List<IFieldValue> getValues() {
-		if ((tiffFields != null) && (tiffFields.size() > 0)) {
-			final ArrayList<IFieldValue> fieldValues = new ArrayList<IFieldValue>(tiffFields.values());
-			// ExifCompositeTag.replace(this, fieldValues);
+		if (fieldCount > 0) {
+			final ArrayList<IFieldValue> fieldValues = new ArrayList<IFieldValue>(getFields());
+			fieldValues.addAll(getCompositeValues());
 			return fieldValues;
 		}
 		return null;
 	}
+
+	/** @return the values of all {@link ExifCompositeTag}s whose source fields are in this IFD */
+	private List<IFieldValue> getCompositeValues() {
+		if (compositeValues == null) {
+			List<IFieldValue> result = new ArrayList<IFieldValue>();
+			for (ExifCompositeTag tag : ExifCompositeTag.values()) {
+				ExifField<?> virtualValue = tag.createVirtualField(this);
+				if (virtualValue != null) result.add(virtualValue);
+			}
+			compositeValues = result;
+		}
+		return compositeValues;
+	}
 }
\ No newline at end of file
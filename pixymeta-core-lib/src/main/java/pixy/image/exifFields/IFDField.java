@@ -25,7 +25,11 @@ public final class IFDField extends AbstractLongField {
 	}
 	
 	public String getDataAsString() {
-		return StringUtils.toListString(data, 0, 10, true);
+		return StringUtils.toListString(data(), 0, 10, true);
 	}
 
+	@Override
+	public long getLong(int index) {
+		return getInt(index) & 0xffffffffL;
+	}
 }
\ No newline at end of file
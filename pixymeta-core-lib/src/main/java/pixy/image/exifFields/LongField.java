@@ -10,6 +10,7 @@
 
 package pixy.image.exifFields;
 
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -23,9 +24,19 @@ public final class LongField extends AbstractLongField {
 	public LongField(pixy.meta.exif.Tag context, int[] data) {
 		super(context, pixy.image.exifFields.FieldType.LONG, data);
 	}
+
+	/** Creates a field that decodes its value from source on first access */
+	public LongField(pixy.meta.exif.Tag context, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(context, pixy.image.exifFields.FieldType.LONG, length, source, offset, strategy);
+	}
 	
 	public String getDataAsString() {
-		return StringUtils.toListString(data, 0, 10, true);
+		return StringUtils.toListString(data(), 0, 10, true);
 	}
 	
+
+	@Override
+	public long getLong(int index) {
+		return getInt(index) & 0xffffffffL;
+	}
 }
\ No newline at end of file
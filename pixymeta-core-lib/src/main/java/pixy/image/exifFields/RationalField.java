@@ -10,6 +10,7 @@
 
 package pixy.image.exifFields;
 
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -24,15 +25,29 @@ public final class RationalField extends AbstractRationalField {
 		super(tag, pixy.image.exifFields.FieldType.RATIONAL, dat);
 	}
 
+	/** Creates a field that decodes its value from source on first access */
+	public RationalField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, pixy.image.exifFields.FieldType.RATIONAL, length, source, offset, strategy);
+	}
+
 	@Override
 	public String getDataAsString() {
-		return StringUtils.rationalToStringList(data, true);
+		return StringUtils.rationalToStringList(data(), true);
 	}
 
 	// [var, var, var]
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseIntList(value);
+		setData(StringUtils.parseIntList(value));
 	}
 
+	@Override
+	public long getNumerator(int index) {
+		return data()[index << 1] & 0xffffffffL;
+	}
+
+	@Override
+	public long getDenominator(int index) {
+		return data()[(index << 1) + 1] & 0xffffffffL;
+	}
 }
\ No newline at end of file
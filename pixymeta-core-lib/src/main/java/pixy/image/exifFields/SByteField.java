@@ -21,4 +21,9 @@ public final class SByteField extends AbstractByteField {
 	public SByteField(pixy.meta.exif.Tag tag, byte[] data) {
 		super(tag, pixy.image.exifFields.FieldType.SBYTE, data);
 	}	
+
+	@Override
+	public int getInt(int index) {
+		return data()[index];
+	}
 }
\ No newline at end of file
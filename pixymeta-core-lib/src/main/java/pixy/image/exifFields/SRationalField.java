@@ -10,6 +10,7 @@
 
 package pixy.image.exifFields;
 
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -24,13 +25,28 @@ public final class SRationalField extends AbstractRationalField {
 		super(tag, FieldType.SRATIONAL, data);
 	}
 
+	/** Creates a field that decodes its value from source on first access */
+	public SRationalField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, FieldType.SRATIONAL, length, source, offset, strategy);
+	}
+
 	@Override
 	public String getDataAsString() {
-		return StringUtils.rationalToStringList(data, false);
+		return StringUtils.rationalToStringList(data(), false);
 	}
 
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseIntList(value);
+		setData(StringUtils.parseIntList(value));
+	}
+
+	@Override
+	public long getNumerator(int index) {
+		return data()[index << 1];
+	}
+
+	@Override
+	public long getDenominator(int index) {
+		return data()[(index << 1) + 1];
 	}
 }
\ No newline at end of file
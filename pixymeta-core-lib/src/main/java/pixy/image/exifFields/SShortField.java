@@ -27,6 +27,7 @@ public final class SShortField extends AbstractShortField  implements IIntableFi
 
 	@Override
 	public int[] getDataAsLong() {
+		final short[] data = data();
 		//
 		int[] temp = new int[data.length];
 		
@@ -39,12 +40,16 @@ public final class SShortField extends AbstractShortField  implements IIntableFi
 
 	@Override
 	public String getDataAsString() {
-		return StringUtils.toListString(data, 0, 10, false);
+		return StringUtils.toListString(data(), 0, 10, false);
 	}
 
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseShortList(value);
+		setData(StringUtils.parseShortList(value));
 	}
 
+	@Override
+	public int getInt(int index) {
+		return data()[index];
+	}
 }
\ No newline at end of file
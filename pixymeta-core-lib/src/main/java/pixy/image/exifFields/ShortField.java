@@ -11,6 +11,7 @@
 package pixy.image.exifFields;
 
 import pixy.api.IIntableField;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -25,8 +26,14 @@ public final class ShortField extends AbstractShortField  implements IIntableFie
 		super(tag, FieldType.SHORT, data);
 	}
 
+	/** Creates a field that decodes its value from source on first access */
+	public ShortField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset, ReadStrategy strategy) {
+		super(tag, FieldType.SHORT, length, source, offset, strategy);
+	}
+
 	@Override
 	public int[] getDataAsLong() {
+		final short[] data = data();
 		//
 		int[] temp = new int[data.length];
 		
@@ -39,13 +46,16 @@ public final class ShortField extends AbstractShortField  implements IIntableFie
 
 	@Override
 	public String getDataAsString() {
-		return StringUtils.toListString(data, 0, 10, true);
+		return StringUtils.toListString(data(), 0, 10, true);
 	}
 
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseShortList(value);
+		setData(StringUtils.parseShortList(value));
 	}
 
-
+	@Override
+	public int getInt(int index) {
+		return data()[index] & 0xffff;
+	}
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ package pixy.image.exifFields;
 import java.io.IOException;
 
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.string.StringUtils;
 
 /**
@@ -21,30 +22,48 @@ import pixy.string.StringUtils;
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 02/05/2013
  */
-public final class UndefinedField extends ExifField<byte[]> {
+public final class UndefinedField extends AbstractNumericField<byte[]> {
 
 	public UndefinedField(pixy.meta.exif.Tag tag, byte[] data) {
 		super(tag, pixy.image.exifFields.FieldType.UNDEFINED, data.length);
-		this.data = data;
+		setData(data);
+	}
+
+	/** Creates a field that copies its value from source on first access */
+	public UndefinedField(pixy.meta.exif.Tag tag, int length, byte[] source, int offset) {
+		super(tag, pixy.image.exifFields.FieldType.UNDEFINED, length, source, offset, null);
+	}
+
+	@Override
+	protected byte[] decode(byte[] source, int offset, ReadStrategy strategy) {
+		byte[] result = new byte[getLength()];
+		System.arraycopy(source, offset, result, 0, result.length);
+		return result;
 	}
 
 	@Override
 	public byte[] getData() {
-		return data.clone();
+		return data().clone();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return data()[index] & 0xff;
 	}
 
 	@Override
 	public String getDataAsString() {
-		return StringUtils.toHexListString(data, 0, 10);
+		return StringUtils.toHexListString(data(), 0, 10);
 	}
 
 	@Override
 	public void setValue(String value) {
-		data = StringUtils.parseHexByteList(value);
+		setData(StringUtils.parseHexByteList(value));
 	}
 
 	@Override
 	protected int writeData(RandomAccessOutputStream os, int toOffset) throws IOException {
+		final byte[] data = data();
 	
 		if (data.length <= 4) {
 			dataOffset = (int)os.getStreamPointer();
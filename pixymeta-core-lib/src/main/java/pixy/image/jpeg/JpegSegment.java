@@ -32,12 +32,25 @@ import pixy.io.IOUtils;
 public class JpegSegment {
 
 	private JpegSegmentMarker jpegSegmentMarker;
+	// the content is the slice data[offset .. offset + length - 1]
 	private byte[] data;
+	private int offset;
+	private int length;
 	private int padding = 0; // number of oxff behind segment
 	
 	public JpegSegment(JpegSegmentMarker jpegSegmentMarker, byte[] data) {
+		this(jpegSegmentMarker, data, 0, (data == null) ? 0 : data.length);
+	}
+
+	/**
+	 * Creates a segment backed by a slice of a larger buffer without copying it.
+	 * The buffer must not be modified afterwards.
+	 */
+	public JpegSegment(JpegSegmentMarker jpegSegmentMarker, byte[] data, int offset, int length) {
 		this.jpegSegmentMarker = jpegSegmentMarker;
 		this.data = data;
+		this.offset = offset;
+		this.length = length;
 	}
 	
 	public JpegSegmentMarker getJpegSegmentMarker() {
@@ -46,19 +59,45 @@ public class JpegSegment {
 	
 	public int getLength() {
 		if (data == null) return 2;
-		return data.length +2;
+		return length +2;
 	}
 	
+	/**
+	 * @return the content of the segment. If the segment is a slice of a larger
+	 * buffer the slice is copied on the first call.
+	 */
 	public byte[] getData() {
+		if (data != null && (offset != 0 || length != data.length)) {
+			byte[] copy = new byte[length];
+			System.arraycopy(data, offset, copy, 0, length);
+			data = copy;
+			offset = 0;
+		}
+		return data;
+	}
+
+	/** @return the buffer that contains the content starting at {@link #getDataOffset()}. Not copied. */
+	public byte[] getDataBuffer() {
 		return data;
 	}
+
+	public int getDataOffset() {
+		return offset;
+	}
+
+	/** @return number of bytes of the content */
+	public int getDataLength() {
+		return (data == null) ? 0 : length;
+	}
 	
 	public void write(OutputStream os) throws IOException {
 		IOUtils.writeShortMM(os, jpegSegmentMarker.getValue());
 		// If this is not a stand-alone segment, write the content as well
 		if(getLength() > 0) {
 			IOUtils.writeShortMM(os, getLength());
-			IOUtils.write(os, data);
+			if (data != null) {
+				IOUtils.write(os, data, offset, length);
+			}
 		}
 		if(padding > 0) {
 			byte[] paddingData = new byte[padding];
@@ -0,0 +1,131 @@
+package pixy.io;
+
+import java.io.IOException;
+
+/**
+ * Implements a random access input stream on top of a byte array that
+ * is already in memory, i.e. the payload of an APP1 EXIF segment.
+ * <p>
+ * Unlike {@link FileCacheRandomAccessInputStream} and
+ * {@link MemoryCacheRandomAccessInputStream} there is no cache at all:
+ * seeking and reading work directly on the array. The array is not copied,
+ * so it must not be modified while the stream is in use.
+ */
+public class ByteArrayRandomAccessInputStream extends RandomAccessInputStream {
+	/** The source data. */
+	private byte[] buf;
+
+	/** Index of the first byte of the stream inside buf. */
+	private final int offset;
+
+	/** Number of bytes of the stream. */
+	private final int length;
+
+	/** Next byte to be read, relative to offset. */
+	private long pointer;
+
+	public ByteArrayRandomAccessInputStream(byte[] buf) {
+		this(buf, 0, buf.length);
+	}
+
+	public ByteArrayRandomAccessInputStream(byte[] buf, int offset, int length) {
+		super(null);
+		if (buf == null) {
+			throw new NullPointerException();
+		}
+		if ((offset < 0) || (length < 0) || (offset + length > buf.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.buf = buf;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public int available() throws IOException {
+		ensureOpen();
+		return (pointer >= length) ? 0 : (int)(length - pointer);
+	}
+
+	/**
+	 * @return the array that backs the stream. Stream position 0 is at {@link #getOffset()}.
+	 * Must not be modified.
+	 */
+	public byte[] getBuffer() {
+		return buf;
+	}
+
+	/** @return index of stream position 0 in {@link #getBuffer()} */
+	public int getOffset() {
+		return offset;
+	}
+
+	/** @return number of bytes of the stream */
+	public int getLength() {
+		return length;
+	}
+
+	public long getStreamPointer() {
+		return pointer;
+	}
+
+	public int read() throws IOException {
+		ensureOpen();
+		if (pointer >= length) {
+			return -1;
+		}
+		return buf[offset + (int)pointer++] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if ((off < 0) || (len < 0) || (off + len > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (pointer >= length) {
+			return -1;
+		}
+
+		len = (int)Math.min(len, length - pointer);
+		System.arraycopy(buf, offset + (int)pointer, b, off, len);
+		pointer += len;
+		return len;
+	}
+
+	public void seek(long pos) throws IOException {
+		ensureOpen();
+		if (pos < 0) {
+			throw new IOException("Negtive seek position.");
+		}
+		pointer = pos;
+	}
+
+	public long skip(long n) throws IOException {
+		ensureOpen();
+		if (n <= 0 || pointer >= length) {
+			return 0;
+		}
+		long skipped = Math.min(n, length - pointer);
+		pointer += skipped;
+		return skipped;
+	}
+
+	/**
+	 * Closes this stream. The byte array is not owned by the stream so
+	 * close() and shallowClose() are the same.
+	 */
+	public void close() throws IOException {
+		shallowClose();
+	}
+
+	public void shallowClose() throws IOException {
+		if(closed) return;
+		buf = null;
+		closed = true;
+	}
+}
@@ -14,6 +14,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Implements a file cached random access input stream to ease the 
@@ -21,6 +23,10 @@ import java.io.RandomAccessFile;
  * access to the underlying stream. 
  * <p>
  * Based on com.sun.media.jai.codec.FileCacheSeekableStream.
+ * <p>
+ * Reads are served from a small LRU cache of page sized blocks of the
+ * cache file so that reading shorts and ints one by one, i.e. while walking
+ * TIFF IFDs, does not cost a seek and a read on the RandomAccessFile per byte.
  *
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 02/09/2014 
@@ -48,6 +54,21 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
     /** True if we've encountered the end of the source stream. */
     private boolean foundEOF = false;
 
+    /** Default size of a page of the block cache. */
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    /** Default number of pages kept in the block cache. */
+    public static final int DEFAULT_PAGE_COUNT = 16;
+
+    /** Size of a page of the block cache. */
+    private final int pageSize;
+
+    /** Maximum number of pages kept in memory. */
+    private final int pageCount;
+
+    /** Least recently used pages of the cache file, keyed by page number. */
+    private final Map<Long, byte[]> pages;
+
     /**
      * Constructs a <code>MemoryCacheRandomAccessInputStream</code>
      * that takes its source data from a regular <code>InputStream</code>.
@@ -61,9 +82,30 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
     }
     
     public FileCacheRandomAccessInputStream(InputStream src, int bufLen) throws IOException {
+    	this(src, bufLen, DEFAULT_PAGE_SIZE, DEFAULT_PAGE_COUNT);
+    }
+
+    /**
+     * @param src the source stream
+     * @param bufLen size of the buffer used to copy the source stream to the cache file
+     * @param pageSize size of a page of the block cache
+     * @param pageCount maximum number of pages kept in memory. 0 disables the block cache.
+     */
+    public FileCacheRandomAccessInputStream(InputStream src, int bufLen, int pageSize, final int pageCount) throws IOException {
     	super(src);
+    	if (pageSize <= 0) {
+    		throw new IllegalArgumentException("Invalid page size: " + pageSize);
+    	}
         this.bufLen = bufLen;
         buf = new byte[bufLen];
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
+        this.pages = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > pageCount;
+            }
+        };
     	this.cacheFile = File.createTempFile("cafe-FCRAIS-", ".tmp");
         cacheFile.deleteOnExit();
         this.cache = new RandomAccessFile(cacheFile, "rw");
@@ -96,8 +138,9 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
                 return length;
             }
 
-            cache.setLength(cache.length() + nbytes);
+            // RandomAccessFile.write() grows the file as needed
             cache.write(buf, 0, nbytes);
+            writeThroughPages(length, nbytes);
             len -= nbytes;
             length += nbytes;
         }
@@ -105,6 +148,40 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
         return pos;
     }
 
+    /**
+     * Copies nbytes of the read buffer that have just been appended to the cache file
+     * at position start into the pages that are in memory, so cached pages never get stale.
+     */
+    private void writeThroughPages(long start, int nbytes) {
+        if (pages.isEmpty()) return;
+        long end = start + nbytes;
+        for (long pageNumber = start / pageSize; pageNumber * pageSize < end; pageNumber++) {
+            byte[] page = pages.get(pageNumber);
+            if (page != null) {
+                long pageStart = pageNumber * pageSize;
+                long from = Math.max(start, pageStart);
+                int count = (int)(Math.min(end, pageStart + pageSize) - from);
+                System.arraycopy(buf, (int)(from - start), page, (int)(from - pageStart), count);
+            }
+        }
+    }
+
+    /**
+     * @return the page with the given number. Only bytes before
+     * <code>length</code> are valid.
+     */
+    private byte[] getPage(long pageNumber) throws IOException {
+        byte[] page = pages.get(pageNumber);
+        if (page == null) {
+            long start = pageNumber * pageSize;
+            page = new byte[pageSize];
+            cache.seek(start);
+            cache.readFully(page, 0, (int)Math.min(pageSize, length - start));
+            pages.put(pageNumber, page);
+        }
+        return page;
+    }
+
     /**
      * Returns the current offset in this stream.
      *
@@ -138,8 +215,12 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
         long next = pointer + 1;
         long pos = readUntil(next);
         if (pos >= next) {
-            cache.seek(pointer++);
-            return cache.read();
+            if (pageCount == 0) {
+                cache.seek(pointer++);
+                return cache.read();
+            }
+            byte[] page = getPage(pointer / pageSize);
+            return page[(int)(pointer++ % pageSize)] & 0xff;
         }
         return -1;    
     }
@@ -161,9 +242,23 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
         // len will always fit into an int so this is safe
         len = (int)Math.min(len, pos - pointer);
         if (len > 0) {
-            cache.seek(pointer);
-            cache.readFully(b, off, len);
-            pointer += len;
+            if (pageCount == 0 || len >= pageSize) {
+                // Large reads bypass the block cache
+                cache.seek(pointer);
+                cache.readFully(b, off, len);
+                pointer += len;
+                return len;
+            }
+            int remaining = len;
+            while (remaining > 0) {
+                byte[] page = getPage(pointer / pageSize);
+                int pageOffset = (int)(pointer % pageSize);
+                int count = Math.min(remaining, pageSize - pageOffset);
+                System.arraycopy(page, pageOffset, b, off, count);
+                off += count;
+                pointer += count;
+                remaining -= count;
+            }
             return len;
         }	        
         return -1;
@@ -177,6 +272,7 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
      */
     public void close() throws IOException {
 		if(closed) return;
+        pages.clear();
         cache.close();
         cacheFile.delete();
         src.close();
@@ -186,6 +282,7 @@ public class FileCacheRandomAccessInputStream extends RandomAccessInputStream {
     
     public void shallowClose() throws IOException {
     	if(closed) return;
+        pages.clear();
         cache.close();
         cacheFile.delete();
         src = null;
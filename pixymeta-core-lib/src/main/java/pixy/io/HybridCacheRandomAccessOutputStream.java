@@ -0,0 +1,230 @@
+package pixy.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Random access output stream that caches the first <code>threshold</code>
+ * bytes in memory like {@link MemoryCacheRandomAccessOutputStream} and spills
+ * everything behind the threshold to a temp file like
+ * {@link FileCacheRandomAccessOutputStream}.
+ * <p>
+ * Small images never touch the disk while the memory used for large
+ * images is bounded by the threshold.
+ */
+public class HybridCacheRandomAccessOutputStream extends RandomAccessOutputStream {
+	private static final int BUFFER_SHIFT = 12;
+	private static final int BUFFER_SIZE = 1 << BUFFER_SHIFT;
+	private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+	/** Positions below threshold are cached in memory, the rest in the cache file. */
+	private final long threshold;
+
+	/** The memory cache for positions below threshold. */
+	private List<byte[]> memoryCache = new ArrayList<byte[]>(10);
+
+	/** The cache File. Created when the first byte behind threshold is written. */
+	private File cacheFile;
+
+	/** The cache as a RandomAcessFile. */
+	private RandomAccessFile fileCache;
+
+	private long pointer = 0L;
+	// The largest position ever written to the cache.
+	private long length = 0L;
+	private long flushPos = 0L;
+
+	/**
+	 * @param dist the destination stream
+	 * @param threshold number of bytes that are cached in memory before spilling to disk
+	 */
+	public HybridCacheRandomAccessOutputStream(OutputStream dist, long threshold) {
+		super(dist);
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Negative threshold.");
+		}
+		this.threshold = threshold;
+	}
+
+	/** @return true if some data has been spilled to the cache file */
+	public boolean isSpilled() {
+		return fileCache != null;
+	}
+
+	public void close() throws IOException {
+		if(closed) return;
+		super.close();
+		releaseCache();
+		dist.close();
+		dist = null;
+		closed = true;
+	}
+
+	@Override
+	public void shallowClose() throws IOException {
+		if(closed) return;
+		super.close();
+		releaseCache();
+		dist = null;
+		closed = true;
+	}
+
+	private void releaseCache() throws IOException {
+		memoryCache.clear();
+		memoryCache = null;
+		if (fileCache != null) {
+			fileCache.close();
+			cacheFile.delete();
+		}
+	}
+
+	@Override
+	public void disposeBefore(long pos) {
+		throw new UnsupportedOperationException("This method is not implemented");
+	}
+
+	private byte[] getMemoryBlock(long pos) {
+		int index = (int)(pos >> BUFFER_SHIFT);
+		while (memoryCache.size() <= index) {
+			memoryCache.add(new byte[BUFFER_SIZE]);
+		}
+		return memoryCache.get(index);
+	}
+
+	private RandomAccessFile getFileCache() throws IOException {
+		if (fileCache == null) {
+			cacheFile = File.createTempFile("cafe-HCRAOS-", ".tmp");
+			cacheFile.deleteOnExit();
+			fileCache = new RandomAccessFile(cacheFile, "rw");
+		}
+		return fileCache;
+	}
+
+	@Override
+	public long getFlushPos() {
+		return flushPos;
+	}
+
+	@Override
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public long getStreamPointer() {
+		return pointer;
+	}
+
+	@Override
+	public void reset() { }
+
+	@Override
+	public void seek(long pos) throws IOException {
+		ensureOpen();
+		if (pos < 0) {
+			throw new IOException("Negtive seek position.");
+		}
+		pointer = pos;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (b == null) {
+			throw new NullPointerException("b == null!");
+		}
+
+		if ((off < 0) || (len < 0) || (pointer < 0) ||
+				(off + len > b.length) || (off + len < 0)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		long lastPos = pointer + len - 1;
+		if (lastPos >= length) {
+			length = lastPos + 1;
+		}
+
+		// Copy the part below threshold into the memory cache, block by block
+		while (len > 0 && pointer < threshold) {
+			byte[] buf = getMemoryBlock(pointer);
+			int offset = (int)(pointer & BUFFER_MASK);
+			int nbytes = (int)Math.min(Math.min(len, BUFFER_SIZE - offset), threshold - pointer);
+			System.arraycopy(b, off, buf, offset, nbytes);
+			pointer += nbytes;
+			off += nbytes;
+			len -= nbytes;
+		}
+
+		// Spill the rest to the cache file
+		if (len > 0) {
+			RandomAccessFile cache = getFileCache();
+			cache.seek(pointer - threshold);
+			cache.write(b, off, len);
+			pointer += len;
+		}
+	}
+
+	@Override
+	public void write(int value) throws IOException {
+		ensureOpen();
+		if (pointer < 0)
+			throw new IndexOutOfBoundsException("pointer < 0");
+		if (pointer >= length) {
+			length = pointer + 1;
+		}
+		if (pointer < threshold) {
+			getMemoryBlock(pointer)[(int)(pointer & BUFFER_MASK)] = (byte)value;
+		} else {
+			RandomAccessFile cache = getFileCache();
+			cache.seek(pointer - threshold);
+			cache.write(value);
+		}
+		pointer++;
+	}
+
+	@Override
+	public void writeToStream(long len) throws IOException {
+		ensureOpen();
+		if (len == 0) {
+			return;
+		}
+
+		if (pointer + len > length) {
+			throw new IndexOutOfBoundsException("Argument out of cache");
+		}
+
+		if ((pointer < 0) || (len < 0)) {
+			throw new IndexOutOfBoundsException("Negative pointer or len");
+		}
+
+		long pos = pointer;
+		while (len > 0 && pos < threshold) {
+			byte[] buf = getMemoryBlock(pos);
+			int offset = (int)(pos & BUFFER_MASK);
+			int nbytes = (int)Math.min(Math.min(len, BUFFER_SIZE - offset), threshold - pos);
+			dist.write(buf, offset, nbytes);
+			pos += nbytes;
+			len -= nbytes;
+			flushPos += nbytes;
+		}
+
+		if (len > 0) {
+			RandomAccessFile cache = getFileCache();
+			cache.seek(pos - threshold);
+			byte[] buf = new byte[BUFFER_SIZE];
+			while (len > 0) {
+				int nbytes = cache.read(buf, 0, (int)Math.min(len, BUFFER_SIZE));
+				if (nbytes == -1) {
+					throw new IOException("Premature end of cache file");
+				}
+				dist.write(buf, 0, nbytes);
+				len -= nbytes;
+				flushPos += nbytes;
+			}
+		}
+	}
+}
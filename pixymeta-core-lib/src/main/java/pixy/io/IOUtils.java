@@ -273,8 +273,19 @@ public class IOUtils {
 		return is.skip(len);
 	}
 	
+	/** Skips n bytes without reading them into memory if the stream supports skip() */
 	public static void skipFully(InputStream is, int n) throws IOException {
-		readFully(is, new byte[n]);
+		while (n > 0) {
+			long skipped = is.skip(n);
+			if (skipped > 0) {
+				n -= skipped;
+			} else {
+				// skip() may return 0 before the end of stream: read() tells
+				if (is.read() < 0)
+					throw new EOFException();
+				n--;
+			}
+		}
 	}	
 	 
 	public static void write(OutputStream os, byte[] bytes) throws IOException {
@@ -0,0 +1,148 @@
+package pixy.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implements a random access input stream on top of a memory mapped file.
+ * <p>
+ * Unlike {@link FileCacheRandomAccessInputStream} the image file is not
+ * copied to a temp file: seeking and reading work directly on the pages
+ * mapped by the operating system. This makes TIFF IFD walking with many
+ * seeks run at memory speed.
+ * <p>
+ * The file is opened read only and the file handle is released as soon as
+ * the mapping is established. The mapping itself is released by the garbage
+ * collector after the stream has been closed.
+ */
+public class MappedFileRandomAccessInputStream extends RandomAccessInputStream {
+	/** The mapped content of the file. */
+	private MappedByteBuffer buffer;
+
+	/** Number of bytes of the file. */
+	private final int length;
+
+	/** Next byte to be read. */
+	private long pointer;
+
+	/** A temp file that must be deleted on close or null. */
+	private File fileToDelete;
+
+	public MappedFileRandomAccessInputStream(String fileName) throws IOException {
+		this(new File(fileName));
+	}
+
+	public MappedFileRandomAccessInputStream(File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * @param file the file to be mapped
+	 * @param deleteOnClose true if file is a temp file that should be deleted when the stream is closed
+	 */
+	public MappedFileRandomAccessInputStream(File file, boolean deleteOnClose) throws IOException {
+		super(null);
+		if (deleteOnClose) {
+			this.fileToDelete = file;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped: " + file);
+			}
+			this.length = (int)size;
+			// the mapping stays valid after the channel has been closed
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public int available() throws IOException {
+		ensureOpen();
+		return (pointer >= length) ? 0 : (int)(length - pointer);
+	}
+
+	/** @return number of bytes of the file */
+	public int getLength() {
+		return length;
+	}
+
+	public long getStreamPointer() {
+		return pointer;
+	}
+
+	public int read() throws IOException {
+		ensureOpen();
+		if (pointer >= length) {
+			return -1;
+		}
+		return buffer.get((int)pointer++) & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if ((off < 0) || (len < 0) || (off + len > b.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (pointer >= length) {
+			return -1;
+		}
+
+		len = (int)Math.min(len, length - pointer);
+		buffer.position((int)pointer);
+		buffer.get(b, off, len);
+		pointer += len;
+		return len;
+	}
+
+	public void seek(long pos) throws IOException {
+		ensureOpen();
+		if (pos < 0) {
+			throw new IOException("Negtive seek position.");
+		}
+		pointer = pos;
+	}
+
+	public long skip(long n) throws IOException {
+		ensureOpen();
+		if (n <= 0 || pointer >= length) {
+			return 0;
+		}
+		long skipped = Math.min(n, length - pointer);
+		pointer += skipped;
+		return skipped;
+	}
+
+	/**
+	 * Closes this stream. There is no underlying stream so
+	 * close() and shallowClose() are the same.
+	 */
+	public void close() throws IOException {
+		shallowClose();
+	}
+
+	public void shallowClose() throws IOException {
+		if(closed) return;
+		buffer = null;
+		if (fileToDelete != null) {
+			// may fail on platforms that lock mapped files until the mapping is garbage collected
+			if (!fileToDelete.delete()) {
+				fileToDelete.deleteOnExit();
+			}
+			fileToDelete = null;
+		}
+		closed = true;
+	}
+}
@@ -26,55 +26,147 @@ import java.util.List;
  * of the length of the stream, it is supposed to move forward
  * even though it is possible to put the pointer at anywhere
  * before the end of the stream. 
+ * <p>
+ * The data is cached in blocks of a configurable size. Blocks may be
+ * borrowed from a {@link BlockPool} so that streams created in a loop
+ * reuse their memory instead of allocating new blocks each time.
  *
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 02/09/2014 
  */ 
 public class MemoryCacheRandomAccessInputStream extends RandomAccessInputStream {
-	//
-	private static final int BUFFER_SHIFT = 12;
-    private static final int BUFFER_SIZE = 1 << BUFFER_SHIFT;
-    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
-
-    private long pointer;
-    private List<byte[]> cache;
-    private int length;
-    private boolean foundEOS;
-	    
+	/** The default block size (4 KB) */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 12;
+
+	/**
+	 * A bounded thread-safe pool of cache blocks with the same size.
+	 */
+	public static class BlockPool {
+		private final int blockSize;
+		private final int maxBlocks;
+		private final List<byte[]> blocks;
+
+		/**
+		 * @param blockSize size of each block. Must be a power of two.
+		 * @param maxBlocks maximum number of idle blocks kept in the pool
+		 */
+		public BlockPool(int blockSize, int maxBlocks) {
+			checkBlockSize(blockSize);
+			this.blockSize = blockSize;
+			this.maxBlocks = maxBlocks;
+			this.blocks = new ArrayList<byte[]>(maxBlocks);
+		}
+
+		public int getBlockSize() {
+			return blockSize;
+		}
+
+		/** @return a pooled block or a new one if the pool is empty */
+		public synchronized byte[] acquire() {
+			int size = blocks.size();
+			if (size > 0) {
+				return blocks.remove(size - 1);
+			}
+			return new byte[blockSize];
+		}
+
+		/** Returns a block to the pool. It is dropped if the pool is full. */
+		public synchronized void release(byte[] block) {
+			if (block.length == blockSize && blocks.size() < maxBlocks) {
+				blocks.add(block);
+			}
+		}
+	}
+
+	private final int blockShift;
+	private final int blockSize;
+	private final int blockMask;
+	// null if blocks are not pooled
+	private final BlockPool pool;
+
+	private long pointer;
+	private List<byte[]> cache;
+	private int length;
+	private boolean foundEOS;
+	private boolean bigEndian = true;
+
 	public MemoryCacheRandomAccessInputStream(InputStream src) {
+		this(src, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param src the source stream
+	 * @param blockSize size of the cache blocks. Must be a power of two.
+	 */
+	public MemoryCacheRandomAccessInputStream(InputStream src, int blockSize) {
+		this(src, blockSize, null);
+	}
+
+	/**
+	 * @param src the source stream
+	 * @param pool the cache blocks are taken from and returned to this pool
+	 */
+	public MemoryCacheRandomAccessInputStream(InputStream src, BlockPool pool) {
+		this(src, pool.getBlockSize(), pool);
+	}
+
+	private MemoryCacheRandomAccessInputStream(InputStream src, int blockSize, BlockPool pool) {
 		super(src);
+		checkBlockSize(blockSize);
+		this.blockSize = blockSize;
+		this.blockShift = Integer.numberOfTrailingZeros(blockSize);
+		this.blockMask = blockSize - 1;
+		this.pool = pool;
 		pointer = 0L;
 		cache = new ArrayList<byte[]>(10);
 		length = 0;
 		foundEOS = false;
 	}
-		
+
+	private static void checkBlockSize(int blockSize) {
+		if (blockSize <= 0 || (blockSize & (blockSize - 1)) != 0)
+			throw new IllegalArgumentException("Block size must be a power of two: " + blockSize);
+	}
+
 	public void close() throws IOException {
 		if(closed) return;
 		super.close();
-		cache.clear();
-		cache = null;
+		releaseCache();
 		src.close();
 		src = null;
 		closed = true;
 	}
-		
+
+	private void releaseCache() {
+		if (pool != null) {
+			for (byte[] block : cache) {
+				pool.release(block);
+			}
+		}
+		cache.clear();
+		cache = null;
+	}
+
 	public long getStreamPointer() {
 		return pointer;
 	}
-		
+
 	public int read() throws IOException {
 		ensureOpen();
 		long l = pointer + 1L;
 		long pos = readUntil(l);
 		if(pos >= l) {
-			byte[] buf = cache.get((int)(pointer>>BUFFER_SHIFT));
-			return buf[(int)(pointer++ & BUFFER_MASK)] & 0xff;
+			byte[] buf = cache.get((int)(pointer>>blockShift));
+			return buf[(int)(pointer++ & blockMask)] & 0xff;
 		}
 	        
 		return -1;
 	}
 
+	/**
+	 * Unlike the other read methods, this one copies all requested bytes
+	 * available in the stream, even if they span several blocks.
+	 */
 	public int read(byte[] bytes, int off, int len) throws IOException {
 		ensureOpen();
 		if(bytes == null)
@@ -86,14 +178,56 @@ public class MemoryCacheRandomAccessInputStream extends RandomAccessInputStream
 		long l = readUntil(pointer+len);
 		if (l <= pointer)
 			return -1;
-	        
-		byte[] buf = cache.get((int)(pointer >> BUFFER_SHIFT));
-		int k = Math.min(len, BUFFER_SIZE - (int)(pointer & BUFFER_MASK));
-		System.arraycopy(buf, (int)(pointer & BUFFER_MASK), bytes, off, k);
-	        
-		pointer += k;
-	        
-		return k;
+
+		int total = (int)Math.min(len, l - pointer);
+		int remaining = total;
+		while (remaining > 0) {
+			byte[] buf = cache.get((int)(pointer >> blockShift));
+			int offset = (int)(pointer & blockMask);
+			int k = Math.min(remaining, blockSize - offset);
+			System.arraycopy(buf, offset, bytes, off, k);
+			pointer += k;
+			off += k;
+			remaining -= k;
+		}
+
+		return total;
+	}
+
+	/**
+	 * Reads directly from the cache block if all bytes are in the same block.
+	 */
+	@Override
+	public int readInt() throws IOException {
+		ensureOpen();
+		int offset = (int)(pointer & blockMask);
+		if (offset + 4 <= blockSize && readUntil(pointer + 4) >= pointer + 4) {
+			byte[] buf = cache.get((int)(pointer >> blockShift));
+			pointer += 4;
+			if (bigEndian)
+				return ((buf[offset] & 0xff) << 24) | ((buf[offset + 1] & 0xff) << 16)
+						| ((buf[offset + 2] & 0xff) << 8) | (buf[offset + 3] & 0xff);
+			return ((buf[offset + 3] & 0xff) << 24) | ((buf[offset + 2] & 0xff) << 16)
+					| ((buf[offset + 1] & 0xff) << 8) | (buf[offset] & 0xff);
+		}
+		return super.readInt();
+	}
+
+	/**
+	 * Reads directly from the cache block if both bytes are in the same block.
+	 */
+	@Override
+	public short readShort() throws IOException {
+		ensureOpen();
+		int offset = (int)(pointer & blockMask);
+		if (offset + 2 <= blockSize && readUntil(pointer + 2) >= pointer + 2) {
+			byte[] buf = cache.get((int)(pointer >> blockShift));
+			pointer += 2;
+			if (bigEndian)
+				return (short)(((buf[offset] & 0xff) << 8) | (buf[offset + 1] & 0xff));
+			return (short)(((buf[offset + 1] & 0xff) << 8) | (buf[offset] & 0xff));
+		}
+		return super.readShort();
 	}
 
 	private long readUntil(long pos) throws IOException {		
@@ -101,14 +235,15 @@ public class MemoryCacheRandomAccessInputStream extends RandomAccessInputStream
 			return pos;
 		if(foundEOS)
 			return length;
-		int slot = (int)(pos >> BUFFER_SHIFT);
-		int startSlot = length >> BUFFER_SHIFT;
+		// the last byte needed is at pos - 1
+		int slot = (int)((pos - 1) >> blockShift);
+		int startSlot = length >> blockShift;
 	        
 		for(int k = startSlot; k <= slot; k++) 
 		{
-			byte[] buf = new byte[BUFFER_SIZE];
+			byte[] buf = (pool != null) ? pool.acquire() : new byte[blockSize];
 			cache.add(buf);
-			int len = BUFFER_SIZE;
+			int len = blockSize;
 			int off = 0;
 	            
 			while(len > 0) {
@@ -133,12 +268,17 @@ public class MemoryCacheRandomAccessInputStream extends RandomAccessInputStream
 		pointer = loc;
 	}
 
+	@Override
+	public void setReadStrategy(ReadStrategy strategy) {
+		super.setReadStrategy(strategy);
+		bigEndian = (getEndian() == IOUtils.BIG_ENDIAN);
+	}
+
 	@Override
 	public void shallowClose() throws IOException {
 		if(closed) return;
 		super.close();
-		cache.clear();
-		cache = null;
+		releaseCache();
 		src = null;
 		closed = true;		
 	}
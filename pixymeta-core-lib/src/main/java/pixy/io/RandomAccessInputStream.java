@@ -114,7 +114,11 @@ public abstract class RandomAccessInputStream extends InputStream implements Dat
 		} while (n < len);
 	}
 
-	public final int readInt() throws IOException {
+	/**
+	 * Not final so that sub-classes with direct access to their buffer
+	 * can decode without the temporary array.
+	 */
+	public int readInt() throws IOException {
 		byte[] buf = new byte[4];
         readFully(buf);
     	return strategy.readInt(buf, 0);
@@ -139,7 +143,11 @@ public abstract class RandomAccessInputStream extends InputStream implements Dat
 		return strategy.readS15Fixed16Number(buf, 0);
 	}
 
-	public final short readShort() throws IOException {
+	/**
+	 * Not final so that sub-classes with direct access to their buffer
+	 * can decode without the temporary array.
+	 */
+	public short readShort() throws IOException {
 		byte[] buf = new byte[2];
         readFully(buf);
     	return strategy.readShort(buf, 0);
@@ -188,6 +196,10 @@ public abstract class RandomAccessInputStream extends InputStream implements Dat
 	
 	public abstract void seek(long loc) throws IOException;
 	
+	public ReadStrategy getReadStrategy() {
+		return strategy;
+	}
+
 	public void setReadStrategy(ReadStrategy strategy) {
 		this.strategy = strategy;
 	}	
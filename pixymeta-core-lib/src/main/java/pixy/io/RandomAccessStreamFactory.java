@@ -0,0 +1,188 @@
+package pixy.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Strategy that decides how the random access streams needed to read or
+ * rewrite TIFF based images are cached.
+ * <p>
+ * <ul>
+ * <li>{@link #MEMORY}: everything is cached in memory. No temp file io.</li>
+ * <li>{@link #FILE}: everything is cached in temp files. This is the default.</li>
+ * <li>{@link #MAPPED}: the input is spooled to a temp file that is memory mapped.</li>
+ * <li>{@link #hybrid(long)}: cached in memory up to a threshold, in temp files for larger images.</li>
+ * </ul>
+ * The strategy can be set globally via {@link #setDefault(RandomAccessStreamFactory)}
+ * or passed per call to the entry points of pixy.meta.Metadata.
+ */
+public abstract class RandomAccessStreamFactory {
+	/** Caches in memory. Suitable for small images i.e. on Android where temp file io is expensive. */
+	public static final RandomAccessStreamFactory MEMORY = new RandomAccessStreamFactory() {
+		@Override
+		public RandomAccessInputStream createInputStream(InputStream src) throws IOException {
+			return new MemoryCacheRandomAccessInputStream(src);
+		}
+
+		@Override
+		public RandomAccessOutputStream createOutputStream(OutputStream dist) throws IOException {
+			return new MemoryCacheRandomAccessOutputStream(dist);
+		}
+
+		@Override
+		public String toString() {
+			return "MEMORY";
+		}
+	};
+
+	/** Caches in temp files. Memory usage does not depend on the image size. */
+	public static final RandomAccessStreamFactory FILE = new RandomAccessStreamFactory() {
+		@Override
+		public RandomAccessInputStream createInputStream(InputStream src) throws IOException {
+			return new FileCacheRandomAccessInputStream(src);
+		}
+
+		@Override
+		public RandomAccessOutputStream createOutputStream(OutputStream dist) throws IOException {
+			return new FileCacheRandomAccessOutputStream(dist);
+		}
+
+		@Override
+		public String toString() {
+			return "FILE";
+		}
+	};
+
+	/**
+	 * Copies the input to a temp file that is memory mapped so that seeking
+	 * does not need any file io. The output is cached in a temp file.
+	 */
+	public static final RandomAccessStreamFactory MAPPED = new RandomAccessStreamFactory() {
+		@Override
+		public RandomAccessInputStream createInputStream(InputStream src) throws IOException {
+			File spoolFile = File.createTempFile("cafe-MFRAIS-", ".tmp");
+			spoolFile.deleteOnExit();
+			try {
+				FileOutputStream out = new FileOutputStream(spoolFile);
+				try {
+					byte[] buf = new byte[BUFFER_SIZE];
+					int nbytes;
+					while ((nbytes = src.read(buf)) != -1) {
+						out.write(buf, 0, nbytes);
+					}
+				} finally {
+					out.close();
+				}
+				return new MappedFileRandomAccessInputStream(spoolFile, true);
+			} catch (IOException ex) {
+				spoolFile.delete();
+				throw ex;
+			}
+		}
+
+		@Override
+		public RandomAccessOutputStream createOutputStream(OutputStream dist) throws IOException {
+			return new FileCacheRandomAccessOutputStream(dist);
+		}
+
+		@Override
+		public String toString() {
+			return "MAPPED";
+		}
+	};
+
+	/** Threshold used by {@link #HYBRID} */
+	public static final long DEFAULT_HYBRID_THRESHOLD = 1024 * 1024;
+
+	/** {@link #hybrid(long)} with {@link #DEFAULT_HYBRID_THRESHOLD} */
+	public static final RandomAccessStreamFactory HYBRID = hybrid(DEFAULT_HYBRID_THRESHOLD);
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static RandomAccessStreamFactory defaultFactory = FILE;
+
+	/**
+	 * @return the strategy used by all pixy.meta.Metadata entry points that
+	 * do not get an explicit strategy
+	 */
+	public static RandomAccessStreamFactory getDefault() {
+		return defaultFactory;
+	}
+
+	/**
+	 * @param factory the strategy used by all pixy.meta.Metadata entry points that
+	 * do not get an explicit strategy. null restores {@link #FILE}
+	 */
+	public static void setDefault(RandomAccessStreamFactory factory) {
+		defaultFactory = (factory == null) ? FILE : factory;
+	}
+
+	/**
+	 * Creates a strategy that caches in memory as long as the image is not
+	 * larger than threshold bytes and spills to temp files for larger images.
+	 * <p>
+	 * The input is read ahead up to threshold bytes: if it ends within the
+	 * threshold it is served from memory without a cache, otherwise a
+	 * {@link FileCacheRandomAccessInputStream} is used.
+	 * The output keeps the first threshold bytes in memory
+	 * (see {@link HybridCacheRandomAccessOutputStream}).
+	 *
+	 * @param threshold maximum number of bytes that are cached in memory per stream
+	 */
+	public static RandomAccessStreamFactory hybrid(final long threshold) {
+		if (threshold < 0 || threshold >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid threshold: " + threshold);
+		}
+		return new RandomAccessStreamFactory() {
+			@Override
+			public RandomAccessInputStream createInputStream(InputStream src) throws IOException {
+				// read one byte more than threshold to find out if src fits into memory
+				int limit = (int) threshold + 1;
+				byte[] buf = new byte[Math.min(limit, BUFFER_SIZE)];
+				int length = 0;
+				int nbytes;
+				while (length < limit && (nbytes = src.read(buf, length, Math.min(buf.length, limit) - length)) != -1) {
+					length += nbytes;
+					if (length == buf.length && length < limit) {
+						byte[] grown = new byte[(int) Math.min(limit, 2L * buf.length)];
+						System.arraycopy(buf, 0, grown, 0, length);
+						buf = grown;
+					}
+				}
+
+				if (length < limit) {
+					return new ByteArrayRandomAccessInputStream(buf, 0, length);
+				}
+				return new FileCacheRandomAccessInputStream(
+						new SequenceInputStream(new ByteArrayInputStream(buf, 0, length), src));
+			}
+
+			@Override
+			public RandomAccessOutputStream createOutputStream(OutputStream dist) throws IOException {
+				return new HybridCacheRandomAccessOutputStream(dist, threshold);
+			}
+
+			@Override
+			public String toString() {
+				return "HYBRID(" + threshold + ")";
+			}
+		};
+	}
+
+	/**
+	 * @param src the source that is read sequentially
+	 * @return a random access stream over src. Calling shallowClose() on it does not close src.
+	 */
+	public abstract RandomAccessInputStream createInputStream(InputStream src) throws IOException;
+
+	/**
+	 * @param dist the destination that is written sequentially
+	 * @return a random access stream over dist. Calling shallowClose() on it does not close dist.
+	 */
+	public abstract RandomAccessOutputStream createOutputStream(OutputStream dist) throws IOException;
+}
@@ -12,7 +12,7 @@ import pixy.api.IDirectory;
 import pixy.api.IFieldDefinition;
 import pixy.api.IFieldValue;
 import pixy.api.IMetadata;
-import pixy.util.ArrayUtils;
+import pixy.io.ByteArrayRandomAccessInputStream;
 
 /**
  * Created by k3b on 10.07.2016.
@@ -23,20 +23,52 @@ public abstract class MetadataBase extends DebuggableBase implements IMetadata {
 
     // Fields
     protected MetadataType type;
+    // the raw data is the slice data[dataOffset .. dataOffset + dataLength - 1]
     private byte[] data;
+    private int dataOffset;
+    private int dataLength;
     protected boolean isDataRead;
 
     public MetadataBase(MetadataType type, byte[] data) {
-        if ((data != null) && isDebugEnabled()) debug("ctor(" + data.length + ")");
+        this(type, data, 0, (data == null) ? 0 : data.length);
+    }
+
+    /**
+     * Creates meta data backed by a slice of data, i.e. the payload of a jpeg segment
+     * behind its header. The slice is not copied so data must not be modified afterwards.
+     */
+    public MetadataBase(MetadataType type, byte[] data, int offset, int length) {
+        if ((data != null) && isDebugEnabled()) debug("ctor(" + length + ")");
         this.type = type;
-        this.setData(data);
+        this.setData(data, offset, length);
         isDataRead = false;
     }
 
     public void merge(byte[] data) {
-        this.setData(ArrayUtils.concat(this.getData(), data));
+        if (data != null) {
+            byte[] merged = new byte[dataLength + data.length];
+            if (this.data != null) {
+                System.arraycopy(this.data, dataOffset, merged, 0, dataLength);
+            }
+            System.arraycopy(data, 0, merged, dataLength, data.length);
+            this.setData(merged);
+        }
         isDataRead = false;
-        if ((data != null) && isDebugEnabled()) debug("merge(" + data.length + ") => " + this.getData().length);
+        if ((data != null) && isDebugEnabled()) debug("merge(" + data.length + ") => " + dataLength);
+    }
+
+    /**
+     * Merges a copy of the slice with {@link #merge(byte[])}.
+     * Sub-classes that can use the slice directly should override this.
+     */
+    public void merge(byte[] data, int offset, int length) {
+        if ((data == null) || ((offset == 0) && (length == data.length))) {
+            merge(data);
+        } else {
+            byte[] slice = new byte[length];
+            System.arraycopy(data, offset, slice, 0, length);
+            merge(slice);
+        }
     }
 
     protected void ensureDataRead() {
@@ -50,10 +82,45 @@ public abstract class MetadataBase extends DebuggableBase implements IMetadata {
         }
     }
 
+    /**
+     * @return a copy of the raw data that may be modified by the caller.
+     * Sub-classes that only read the data should use {@link #openData()} instead.
+     */
     @Override
     public byte[] getData() {
+        if(data != null) {
+            byte[] copy = new byte[dataLength];
+            System.arraycopy(data, dataOffset, copy, 0, dataLength);
+            return copy;
+        }
+
+        return null;
+    }
+
+    /** @return number of bytes of the raw data */
+    public int getDataLength() {
+        return (data == null) ? 0 : dataLength;
+    }
+
+    /**
+     * @return the array that backs the raw data starting at {@link #getDataOffset()}.
+     * It is not copied and must not be modified.
+     */
+    protected byte[] getDataBuffer() {
+        return data;
+    }
+
+    /** @return index of the first byte of the raw data in {@link #getDataBuffer()} */
+    protected int getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * @return a stream over the raw data without copying it or null if there is no data
+     */
+    protected ByteArrayRandomAccessInputStream openData() {
         if(data != null)
-            return data.clone();
+            return new ByteArrayRandomAccessInputStream(data, dataOffset, dataLength);
 
         return null;
     }
@@ -79,10 +146,9 @@ public abstract class MetadataBase extends DebuggableBase implements IMetadata {
      */
     @Override
     public void write(OutputStream out) throws IOException {
-        byte[] data = getData();
         if(data != null) {
-            if (isDebugEnabled()) debug("write " + data.length + " bytes");
-            out.write(data);
+            if (isDebugEnabled()) debug("write " + dataLength + " bytes");
+            out.write(data, dataOffset, dataLength);
         }
     }
 
@@ -100,7 +166,17 @@ public abstract class MetadataBase extends DebuggableBase implements IMetadata {
     }
 
     public void setData(byte[] data) {
+        setData(data, 0, (data == null) ? 0 : data.length);
+    }
+
+    /** Uses the slice of data as raw data without copying it */
+    public void setData(byte[] data, int offset, int length) {
+        if ((data != null) && ((offset < 0) || (length < 0) || (offset + length > data.length))) {
+            throw new IndexOutOfBoundsException();
+        }
         this.data = data;
+        this.dataOffset = offset;
+        this.dataLength = length;
     }
 
     // TODO must be implemented by sub-classes
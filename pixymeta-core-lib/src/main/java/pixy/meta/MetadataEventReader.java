@@ -0,0 +1,593 @@
+package pixy.meta;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pixy.image.exifFields.FieldType;
+import pixy.io.IOUtils;
+import pixy.io.RandomAccessInputStream;
+import pixy.meta.exif.ExifImageTag;
+import pixy.meta.exif.ExifSubTag;
+import pixy.meta.exif.GPSTag;
+import pixy.meta.exif.IfdMetaUtils;
+import pixy.meta.exif.InteropTag;
+import pixy.meta.exif.Tag;
+import pixy.meta.exif.TagTable;
+import pixy.meta.xmp.XmpPropertyHandler;
+
+/**
+ * Pull parser (similar to StAX) that reports the metadata of an image as a sequence of
+ * events without building {@link pixy.image.exifFields.IFD}, {@link pixy.image.exifFields.ExifField},
+ * IPTC or DOM objects. The caller can skip a segment or stop reading at any point.
+ *
+ * <pre>
+ * while (reader.hasNext()) {
+ *     switch (reader.next()) {
+ *         case START_SEGMENT:
+ *             if (reader.getMetadataType() != MetadataType.EXIF) reader.skipSegment();
+ *             break;
+ *         case IFD_ENTRY:
+ *             if (reader.getTag() == ExifImageTag.ORIENTATION) orientation = reader.getInt(0);
+ *             break;
+ *     }
+ * }
+ * </pre>
+ *
+ * The format specific sub classes walk the container (jpeg segments, png chunks, ...) while
+ * this class walks the content of the exif/tiff, iptc and xmp blocks.
+ */
+public abstract class MetadataEventReader implements Closeable {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataEventReader.class);
+
+    public enum Event {
+        /** start of a metadata block (jpeg segment, tiff file, gif extension). See {@link #getMetadataType()} */
+        START_SEGMENT,
+        /** start of an exif/tiff IFD. See {@link #getTagClass()} */
+        START_IFD,
+        /** field of an IFD. See {@link #getTag()}, {@link #getFieldType()}, {@link #getCount()}, {@link #getInt(int)} */
+        IFD_ENTRY,
+        /** dataset of an iptc block. See {@link #getRecord()}, {@link #getTagId()}, {@link #getString()} */
+        IPTC_DATASET,
+        /** property of a xmp packet. See {@link #getNamespace()}, {@link #getName()}, {@link #getString()} */
+        XMP_PROPERTY,
+        /** png chunk. See {@link #getTagId()} for the chunk type and {@link #getLength()} */
+        CHUNK,
+        /** end of the metadata block that was started with {@link #START_SEGMENT} */
+        END_SEGMENT,
+        END_DOCUMENT
+    }
+
+    /** the block whose content is currently reported */
+    private enum Content {NONE, TIFF, IPTC, XMP}
+
+    /** max number of IFDs of one tiff structure. Protects against offset loops. */
+    private static final int MAX_IFDS = 64;
+
+    private Event event = null;
+    private MetadataType metadataType = null;
+    private Content content = Content.NONE;
+
+    // raw value of the current event if it is in memory
+    private byte[] valueBuffer = null;
+    private int valueOffset = 0;
+    private int valueLength = 0;
+
+    // current IFD_ENTRY, IPTC_DATASET or CHUNK
+    private int tagId = 0;
+    private int length = 0;
+
+    // tiff: queue of IFDs to be read
+    private RandomAccessInputStream tiff = null;
+    private long tiffLength = Long.MAX_VALUE;
+    private final int[] ifdOffsets = new int[MAX_IFDS];
+    private final TagTable[] ifdTags = new TagTable[MAX_IFDS];
+    private final Class<?>[] ifdTagClasses = new Class<?>[MAX_IFDS];
+    /** true for IFD0, IFD1, ... which are linked to the following IFD */
+    private final boolean[] ifdIsLinked = new boolean[MAX_IFDS];
+    private int ifdRead = 0;
+    private int ifdCount = 0;
+
+    // tiff: current IFD and entry
+    private Class<? extends Tag> tagClass = null;
+    private TagTable tagTable = null;
+    private boolean isLinkedIfd = false;
+    private int entriesLeft = 0;
+    private int entryPosition = 0;
+    private FieldType fieldType = null;
+    private int count = 0;
+    private int fieldOffset = 0;
+
+    // iptc
+    private byte[] iptcData = null;
+    private int iptcPosition = 0;
+    private int iptcEnd = 0;
+    private int record = 0;
+
+    // xmp: [ns0, name0, value0, ns1, ...]
+    private final List<String> xmpProperties = new ArrayList<String>();
+    private int xmpIndex = 0;
+    private XmpPropertyHandler xmpHandler = null;
+
+    public boolean hasNext() {
+        return event != Event.END_DOCUMENT;
+    }
+
+    /** @return the next event */
+    public Event next() throws IOException {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        valueBuffer = null;
+        Event result = nextContentEvent();
+        if (result == null) {
+            content = Content.NONE;
+            result = nextContainerEvent();
+        }
+        event = result;
+        return result;
+    }
+
+    /**
+     * Implemented by the format: reads the next block of the container.
+     *
+     * @return {@link Event#START_SEGMENT}, {@link Event#CHUNK}, {@link Event#END_SEGMENT},
+     * {@link Event#END_DOCUMENT} or the first event of the content started with
+     * {@link #startTiff(RandomAccessInputStream)}, {@link #startIptc(byte[], int, int)},
+     * {@link #startPhotoshopIrb(byte[], int, int)} or {@link #startXmp(byte[], int, int)}.
+     */
+    protected abstract Event nextContainerEvent() throws IOException;
+
+    /**
+     * Implemented by the format: the rest of the current block is skipped
+     * on the next call to {@link #nextContainerEvent()}
+     */
+    protected abstract void onSkipSegment() throws IOException;
+
+    /**
+     * The remaining events of the current segment are skipped.
+     * The next event is {@link Event#END_SEGMENT} (or the next {@link Event#CHUNK} for png).
+     */
+    public void skipSegment() throws IOException {
+        content = Content.NONE;
+        onSkipSegment();
+    }
+
+    /** The remaining entries of the current IFD are skipped. Sub IFDs of skipped entries are not read. */
+    public void skipIfd() {
+        if (content == Content.TIFF) entriesLeft = 0;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    /** @return the metadata type of the current segment or null if it is unknown */
+    public MetadataType getMetadataType() {
+        return metadataType;
+    }
+
+    /** @return IFD_ENTRY: the tag class of the IFD i.e. GPSTag.class */
+    public Class<? extends Tag> getTagClass() {
+        return tagClass;
+    }
+
+    /** @return IFD_ENTRY: the unsigned tag id. IPTC_DATASET: the dataset number. CHUNK: the chunk type */
+    public int getTagId() {
+        return tagId;
+    }
+
+    /** @return IFD_ENTRY: the tag or {@link ExifImageTag#UNKNOWN} */
+    public Tag getTag() {
+        return (tagTable == null) ? ExifImageTag.UNKNOWN : tagTable.fromShort((short) tagId);
+    }
+
+    /** @return IFD_ENTRY: the type of the field */
+    public FieldType getFieldType() {
+        return fieldType;
+    }
+
+    /** @return IFD_ENTRY: the number of values. A rational counts as one value */
+    public int getCount() {
+        return count;
+    }
+
+    /** @return IPTC_DATASET: the record number i.e. 2 for application */
+    public int getRecord() {
+        return record;
+    }
+
+    /** @return the length of the raw value in bytes. CHUNK: the length of the chunk data */
+    public int getLength() {
+        return length;
+    }
+
+    /** @return XMP_PROPERTY: the namespace uri of the property */
+    public String getNamespace() {
+        return (event == Event.XMP_PROPERTY) ? xmpProperties.get(xmpIndex - 3) : null;
+    }
+
+    /** @return XMP_PROPERTY: the local name of the property. IFD_ENTRY: the name of the tag */
+    public String getName() {
+        if (event == Event.XMP_PROPERTY) return xmpProperties.get(xmpIndex - 2);
+        if (event == Event.IFD_ENTRY) return getTag().getName();
+        return null;
+    }
+
+    /** @return IFD_ENTRY: value number index as int. Rationals and floating point values are truncated */
+    public int getInt(int index) throws IOException {
+        switch (fieldType) {
+            case RATIONAL:
+            case SRATIONAL:
+            case FLOAT:
+            case DOUBLE:
+                return (int) getDouble(index);
+            default:
+                return (int) getLong(index);
+        }
+    }
+
+    /** @return IFD_ENTRY: value number index as long. Unsigned types are not sign extended */
+    public long getLong(int index) throws IOException {
+        checkIndex(index);
+        switch (fieldType) {
+            case BYTE:
+            case UNDEFINED:
+            case ASCII:
+            case WINDOWSXP:
+                tiff.seek(fieldOffset + index);
+                return tiff.readUnsignedByte();
+            case SBYTE:
+                tiff.seek(fieldOffset + index);
+                return tiff.readByte();
+            case SHORT:
+                tiff.seek(fieldOffset + 2 * index);
+                return tiff.readUnsignedShort();
+            case SSHORT:
+                tiff.seek(fieldOffset + 2 * index);
+                return tiff.readShort();
+            case LONG:
+            case IFD:
+                tiff.seek(fieldOffset + 4 * index);
+                return tiff.readInt() & 0xffffffffL;
+            case SLONG:
+                tiff.seek(fieldOffset + 4 * index);
+                return tiff.readInt();
+            case RATIONAL:
+            case SRATIONAL:
+            case FLOAT:
+            case DOUBLE:
+                return (long) getDouble(index);
+            default:
+                throw new IOException("Unsupported field type " + fieldType + " of tag " + tagId);
+        }
+    }
+
+    /** @return IFD_ENTRY: value number index as double. Rationals are divided */
+    public double getDouble(int index) throws IOException {
+        checkIndex(index);
+        switch (fieldType) {
+            case RATIONAL:
+            case SRATIONAL:
+                tiff.seek(fieldOffset + 8 * index);
+                long numerator = tiff.readInt();
+                long denominator = tiff.readInt();
+                if (fieldType == FieldType.RATIONAL) {
+                    numerator &= 0xffffffffL;
+                    denominator &= 0xffffffffL;
+                }
+                return (double) numerator / denominator;
+            case FLOAT:
+                tiff.seek(fieldOffset + 4 * index);
+                return tiff.readFloat();
+            case DOUBLE:
+                tiff.seek(fieldOffset + 8 * index);
+                return tiff.readDouble();
+            default:
+                return getLong(index);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (event != Event.IFD_ENTRY) throw new IllegalStateException("No IFD_ENTRY: " + event);
+        if ((index < 0) || (index >= count)) throw new IndexOutOfBoundsException("index " + index + " of " + count);
+    }
+
+    /**
+     * @return the raw value as a new array: IFD_ENTRY, IPTC_DATASET, comment segments
+     * and png chunks with metadata. null if the value is not available.
+     */
+    public byte[] getBytes() throws IOException {
+        if ((event == Event.IFD_ENTRY) && (valueBuffer == null)) {
+            byte[] result = new byte[length];
+            tiff.seek(fieldOffset);
+            tiff.readFully(result);
+            return result;
+        }
+        if (valueBuffer == null) return null;
+
+        byte[] result = new byte[valueLength];
+        System.arraycopy(valueBuffer, valueOffset, result, 0, valueLength);
+        return result;
+    }
+
+    /**
+     * @return the value as text: XMP_PROPERTY, IPTC_DATASET, ascii IFD_ENTRY, comment segments
+     * and png text chunks. null if the value is not available.
+     */
+    public String getString() throws IOException {
+        if (event == Event.XMP_PROPERTY) return xmpProperties.get(xmpIndex - 1);
+
+        byte[] data = valueBuffer;
+        int offset = valueOffset;
+        int len = valueLength;
+        if ((event == Event.IFD_ENTRY) && (data == null)) {
+            data = getBytes();
+            offset = 0;
+            len = data.length;
+        }
+        if (data == null) return null;
+
+        // ascii fields are null terminated
+        while ((len > 0) && (data[offset + len - 1] == 0)) len--;
+        return toString(data, offset, len);
+    }
+
+    private static String toString(byte[] data, int offset, int len) {
+        try {
+            return new String(data, offset, len, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** start of a block. The data of the block can be set with {@link #setValue(byte[], int, int)} */
+    protected Event startSegment(MetadataType metadataType) {
+        this.metadataType = metadataType;
+        return Event.START_SEGMENT;
+    }
+
+    /** a png chunk that belongs to metadataType (or null) */
+    protected Event chunk(MetadataType metadataType, int type, int length) {
+        this.metadataType = metadataType;
+        this.tagId = type;
+        this.length = length;
+        return Event.CHUNK;
+    }
+
+    /** the raw value of the current event for {@link #getBytes()} and {@link #getString()} */
+    protected void setValue(byte[] buffer, int offset, int length) {
+        this.valueBuffer = buffer;
+        this.valueOffset = offset;
+        this.valueLength = length;
+        this.length = length;
+    }
+
+    /**
+     * Starts reporting the IFDs of a tiff structure (exif).
+     * IFD0, its sub IFDs and the following IFDs (i.e. thumbnail) are reported.
+     *
+     * @return the first event or null if there are no IFDs
+     */
+    protected Event startTiff(RandomAccessInputStream tiff) throws IOException {
+        return startTiff(tiff, Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts reporting the IFDs of a tiff structure of known length.
+     * Entries whose values do not fit into length are corrupt and not reported.
+     *
+     * @return the first event or null if there are no IFDs
+     */
+    protected Event startTiff(RandomAccessInputStream tiff, long length) throws IOException {
+        this.tiff = tiff;
+        this.tiffLength = length;
+        ifdRead = 0;
+        ifdCount = 0;
+        entriesLeft = 0;
+        isLinkedIfd = false;
+        queueIfd(IfdMetaUtils.readHeader(tiff), ExifImageTag.class, true);
+        content = Content.TIFF;
+        return nextContentEvent();
+    }
+
+    /** @return the first event of the iptc datasets in data or null if there is none */
+    protected Event startIptc(byte[] data, int offset, int length) throws IOException {
+        iptcData = data;
+        iptcPosition = offset;
+        iptcEnd = offset + length;
+        content = Content.IPTC;
+        return nextContentEvent();
+    }
+
+    /**
+     * Photoshop image resource blocks (jpeg APP13): reports the iptc datasets of the IPTC_NAA resource.
+     *
+     * @return the first event or null if there is no iptc
+     */
+    protected Event startPhotoshopIrb(byte[] data, int offset, int length) throws IOException {
+        final int end = offset + length;
+        int i = offset;
+        while (i + 12 <= end) {
+            if ((data[i] != '8') || (data[i + 1] != 'B') || (data[i + 2] != 'I') || (data[i + 3] != 'M')) break;
+            int id = IOUtils.readUnsignedShortMM(data, i + 4);
+            // Pascal string for name padded to even length
+            int nameLen = data[i + 6] & 0xff;
+            if ((nameLen % 2) == 0) nameLen++;
+            i += 6 + 1 + nameLen;
+            if (i + 4 > end) break;
+            int size = IOUtils.readIntMM(data, i);
+            i += 4;
+            if ((size < 0) || (i + size > end)) break;
+
+            if (id == 0x0404) { // IPTC_NAA
+                return startIptc(data, i, size);
+            }
+            i += size + (size % 2);
+        }
+        return null;
+    }
+
+    /** @return the first property of the xmp packet in data or null if there is none */
+    protected Event startXmp(byte[] data, int offset, int length) throws IOException {
+        xmpProperties.clear();
+        xmpIndex = 0;
+        if (xmpHandler == null) {
+            xmpHandler = new XmpPropertyHandler() {
+                @Override
+                protected void onProperty(String namespace, String name, String value) {
+                    xmpProperties.add(namespace);
+                    xmpProperties.add(name);
+                    xmpProperties.add(value);
+                }
+            };
+        }
+        try {
+            xmpHandler.parse(data, offset, length);
+        } catch (IOException e) {
+            // report the properties read so far
+            LOGGER.warn("Cannot read xmp", e);
+        }
+        content = Content.XMP;
+        return nextContentEvent();
+    }
+
+    private Event nextContentEvent() throws IOException {
+        switch (content) {
+            case TIFF:
+                return nextIfdEvent();
+            case IPTC:
+                return nextIptcEvent();
+            case XMP:
+                return nextXmpEvent();
+            default:
+                return null;
+        }
+    }
+
+    private Event nextXmpEvent() {
+        if (xmpIndex >= xmpProperties.size()) return null;
+        xmpIndex += 3;
+        return Event.XMP_PROPERTY;
+    }
+
+    private Event nextIptcEvent() {
+        final byte[] data = iptcData;
+        final int i = iptcPosition;
+        if ((data == null) || (i + 5 > iptcEnd) || (data[i] != 0x1c)) return null;
+
+        int size = IOUtils.readUnsignedShortMM(data, i + 3);
+        if (i + 5 + size > iptcEnd) return null; // truncated dataset
+
+        record = data[i + 1] & 0xff;
+        tagId = data[i + 2] & 0xff;
+        setValue(data, i + 5, size);
+        iptcPosition = i + 5 + size;
+        return Event.IPTC_DATASET;
+    }
+
+    private void queueIfd(int offset, Class<? extends Tag> tagClass, boolean isLinked) {
+        if ((offset > 0) && (ifdCount < MAX_IFDS)) {
+            ifdOffsets[ifdCount] = offset;
+            ifdTagClasses[ifdCount] = tagClass;
+            ifdIsLinked[ifdCount] = isLinked;
+            ifdTags[ifdCount] = TagTable.of(tagClass);
+            ifdCount++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Event nextIfdEvent() throws IOException {
+        if (entriesLeft > 0) {
+            return nextIfdEntry();
+        }
+        if (isLinkedIfd) {
+            // the entries of IFD0 are followed by the link to IFD1
+            isLinkedIfd = false;
+            tiff.seek(entryPosition);
+            queueIfd(tiff.readInt(), ExifImageTag.class, true);
+        }
+        if (ifdRead >= ifdCount) return null;
+
+        int offset = ifdOffsets[ifdRead];
+        tagClass = (Class<? extends Tag>) ifdTagClasses[ifdRead];
+        tagTable = ifdTags[ifdRead];
+        isLinkedIfd = ifdIsLinked[ifdRead];
+        ifdRead++;
+
+        tiff.seek(offset);
+        entriesLeft = tiff.readUnsignedShort();
+        entryPosition = offset + 2;
+        return Event.START_IFD;
+    }
+
+    private Event nextIfdEntry() throws IOException {
+        while (entriesLeft > 0) {
+            tiff.seek(entryPosition);
+            tagId = tiff.readUnsignedShort();
+            fieldType = FieldType.fromShort(tiff.readShort());
+            count = tiff.readInt();
+            long size = (long) count * getSize(fieldType);
+            int valueOffset = (size > 4) ? tiff.readInt() : entryPosition + 8;
+            entryPosition += 12;
+            entriesLeft--;
+
+            // Sanity check: skip corrupt entries whose values are not inside the tiff
+            if ((count < 0) || (size > Integer.MAX_VALUE) || (valueOffset < 0) || (valueOffset + size > tiffLength)) {
+                continue;
+            }
+            length = (int) size;
+            fieldOffset = valueOffset;
+
+            if ((fieldType == FieldType.LONG) || (fieldType == FieldType.IFD)) {
+                Class<? extends Tag> subIfdTagClass = getSubIfdTagClass((short) tagId);
+                if (subIfdTagClass != null) {
+                    for (int i = 0; (i < count) && (ifdCount < MAX_IFDS); i++) {
+                        tiff.seek(fieldOffset + 4 * i);
+                        queueIfd(tiff.readInt(), subIfdTagClass, false);
+                    }
+                }
+            }
+            return Event.IFD_ENTRY;
+        }
+        return nextIfdEvent();
+    }
+
+    private Class<? extends Tag> getSubIfdTagClass(short id) {
+        if (tagClass == ExifImageTag.class) {
+            if (id == ExifImageTag.EXIF_SUB_IFD.getValue()) return ExifSubTag.class;
+            if (id == ExifImageTag.GPS_SUB_IFD.getValue()) return GPSTag.class;
+            if (id == ExifImageTag.SUB_IFDS.getValue()) return ExifImageTag.class;
+        } else if (tagClass == ExifSubTag.class) {
+            if (id == ExifSubTag.EXIF_INTEROPERABILITY_OFFSET.getValue()) return InteropTag.class;
+        }
+        return null;
+    }
+
+    /** @return size in bytes of one value of type */
+    private static int getSize(FieldType type) {
+        switch (type) {
+            case BYTE:
+            case SBYTE:
+            case ASCII:
+            case UNDEFINED:
+            case WINDOWSXP:
+                return 1;
+            case SHORT:
+            case SSHORT:
+                return 2;
+            case RATIONAL:
+            case SRATIONAL:
+            case DOUBLE:
+                return 8;
+            default:
+                return 4;
+        }
+    }
+}
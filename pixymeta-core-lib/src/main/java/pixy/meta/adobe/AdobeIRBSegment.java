@@ -64,6 +64,12 @@ public class AdobeIRBSegment extends MetadataBase {
 		// setDebugMessageBuffer(new StringBuilder());
 		debug("create AdobeIRBSegment");
 	}
+
+	/** Uses the slice of data without copying it */
+	public AdobeIRBSegment(byte[] data, int offset, int length) {
+		super(MetadataType.PHOTOSHOP_IRB, data, offset, length);
+		debug("create AdobeIRBSegment");
+	}
 	
 	public boolean containsThumbnail() {
 		ensureDataRead();
@@ -92,23 +98,28 @@ public class AdobeIRBSegment extends MetadataBase {
 	
 	public void read() throws IOException {
 		if(!isDataRead) {
-			int i = 0;
+			// parse the raw data in place: only the resources are copied
+			byte[] data = getDataBuffer();
+			if (data == null) return;
+			int offset = getDataOffset();
+			int end = offset + getDataLength();
+			int i = offset;
 			int unknown = 0; // number of skipped bytes before SUB_SEGMENT_MARKER
-			while((i+4) < getData().length) {
+			while((i+4) < end) {
 				int start = i;
-				String _8bim = new String(getData(), i, SUB_SEGMENT_MARKER.length());
+				String _8bim = new String(data, i, SUB_SEGMENT_MARKER.length());
 				i += SUB_SEGMENT_MARKER.length();
 				if(_8bim.equals(SUB_SEGMENT_MARKER)) {
-					short tagCode = IOUtils.readShortMM(getData(), i);
+					short tagCode = IOUtils.readShortMM(data, i);
 					i += 2;
 					// Pascal string for name follows
 					// First byte denotes string length -
-					int nameLen = getData()[i++]&0xff;
+					int nameLen = data[i++]&0xff;
 					if((nameLen%2) == 0) nameLen++;
-					String name = new String(getData(), i, nameLen).trim();
+					String name = new String(data, i, nameLen).trim();
 					i += nameLen;
 					//
-					int size = IOUtils.readIntMM(getData(), i);
+					int size = IOUtils.readIntMM(data, i);
 					i += 4;
 					
 					ImageResourceID tag = ImageResourceID.fromShort(tagCode);
@@ -116,20 +127,20 @@ public class AdobeIRBSegment extends MetadataBase {
 					if (isDebugEnabled()) {
 						debug("AdobeIRBSegment.read " + tag + "[" + name +", skip=" + unknown +
 								"] :" +
-								start +"/" + (i-start) + "+" +size + "/" + getData().length);
+								(start - offset) +"/" + (i-start) + "+" +size + "/" + (end - offset));
 					}
 					switch(tag) {
 						case JPEG_QUALITY:
-							_8bims.put(tagCode, new JPEGQuality(tag, name, ArrayUtils.subArray(getData(), i, size)));
+							_8bims.put(tagCode, new JPEGQuality(tag, name, ArrayUtils.subArray(data, i, size)));
 							break;
 						case VERSION_INFO:
-							_8bims.put(tagCode, new VersionInfo(tag, name, ArrayUtils.subArray(getData(), i, size)));
+							_8bims.put(tagCode, new VersionInfo(tag, name, ArrayUtils.subArray(data, i, size)));
 							break;
 						case IPTC_NAA:
-							byte[] newData = ArrayUtils.subArray(getData(), i, size);
+							byte[] newData = ArrayUtils.subArray(data, i, size);
 							AdobyMetadataBase iptcBim = _8bims.get(tagCode);
 							if(iptcBim != null) {
-								byte[] oldData = iptcBim.getData();
+								byte[] oldData = iptcBim.data;
 								_8bims.put(tagCode, new IPTC_NAA(tag, name, ArrayUtils.concat(oldData, newData)));
 							} else
 								_8bims.put(tagCode, new IPTC_NAA(tag, name, newData));
@@ -137,11 +148,11 @@ public class AdobeIRBSegment extends MetadataBase {
 						case THUMBNAIL_RESOURCE_PS4:
 						case THUMBNAIL_RESOURCE_PS5:
 							containsThumbnail = true;
-							thumbnail = new ThumbnailResource(tag, ArrayUtils.subArray(getData(), i, size));
+							thumbnail = new ThumbnailResource(tag, ArrayUtils.subArray(data, i, size));
 							_8bims.put(tagCode, thumbnail);
 							break;
 						default:
-							_8bims.put(tagCode, new AdobyMetadataBase(tag, name, size, ArrayUtils.subArray(getData(), i, size)));
+							_8bims.put(tagCode, new AdobyMetadataBase(tag, name, size, ArrayUtils.subArray(data, i, size)));
 					}
 
 					unknown = 0;
@@ -60,15 +60,19 @@ public class IPTC_NAA_new extends MetadataBase { // AdobyMetadataBase {
 	@Override
 	public void read() throws IOException {
 		if(!isDataRead) {
-			int i = 0;
-			byte[] data = getData();
-			int tagMarker = data[i];
-			while (tagMarker == 0x1c) {
+			// parse the shared buffer in place: the values only keep offsets into it
+			final byte[] data = getDataBuffer();
+			final int end = getDataOffset() + getDataLength();
+			int i = getDataOffset();
+			int tagMarker = (i < end) ? data[i] : 0;
+			while (tagMarker == 0x1c && i + 5 <= end) {
 				i++;
 				int recordNumber = data[i++]&0xff;
 				int tag = data[i++]&0xff;
 				int recordSize = IOUtils.readUnsignedShortMM(data, i);
 				i += 2;
+				// Sanity check: truncated dataset
+				if(i + recordSize > end) break;
 
 				IPTCApplicationTag tagEnum = IPTCApplicationTag.fromTag(tag);
 
@@ -82,7 +86,7 @@ public class IPTC_NAA_new extends MetadataBase { // AdobyMetadataBase {
 
 				i += recordSize;
 				// Sanity check
-				if(i >= data.length) break;
+				if(i >= end) break;
 				tagMarker = data[i];
 			}
 
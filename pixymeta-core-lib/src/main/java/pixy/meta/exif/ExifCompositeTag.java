@@ -9,13 +9,13 @@ import pixy.api.IDataType;
 import pixy.api.IDirectory;
 import pixy.api.IFieldDefinition;
 import pixy.api.IFieldValue;
+import pixy.api.INumericFieldValue;
 import pixy.image.exifFields.ASCIIField;
 import pixy.image.exifFields.AbstractByteField;
 import pixy.image.exifFields.DoubleField;
 import pixy.image.exifFields.ExifField;
 import pixy.image.exifFields.FieldType;
 import pixy.image.exifFields.IFD;
-import pixy.image.exifFields.RationalField;
 
 /**
  * Define virtual exif tags that contain of more than 1 physical tags.
@@ -70,16 +70,16 @@ public enum ExifCompositeTag implements Tag {
     abstract public ExifField createVirtualField(IFD directory);
 
     private static ExifField getGpsField(ExifCompositeTag resultTag, IFD directory, String posNegValueDefinition, Tag... srcTags) {
-        RationalField rationalValue = (RationalField) directory.getField(srcTags[0]);
+        ExifField<?> field = directory.getField(srcTags[0]);
 
         // degree, minutes, seconds
-        int[] intValues = (rationalValue == null) ? null : rationalValue.getData ();
-
-        if (intValues != null) {
+        if (field instanceof INumericFieldValue) {
+            INumericFieldValue rationalValue = (INumericFieldValue) field;
+            int count = rationalValue.getCount();
             double result = 0;
-            if (intValues.length > 1) result = 1.0 * intValues[0] / intValues[1];
-            if (intValues.length > 3) result += 1.0 * intValues[2] / intValues[3] / 60.0;
-            if (intValues.length > 5) result += 1.0 * intValues[4] / intValues[5] / 3600.0;
+            if (count > 0) result = rationalValue.getDouble(0);
+            if (count > 1) result += rationalValue.getDouble(1) / 60.0;
+            if (count > 2) result += rationalValue.getDouble(2) / 3600.0;
 
             ExifField<?> signValue = directory.getField(srcTags[1]);
             if (isNegtive(signValue, posNegValueDefinition)) result = result * -1;
@@ -94,8 +94,8 @@ public enum ExifCompositeTag implements Tag {
         char posValue = posNegValueDefinition.charAt(0);
         char signByte = posValue;
         if (signValue instanceof AbstractByteField) {
-            byte[] bytes = ((AbstractByteField) signValue).getData();
-            if ((bytes != null) && (bytes.length > 0)) signByte = (char) bytes[0];
+            AbstractByteField byteValue = (AbstractByteField) signValue;
+            if (byteValue.getCount() > 0) signByte = (char) byteValue.getInt(0);
         } else {
             String signString = (signValue == null) ? null : signValue.getValueAsString();
             if ((signString != null) && (signString.length() > 0))
@@ -12,8 +12,6 @@ package pixy.meta.exif;
 
 import java.io.UnsupportedEncodingException;
 import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Map;
 
 import pixy.api.IDataType;
 import pixy.image.exifFields.ExifFieldEnum;
@@ -607,20 +605,11 @@ public enum ExifImageTag implements Tag {
 		}
 	} 
 	
-	private static final Map<Short, ExifImageTag> tagMap = new HashMap<Short, ExifImageTag>();
-	
-	static
-    {
-      for(ExifImageTag exifTag : values()) {
-           tagMap.put(exifTag.getValue(), exifTag);
-      }
-    }	
-	
+	/** lookup by {@link #getValue()} */
+	static final TagTable TAGS = new TagTable(values());
+
 	public static Tag fromShort(short value) {
-       	ExifImageTag exifTag = tagMap.get(value);
-    	if (exifTag == null)
-    	   return UNKNOWN;
-       	return exifTag;
+		return TAGS.fromShort(value);
     }
 	
 	private final String name;
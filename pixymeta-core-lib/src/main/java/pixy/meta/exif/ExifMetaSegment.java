@@ -20,13 +20,11 @@
 
 package pixy.meta.exif;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -43,9 +41,8 @@ import pixy.meta.Thumbnail;
 import pixy.image.exifFields.FieldType;
 import pixy.image.exifFields.IFD;
 import pixy.image.exifFields.ExifField;
-import pixy.io.FileCacheRandomAccessInputStream;
-import pixy.io.FileCacheRandomAccessOutputStream;
 import pixy.io.IOUtils;
+import pixy.io.MemoryCacheRandomAccessOutputStream;
 import pixy.io.RandomAccessInputStream;
 import pixy.io.RandomAccessOutputStream;
 import pixy.util.ClassUtils;
@@ -77,6 +74,12 @@ public abstract class ExifMetaSegment extends MetadataBase {
 		ensureDataRead();
 	}
 
+	/** Parses the slice of data without copying it */
+	public ExifMetaSegment(byte[] data, int offset, int length) {
+		super(MetadataType.EXIF, data, offset, length);
+		ensureDataRead();
+	}
+
 	public ExifMetaSegment(IFD imageIFD) {
 		this();
 		setImageIFD(imageIFD);
@@ -116,29 +119,48 @@ public abstract class ExifMetaSegment extends MetadataBase {
 					" field");
 	}
 
-	protected static final String ID_gpsSubIFD = GPSTag.class.getSimpleName();
-	protected static final String ID_exifSubIFD = ExifSubTag.class.getSimpleName();
-	protected static final String ID_exifImageIFD = ExifImageTag.class.getSimpleName();
+	/** The directories of an exif segment */
+	public enum Directory {
+		IMAGE, EXIF, GPS;
+
+		/**
+		 * @return the directory that contains tag or null if tag does not belong to
+		 * one of the directories of an exif segment.
+		 */
+		public static Directory of(IFieldDefinition tag) {
+			if (tag instanceof ExifImageTag) return IMAGE;
+			if (tag instanceof ExifSubTag) return EXIF;
+			if ((tag instanceof GPSTag) || (tag instanceof ExifCompositeTag)) return GPS;
+			return null;
+		}
+	}
+
+	/** indexed by {@link Directory#ordinal()} */
+	private final IFD[] ifds = new IFD[Directory.values().length];
 
-	HashMap<String, IFD> ifds = new HashMap<String, IFD>();
-	private IFD getOrCreateIfd(String typName, boolean createIfNotFound) {
-		IFD result = getIfd(typName);
+	private IFD getOrCreateIfd(Directory directory, boolean createIfNotFound) {
+		IFD result = getIfd(directory);
 
-		if (result == null) {
+		if ((result == null) && createIfNotFound) {
 			result = new IFD();
-			ifds.put(typName, result);
+			ifds[directory.ordinal()] = result;
 		}
 		return result;
 	}
 
 	protected IFD getOrCreateIfd(IFieldDefinition tag, boolean createIfNotFound) {
-		if (tag instanceof ExifCompositeTag) return getOrCreateIfd(ID_gpsSubIFD, createIfNotFound);
-		final String typName = ClassUtils.getSimpleClassName(tag);
-		return getOrCreateIfd(typName, createIfNotFound);
+		Directory directory = Directory.of(tag);
+		if (directory == null) {
+			if (createIfNotFound) {
+				throw new IllegalArgumentException(ClassUtils.getSimpleClassName(tag) + " does not belong to an exif directory");
+			}
+			return null;
+		}
+		return getOrCreateIfd(directory, createIfNotFound);
 	}
 
-	protected IFD getIfd(String typName) {
-		return ifds.get(typName);
+	protected IFD getIfd(Directory directory) {
+		return ifds[directory.ordinal()];
 	}
 
 	public boolean containsThumbnail() {
@@ -150,7 +172,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	}
 
 	public IFD getExifIFD() {
-		IFD exifSubIFD = getIfd(ID_exifSubIFD);
+		IFD exifSubIFD = getIfd(Directory.EXIF);
 
 		if (exifSubIFD != null) {
 			return new IFD(exifSubIFD);
@@ -160,7 +182,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	}
 
 	public IFD getGPSIFD() {
-		IFD gpsSubIFD = getIfd(ID_gpsSubIFD);
+		IFD gpsSubIFD = getIfd(Directory.GPS);
 		if (gpsSubIFD != null) {
 			return new IFD(gpsSubIFD);
 		}
@@ -169,7 +191,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	}
 
 	public IFD getImageIFD() {
-		IFD imageIFD = getIfd(ID_exifImageIFD);
+		IFD imageIFD = getIfd(Directory.IMAGE);
 		if (imageIFD != null) {
 			return new IFD(imageIFD);
 		}
@@ -190,7 +212,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 
 	public void read() throws IOException {
 		if (!isDataRead) {
-			RandomAccessInputStream exifIn = new FileCacheRandomAccessInputStream(new ByteArrayInputStream(getData()));
+			RandomAccessInputStream exifIn = openData();
 			List<IFD> ifds = new ArrayList<IFD>(3);
 			IfdMetaUtils.readIFDs(ifds, exifIn);
 			if (ifds.size() > 0) {
@@ -199,19 +221,12 @@ public abstract class ExifMetaSegment extends MetadataBase {
 			// We have thumbnail IFD
 			if (ifds.size() >= 2) {
 				IFD thumbnailIFD = ifds.get(1);
-				int width = -1;
-				int height = -1;
-				ExifField<?> field = thumbnailIFD.getField(ExifImageTag.IMAGE_WIDTH);
-				if (field != null)
-					width = field.getDataAsLong()[0];
-				field = thumbnailIFD.getField(ExifImageTag.IMAGE_LENGTH);
-				if (field != null)
-					height = field.getDataAsLong()[0];
-				field = thumbnailIFD.getField(ExifImageTag.JPEG_INTERCHANGE_FORMAT);
+				int width = IfdMetaUtils.getIntValue(thumbnailIFD.getField(ExifImageTag.IMAGE_WIDTH), -1);
+				int height = IfdMetaUtils.getIntValue(thumbnailIFD.getField(ExifImageTag.IMAGE_LENGTH), -1);
+				ExifField<?> field = thumbnailIFD.getField(ExifImageTag.JPEG_INTERCHANGE_FORMAT);
 				if (field != null) { // JPEG format, save as JPEG
-					int thumbnailOffset = field.getDataAsLong()[0];
-					field = thumbnailIFD.getField(ExifImageTag.JPEG_INTERCHANGE_FORMAT_LENGTH);
-					int thumbnailLen = field.getDataAsLong()[0];
+					int thumbnailOffset = IfdMetaUtils.getIntValue(field, 0);
+					int thumbnailLen = IfdMetaUtils.getIntValue(thumbnailIFD.getField(ExifImageTag.JPEG_INTERCHANGE_FORMAT_LENGTH), 0);
 					exifIn.seek(thumbnailOffset);
 					byte[] thumbnailData = new byte[thumbnailLen];
 					exifIn.readFully(thumbnailData);
@@ -224,7 +239,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 					if (field != null) {
 						exifIn.seek(0);
 						ByteArrayOutputStream bout = new ByteArrayOutputStream();
-						RandomAccessOutputStream tiffout = new FileCacheRandomAccessOutputStream(bout);
+						RandomAccessOutputStream tiffout = new MemoryCacheRandomAccessOutputStream(bout);
 						IfdMetaUtils.retainPages(exifIn, tiffout, 1);
 						tiffout.close(); // Auto flush when closed
 						thumbnail = new ExifThumbnail(width, height, Thumbnail.DATA_TYPE_TIFF, bout.toByteArray(), thumbnailIFD);
@@ -238,17 +253,17 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	}
 
 	public void setExifIFD(IFD exifSubIFD) {
-		ifds.put(ID_exifSubIFD, exifSubIFD);
+		ifds[Directory.EXIF.ordinal()] = exifSubIFD;
 	}
 
 	public void setGPSIFD(IFD gpsSubIFD) {
-		ifds.put(ID_gpsSubIFD, gpsSubIFD);
+		ifds[Directory.GPS.ordinal()] = gpsSubIFD;
 	}
 
 	public IFD setImageIFD(IFD imageIFD) {
 		if (imageIFD == null)
 			throw new IllegalArgumentException("Input image IFD is null");
-		ifds.put(ID_exifImageIFD, imageIFD);
+		ifds[Directory.IMAGE.ordinal()] = imageIFD;
 
 		setGPSIFD(imageIFD.getChild(ExifImageTag.GPS_SUB_IFD));
 		setExifIFD(imageIFD.getChild(ExifImageTag.EXIF_SUB_IFD));
@@ -277,7 +292,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	public void showMetadata() {
 		ensureDataRead();
 		LOGGER.info("ExifMetaSegment output starts =>");
-		IFD imageIFD = getIfd(ID_exifImageIFD);
+		IFD imageIFD = getIfd(Directory.IMAGE);
 
 		if (imageIFD != null) {
 			LOGGER.info("<<Image IFD starts>>");
@@ -298,7 +313,7 @@ public abstract class ExifMetaSegment extends MetadataBase {
 	 * */
 	@Override
 	public List<IDirectory> getMetaData() {
-		return getDirectories(new String[]{"", "-sub", "-gps", "-thumb"}, getIfd(ID_exifImageIFD), getIfd(ID_exifSubIFD), getIfd(ID_gpsSubIFD),
+		return getDirectories(new String[]{"", "-sub", "-gps", "-thumb"}, getIfd(Directory.IMAGE), getIfd(Directory.EXIF), getIfd(Directory.GPS),
 				(thumbnail != null) ? thumbnail.getMetaData() : null);
 	}
 
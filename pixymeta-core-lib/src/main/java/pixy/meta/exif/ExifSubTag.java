@@ -11,8 +11,6 @@
 package pixy.meta.exif;
 
 import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Map;
 
 import pixy.api.IDataType;
 import pixy.image.exifFields.FieldType;
@@ -197,21 +195,12 @@ public enum ExifSubTag implements Tag {
 		return name + " [Value: " + StringUtils.toHexStringMM(value) +"]";
 	}
 	
+    /** lookup by {@link #getValue()} */
+    static final TagTable TAGS = new TagTable(values());
+
     public static Tag fromShort(short value) {
-       	ExifSubTag exifSubTag = tagMap.get(value);
-    	if (exifSubTag == null)
-    	   return ExifImageTag.UNKNOWN;
-   		return exifSubTag;
+        return TAGS.fromShort(value);
     }
-    
-    private static final Map<Short, ExifSubTag> tagMap = new HashMap<Short, ExifSubTag>();
-       
-    static
-    {
-      for(ExifSubTag exifSubTag : values()) {
-           tagMap.put(exifSubTag.getValue(), exifSubTag);
-      }
-    } 
 	
 	/**
      * Intended to be overridden by certain tags to provide meaningful string
@@ -20,7 +20,6 @@
 
 package pixy.meta.exif;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -30,7 +29,7 @@ import pixy.api.IDirectory;
 import pixy.image.IBitmap;
 import pixy.image.exifFields.*;
 import pixy.meta.Thumbnail;
-import pixy.io.FileCacheRandomAccessInputStream;
+import pixy.io.ByteArrayRandomAccessInputStream;
 import pixy.io.MemoryCacheRandomAccessOutputStream;
 import pixy.io.RandomAccessInputStream;
 import pixy.io.RandomAccessOutputStream;
@@ -90,7 +89,7 @@ public class ExifThumbnail extends Thumbnail {
 		} else if(getDataType() == Thumbnail.DATA_TYPE_TIFF) { // Uncompressed TIFF format
 			// Read the IFDs into a list first
 			List<IFD> list = new ArrayList<IFD>();			   
-			RandomAccessInputStream tiffIn = new FileCacheRandomAccessInputStream(new ByteArrayInputStream(getCompressedImage()));
+			RandomAccessInputStream tiffIn = new ByteArrayRandomAccessInputStream(getCompressedImage());
 			IfdMetaUtils.readIFDs(list, tiffIn);
 			ExifField<?> stripOffset = list.get(0).getField(ExifImageTag.STRIP_OFFSETS);
     		if(stripOffset == null) 
@@ -11,8 +11,6 @@
 package pixy.meta.exif;
 
 import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Map;
 
 import pixy.api.IDataType;
 import pixy.image.exifFields.FieldType;
@@ -163,20 +161,11 @@ public enum GPSTag implements Tag {
 		return name + " [Value: " + StringUtils.toHexStringMM(value) +"]";
 	}
 	
+    /** lookup by {@link #getValue()} */
+    static final TagTable TAGS = new TagTable(values());
+
     public static Tag fromShort(short value) {
-       	GPSTag tag = tagMap.get(value);
-    	if (tag == null)
-    	   return ExifImageTag.UNKNOWN;
-   		return tag;
-    }
-    
-    private static final Map<Short, GPSTag> tagMap = new HashMap<Short, GPSTag>();
-       
-    static
-    {
-      for(GPSTag tag : values()) {
-           tagMap.put(tag.getValue(), tag);
-      }
+        return TAGS.fromShort(value);
     }
     
     /**
@@ -5,14 +5,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import pixy.api.INumericFieldValue;
 import pixy.image.exifFields.ExifField;
 import pixy.image.exifFields.ExifFieldEnum;
 import pixy.image.jpeg.JpegSegmentMarker;
@@ -28,9 +28,11 @@ import pixy.image.exifFields.RationalField;
 import pixy.image.exifFields.SRationalField;
 import pixy.image.exifFields.ShortField;
 import pixy.image.exifFields.UndefinedField;
+import pixy.io.ByteArrayRandomAccessInputStream;
 import pixy.io.IOUtils;
 import pixy.io.RandomAccessInputStream;
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.ReadStrategy;
 import pixy.io.ReadStrategyII;
 import pixy.io.ReadStrategyMM;
 import pixy.io.WriteStrategyII;
@@ -48,7 +50,7 @@ public class IfdMetaUtils {
     public static final int OFFSET_TO_WRITE_FIRST_IFD_OFFSET = 0x04;
     public static final int FIRST_WRITE_OFFSET = 0x08;
 
-    protected static int readHeader(RandomAccessInputStream rin) throws IOException {
+    public static int readHeader(RandomAccessInputStream rin) throws IOException {
         int offset = 0;
         // First 2 bytes determine the byte order of the file
         rin.seek(STREAM_HEAD);
@@ -80,14 +82,20 @@ public class IfdMetaUtils {
         return offset;
     }
 
-    private static int readIFD(IFD parent, Tag parentTag, Class<? extends Tag> tagClass, RandomAccessInputStream rin, List<IFD> list, int offset) throws IOException {
-        // Use reflection to invoke fromShort(short) fromShort
-        Method fromShort = getFromShortMethod(tagClass);
-        IFD tiffIFD = new IFD();
-        if (tagClass != null) tiffIFD.setName("IFD[" + tagClass.getSimpleName() + "]");
+    /**
+     * @param subIfdTagClasses only sub IFDs with these tag classes are read. null: all sub IFDs are read.
+     */
+    private static int readIFD(IFD parent, Tag parentTag, Class<? extends Tag> tagClass, RandomAccessInputStream rin, List<IFD> list, int offset,
+                               Set<Class<? extends Tag>> subIfdTagClasses) throws IOException {
+        TagTable tags = TagTable.of(tagClass);
+        // in memory exif: fields are decoded on demand from the buffer of the stream
+        ByteArrayRandomAccessInputStream source = (rin instanceof ByteArrayRandomAccessInputStream)
+                ? (ByteArrayRandomAccessInputStream) rin : null;
         rin.seek(offset);
         int no_of_fields = rin.readShort();
         offset += 2;
+        IFD tiffIFD = new IFD(no_of_fields);
+        if (tagClass != null) tiffIFD.setName("IFD[" + tagClass.getSimpleName() + "]");
 
         for (int i = 0; i < no_of_fields; i++) {
             rin.seek(offset);
@@ -96,11 +104,21 @@ public class IfdMetaUtils {
             rin.seek(offset);
             short type = rin.readShort();
             FieldType ftype = FieldType.fromShort(type);
-            Tag ftag = getTagFromId(fromShort, tag, ftype);
+            Tag ftag = getTagFromId(tags, tag, ftype);
             offset += 2;
             rin.seek(offset);
             int field_length = rin.readInt();
             offset += 4;
+            if ((source != null) && isLazy(ftype)) {
+                ExifField<?> lazyField = createLazyField(ftag, ftype, field_length, source, offset);
+                addField(tiffIFD, lazyField);
+                offset += 4;
+                // like the eager path only LONG pointers are followed
+                if ((ftype == FieldType.LONG) && isSubIFDPointer(ftag)) {
+                    readSubIFDs(tiffIFD, ftag, lazyField.getDataAsLong(), rin, subIfdTagClasses);
+                }
+                continue;
+            }
             ////// Try to read actual data.
             switch (ftype)
             {
@@ -182,16 +200,8 @@ public class IfdMetaUtils {
                     ExifField<int[]> longField = new LongField(ftag, ldata);
                     addField(tiffIFD, longField);
 
-                    if ((ftag == ExifImageTag.EXIF_SUB_IFD) && (ldata[0]!= 0)) {
-                        readSubIFD(tiffIFD, ExifImageTag.EXIF_SUB_IFD, ExifSubTag.class, rin, null, ldata[0]);
-                    } else if ((ftag == ExifImageTag.GPS_SUB_IFD) && (ldata[0] != 0)) {
-                        readSubIFD(tiffIFD, ExifImageTag.GPS_SUB_IFD, GPSTag.class, rin, null, ldata[0]);
-                    } else if((ftag == ExifSubTag.EXIF_INTEROPERABILITY_OFFSET) && (ldata[0] != 0)) {
-                        readSubIFD(tiffIFD, ExifSubTag.EXIF_INTEROPERABILITY_OFFSET, InteropTag.class, rin, null, ldata[0]);
-                    } else if (ftag == ExifImageTag.SUB_IFDS) {
-                        for(int ifd = 0; ifd < ldata.length; ifd++) {
-                            readSubIFD(tiffIFD, ExifImageTag.SUB_IFDS, ExifImageTag.class, rin, null, ldata[0]);
-                        }
+                    if (isSubIFDPointer(ftag)) {
+                        readSubIFDs(tiffIFD, ftag, ldata, rin, subIfdTagClasses);
                     }
                     break;
                 case FLOAT:
@@ -270,8 +280,10 @@ public class IfdMetaUtils {
                     }
                     ExifField<int[]> ifdField = new IFDField(ftag, ldata);
                     addField(tiffIFD, ifdField);
-                    for(int ifd = 0; ifd < ldata.length; ifd++) {
-                        readIFD(tiffIFD, ExifImageTag.SUB_IFDS, ExifImageTag.class, rin, null, ldata[0]);
+                    if (isRequested(ExifImageTag.class, subIfdTagClasses)) {
+                        for(int ifd = 0; ifd < ldata.length; ifd++) {
+                            readIFD(tiffIFD, ExifImageTag.SUB_IFDS, ExifImageTag.class, rin, null, ldata[0], subIfdTagClasses);
+                        }
                     }
 
                     break;
@@ -290,13 +302,122 @@ public class IfdMetaUtils {
         return rin.readInt();
     }
 
-    /** The same as {@link IfdMetaUtils#readIFD(IFD, Tag, Class, RandomAccessInputStream, List, int)}
-     * but with internal error handling
+    /** @return true for LONG fields that point to sub IFDs */
+    private static boolean isSubIFDPointer(Tag ftag) {
+        return (ftag == ExifImageTag.EXIF_SUB_IFD) || (ftag == ExifImageTag.GPS_SUB_IFD)
+                || (ftag == ExifSubTag.EXIF_INTEROPERABILITY_OFFSET) || (ftag == ExifImageTag.SUB_IFDS);
+    }
+
+    private static void readSubIFDs(IFD tiffIFD, Tag ftag, int[] ldata, RandomAccessInputStream rin,
+                                    Set<Class<? extends Tag>> subIfdTagClasses) {
+        if (ldata.length == 0) return;
+        if ((ftag == ExifImageTag.EXIF_SUB_IFD) && (ldata[0]!= 0)) {
+            readSubIFD(tiffIFD, ExifImageTag.EXIF_SUB_IFD, ExifSubTag.class, rin, null, ldata[0], subIfdTagClasses);
+        } else if ((ftag == ExifImageTag.GPS_SUB_IFD) && (ldata[0] != 0)) {
+            readSubIFD(tiffIFD, ExifImageTag.GPS_SUB_IFD, GPSTag.class, rin, null, ldata[0], subIfdTagClasses);
+        } else if((ftag == ExifSubTag.EXIF_INTEROPERABILITY_OFFSET) && (ldata[0] != 0)) {
+            readSubIFD(tiffIFD, ExifSubTag.EXIF_INTEROPERABILITY_OFFSET, InteropTag.class, rin, null, ldata[0], subIfdTagClasses);
+        } else if (ftag == ExifImageTag.SUB_IFDS) {
+            for(int ifd = 0; ifd < ldata.length; ifd++) {
+                readSubIFD(tiffIFD, ExifImageTag.SUB_IFDS, ExifImageTag.class, rin, null, ldata[0], subIfdTagClasses);
+            }
+        }
+    }
+
+    /** @return true if sub IFDs with tags of tagClass have to be read */
+    private static boolean isRequested(Class<? extends Tag> tagClass, Set<Class<? extends Tag>> subIfdTagClasses) {
+        return (subIfdTagClasses == null) || subIfdTagClasses.contains(tagClass);
+    }
+
+    /** @return true if fields of ftype can be decoded on demand by {@link #createLazyField} */
+    private static boolean isLazy(FieldType ftype) {
+        switch (ftype) {
+            case BYTE:
+            case UNDEFINED:
+            case SHORT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case RATIONAL:
+            case SRATIONAL:
+                return true;
+            default:
+                // ASCII: the field length depends on the decoded string
+                return false;
+        }
+    }
+
+    /**
+     * Creates a field that only remembers where its value is in the buffer of source.
+     *
+     * @param valueOffset stream position of the value or of the pointer to the value
+     * @throws EOFException if the value is not inside source like the eager reading would
+     */
+    private static ExifField<?> createLazyField(Tag ftag, FieldType ftype, int count,
+                                                ByteArrayRandomAccessInputStream source, int valueOffset) throws IOException {
+        final int valueSize;
+        switch (ftype) {
+            case BYTE:
+            case UNDEFINED:
+                valueSize = 1;
+                break;
+            case SHORT:
+                valueSize = 2;
+                break;
+            case DOUBLE:
+            case RATIONAL:
+            case SRATIONAL:
+                valueSize = 8;
+                break;
+            default:
+                valueSize = 4;
+        }
+        final long byteCount = (long) count * valueSize;
+        final ReadStrategy strategy = source.getReadStrategy();
+        final byte[] buf = source.getBuffer();
+
+        if ((count < 0) || (valueOffset < 0) || (valueOffset + 4 > source.getLength())) {
+            throw new EOFException("Invalid field " + ftag + " at " + valueOffset);
+        }
+        if (byteCount > 4) {
+            valueOffset = strategy.readInt(buf, source.getOffset() + valueOffset);
+        }
+        if ((valueOffset < 0) || (valueOffset + byteCount > source.getLength())) {
+            throw new EOFException("Value of field " + ftag + " is outside of the exif data");
+        }
+
+        final int start = source.getOffset() + valueOffset;
+        switch (ftype) {
+            case BYTE:
+                return new ByteField(ftag, count, buf, start);
+            case UNDEFINED:
+                return new UndefinedField(ftag, count, buf, start);
+            case SHORT:
+                return new ShortField(ftag, count, buf, start, strategy);
+            case LONG:
+                return new LongField(ftag, count, buf, start, strategy);
+            case FLOAT:
+                return new FloatField(ftag, count, buf, start, strategy);
+            case DOUBLE:
+                return new DoubleField(ftag, count, buf, start, strategy);
+            case RATIONAL:
+                return new RationalField(ftag, count, buf, start, strategy);
+            case SRATIONAL:
+                return new SRationalField(ftag, count, buf, start, strategy);
+            default:
+                throw new IllegalArgumentException("Cannot decode " + ftype + " on demand");
+        }
+    }
+
+    /** The same as {@link IfdMetaUtils#readIFD(IFD, Tag, Class, RandomAccessInputStream, List, int, Set)}
+     * but with internal error handling. Does nothing if tagClass is not in subIfdTagClasses.
      */
     private static int readSubIFD(IFD parent, Tag parentTag, Class<? extends Tag> tagClass,
-                                  RandomAccessInputStream rin, List<IFD> list, int offset) {
+                                  RandomAccessInputStream rin, List<IFD> list, int offset,
+                                  Set<Class<? extends Tag>> subIfdTagClasses) {
+        if (!isRequested(tagClass, subIfdTagClasses)) return 0;
         try {
-            return readIFD(parent, parentTag, tagClass, rin, list, offset);
+            return readIFD(parent, parentTag, tagClass, rin, list, offset, subIfdTagClasses);
             //readIFD(tiffIFD, ExifImageTag.GPS_SUB_IFD, GPSTag.class, rin, null, ldata[0]);
         } catch(Exception e) {
             String message = "Skipping because of error: sub-IFD '" + parentTag
@@ -313,17 +434,8 @@ public class IfdMetaUtils {
         targetIFD.addField(field);
     }
 
-    static Tag getTagFromId(Method fromShortMethod, short tag, FieldType ftype) {
-        Tag ftag = ExifImageTag.UNKNOWN;
-        try {
-            ftag = (Tag) fromShortMethod.invoke(null, tag);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        }
+    static Tag getTagFromId(TagTable tags, short tag, FieldType ftype) {
+        Tag ftag = tags.fromShort(tag);
 
         if (ftag == ExifImageTag.UNKNOWN) {
             ftag = new UnknownTag(tag, "(?? " + Integer.toHexString(tag&0xffff) +" ??)", ftype);
@@ -332,25 +444,10 @@ public class IfdMetaUtils {
         return ftag;
     }
 
-    // Use reflection to invoke fromShort(short) fromShort
-    static Method getFromShortMethod(Class<? extends Tag> tagClass) {
-        Method fromShort = null;
-        try {
-            fromShort = tagClass.getDeclaredMethod("fromShort", short.class);
-        } catch (NoSuchMethodException e) {
-            LOGGER.error("enum " + tagClass.getName() +
-                    " does not implement static Tag fromShort(short id) ");
-            e.printStackTrace();
-        } catch (SecurityException e) {
-            e.printStackTrace();
-        }
-        return fromShort;
-    }
-
     protected static void readIFDs(IFD parent, Tag parentTag, Class<? extends Tag> tagClass, List<IFD> list, int offset, RandomAccessInputStream rin) throws IOException {
         // Read the IFDs into a list first
         while (offset != 0)	{
-            offset = readIFD(parent, parentTag, tagClass, rin, list, offset);
+            offset = readIFD(parent, parentTag, tagClass, rin, list, offset, null);
         }
     }
 
@@ -359,6 +456,22 @@ public class IfdMetaUtils {
         readIFDs(null, null, ExifImageTag.class, list, offset, rin);
     }
 
+    /**
+     * Reads only the first IFD (IFD0) and those of its sub IFDs that can contain tags of subIfdTagClasses.
+     * The following IFDs (i.e. the thumbnail IFD) are not read.
+     *
+     * @param subIfdTagClasses i.e. GPSTag.class to read the gps sub IFD. null: all sub IFDs are read.
+     * @return IFD0 or null if the tiff structure contains no IFD
+     */
+    public static IFD readImageIFD(RandomAccessInputStream rin, Set<Class<? extends Tag>> subIfdTagClasses) throws IOException {
+        int offset = readHeader(rin);
+        if (offset == 0) return null;
+
+        List<IFD> list = new ArrayList<IFD>(1);
+        readIFD(null, null, ExifImageTag.class, rin, list, offset, subIfdTagClasses);
+        return list.get(0);
+    }
+
     public static void printIFDs(Collection<IFD> list, String indent) {
         int id = 0;
         LOGGER.info("Printing IFDs ... ");
@@ -377,8 +490,7 @@ public class IfdMetaUtils {
     }
 
     private static void print(IFD currIFD, Class<? extends Tag> tagClass, String indent, StringBuilder ifds) {
-        // Use reflection to invoke fromShort(short) fromShort
-        Method fromShort = IfdMetaUtils.getFromShortMethod(tagClass);
+        TagTable tags = TagTable.of(tagClass);
         Collection<ExifField<?>> fields = currIFD.getFields();
         int i = 0;
 
@@ -392,7 +504,7 @@ public class IfdMetaUtils {
             if(tag == ExifSubTag.PADDING.getValue()) {
                 ftag = ExifSubTag.PADDING;
             } else  {
-                ftag = IfdMetaUtils.getTagFromId(fromShort, tag, ftype);
+                ftag = IfdMetaUtils.getTagFromId(tags, tag, ftype);
             }
             if (ftag == ExifImageTag.UNKNOWN) {
                 LOGGER.warn("Tag: {} {}{}{} {}", ftag, "[Value: 0x", Integer.toHexString(tag&0xffff), "]", "(Unknown)");
@@ -596,16 +708,15 @@ public class IfdMetaUtils {
 
             // Uncompressed image with one strip or tile (may contain wrong StripByteCounts value)
             // Bug fix for uncompressed image with one strip and wrong StripByteCounts value
-            if((exifField == null ) || (exifField != null && exifField.getDataAsLong()[0] == 1)) { // Uncompressed data
+            if(getIntValue(exifField, 1) == 1) { // Uncompressed data
                 int planaryConfiguration = 1;
 
                 exifField = ifd.getField(ExifImageTag.PLANAR_CONFIGURATTION);
-                if(exifField != null) planaryConfiguration = exifField.getDataAsLong()[0];
+                planaryConfiguration = getIntValue(exifField, planaryConfiguration);
 
                 exifField = ifd.getField(ExifImageTag.SAMPLES_PER_PIXEL);
 
-                int samplesPerPixel = 1;
-                if(exifField != null) samplesPerPixel = exifField.getDataAsLong()[0];
+                int samplesPerPixel = getIntValue(exifField, 1);
 
                 // If there is only one strip/samplesPerPixel strips for PlanaryConfiguration = 2
                 if((planaryConfiguration == 1 && off.length == 1) || (planaryConfiguration == 2 && off.length == samplesPerPixel))
@@ -648,15 +759,15 @@ public class IfdMetaUtils {
             ExifField<?> jpegIFByteCount = ifd.removeField(ExifImageTag.JPEG_INTERCHANGE_FORMAT_LENGTH);
             try {
                 if(jpegIFByteCount != null) {
-                    rin.seek(jpegIFOffset.getDataAsLong()[0]);
-                    byte[] bytes2Read = new byte[jpegIFByteCount.getDataAsLong()[0]];
+                    rin.seek(getIntValue(jpegIFOffset, 0));
+                    byte[] bytes2Read = new byte[getIntValue(jpegIFByteCount, 0)];
                     rin.readFully(bytes2Read);
                     rout.seek(offset);
                     rout.write(bytes2Read);
                     addField(ifd, jpegIFByteCount);
                 } else {
                     long startOffset = rout.getStreamPointer();
-                    copyJPEGIFByteCount(rin, rout, jpegIFOffset.getDataAsLong()[0], offset);
+                    copyJPEGIFByteCount(rin, rout, getIntValue(jpegIFOffset, 0), offset);
                     long endOffset = rout.getStreamPointer();
                     addField(ifd, new LongField(ExifImageTag.JPEG_INTERCHANGE_FORMAT_LENGTH, new int[]{(int)(endOffset - startOffset)}));
                 }
@@ -852,19 +963,26 @@ public class IfdMetaUtils {
         rout.writeToStream(rout.getLength());
         //rout.flush();
     }
+    /** @return the first value of a numeric field or defaultValue if the field is missing, empty or not numeric */
+    static int getIntValue(ExifField<?> field, int defaultValue) {
+        if (field instanceof INumericFieldValue) {
+            INumericFieldValue value = (INumericFieldValue) field;
+            if (value.getCount() > 0) return value.getInt(0);
+        }
+        return defaultValue;
+    }
+
     // Used to calculate how many bytes to read in case we have only one strip or tile
     private static int[] getBytes2Read(IFD ifd) {
         // Let's calculate how many bytes we are supposed to read
-        ExifField<?> exifField = ifd.getField(ExifImageTag.IMAGE_WIDTH);
-        int imageWidth = exifField.getDataAsLong()[0];
-        exifField = ifd.getField(ExifImageTag.IMAGE_LENGTH);
-        int imageHeight = exifField.getDataAsLong()[0];
+        int imageWidth = getIntValue(ifd.getField(ExifImageTag.IMAGE_WIDTH), 0);
+        int imageHeight = getIntValue(ifd.getField(ExifImageTag.IMAGE_LENGTH), 0);
 
         // For YCbCr image only
         int horizontalSampleFactor = 2; // Default 2X2
         int verticalSampleFactor = 2; // Not 1X1
 
-        int photoMetric = ifd.getField(ExifImageTag.PHOTOMETRIC_INTERPRETATION).getDataAsLong()[0];
+        int photoMetric = getIntValue(ifd.getField(ExifImageTag.PHOTOMETRIC_INTERPRETATION), -1);
 
         // Correction for imageWidth and imageHeight for YCbCr image
         if(photoMetric == ExifFieldEnum.PhotoMetric.YCbCr.getValue()) {
@@ -879,19 +997,9 @@ public class IfdMetaUtils {
             imageHeight = ((imageHeight + verticalSampleFactor - 1)/verticalSampleFactor)*verticalSampleFactor;
         }
 
-        int samplesPerPixel = 1;
-
-        exifField = ifd.getField(ExifImageTag.SAMPLES_PER_PIXEL);
-        if(exifField != null) {
-            samplesPerPixel = exifField.getDataAsLong()[0];
-        }
-
-        int bitsPerSample = 1;
+        int samplesPerPixel = getIntValue(ifd.getField(ExifImageTag.SAMPLES_PER_PIXEL), 1);
 
-        exifField = ifd.getField(ExifImageTag.BITS_PER_SAMPLE);
-        if(exifField != null) {
-            bitsPerSample = exifField.getDataAsLong()[0];
-        }
+        int bitsPerSample = getIntValue(ifd.getField(ExifImageTag.BITS_PER_SAMPLE), 1);
 
         int tileWidth = -1;
         int tileLength = -1;
@@ -900,15 +1008,15 @@ public class IfdMetaUtils {
         ExifField<?> f_tileWidth = ifd.getField(ExifImageTag.TILE_WIDTH);
 
         if(f_tileWidth != null) {
-            tileWidth = f_tileWidth.getDataAsLong()[0];
-            tileLength = f_tileLength.getDataAsLong()[0];
+            tileWidth = getIntValue(f_tileWidth, -1);
+            tileLength = getIntValue(f_tileLength, -1);
         }
 
         int rowsPerStrip = imageHeight;
         int rowWidth = imageWidth;
 
         ExifField<?> f_rowsPerStrip = ifd.getField(ExifImageTag.ROWS_PER_STRIP);
-        if(f_rowsPerStrip != null) rowsPerStrip = f_rowsPerStrip.getDataAsLong()[0];
+        rowsPerStrip = getIntValue(f_rowsPerStrip, rowsPerStrip);
 
         if(rowsPerStrip > imageHeight) rowsPerStrip = imageHeight;
 
@@ -919,8 +1027,8 @@ public class IfdMetaUtils {
 
         int planaryConfiguration = 1;
 
-        exifField = ifd.getField(ExifImageTag.PLANAR_CONFIGURATTION);
-        if(exifField != null) planaryConfiguration = exifField.getDataAsLong()[0];
+        ExifField<?> exifField = ifd.getField(ExifImageTag.PLANAR_CONFIGURATTION);
+        planaryConfiguration = getIntValue(exifField, planaryConfiguration);
 
         int[] totalBytes2Read = new int[samplesPerPixel];
 
@@ -946,7 +1054,7 @@ public class IfdMetaUtils {
             totalBytes2Read[1] = sampleBytesPerRow[1]*sampleRowsPerStrip[1];
             totalBytes2Read[2] = totalBytes2Read[1];
 
-            if(exifField != null) planaryConfiguration = exifField.getDataAsLong()[0];
+            planaryConfiguration = getIntValue(exifField, planaryConfiguration);
 
             if(planaryConfiguration == 1)
                 totalBytes2Read[0] = totalBytes2Read[0] + totalBytes2Read[1] + totalBytes2Read[2];
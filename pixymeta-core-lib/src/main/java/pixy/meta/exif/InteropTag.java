@@ -10,9 +10,6 @@
 
 package pixy.meta.exif;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import pixy.api.IDataType;
 import pixy.image.exifFields.*;
 import pixy.string.StringUtils;
@@ -63,20 +60,11 @@ public enum InteropTag implements Tag {
 		return name + " [Value: " + StringUtils.toHexStringMM(value) +"]";
 	}
 	
+    /** lookup by {@link #getValue()} */
+    static final TagTable TAGS = new TagTable(values());
+
     public static Tag fromShort(short value) {
-       	InteropTag tag = tagMap.get(value);
-    	if (tag == null)
-    	   return ExifImageTag.UNKNOWN;
-   		return tag;
-    }
-    
-    private static final Map<Short, InteropTag> tagMap = new HashMap<Short, InteropTag>();
-       
-    static
-    {
-      for(InteropTag tag : values()) {
-           tagMap.put(tag.getValue(), tag);
-      }
+        return TAGS.fromShort(value);
     }
     
     /**
@@ -43,6 +43,10 @@ public class JpegExif extends ExifMetaSegment {
 		super(data);
 	}
 
+	public JpegExif(byte[] data, int offset, int length) {
+		super(data, offset, length);
+	}
+
 	private IFD createImageIFD() {
 		// Create Image IFD (IFD0)
 		IFD imageIFD = new IFD();
@@ -84,17 +88,17 @@ public class JpegExif extends ExifMetaSegment {
 		// Writes IFDs
 		randOS.seek(FIRST_IFD_OFFSET);
 
-		IFD imageIFD = getIfd(ID_exifImageIFD);
+		IFD imageIFD = getIfd(Directory.IMAGE);
 		if(imageIFD == null) imageIFD = createImageIFD();
 
 		// Attach EXIIF and/or GPS SubIFD to main image IFD
-		IFD exifSubIFD = getIfd(ID_exifSubIFD);
+		IFD exifSubIFD = getIfd(Directory.EXIF);
 		if(exifSubIFD != null) {
 			imageIFD.addField(new LongField(ExifImageTag.EXIF_SUB_IFD, new int[]{0})); // Place holder
 			imageIFD.addChild(ExifImageTag.EXIF_SUB_IFD, exifSubIFD);
 		}
 
-		IFD gpsSubIFD = getIfd(ID_gpsSubIFD);
+		IFD gpsSubIFD = getIfd(Directory.GPS);
 		if(gpsSubIFD != null) {
 			imageIFD.addField(new LongField(ExifImageTag.GPS_SUB_IFD, new int[]{0})); // Place holder
 			imageIFD.addChild(ExifImageTag.GPS_SUB_IFD, gpsSubIFD);
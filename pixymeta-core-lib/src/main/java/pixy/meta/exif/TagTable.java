@@ -0,0 +1,85 @@
+package pixy.meta.exif;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the short id of a {@link Tag} to the tag without boxing and without reflection.
+ * <p>
+ * Open addressing table with linear probing: the ids of the tags are stored in a
+ * short[] and the tags in a parallel Tag[]. The capacity is at least four times the
+ * number of tags so that nearly every lookup is answered by the first slot.
+ * A dense Tag[65536] per tag enum would cost 256 KB each which is too much for android.
+ * <p>
+ * Used by {@link ExifImageTag}, {@link ExifSubTag}, {@link GPSTag} and {@link InteropTag}.
+ */
+public class TagTable {
+	/** cache for {@link #of(Class)} of tag classes other than the ones known by this class */
+	private static final Map<Class<? extends Tag>, TagTable> tablesByClass = new HashMap<Class<? extends Tag>, TagTable>();
+
+	private final short[] ids;
+	private final Tag[] tags;
+	private final int mask;
+
+	public TagTable(Tag... values) {
+		int capacity = 16;
+		while (capacity < values.length * 4) {
+			capacity <<= 1;
+		}
+		this.ids = new short[capacity];
+		this.tags = new Tag[capacity];
+		this.mask = capacity - 1;
+
+		for (Tag tag : values) {
+			int i = indexOf(tag.getValue());
+			// a duplicate id replaces the previous tag like Map.put() did
+			ids[i] = tag.getValue();
+			tags[i] = tag;
+		}
+	}
+
+	/** @return the slot that contains id or the empty slot where id belongs to */
+	private int indexOf(short id) {
+		int i = hash(id) & mask;
+		while (tags[i] != null && ids[i] != id) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private static int hash(short id) {
+		int h = id & 0xffff;
+		return h ^ (h >>> 7);
+	}
+
+	/**
+	 * @return the tag with the id or {@link ExifImageTag#UNKNOWN} if there is none.
+	 */
+	public Tag fromShort(short id) {
+		Tag tag = tags[indexOf(id)];
+		return (tag == null) ? ExifImageTag.UNKNOWN : tag;
+	}
+
+	/**
+	 * @return the table of the tag enum tagClass.
+	 */
+	public static TagTable of(Class<? extends Tag> tagClass) {
+		if (tagClass == ExifImageTag.class) return ExifImageTag.TAGS;
+		if (tagClass == ExifSubTag.class) return ExifSubTag.TAGS;
+		if (tagClass == GPSTag.class) return GPSTag.TAGS;
+		if (tagClass == InteropTag.class) return InteropTag.TAGS;
+
+		synchronized (tablesByClass) {
+			TagTable result = tablesByClass.get(tagClass);
+			if (result == null) {
+				Tag[] values = tagClass.getEnumConstants();
+				if (values == null) {
+					throw new IllegalArgumentException(tagClass.getName() + " is not an enum");
+				}
+				result = new TagTable(values);
+				tablesByClass.put(tagClass, result);
+			}
+			return result;
+		}
+	}
+}
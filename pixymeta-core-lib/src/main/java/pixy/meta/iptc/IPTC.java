@@ -71,6 +71,15 @@ public class IPTC extends MetadataBase {
 		ensureDataRead();
 	}
 
+	/**
+	 * Creates IPTC from a slice of data, i.e. the IPTC_NAA resource inside a photoshop segment.
+	 * The slice is not copied: the field values refer to it.
+	 */
+	public IPTC(byte[] data, int offset, int length) {
+		super(MetadataType.IPTC, data, offset, length);
+		ensureDataRead();
+	}
+
 	public void addField(IFieldDefinition tag, Object data) {
 		addValue(new IPTCFieldValue(IPTCRecord.APPLICATION, tag, data));
 	}
@@ -111,19 +120,16 @@ public class IPTC extends MetadataBase {
 		// Most of the time the list will only contain one item
 		IPTCFieldValue.IPTCFieldValueList list = getValue(key);
 		
-		String value = "";
-	
-		if(list != null) {
-			if(list.size() == 1) {
-				value = list.get(0).getDataAsString();
-			} else {
-				for(int i = 0; i < list.size() - 1; i++)
-					value += list.get(i).getDataAsString() + ";";
-				value += list.get(list.size() - 1).getDataAsString();
-			}
+		if(list == null) return "";
+		if(list.size() == 1) return list.get(0).getDataAsString();
+
+		StringBuilder value = new StringBuilder();
+		for(int i = 0; i < list.size(); i++) {
+			if(i > 0) value.append(";");
+			value.append(list.get(i).getDataAsString());
 		}
 			
-		return value;
+		return value.toString();
 	}
 	
 	/**
@@ -148,18 +154,22 @@ public class IPTC extends MetadataBase {
 	
 	public void read() throws IOException {
 		if(!isDataRead) {
-			int i = 0;
-			int tagMarker = getData()[i];
+			// parse the shared buffer in place: the values only keep offsets into it
+			final byte[] data = getDataBuffer();
+			final int end = getDataOffset() + getDataLength();
+			int i = getDataOffset();
 			fieldValueMap = new IPTCFieldValue.IPTCFieldValueMap();
-			while (tagMarker == 0x1c) {
+			int tagMarker = (i < end) ? data[i] : 0;
+			while (tagMarker == 0x1c && i + 5 <= end) {
 				i++;
-				int recordNumber = getData()[i++]&0xff;
-				int tag = getData()[i++]&0xff;
-				int recordSize = IOUtils.readUnsignedShortMM(getData(), i);
+				int recordNumber = data[i++]&0xff;
+				int tag = data[i++]&0xff;
+				int recordSize = IOUtils.readUnsignedShortMM(data, i);
 				i += 2;
-				IPTCApplicationTag tagEnum = IPTCApplicationTag.fromTag(tag);
+				// Sanity check: truncated dataset
+				if(i + recordSize > end) break;
 
-				IPTCFieldValue value = new IPTCFieldValue(recordNumber, tag, recordSize, getData(), i);
+				IPTCFieldValue value = new IPTCFieldValue(recordNumber, tag, recordSize, data, i);
 				String name = value.getName();
 				final IPTCFieldValue.IPTCFieldValueList existingValue = fieldValueMap.get(name);
 				if(existingValue == null) {
@@ -171,8 +181,8 @@ public class IPTC extends MetadataBase {
 				}
 				i += recordSize;
 				// Sanity check
-				if(i >= getData().length) break;
-				tagMarker = getData()[i];
+				if(i >= end) break;
+				tagMarker = data[i];
 			}
 
 			/*
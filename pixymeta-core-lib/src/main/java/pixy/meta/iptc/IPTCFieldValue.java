@@ -22,7 +22,6 @@ package pixy.meta.iptc;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 
 import org.slf4j.Logger;
@@ -78,6 +77,8 @@ public class IPTCFieldValue implements IFieldValue {
 	private byte[] data;
 	private int offset;
 	private IPTCTag tagEnum;
+	// decoded on first use by getDataAsString()
+	private String dataAsString;
 	
 	// A unique name used as HashMap key
 	private String name;
@@ -87,6 +88,10 @@ public class IPTCFieldValue implements IFieldValue {
 		init(IPTCRecord.APPLICATION.getRecordNumber(), ((IPTCApplicationTag) tag).getTag(), bytes.length, bytes, 0);
 	}
 
+	/**
+	 * @param data buffer that contains the value at offset, usually the whole IPTC block.
+	 *             It is not copied so it must not be modified afterwards.
+	 */
 	public IPTCFieldValue(int iptcSegmentTypeId, int tag, int size, byte[] data, int offset) {
 		init(iptcSegmentTypeId, tag, size, data, offset);
 	}
@@ -118,9 +123,7 @@ public class IPTCFieldValue implements IFieldValue {
 		if (getClass() != obj.getClass())
 			return false;
 		IPTCFieldValue other = (IPTCFieldValue) obj;
-		byte[] thisData = ArrayUtils.subArray(data, offset, size);
-		byte[] thatData = ArrayUtils.subArray(other.data, other.offset, other.size);
-		if (!Arrays.equals(thisData, thatData))
+		if (size != other.size || !ArrayUtils.equals(data, offset, other.data, other.offset, size))
 			return false;
 		if (iptcSegmentTypeId != other.iptcSegmentTypeId)
 			return false;
@@ -134,7 +137,10 @@ public class IPTCFieldValue implements IFieldValue {
 	}
 	
 	public String getDataAsString() {
-		return tagEnum.getDataAsString(getData());
+		if (dataAsString == null) {
+			dataAsString = tagEnum.getDataAsString(getData());
+		}
+		return dataAsString;
 	}
 	
 	public String getName() {
@@ -191,7 +197,7 @@ public class IPTCFieldValue implements IFieldValue {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(ArrayUtils.subArray(data, offset, size));
+		result = prime * result + ArrayUtils.hashCode(data, offset, size);
 		result = prime * result + iptcSegmentTypeId;
 		result = prime * result + tag;
 		return result;
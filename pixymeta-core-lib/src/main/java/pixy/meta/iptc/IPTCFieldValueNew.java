@@ -25,7 +25,6 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 
 import pixy.api.DefaultApiImpl;
@@ -82,6 +81,8 @@ public class IPTCFieldValueNew implements IFieldValue {
 	private byte[] data;
 	private int offset;
 	private IPTCTag tagEnum;
+	// decoded on first use by getDataAsString()
+	private String dataAsString;
 
 	// A unique name used as HashMap key
 	private String name;
@@ -92,6 +93,10 @@ public class IPTCFieldValueNew implements IFieldValue {
 		init(IPTCRecord.APPLICATION.getRecordNumber(), ((IPTCApplicationTag) tag).getTag(), recordsize, bytes, offset);
 	}
 
+	/**
+	 * @param data buffer that contains the value at offset, usually the whole IPTC block.
+	 *             It is not copied so it must not be modified afterwards.
+	 */
 	public IPTCFieldValueNew(int iptcSegmentTypeId, int tag, int size, byte[] data, int offset) {
 		init(iptcSegmentTypeId, tag, size, data, offset);
 	}
@@ -123,9 +128,7 @@ public class IPTCFieldValueNew implements IFieldValue {
 		if (getClass() != obj.getClass())
 			return false;
 		IPTCFieldValueNew other = (IPTCFieldValueNew) obj;
-		byte[] thisData = ArrayUtils.subArray(data, offset, size);
-		byte[] thatData = ArrayUtils.subArray(other.data, other.offset, other.size);
-		if (!Arrays.equals(thisData, thatData))
+		if (size != other.size || !ArrayUtils.equals(data, offset, other.data, other.offset, size))
 			return false;
 		if (iptcSegmentTypeId != other.iptcSegmentTypeId)
 			return false;
@@ -139,7 +142,10 @@ public class IPTCFieldValueNew implements IFieldValue {
 	}
 	
 	public String getDataAsString() {
-		return tagEnum.getDataAsString(getData());
+		if (dataAsString == null) {
+			dataAsString = tagEnum.getDataAsString(getData());
+		}
+		return dataAsString;
 	}
 	
 	public String getName() {
@@ -196,7 +202,7 @@ public class IPTCFieldValueNew implements IFieldValue {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(ArrayUtils.subArray(data, offset, size));
+		result = prime * result + ArrayUtils.hashCode(data, offset, size);
 		result = prime * result + iptcSegmentTypeId;
 		result = prime * result + tag;
 		return result;
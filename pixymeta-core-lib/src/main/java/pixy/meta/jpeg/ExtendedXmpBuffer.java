@@ -0,0 +1,98 @@
+package pixy.meta.jpeg;
+
+import java.util.BitSet;
+
+import pixy.io.IOUtils;
+import pixy.string.StringUtils;
+
+/**
+ * Reassembles the ExtendedXMP of a jpeg file from its APP1 chunks.
+ *
+ * Each chunk (behind the "http://ns.adobe.com/xmp/extension/\0" sub marker) starts with
+ * * the 32 byte GUID: hex md5 of the full ExtendedXMP, also stored as xmpNote:HasExtendedXMP in the main xmp
+ * * the length of the full ExtendedXMP (4 bytes)
+ * * the offset of this chunk within the full ExtendedXMP (4 bytes)
+ *
+ * The buffer is allocated once from the declared full length and chunks are copied to their offset,
+ * so they may arrive in any order. The bytes received so far are tracked so that overlapping
+ * chunks do not make an ExtendedXMP with gaps look complete.
+ */
+public class ExtendedXmpBuffer {
+	public static final int GUID_LEN = 32;
+
+	/** GUID, full length and offset in front of the content of each chunk */
+	public static final int CHUNK_HEADER_LEN = GUID_LEN + 4 + 4;
+
+	/** protection against corrupt length fields */
+	private static final long MAX_LENGTH = 64 * 1024 * 1024;
+
+	private final String guid;
+	private byte[] data = null;
+
+	/** bit i is set if byte i of data has been received */
+	private final BitSet received = new BitSet();
+
+	public ExtendedXmpBuffer(String guid) {
+		this.guid = guid;
+	}
+
+	/**
+	 * Copies the content of a chunk into the buffer.
+	 *
+	 * @return false if the chunk belongs to a different GUID, does not fit into the declared length
+	 * or contains only bytes that have already been received
+	 */
+	public boolean add(byte[] chunk, int offset, int length) {
+		if ((length < CHUNK_HEADER_LEN) || !matchesGuid(chunk, offset)) return false;
+
+		long fullLength = IOUtils.readUnsignedIntMM(chunk, offset + GUID_LEN);
+		long chunkOffset = IOUtils.readUnsignedIntMM(chunk, offset + GUID_LEN + 4);
+		int contentLength = length - CHUNK_HEADER_LEN;
+
+		if (data == null) {
+			if (fullLength > MAX_LENGTH) return false;
+			data = new byte[(int) fullLength];
+		}
+		if ((fullLength != data.length) || (chunkOffset + contentLength > data.length)) return false;
+
+		int start = (int) chunkOffset;
+		int end = start + contentLength;
+		if (received.nextClearBit(start) >= end) return false; // repeated chunk
+
+		System.arraycopy(chunk, offset + CHUNK_HEADER_LEN, data, start, contentLength);
+		received.set(start, end);
+		return true;
+	}
+
+	private boolean matchesGuid(byte[] chunk, int offset) {
+		if ((guid == null) || (guid.length() != GUID_LEN)) return false;
+		for (int i = 0; i < GUID_LEN; i++) {
+			if (chunk[offset + i] != guid.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	public String getGuid() {
+		return guid;
+	}
+
+	/** @return true if all bytes of the declared length have been received */
+	public boolean isComplete() {
+		return (data != null) && (received.nextClearBit(0) >= data.length);
+	}
+
+	/** @return true if the md5 of the reassembled data is the GUID */
+	public boolean isChecksumValid() {
+		return (data != null) && guid.equalsIgnoreCase(StringUtils.generateMD5(data));
+	}
+
+	/** @return the reassembled ExtendedXMP. Not copied. */
+	public byte[] getData() {
+		return data;
+	}
+
+	/** @return number of different content bytes received so far */
+	public int getReceivedLength() {
+		return received.cardinality();
+	}
+}
@@ -2,20 +2,22 @@ package pixy.meta.jpeg;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 import pixy.fileprocessor.jpg.JpegMetaDef;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.io.IOUtils;
 import pixy.meta.MetadataType;
 import pixy.meta.xmp.XMP;
+import pixy.meta.xmp.XmpTag;
 import pixy.string.StringUtils;
 import pixy.string.XMLUtils;
-import pixy.util.ArrayUtils;
 
 public class JpegXMP extends XMP {
 
@@ -27,6 +29,10 @@ public class JpegXMP extends XMP {
 	public JpegXMP(byte[] data) {
 		super(data);
 	}
+
+	public JpegXMP(byte[] data, int offset, int length) {
+		super(data, offset, length);
+	}
 	
 	public JpegXMP(String xmp) {
 		super(xmp);
@@ -40,104 +46,138 @@ public class JpegXMP extends XMP {
 		super(xmp, extendedXmp);
 	}
 
-	/* !!! todo must implement merge
-	@Override
-	public void merge(byte[] data) {
-		// this.data = ArrayUtils.concat(this.data, data);
-		// if ((data != null) && isDebugEnabled()) debug("merge(" + data.length + ") => " + this.data.length);
-
-		// 32 byte ASCII hex string
-		// Retrieve and remove XMP GUID if available
-		String xmpGUID = XMLUtils.getAttribute(this.getXmpDocument(), "rdf:Description", "xmpNote:HasExtendedXMP");
-
-		// We found ExtendedXMP, add the data to ExtendedXMP memory buffer
-		int i = 0;
-		// 128-bit MD5 digest of the full ExtendedXMP serialization
-		byte[] guid = ArrayUtils.subArray(data, i, 32);
-		if(Arrays.equals(guid, xmpGUID.getBytes())) { // We have matched the GUID, copy it
-			i += 32;
-			long extendedXMPLength = IOUtils.readUnsignedIntMM(data, i);
-			i += 4;
-			if(extendedXMP == null)
-				extendedXMP = new byte[(int)extendedXMPLength];
-			// Offset for the current jpegSegment
-			long offset = IOUtils.readUnsignedIntMM(data, i);
-			i += 4;
-			byte[] xmpBytes = ArrayUtils.subArray(data, i, length - XMP_EXT_ID.length() - 42);
-			System.arraycopy(xmpBytes, 0, extendedXMP, (int)offset, xmpBytes.length);
-		}
-
-		this.data = ArrayUtils.concat(this.data, data);
-		this.isDataRead = false;
-
-		if ((data != null) && isDebugEnabled()) debug("merge(" + data.length + ") => " + this.data.length);
-	}
-*/
-
 	@Override
 	public void write(OutputStream os) throws IOException {
+		if(isRawPacket() && (getDataLength() <= MAX_XMP_CHUNK_SIZE)) { // Unchanged packet already contains its wrapper: pass it through
+			writeXmpSegment(os, getDataBuffer(), getDataOffset(), getDataLength());
+			return;
+		}
 		// Add packet wrapper to the XMP document
 		// Add PI at the beginning and end of the document, we will support only UTF-8, no BOM
 		Document xmpDoc = getXmpDocument();
-		XMLUtils.insertLeadingPI(xmpDoc, "xpacket", "begin='' id='W5M0MpCehiHzreSzNTczkc9d'");
-		XMLUtils.insertTrailingPI(xmpDoc, "xpacket", "end='r'");
+		if(!hasPacketWrapper(xmpDoc)) {
+			XMLUtils.insertLeadingPI(xmpDoc, "xpacket", "begin='' id='W5M0MpCehiHzreSzNTczkc9d'");
+			XMLUtils.insertTrailingPI(xmpDoc, "xpacket", "end='r'");
+		}
 
-		// TODO generate extended if size to big
+		// Serialize XMP to byte array
+		byte[] xmp = XMLUtils.serializeToByteArray(xmpDoc);
 		byte[] extendedXmp = null;
 		String guid = null;
-		if(extendedXmp != null) { // We have ExtendedXMP
+		if(xmp.length > MAX_XMP_CHUNK_SIZE) { // Move what does not fit into ExtendedXMP
+			Element note = xmpDoc.createElement("rdf:Description");
+			note.setAttribute("rdf:about", "");
+			note.setAttribute("xmlns:xmpNote", XmpTag.Note_HasExtendedXMP.getNamespaceURI());
+			// placeholder of the same length as the md5 that is not known yet
+			note.setAttribute(XmpTag.Note_HasExtendedXMP.getAttribute(), String.format("%0" + GUID_LEN + "d", 0));
+
+			extendedXmp = XMLUtils.serializeToByteArray(splitExtendedXmp(xmpDoc, xmp.length, note));
 			guid = StringUtils.generateMD5(extendedXmp);
-			NodeList descriptions = xmpDoc.getElementsByTagName("rdf:Description");
-			int length = descriptions.getLength();
-			if(length > 0) {
-				Element node = (Element)descriptions.item(length - 1);
-				node.setAttribute("xmlns:xmpNote", "http://ns.adobe.com/xmp/extension/");
-				node.setAttribute("xmpNote:HasExtendedXMP", guid);
-			}
+			note.setAttribute(XmpTag.Note_HasExtendedXMP.getAttribute(), guid);
+			xmp = XMLUtils.serializeToByteArray(xmpDoc);
 		}
-		// Serialize XMP to byte array
-		byte[] xmp = XMLUtils.serializeToByteArray(xmpDoc);
 		if(xmp.length > MAX_XMP_CHUNK_SIZE)
 			throw new RuntimeException("XMP data size exceededs JPEG segment size");
-		// Write XMP segment
-		IOUtils.writeShortMM(os, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1.getValue());
-		// Write segment length
-		IOUtils.writeShortMM(os, JpegMetaDef.XMP_ID.length() + 2 + xmp.length);
-		// Write segment data
-		os.write(JpegMetaDef.XMP_ID.getBytes());
-		os.write(xmp);
+
+		writeXmpSegment(os, xmp, 0, xmp.length);
 		// Write ExtendedXMP if we have
 		if(extendedXmp != null) {
-			int numOfChunks = extendedXmp.length / MAX_EXTENDED_XMP_CHUNK_SIZE;
 			int extendedXmpLen = extendedXmp.length;
-			int offset = 0;
-			
-			for(int i = 0; i < numOfChunks; i++) {
-				IOUtils.writeShortMM(os, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1.getValue());
-				// Write segment length
-				IOUtils.writeShortMM(os, 2 + JpegMetaDef.XMP_EXT_ID.length() + GUID_LEN + 4 + 4 + MAX_EXTENDED_XMP_CHUNK_SIZE);
-				// Write segment data
-				os.write(JpegMetaDef.XMP_EXT_ID.getBytes());
-				os.write(guid.getBytes());
-				IOUtils.writeIntMM(os, extendedXmpLen);
-				IOUtils.writeIntMM(os, offset);
-				os.write(ArrayUtils.subArray(extendedXmp, offset, MAX_EXTENDED_XMP_CHUNK_SIZE));
-				offset += MAX_EXTENDED_XMP_CHUNK_SIZE;			
-			}
-			
-			int leftOver = extendedXmp.length % MAX_EXTENDED_XMP_CHUNK_SIZE;
-			
-			if(leftOver != 0) {
+			byte[] guidBytes = guid.getBytes();
+
+			for(int offset = 0; offset < extendedXmpLen; offset += MAX_EXTENDED_XMP_CHUNK_SIZE) {
+				int chunkLen = Math.min(MAX_EXTENDED_XMP_CHUNK_SIZE, extendedXmpLen - offset);
 				IOUtils.writeShortMM(os, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1.getValue());
 				// Write segment length
-				IOUtils.writeShortMM(os, 2 + JpegMetaDef.XMP_EXT_ID.length() + GUID_LEN + 4 + 4 + leftOver);
+				IOUtils.writeShortMM(os, 2 + JpegMetaDef.XMP_EXT_ID.length() + GUID_LEN + 4 + 4 + chunkLen);
 				// Write segment data
 				os.write(JpegMetaDef.XMP_EXT_ID.getBytes());
-				os.write(guid.getBytes());
+				os.write(guidBytes);
 				IOUtils.writeIntMM(os, extendedXmpLen);
 				IOUtils.writeIntMM(os, offset);
-				os.write(ArrayUtils.subArray(extendedXmp, offset, leftOver));
+				os.write(extendedXmp, offset, chunkLen);
 			}
 		}
 	}
+
+	private static void writeXmpSegment(OutputStream os, byte[] xmp, int offset, int length) throws IOException {
+		// Write XMP segment
+		IOUtils.writeShortMM(os, JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1.getValue());
+		// Write segment length
+		IOUtils.writeShortMM(os, JpegMetaDef.XMP_ID.length() + 2 + length);
+		// Write segment data
+		os.write(JpegMetaDef.XMP_ID.getBytes());
+		os.write(xmp, offset, length);
+	}
+
+	private static boolean hasPacketWrapper(Document doc) {
+		for(Node node = doc.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if((node.getNodeType() == Node.PROCESSING_INSTRUCTION_NODE) && "xpacket".equals(node.getNodeName()))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves rdf:Description elements, starting with the last one, from xmpDoc into a new document
+	 * until the serialized xmpDoc fits into one jpeg segment. note is inserted as the first
+	 * rdf:Description of xmpDoc.
+	 *
+	 * The elements to move are chosen from their serialized sizes so that the whole xmpDoc is
+	 * serialized only once afterwards instead of after every moved element.
+	 *
+	 * @param xmpLength size of the serialized xmpDoc without note
+	 * @return the ExtendedXMP document
+	 */
+	private Document splitExtendedXmp(Document xmpDoc, int xmpLength, Element note) throws IOException {
+		Element rdf = (Element) getRdfRootNode(xmpDoc);
+		if(rdf == null)
+			throw new RuntimeException("XMP data size exceededs JPEG segment size");
+
+		Document extendedDoc = XMLUtils.createXML("<x:xmpmeta xmlns:x='adobe:ns:meta/'>"
+				+ "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'/></x:xmpmeta>");
+		Element extendedRdf = (Element) getRdfRootNode(extendedDoc);
+		// namespaces declared outside of the moved elements
+		copyNamespaces(xmpDoc.getDocumentElement(), extendedRdf);
+		copyNamespaces(rdf, extendedRdf);
+
+		List<Node> candidates = new ArrayList<Node>();
+		for(Node child = rdf.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if(child.getNodeType() == Node.ELEMENT_NODE) candidates.add(child);
+		}
+		rdf.insertBefore(note, rdf.getFirstChild());
+
+		// elements are measured inside a copy of extendedRdf that declares the namespaces they use
+		Element probe = (Element) extendedRdf.cloneNode(false);
+		probe.appendChild(extendedDoc.createTextNode("x"));
+		int probeLength = XMLUtils.serializeToByteArray(extendedDoc, probe).length - 1;
+		probe.removeChild(probe.getFirstChild());
+
+		int remainingLength = xmpLength + getSerializedLength(extendedDoc, probe, probeLength, extendedDoc.importNode(note, true));
+		for(int i = candidates.size() - 1; (i >= 0) && (remainingLength > MAX_XMP_CHUNK_SIZE); i--) {
+			Node moved = candidates.get(i);
+			Node imported = extendedDoc.importNode(moved, true);
+			remainingLength -= getSerializedLength(extendedDoc, probe, probeLength, imported);
+			extendedRdf.insertBefore(imported, extendedRdf.getFirstChild());
+			rdf.removeChild(moved);
+		}
+		return extendedDoc;
+	}
+
+	private static int getSerializedLength(Document doc, Element probe, int probeLength, Node node) throws IOException {
+		probe.appendChild(node);
+		int length = XMLUtils.serializeToByteArray(doc, probe).length - probeLength;
+		probe.removeChild(node);
+		return length;
+	}
+
+	private static void copyNamespaces(Element from, Element to) {
+		NamedNodeMap attributes = from.getAttributes();
+		for(int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			String name = attribute.getNodeName();
+			if(name.startsWith("xmlns:") && !to.hasAttribute(name))
+				to.setAttribute(name, attribute.getNodeValue());
+		}
+	}
 }
\ No newline at end of file
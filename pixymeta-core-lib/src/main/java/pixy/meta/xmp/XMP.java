@@ -33,8 +33,11 @@ import org.w3c.dom.NodeList;
 
 import pixy.api.DefaultApiImpl;
 import pixy.api.IDirectory;
+import pixy.api.IFieldDefinition;
+import pixy.api.IFieldValue;
 import pixy.meta.MetadataBase;
 import pixy.meta.MetadataType;
+import pixy.string.StringUtils;
 import pixy.string.XMLUtils;
 
 public abstract class XMP extends MetadataBase {
@@ -42,7 +45,7 @@ public abstract class XMP extends MetadataBase {
 	private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(XMP.class);
 
 	// Fields
-	// data translated to xml
+	// data translated to xml. null until needed: the raw packet is kept in the data of MetadataBase
 	private Document xmpDocument;
 
 	// used while development to find errors
@@ -51,6 +54,11 @@ public abstract class XMP extends MetadataBase {
 	public XMP(byte[] data) {
 		super(MetadataType.XMP, data);
 	}
+
+	/** Parses the slice of data without copying it */
+	public XMP(byte[] data, int offset, int length) {
+		super(MetadataType.XMP, data, offset, length);
+	}
 	
 	public XMP(String xmpDataAsXmlString) {
 		super(MetadataType.XMP, null);
@@ -68,15 +76,17 @@ public abstract class XMP extends MetadataBase {
 		}
 	}
 
+	/** Keeps the raw packet. The xml is only parsed when {@link #getXmpDocument()} is called */
 	@Override
-	public void setData(byte[] data) {
-		if (data != null) {
-			this.xmpDocument = XMLUtils.createXML(data);
-			isDataRead = true;
-		}
-		super.setData(null);
+	public void setData(byte[] data, int offset, int length) {
+		super.setData(data, offset, length);
+		this.xmpDocument = null;
 	}
 
+	/**
+	 * @return the unmodified raw packet if the document was never accessed
+	 * otherwise the serialized document
+	 */
 	@Override
 	public byte[] getData() {
 		if (this.xmpDocument != null) {
@@ -85,8 +95,19 @@ public abstract class XMP extends MetadataBase {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
+			return null;
 		}
-		return null;
+		return super.getData();
+	}
+
+	/** @return true if the xml has not been parsed so the raw packet can be written unchanged */
+	protected boolean isRawPacket() {
+		return (xmpDocument == null) && (getDataBuffer() != null);
+	}
+
+	/** writes the raw packet without modifications */
+	protected void writeRawPacket(OutputStream os) throws IOException {
+		os.write(getDataBuffer(), getDataOffset(), getDataLength());
 	}
 
 	/**
@@ -96,8 +117,9 @@ public abstract class XMP extends MetadataBase {
 	public List<IDirectory> getMetaData() {
 		ArrayList<IDirectory> result = new ArrayList<IDirectory>();
 		try {
-			if (xmpDocument != null) {
-				String xml = XMLUtils.serializeToStringLS(xmpDocument);
+			Document doc = getXmpDocument();
+			if (doc != null) {
+				String xml = XMLUtils.serializeToStringLS(doc);
 				IDirectory dir = DefaultApiImpl.createDirecotry("xml", XmpTag.XmlRaw, xml);
 				result.add(dir);
 			}
@@ -107,13 +129,45 @@ public abstract class XMP extends MetadataBase {
 		return result;
 	}
 
+	/**
+	 * @return the xml document. It is parsed from the raw packet on first access.
+	 * From then on the document replaces the raw packet.
+	 */
 	public Document getXmpDocument() {
+		if ((xmpDocument == null) && (getDataBuffer() != null)) {
+			xmpDocument = XMLUtils.createXML(getDataBuffer(), getDataOffset(), getDataLength());
+			if (xmpDocument != null) {
+				super.setData(null, 0, 0);
+			}
+		}
+		isDataRead = true;
 		return xmpDocument;
 	}
 
+	/**
+	 * @return the value of an {@link XmpTag} or null if it does not exist.
+	 * As long as the document was not needed the value is read with {@link XmpPropertyExtractor} without creating it.
+	 */
+	@Override
+	public IFieldValue getValue(IFieldDefinition tag) {
+		if(!(tag instanceof XmpTag) || (tag == XmpTag.XmlRaw)) return null;
+
+		if(isRawPacket()) {
+			try {
+				return XmpPropertyExtractor.extract(getDataBuffer(), getDataOffset(), getDataLength(), (XmpTag) tag)[0];
+			} catch (IOException e) {
+				LOGGER.error(this.getClass().getSimpleName() + ".getValue cannot parse xml " + e.getMessage(), e);
+				return null;
+			}
+		}
+
+		String value = ((XmpTag) tag).getValueAsString(getXmpDocument());
+		return StringUtils.isNullOrEmpty(value) ? null : DefaultApiImpl.createFieldValue(tag, value);
+	}
 
 	public void set(String xmpDataAsXmlString) {
 		if(xmpDataAsXmlString == null) throw new IllegalArgumentException("Input XMP string is null");
+		super.setData(null, 0, 0);
 		this.xmpDocument = XMLUtils.createXML(xmpDataAsXmlString);
 		isDataRead = true;
 	}
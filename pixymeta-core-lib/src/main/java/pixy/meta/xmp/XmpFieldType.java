@@ -1,10 +1,16 @@
 package pixy.meta.xmp;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import pixy.api.IDataType;
+import pixy.string.StringUtils;
 import pixy.string.XMLUtils;
 
 /**
@@ -12,7 +18,17 @@ import pixy.string.XMLUtils;
  */
 public enum XmpFieldType implements IDataType {
     GuidStringAttribute(),
-    XmlRaw;
+    XmlRaw,
+    /** simple property: attribute of rdf:Description or element with text */
+    Text,
+    /** rdf:Bag or rdf:Seq. The items are separated by {@link #LIST_SEPARATOR} */
+    TextList,
+    /** rdf:Alt with language alternatives. Only the first (usually x-default) is used */
+    LangAlt;
+
+    public static final String LIST_SEPARATOR = ";";
+
+    private static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
 
     @Override
     public String getName() {
@@ -25,8 +41,86 @@ public enum XmpFieldType implements IDataType {
 
 
     public String getValueAsString(Document document, XmpTag tag) {
-        return XMLUtils.getAttribute(document, tag.getXmlElementName(), tag.getAttribute());
+        String value = getAttributeValue(document, tag);
+        if (StringUtils.isNullOrEmpty(value) && (this != GuidStringAttribute)) {
+            value = getElementValue(document, tag);
+        }
+        return value;
     }
+
+    /** @return the value of the property in attribute form: &lt;rdf:Description dc:format="..." */
+    private static String getAttributeValue(Document document, XmpTag tag) {
+        if ((document == null) || (tag.getNamespaceURI() == null)) return null;
+
+        for (Element description : getElements(document.getElementsByTagName("*"), RDF_NS, "Description")) {
+            String value = getAttribute(description, tag.getNamespaceURI(), tag.getLocalName());
+            if (!StringUtils.isNullOrEmpty(value)) return value;
+        }
+        return null;
+    }
+
+    /** @return the value of the property in element form: &lt;dc:subject&gt;&lt;rdf:Bag&gt;... */
+    private String getElementValue(Document document, XmpTag tag) {
+        if ((document == null) || (tag.getNamespaceURI() == null)) return null;
+
+        List<Element> properties = getElements(document.getElementsByTagName("*"), tag.getNamespaceURI(), tag.getLocalName());
+        if (properties.isEmpty()) return null;
+
+        Element property = properties.get(0);
+        List<Element> items = getElements(property.getElementsByTagName("*"), RDF_NS, "li");
+        if (items.isEmpty()) {
+            String resource = getAttribute(property, RDF_NS, "resource");
+            return !StringUtils.isNullOrEmpty(resource) ? resource : property.getTextContent();
+        }
+
+        int count = (this == TextList) ? items.size() : 1;
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) result.append(LIST_SEPARATOR);
+            result.append(items.get(i).getTextContent());
+        }
+        return result.toString();
+    }
+
+    /** @return the elements of nodes with the namespace uri and local name regardless of the prefix used in the xml */
+    private static List<Element> getElements(NodeList nodes, String namespaceURI, String localName) {
+        List<Element> result = new ArrayList<Element>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element element = (Element) nodes.item(i);
+            if (isNamed(element, element.getNodeName(), namespaceURI, localName)) result.add(element);
+        }
+        return result;
+    }
+
+    /** @return the value of the attribute of element with the namespace uri and local name or null */
+    private static String getAttribute(Element element, String namespaceURI, String localName) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (isNamed(element, attribute.getNodeName(), namespaceURI, localName)) return attribute.getNodeValue();
+        }
+        return null;
+    }
+
+    /**
+     * The dom is not namespace aware: the prefix of the qualified name is resolved with the
+     * xmlns declarations of element and its ancestors.
+     */
+    private static boolean isNamed(Element element, String qualifiedName, String namespaceURI, String localName) {
+        int colon = qualifiedName.indexOf(':');
+        if ((colon < 0) || !qualifiedName.regionMatches(colon + 1, localName, 0, localName.length())
+                || (qualifiedName.length() != colon + 1 + localName.length())) {
+            return false;
+        }
+
+        String xmlns = "xmlns:" + qualifiedName.substring(0, colon);
+        for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+            Element current = (Element) node;
+            if (current.hasAttribute(xmlns)) return namespaceURI.equals(current.getAttribute(xmlns));
+        }
+        return false;
+    }
+
     /*
     public void setValue(Document document, XmpTag tag, String value){
         NodeList descriptions = document.getElementsByTagName(tag.getXmlElementName());
@@ -0,0 +1,69 @@
+package pixy.meta.xmp;
+
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+
+import pixy.api.DefaultApiImpl;
+import pixy.api.IFieldValue;
+
+/**
+ * Reads only some {@link XmpTag}s from a raw xmp packet (i.e. for indexing) with SAX.
+ * No DOM is created and parsing stops as soon as all simple properties have been found.
+ *
+ * Usage: IFieldValue[] values = XmpPropertyExtractor.extract(data, 0, data.length, XmpTag.Dc_Subject, XmpTag.Xmp_Rating);
+ */
+public class XmpPropertyExtractor extends XmpPropertyHandler {
+    private final XmpTag[] tags;
+
+    /** result: values[i] belongs to tags[i]. null if not found yet */
+    private final StringBuilder[] values;
+
+    /** number of tags that may still get a value */
+    private int openCount;
+
+    private XmpPropertyExtractor(XmpTag[] tags) {
+        this.tags = tags;
+        this.values = new StringBuilder[tags.length];
+        this.openCount = tags.length;
+    }
+
+    /**
+     * Reads the values of tags from the slice of data.
+     *
+     * @return the values in the same order as tags. An element is null if the tag was not found.
+     */
+    public static IFieldValue[] extract(byte[] data, int offset, int length, XmpTag... tags) throws IOException {
+        XmpPropertyExtractor extractor = new XmpPropertyExtractor(tags);
+        extractor.parse(data, offset, length);
+
+        IFieldValue[] result = new IFieldValue[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            if (extractor.values[i] != null) {
+                result[i] = DefaultApiImpl.createFieldValue(tags[i], extractor.values[i].toString());
+            }
+        }
+        return result;
+    }
+
+    public static IFieldValue[] extract(byte[] data, XmpTag... tags) throws IOException {
+        return extract(data, 0, data.length, tags);
+    }
+
+    @Override
+    protected void onProperty(String namespace, String name, String value) throws SAXException {
+        for (int i = 0; i < tags.length; i++) {
+            XmpTag tag = tags[i];
+            if ((tag != null) && name.equals(tag.getLocalName()) && namespace.equals(tag.getNamespaceURI())) {
+                if (values[i] == null) {
+                    values[i] = new StringBuilder(value);
+                    // all items of a list belong to the same property: it is complete when rdf:RDF ends
+                    if (tag.getDataType() != XmpFieldType.TextList) openCount--;
+                } else if (tag.getDataType() == XmpFieldType.TextList) {
+                    values[i].append(XmpFieldType.LIST_SEPARATOR).append(value);
+                }
+            }
+        }
+        if (openCount == 0) stop();
+    }
+}
@@ -0,0 +1,189 @@
+package pixy.meta.xmp;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * Reports the simple properties of a xmp packet while it is parsed with SAX without building a DOM.
+ *
+ * * attributes of rdf:Description: &lt;rdf:Description dc:format="image/jpeg"/&gt;
+ * * elements with text or rdf:resource: &lt;xmp:Rating&gt;3&lt;/xmp:Rating&gt;
+ * * every item of a rdf:Bag/Seq/Alt is reported with the name of its property:
+ *   &lt;dc:subject&gt;&lt;rdf:Bag&gt;&lt;rdf:li&gt;tree&lt;/rdf:li&gt;...
+ * * fields of structures (rdf:parseType="Resource" or nested rdf:Description) are reported
+ *   with their own name.
+ */
+public abstract class XmpPropertyHandler extends DefaultHandler {
+    public static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String XMLNS_NS = "http://www.w3.org/2000/xmlns/";
+    private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+
+    private static SAXParserFactory factory = null;
+
+    // Creating parsers is expensive: each thread reuses its own instance
+    private static final ThreadLocal<SAXParser> PARSER = new ThreadLocal<SAXParser>() {
+        @Override
+        protected SAXParser initialValue() {
+            try {
+                return getFactory().newSAXParser();
+            } catch (ParserConfigurationException e) {
+                return null;
+            } catch (SAXException e) {
+                return null;
+            }
+        }
+    };
+
+    /** true while inside rdf:RDF */
+    private boolean inRdf = false;
+
+    /** namespace and name of the open property elements: [ns0, name0, ns1, name1, ...] */
+    private final List<String> propertyStack = new ArrayList<String>();
+
+    /** true if the innermost open property element contains other elements */
+    private boolean hasChildElements = false;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * called for every property value in document order.
+     * Implementations may call {@link #stop()} if they are not interested in more properties.
+     */
+    protected abstract void onProperty(String namespace, String name, String value) throws SAXException;
+
+    /** ends {@link #parse(byte[], int, int)} without reading the rest of the packet */
+    protected void stop() throws SAXException {
+        throw new StopException();
+    }
+
+    /** thrown by {@link #stop()}: not an error */
+    private static class StopException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        StopException() {
+            super("stop");
+        }
+    }
+
+    /** parses the xmp packet in data and reports its properties to {@link #onProperty(String, String, String)} */
+    public void parse(byte[] data, int offset, int length) throws IOException {
+        propertyStack.clear();
+        text.setLength(0);
+        inRdf = false;
+        try {
+            getParser().parse(new InputSource(new ByteArrayInputStream(data, offset, length)), this);
+        } catch (StopException e) {
+            // all required properties have been found
+        } catch (SAXException e) {
+            throw new IOException("Invalid xmp: " + e.getMessage(), e);
+        }
+    }
+
+    /** @return the SAXParser of the current thread in its initial state */
+    private static SAXParser getParser() throws IOException {
+        SAXParser parser = PARSER.get();
+        if (parser == null) throw new IOException("Cannot create xmp parser");
+        parser.reset();
+        return parser;
+    }
+
+    private static synchronized SAXParserFactory getFactory() {
+        if (factory == null) {
+            SAXParserFactory newFactory = SAXParserFactory.newInstance();
+            newFactory.setNamespaceAware(true);
+            // xmp never contains a doctype nor needs external entities
+            setFeature(newFactory, "http://apache.org/xml/features/disallow-doctype-decl", true);
+            setFeature(newFactory, "http://xml.org/sax/features/external-general-entities", false);
+            setFeature(newFactory, "http://xml.org/sax/features/external-parameter-entities", false);
+            setFeature(newFactory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory = newFactory;
+        }
+        return factory;
+    }
+
+    private static void setFeature(SAXParserFactory factory, String name, boolean value) {
+        try {
+            factory.setFeature(name, value);
+        } catch (Exception ignore) {
+            // not supported by this parser
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        text.setLength(0);
+        if (!inRdf) {
+            inRdf = RDF_NS.equals(uri) && "RDF".equals(localName);
+            return;
+        }
+
+        if (!propertyStack.isEmpty()) hasChildElements = true;
+        if (RDF_NS.equals(uri)) {
+            if ("Description".equals(localName)) {
+                reportAttributes(attributes);
+            }
+            return;
+        }
+
+        propertyStack.add(uri);
+        propertyStack.add(localName);
+        hasChildElements = false;
+
+        // shorthand form of structures
+        reportAttributes(attributes);
+        String resource = attributes.getValue(RDF_NS, "resource");
+        if (resource != null) {
+            onProperty(uri, localName, resource);
+            hasChildElements = true;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (inRdf) {
+            if (RDF_NS.equals(uri)) {
+                if ("RDF".equals(localName)) {
+                    inRdf = false;
+                } else if ("li".equals(localName) && !propertyStack.isEmpty() && (text.length() > 0)) {
+                    int last = propertyStack.size() - 2;
+                    onProperty(propertyStack.get(last), propertyStack.get(last + 1), text.toString());
+                }
+            } else if (!propertyStack.isEmpty()) {
+                int last = propertyStack.size() - 2;
+                if (!hasChildElements) {
+                    onProperty(propertyStack.get(last), propertyStack.get(last + 1), text.toString());
+                }
+                propertyStack.remove(last + 1);
+                propertyStack.remove(last);
+                // the parent contains the element that has just been closed
+                hasChildElements = true;
+            }
+        }
+        text.setLength(0);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        text.append(ch, start, length);
+    }
+
+    private void reportAttributes(Attributes attributes) throws SAXException {
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String ns = attributes.getURI(i);
+            if ((ns != null) && (ns.length() > 0) && !RDF_NS.equals(ns) && !XMLNS_NS.equals(ns) && !XML_NS.equals(ns)) {
+                onProperty(ns, attributes.getLocalName(i), attributes.getValue(i));
+            }
+        }
+    }
+}
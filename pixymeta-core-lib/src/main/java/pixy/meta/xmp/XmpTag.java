@@ -15,7 +15,24 @@ import pixy.api.IFieldDefinition;
 public enum XmpTag  implements IFieldDefinition {
     /** md5 checksum of extended xml. null if there is no extended xml  */
     Note_HasExtendedXMP(XmpFieldType.GuidStringAttribute, "rdf:Description", "xmpNote:HasExtendedXMP"),
-    XmlRaw(XmpFieldType.XmlRaw,null, null);
+    XmlRaw(XmpFieldType.XmlRaw,null, null),
+
+    Dc_Title(XmpFieldType.LangAlt, "rdf:Description", "dc:title"),
+    Dc_Description(XmpFieldType.LangAlt, "rdf:Description", "dc:description"),
+    Dc_Creator(XmpFieldType.TextList, "rdf:Description", "dc:creator"),
+    /** keywords */
+    Dc_Subject(XmpFieldType.TextList, "rdf:Description", "dc:subject"),
+    Dc_Rights(XmpFieldType.LangAlt, "rdf:Description", "dc:rights"),
+    Xmp_Rating(XmpFieldType.Text, "rdf:Description", "xmp:Rating"),
+    Xmp_CreateDate(XmpFieldType.Text, "rdf:Description", "xmp:CreateDate"),
+    Xmp_ModifyDate(XmpFieldType.Text, "rdf:Description", "xmp:ModifyDate"),
+    Photoshop_DateCreated(XmpFieldType.Text, "rdf:Description", "photoshop:DateCreated"),
+    Exif_DateTimeOriginal(XmpFieldType.Text, "rdf:Description", "exif:DateTimeOriginal"),
+    Exif_GPSLatitude(XmpFieldType.Text, "rdf:Description", "exif:GPSLatitude"),
+    Exif_GPSLongitude(XmpFieldType.Text, "rdf:Description", "exif:GPSLongitude"),
+    Tiff_Orientation(XmpFieldType.Text, "rdf:Description", "tiff:Orientation"),
+    /** lightroom keywords with path: "animal|mammal|cat" */
+    Lr_HierarchicalSubject(XmpFieldType.TextList, "rdf:Description", "lr:hierarchicalSubject");
 
     private final XmpFieldType type;
     private final String element;
@@ -46,6 +63,18 @@ public enum XmpTag  implements IFieldDefinition {
         return attribute;
     }
 
+    /** @return the namespace uri of {@link #getAttribute()} or null if unknown */
+    public String getNamespaceURI() {
+        int colon = (attribute == null) ? -1 : attribute.indexOf(':');
+        return (colon < 0) ? null : namespaces.get(attribute.substring(0, colon));
+    }
+
+    /** @return {@link #getAttribute()} without namespace prefix */
+    public String getLocalName() {
+        int colon = (attribute == null) ? -1 : attribute.indexOf(':');
+        return (colon < 0) ? attribute : attribute.substring(colon + 1);
+    }
+
     public void remove(Document doc) {
         getDataType().remove(doc, this);
     }
@@ -56,7 +85,13 @@ public enum XmpTag  implements IFieldDefinition {
 
     private static HashMap<String,String> namespaces = new HashMap<>();
     static {
-        namespaces.put("xmpNote", "http://ns.adobe.com/xmp/extension/");
+        namespaces.put("xmpNote", "http://ns.adobe.com/xmp/note/");
+        namespaces.put("dc", "http://purl.org/dc/elements/1.1/");
+        namespaces.put("xmp", "http://ns.adobe.com/xap/1.0/");
+        namespaces.put("photoshop", "http://ns.adobe.com/photoshop/1.0/");
+        namespaces.put("exif", "http://ns.adobe.com/exif/1.0/");
+        namespaces.put("tiff", "http://ns.adobe.com/tiff/1.0/");
+        namespaces.put("lr", "http://ns.adobe.com/lightroom/1.0/");
     }
 
 	public static NamespaceContext getNamespaceContext() {
@@ -63,7 +63,48 @@ import org.w3c.dom.ls.LSSerializer;
 public class XMLUtils {
 	// Obtain a logger instance
 	private static final Logger LOGGER = LoggerFactory.getLogger(XMLUtils.class);
-		
+
+	// Creating factories and builders is expensive: each thread reuses its own instances
+	private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue() {
+			try {
+				return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				onError("newDocumentBuilder ", e);
+			}
+			return null;
+		}
+	};
+
+	private static final ThreadLocal<Transformer> TRANSFORMER = new ThreadLocal<Transformer>() {
+		@Override
+		protected Transformer initialValue() {
+			try {
+				return TransformerFactory.newInstance().newTransformer();
+			} catch (TransformerConfigurationException e) {
+				onError("newTransformer ", e);
+			}
+			return null;
+		}
+	};
+
+	/** @return the DocumentBuilder of the current thread in its initial state */
+	private static DocumentBuilder getDocumentBuilder() {
+		DocumentBuilder builder = DOCUMENT_BUILDER.get();
+		if(builder != null) builder.reset();
+		return builder;
+	}
+
+	/** @return the Transformer of the current thread in its initial state */
+	private static Transformer getTransformer() throws IOException {
+		Transformer transformer = TRANSFORMER.get();
+		if(transformer == null)
+			throw new IOException("Unable to serialize XML document");
+		transformer.reset();
+		return transformer;
+	}
+
 	public static void addChild(Node parent, Node child) {
 		parent.appendChild(child);
 	}
@@ -74,16 +115,7 @@ public class XMLUtils {
 	
 	// Create an empty Document node
 	public static Document createDocumentNode() {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-	    DocumentBuilder builder = null;
-	    
-		try {
-			builder = factory.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			onError("createDocumentNode ", e);
-		}
-		
-		return builder.newDocument();
+		return getDocumentBuilder().newDocument();
 	}
 	
 	public static Node createElement(Document doc, String tagName) {
@@ -91,20 +123,18 @@ public class XMLUtils {
 	}
 	
 	public static Document createXML(byte[] xml) {
-		//Get the DOM Builder Factory
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		//Get the DOM Builder
-		DocumentBuilder builder = null;
-		try {
-			builder = factory.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			onError("createXML-newDocumentBuilder ", e);
-		}
+		return createXML(xml, 0, xml.length);
+	}
+
+	/** Parses the slice of xml without copying it */
+	public static Document createXML(byte[] xml, int offset, int length) {
+		//Get the DOM Builder of this thread
+		DocumentBuilder builder = getDocumentBuilder();
 		//Load and Parse the XML document
 		//document contains the complete XML as a Tree.
 		Document document = null;
 		try {
-			document = builder.parse(new ByteArrayInputStream(xml));			
+			document = builder.parse(new ByteArrayInputStream(xml, offset, length));			
 		} catch (SAXException e) {
 			onError("createXML-parse ", e);
 		} catch (IOException e) {
@@ -115,15 +145,8 @@ public class XMLUtils {
 	}
 	
 	public static Document createXML(String xml) {
-		//Get the DOM Builder Factory
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		//Get the DOM Builder
-		DocumentBuilder builder = null;
-		try {
-			builder = factory.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			onError("createXML-newDocumentBuilder ", e);
-		}
+		//Get the DOM Builder of this thread
+		DocumentBuilder builder = getDocumentBuilder();
 		//Load and Parse the XML document
 		//document contains the complete XML as a Tree.
 		Document document = null;
@@ -306,21 +329,23 @@ public class XMLUtils {
 	}
 	
 	public static byte[] serializeToByteArray(Document doc) throws IOException {
-		TransformerFactory tFactory = TransformerFactory.newInstance();
-		Transformer transformer = null;
-		try {
-			transformer = tFactory.newTransformer();
-		} catch (TransformerConfigurationException e) {
-			onError("serializeToByteArray-newTransformer ", e);
+		return serializeToByteArray(doc, doc);
+	}
 
-			throw new IOException("Unable to serialize XML document");
-		}
+	/**
+	 * Serialize a Node of the XML Document without XML declaration
+	 *
+	 * @param doc XML Document that determines the encoding
+	 * @param node the Node to serialize
+	 */
+	public static byte[] serializeToByteArray(Document doc, Node node) throws IOException {
+		Transformer transformer = getTransformer();
 		transformer.setOutputProperty(OutputKeys.INDENT, "no");
 		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
 		String encoding = doc.getInputEncoding();
 		if(encoding == null) encoding = "UTF-8";
 		transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
-		DOMSource source = new DOMSource(doc);
+		DOMSource source = new DOMSource(node);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		Result result = new StreamResult(out);
 		try {
@@ -400,15 +425,7 @@ public class XMLUtils {
 	 * @throws IOException
 	 */
 	public static String serializeToString(Node node, String encoding) throws IOException {
-		TransformerFactory tFactory = TransformerFactory.newInstance();
-		Transformer transformer = null;
-		try {
-			transformer = tFactory.newTransformer();
-		} catch (TransformerConfigurationException e) {
-			onError("serializeToString-newTransformer ", e);
-
-			throw new IOException("Unable to serialize XML document");
-		}
+		Transformer transformer = getTransformer();
 		transformer.setOutputProperty(OutputKeys.INDENT, "no");
 		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
 		transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
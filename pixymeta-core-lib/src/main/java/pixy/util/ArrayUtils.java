@@ -285,6 +285,18 @@ public class ArrayUtils
 		return result;
 	}
 
+	/**
+	 * Same as Arrays.equals() for two slices without copying them.
+	 *
+	 * @return true if a[aOffset..aOffset+len-1] and b[bOffset..bOffset+len-1] contain the same bytes
+	 */
+	public static boolean equals(byte[] a, int aOffset, byte[] b, int bOffset, int len) {
+		for (int i = 0; i < len; i++) {
+			if (a[aOffset + i] != b[bOffset + i]) return false;
+		}
+		return true;
+	}
+
 	public static int findEqualOrLess(int[] a, int key) {
     	return findEqualOrLess(a, 0, a.length, key);
     }
@@ -467,6 +479,17 @@ public class ArrayUtils
   		return BIT_REVERSE_TABLE.clone();
   	}
 	 
+	/**
+	 * Same as Arrays.hashCode() for a slice without copying it.
+	 */
+	public static int hashCode(byte[] a, int offset, int len) {
+		int result = 1;
+		for (int i = offset; i < offset + len; i++) {
+			result = 31 * result + a[i];
+		}
+		return result;
+	}
+
 	// Insertion sort
     public static void insertionsort(int[] array) {
 	   insertionsort(array, 0, array.length - 1);
@@ -0,0 +1,72 @@
+package pixy.fileprocessor.jpg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import pixy.image.jpeg.JpegSegmentMarker;
+import pixy.io.IOUtils;
+
+/**
+ * Builds small in memory jpeg files for the jpg tests.
+ *
+ * Usage: byte[] jpeg = new JpegTestFiles().exif(JpegTestFiles.TIFF_ORIENTATION_6).comment("a comment").toByteArray();
+ */
+class JpegTestFiles {
+	/** image data behind the SOS marker */
+	static final byte[] IMAGE_DATA = {1, 2, 3};
+
+	/** tiff without any IFD */
+	static final byte[] TIFF_EMPTY = {'M', 'M', 0, 0x2a, 0, 0, 0, 8, 0, 0, 0, 0, 0, 0};
+
+	/** tiff with an IFD0 containing orientation=6 */
+	static final byte[] TIFF_ORIENTATION_6 = {'M', 'M', 0, 0x2a, 0, 0, 0, 8,
+			0, 1, // one field
+			0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0, // orientation short 6
+			0, 0, 0, 0}; // no next IFD
+
+	static final String XMP_EMPTY = "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'/></x:xmpmeta>";
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	JpegTestFiles() throws IOException {
+		IOUtils.writeShortMM(out, JpegSegmentMarker.JPG_SEGMENT_START_OF_IMAGE_SOI.getValue());
+	}
+
+	JpegTestFiles segment(JpegSegmentMarker marker, byte[] data) throws IOException {
+		IOUtils.writeShortMM(out, marker.getValue());
+		IOUtils.writeShortMM(out, data.length + 2);
+		out.write(data);
+		return this;
+	}
+
+	JpegTestFiles exif(byte[] tiff) throws IOException {
+		return segment(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, concat(JpegMetaDef.EXIF_ID, tiff));
+	}
+
+	JpegTestFiles xmp(String xml) throws IOException {
+		return segment(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, (JpegMetaDef.XMP_ID + xml).getBytes("UTF-8"));
+	}
+
+	/** @param irb photoshop image resource blocks */
+	JpegTestFiles photoshop(byte[] irb) throws IOException {
+		return segment(JpegSegmentMarker.JPG_SEGMENT_IPTC_APP13, concat(JpegMetaDef.PHOTOSHOP_IRB_ID, irb));
+	}
+
+	JpegTestFiles comment(String comment) throws IOException {
+		return segment(JpegSegmentMarker.JPG_SEGMENT_COMMNENTS_COM, comment.getBytes("UTF-8"));
+	}
+
+	/** @return the file with SOS marker and {@link #IMAGE_DATA} appended */
+	byte[] toByteArray() throws IOException {
+		IOUtils.writeShortMM(out, JpegSegmentMarker.SOS.getValue());
+		out.write(IMAGE_DATA);
+		return out.toByteArray();
+	}
+
+	private static byte[] concat(String id, byte[] data) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		result.write(id.getBytes("UTF-8"));
+		result.write(data);
+		return result.toByteArray();
+	}
+}
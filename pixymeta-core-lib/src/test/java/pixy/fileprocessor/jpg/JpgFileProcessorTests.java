@@ -0,0 +1,53 @@
+package pixy.fileprocessor.jpg;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+
+import pixy.api.IMetadata;
+import pixy.meta.MetadataType;
+
+/**
+ * Verifies that {@link JpgFileProcessor} only loads the requested metadata types.
+ */
+public class JpgFileProcessorTests {
+	@BeforeClass
+	public static void initDirectories() {
+		JpegMetaDef.register();
+	}
+
+	/** jpeg header with an empty exif, an xmp and a comment segment */
+	private static byte[] createJpeg() throws IOException {
+		return new JpegTestFiles().exif(JpegTestFiles.TIFF_EMPTY).xmp(JpegTestFiles.XMP_EMPTY)
+				.comment("a comment").toByteArray();
+	}
+
+	@Test
+	public void shouldLoadAllSegmentsWithoutFilter() throws IOException {
+		JpgFileProcessor processor = new JpgFileProcessor(new ByteArrayInputStream(createJpeg()));
+		processor.load();
+		Map<MetadataType, IMetadata> metadata = processor.getMetadataMap();
+
+		Assert.assertTrue(metadata.containsKey(MetadataType.EXIF));
+		Assert.assertTrue(metadata.containsKey(MetadataType.XMP));
+		Assert.assertTrue(metadata.containsKey(MetadataType.COMMENT));
+	}
+
+	@Test
+	public void shouldSkipSegmentsThatAreNotRequested() throws IOException {
+		ByteArrayInputStream in = new ByteArrayInputStream(createJpeg());
+		JpgFileProcessor processor = new JpgFileProcessor(in, EnumSet.of(MetadataType.EXIF));
+		processor.load();
+		Map<MetadataType, IMetadata> metadata = processor.getMetadataMap();
+
+		Assert.assertEquals(metadata.keySet().toString(), 1, metadata.size());
+		Assert.assertTrue(metadata.containsKey(MetadataType.EXIF));
+		// positioned behind SOS
+		Assert.assertEquals(JpegTestFiles.IMAGE_DATA.length, in.available());
+	}
+}
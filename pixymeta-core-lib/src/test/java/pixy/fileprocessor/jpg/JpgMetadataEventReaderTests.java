@@ -0,0 +1,137 @@
+package pixy.fileprocessor.jpg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import pixy.meta.MetadataEventReader;
+import pixy.meta.MetadataEventReader.Event;
+import pixy.meta.MetadataType;
+import pixy.meta.exif.ExifImageTag;
+
+/**
+ * Verifies the events of {@link JpgMetadataEventReader}.
+ */
+public class JpgMetadataEventReaderTests {
+	/** jpeg header with exif (orientation=6), xmp, iptc and comment */
+	private static byte[] createJpeg() throws IOException {
+		String xml = "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+				+ "<rdf:Description xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmlns:dc='http://purl.org/dc/elements/1.1/' xmp:Rating='3'>"
+				+ "<dc:subject><rdf:Bag><rdf:li>tree</rdf:li><rdf:li>sky</rdf:li></rdf:Bag></dc:subject>"
+				+ "</rdf:Description></rdf:RDF></x:xmpmeta>";
+		byte[] irb = {'8', 'B', 'I', 'M', 0x04, 0x04, 0, 0, 0, 0, 0, 10,
+				0x1c, 2, 25, 0, 5, 'h', 'o', 'u', 's', 'e'};
+
+		return new JpegTestFiles().exif(JpegTestFiles.TIFF_ORIENTATION_6).xmp(xml).photoshop(irb)
+				.comment("a comment").toByteArray();
+	}
+
+	@Test
+	public void shouldReportAllEvents() throws IOException {
+		MetadataEventReader reader = new JpgMetadataEventReader(new ByteArrayInputStream(createJpeg()));
+		StringBuilder events = new StringBuilder();
+		while (reader.hasNext()) {
+			Event event = reader.next();
+			events.append(event);
+			switch (event) {
+				case START_SEGMENT:
+					events.append("(").append(reader.getMetadataType()).append(")");
+					break;
+				case IFD_ENTRY:
+					Assert.assertSame(ExifImageTag.ORIENTATION, reader.getTag());
+					events.append("(").append(reader.getInt(0)).append(")");
+					break;
+				case IPTC_DATASET:
+				case XMP_PROPERTY:
+					events.append("(").append(reader.getString()).append(")");
+					break;
+			}
+			events.append(" ");
+		}
+
+		Assert.assertEquals("START_SEGMENT(EXIF) START_IFD IFD_ENTRY(6) END_SEGMENT "
+				+ "START_SEGMENT(XMP) XMP_PROPERTY(3) XMP_PROPERTY(tree) XMP_PROPERTY(sky) END_SEGMENT "
+				+ "START_SEGMENT(PHOTOSHOP_IRB) IPTC_DATASET(house) END_SEGMENT "
+				+ "START_SEGMENT(COMMENT) END_SEGMENT END_DOCUMENT ", events.toString());
+	}
+
+	@Test
+	public void shouldSkipSegments() throws IOException {
+		MetadataEventReader reader = new JpgMetadataEventReader(new ByteArrayInputStream(createJpeg()));
+		int properties = 0;
+		String comment = null;
+		while (reader.hasNext()) {
+			Event event = reader.next();
+			if (event == Event.START_SEGMENT) {
+				if (reader.getMetadataType() == MetadataType.COMMENT) {
+					comment = reader.getString();
+				} else if (reader.getMetadataType() != MetadataType.XMP) {
+					reader.skipSegment();
+				}
+			} else if ((event == Event.IFD_ENTRY) || (event == Event.IPTC_DATASET)) {
+				Assert.fail("skipped segment reported " + event);
+			} else if (event == Event.XMP_PROPERTY) {
+				properties++;
+			}
+		}
+		Assert.assertEquals(3, properties);
+		Assert.assertEquals("a comment", comment);
+	}
+
+	@Test
+	public void shouldSkipCorruptIfdEntries() throws IOException {
+		byte[] tiff = {'M', 'M', 0, 0x2a, 0, 0, 0, 8,
+				0, 3, // three fields
+				0x01, 0x0f, 0, 2, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0, 0, 0, 8, // make: negative count
+				(byte) 0x87, 0x69, 0, 4, 0x10, 0, 0, 0, 0, 0, 0, 8, // exif sub IFDs: behind the end
+				0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0, // orientation short 6
+				0, 0, 0, 0}; // no next IFD
+		MetadataEventReader reader = new JpgMetadataEventReader(new ByteArrayInputStream(
+				new JpegTestFiles().exif(tiff).toByteArray()));
+		StringBuilder events = new StringBuilder();
+		while (reader.hasNext()) {
+			Event event = reader.next();
+			events.append(event);
+			if (event == Event.IFD_ENTRY) events.append("(").append(reader.getInt(0)).append(")");
+			events.append(" ");
+		}
+
+		Assert.assertEquals("START_SEGMENT START_IFD IFD_ENTRY(6) END_SEGMENT END_DOCUMENT ", events.toString());
+	}
+
+	@Test
+	public void shouldFailOnValueOfUnknownFieldType() throws IOException {
+		byte[] tiff = {'M', 'M', 0, 0x2a, 0, 0, 0, 8,
+				0, 1, // one field
+				0x01, 0x12, 0, 0, 0, 0, 0, 1, 0, 6, 0, 0, // orientation of unknown type 0
+				0, 0, 0, 0}; // no next IFD
+		MetadataEventReader reader = new JpgMetadataEventReader(new ByteArrayInputStream(
+				new JpegTestFiles().exif(tiff).toByteArray()));
+		while (reader.next() != Event.IFD_ENTRY) {
+			// skip to the entry
+		}
+		try {
+			reader.getInt(0);
+			Assert.fail("value of unknown type must fail");
+		} catch (IOException expected) {
+			Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("Unsupported field type"));
+		}
+	}
+
+	@Test
+	public void shouldIgnoreXmpWithDoctype() throws IOException {
+		String xml = "<!DOCTYPE x:xmpmeta [<!ENTITY secret SYSTEM 'file:///etc/hostname'>]>"
+				+ "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+				+ "<rdf:Description xmlns:dc='http://purl.org/dc/elements/1.1/'><dc:format>&secret;</dc:format>"
+				+ "</rdf:Description></rdf:RDF></x:xmpmeta>";
+		MetadataEventReader reader = new JpgMetadataEventReader(new ByteArrayInputStream(
+				new JpegTestFiles().xmp(xml).toByteArray()));
+		int properties = 0;
+		while (reader.hasNext()) {
+			if (reader.next() == Event.XMP_PROPERTY) properties++;
+		}
+		Assert.assertEquals(0, properties);
+	}
+}
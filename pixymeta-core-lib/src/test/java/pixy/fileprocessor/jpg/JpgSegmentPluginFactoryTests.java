@@ -9,6 +9,8 @@ import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import pixy.api.IFieldDefinition;
 import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
+import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.exif.ExifCompositeTag;
 import pixy.meta.exif.ExifImageTag;
@@ -51,6 +53,63 @@ public class JpgSegmentPluginFactoryTests {
         Assert.assertNotNull(tag.getName() + ":" + tag.getClass().getSimpleName(), found);
     }
 
+    @Test
+    public void shouldCreateFromSlice() throws Exception {
+        String xml = "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'/></x:xmpmeta>";
+        // segment content surrounded by unrelated bytes of a shared buffer
+        byte[] content = (JpegMetaDef.XMP_ID + xml).getBytes("UTF-8");
+        byte[] buffer = new byte[content.length + 20];
+        System.arraycopy(content, 0, buffer, 10, content.length);
+
+        JpgSegmentPluginFactory found = JpgSegmentPluginFactory.find(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, buffer, 10, content.length);
+        Assert.assertNotNull(found);
+        Assert.assertEquals(MetadataType.XMP, found.getMetadataType());
+
+        IMetadata metadata = found.create(buffer, 10, content.length);
+        Assert.assertNotNull(((JpegXMPSegmentPlugin) metadata).getXmpDocument());
+    }
+
+    @Test
+    public void shouldNotFindUnknownSubMarker() throws Exception {
+        byte[] data = "Unknown\0".getBytes("UTF-8");
+        Assert.assertNull(JpgSegmentPluginFactory.find(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, data));
+        // shorter than any sub marker
+        Assert.assertNull(JpgSegmentPluginFactory.find(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, new byte[]{'E'}));
+    }
+
+    @Test
+    public void shouldFindExifBySubMarker() throws Exception {
+        byte[] data = (JpegMetaDef.EXIF_ID + "II*").getBytes("UTF-8");
+        JpgSegmentPluginFactory found = JpgSegmentPluginFactory.find(JpegSegmentMarker.JPG_SEGMENT_EXIF_XMP_APP1, data);
+        Assert.assertNotNull(found);
+        Assert.assertEquals(MetadataType.EXIF, found.getMetadataType());
+    }
+
+    @Test
+    public void shouldReportCreateError() throws Exception {
+        JpgSegmentPluginFactory broken = JpgSegmentPluginFactory.register(MetadataType.COMMENT, JpegSegmentMarker.APP7,
+                "Broken\0", JpegCommentSegmentPlugin.class, new IMetadataFactory() {
+                    @Override
+                    public IMetadata create(byte[] data, int offset, int length) {
+                        throw new IllegalArgumentException("corrupt segment");
+                    }
+                });
+        try {
+            byte[] data = "Broken\0payload".getBytes("UTF-8");
+            Assert.assertSame(broken, JpgSegmentPluginFactory.find(JpegSegmentMarker.APP7, data));
+
+            JpgSegmentPluginFactory.CreateResult result = broken.tryCreate(data, 0, data.length);
+            Assert.assertFalse(result.isSuccess());
+            Assert.assertNull(result.getMetadata());
+            Assert.assertEquals("corrupt segment", result.getError().getMessage());
+            Assert.assertNull(broken.create(data, 0, data.length));
+        } finally {
+            // the registry is global: do not leak the broken factory into other tests
+            JpgSegmentPluginFactory.unregister(broken);
+        }
+        Assert.assertNull(JpgSegmentPluginFactory.find(JpegSegmentMarker.APP7, "Broken\0payload".getBytes("UTF-8")));
+    }
+
     /*
     private static final MetadataType[] allExampleMetaDefs = new MetadataType[]{
             MetadataType.COMMENT,
@@ -0,0 +1,59 @@
+package pixy.fileprocessor.jpg;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import pixy.api.IFieldValue;
+import pixy.api.INumericFieldValue;
+import pixy.meta.exif.ExifImageTag;
+import pixy.meta.exif.ExifSubTag;
+
+/**
+ * Verifies that {@link JpgTagExtractor} stops reading when all tags are found.
+ */
+public class JpgTagExtractorTests {
+	@BeforeClass
+	public static void initDirectories() {
+		JpegMetaDef.register();
+	}
+
+	/** jpeg header with an exif containing orientation=6 followed by a comment segment */
+	private static byte[] createJpeg() throws IOException {
+		return new JpegTestFiles().exif(JpegTestFiles.TIFF_ORIENTATION_6).comment("a comment").toByteArray();
+	}
+
+	@Test
+	public void shouldStopWhenAllTagsAreFound() throws IOException {
+		ByteArrayInputStream in = new ByteArrayInputStream(createJpeg());
+		IFieldValue[] values = JpgTagExtractor.extract(in, ExifImageTag.ORIENTATION);
+
+		Assert.assertEquals(1, values.length);
+		Assert.assertEquals(6, ((INumericFieldValue) values[0]).getInt(0));
+		// the comment segment has not been read
+		Assert.assertTrue(in.available() > JpegTestFiles.IMAGE_DATA.length);
+	}
+
+	@Test
+	public void shouldReturnNullForMissingTagsInRequestOrder() throws IOException {
+		ByteArrayInputStream in = new ByteArrayInputStream(createJpeg());
+		IFieldValue[] values = JpgTagExtractor.extract(in, ExifSubTag.DATE_TIME_ORIGINAL, ExifImageTag.ORIENTATION);
+
+		Assert.assertNull(values[0]);
+		Assert.assertEquals(6, ((INumericFieldValue) values[1]).getInt(0));
+		Assert.assertEquals(JpegTestFiles.IMAGE_DATA.length, in.available());
+	}
+
+	@Test
+	public void shouldContinueAfterCorruptExifSegment() throws IOException {
+		byte[] corrupt = {'X', 'X', 0, 0x2a, 0, 0, 0, 8};
+		ByteArrayInputStream in = new ByteArrayInputStream(new JpegTestFiles().exif(corrupt)
+				.exif(JpegTestFiles.TIFF_ORIENTATION_6).toByteArray());
+		IFieldValue[] values = JpgTagExtractor.extract(in, ExifImageTag.ORIENTATION);
+
+		Assert.assertEquals(6, ((INumericFieldValue) values[0]).getInt(0));
+	}
+}
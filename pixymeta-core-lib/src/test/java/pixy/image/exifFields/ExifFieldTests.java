@@ -0,0 +1,69 @@
+package pixy.image.exifFields;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import pixy.api.INumericFieldValue;
+import pixy.meta.exif.ExifCompositeTag;
+import pixy.meta.exif.ExifImageTag;
+import pixy.meta.exif.GPSTag;
+
+/**
+ * Verifies the typed accessors of {@link ExifField}.
+ */
+public class ExifFieldTests {
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void shouldReadUnsignedAndSigned() {
+		AbstractNumericField<?> unsigned = new ShortField(ExifImageTag.BITS_PER_SAMPLE, new short[]{8, (short) 0xfffe});
+		Assert.assertEquals(2, unsigned.getCount());
+		Assert.assertEquals(0xfffe, unsigned.getInt(1));
+
+		AbstractNumericField<?> signed = new SShortField(ExifImageTag.BITS_PER_SAMPLE, new short[]{(short) 0xfffe});
+		Assert.assertEquals(-2, signed.getInt(0));
+
+		AbstractNumericField<?> longField = new LongField(ExifImageTag.IMAGE_WIDTH, new int[]{-1});
+		Assert.assertEquals(-1, longField.getInt(0));
+		Assert.assertEquals(0xffffffffL, longField.getLong(0));
+
+		Assert.assertEquals(0xff, new ByteField(ExifImageTag.IMAGE_WIDTH, new byte[]{-1}).getInt(0));
+		Assert.assertEquals(-1, new SByteField(ExifImageTag.IMAGE_WIDTH, new byte[]{-1}).getInt(0));
+	}
+
+	@Test
+	public void shouldReadRationals() {
+		AbstractNumericField<?> rational = new RationalField(ExifImageTag.X_RESOLUTION, new int[]{72, 1, 3, 2});
+		Assert.assertEquals(2, rational.getCount());
+		Assert.assertEquals(3, rational.getNumerator(1));
+		Assert.assertEquals(2, rational.getDenominator(1));
+		Assert.assertEquals(1.5, rational.getDouble(1), DELTA);
+		Assert.assertEquals(1, rational.getInt(1));
+
+		AbstractNumericField<?> signed = new SRationalField(ExifImageTag.X_RESOLUTION, new int[]{-3, 2});
+		Assert.assertEquals(-3, signed.getNumerator(0));
+		Assert.assertEquals(-1.5, signed.getDouble(0), DELTA);
+	}
+
+	@Test
+	public void shouldReadFloatingPoint() {
+		Assert.assertEquals(2.5, new DoubleField(ExifImageTag.IMAGE_WIDTH, new double[]{2.5}).getDouble(0), DELTA);
+		Assert.assertEquals(2, new FloatField(ExifImageTag.IMAGE_WIDTH, new float[]{2.5f}).getInt(0));
+	}
+
+	@Test
+	public void shouldCalculateGpsLatitude() {
+		IFD gps = new IFD();
+		gps.addField(new RationalField(GPSTag.GPS_LATITUDE, new int[]{50, 1, 30, 1, 36, 1}));
+		gps.addField(new ASCIIField(GPSTag.GPS_LATITUDE_REF, "S"));
+
+		DoubleField latitude = (DoubleField) ExifCompositeTag.GPS_LATITUDE_EX.createVirtualField(gps);
+		Assert.assertEquals(-50.51, latitude.getDouble(0), DELTA);
+	}
+
+	@Test
+	public void shouldNotTreatTextAsNumber() {
+		ExifField<?> text = new ASCIIField(ExifImageTag.SOFTWARE, "1234");
+		Assert.assertFalse(text instanceof INumericFieldValue);
+	}
+}
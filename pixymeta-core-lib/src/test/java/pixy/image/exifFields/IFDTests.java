@@ -0,0 +1,64 @@
+package pixy.image.exifFields;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pixy.api.IFieldValue;
+import pixy.api.INumericFieldValue;
+import pixy.meta.exif.ExifCompositeTag;
+import pixy.meta.exif.ExifImageTag;
+import pixy.meta.exif.GPSTag;
+import pixy.meta.exif.InteropTag;
+
+/**
+ * Verifies the sorted field array of {@link IFD}.
+ */
+public class IFDTests {
+	@Test
+	public void shouldKeepFieldsSortedByUnsignedTagId() {
+		IFD ifd = new IFD();
+		ifd.addField(new LongField(ExifImageTag.GPS_SUB_IFD, new int[]{0}));
+		ifd.addField(new ShortField(ExifImageTag.ORIENTATION, new short[]{1}));
+		ifd.addField(new LongField(ExifImageTag.IMAGE_WIDTH, new int[]{100}));
+		ifd.addField(new LongField(ExifImageTag.IMAGE_WIDTH, new int[]{200}));
+
+		List<Short> tags = new ArrayList<Short>();
+		for (ExifField<?> field : ifd.getFields()) {
+			tags.add(field.getTag());
+		}
+		Assert.assertEquals("[256, 274, -30683]", tags.toString());
+		Assert.assertEquals(200, ((LongField) ifd.getField(ExifImageTag.IMAGE_WIDTH)).getInt(0));
+
+		Assert.assertNotNull(ifd.removeField(ExifImageTag.ORIENTATION));
+		Assert.assertNull(ifd.getField(ExifImageTag.ORIENTATION));
+		Assert.assertEquals(2, ifd.getSize());
+	}
+
+	@Test
+	public void shouldNotFindTagOfOtherDirectoryWithSameId() {
+		IFD ifd = new IFD();
+		ifd.addField(new ASCIIField(GPSTag.GPS_LATITUDE_REF, "N"));
+
+		Assert.assertNotNull(ifd.getField(GPSTag.GPS_LATITUDE_REF));
+		Assert.assertNull(ifd.getField(InteropTag.INTEROPERABILITY_INDEX));
+	}
+
+	@Test
+	public void shouldCalculateCompositeValuesOnDemand() {
+		IFD gps = new IFD();
+		gps.addField(new RationalField(GPSTag.GPS_LATITUDE, new int[]{50, 1, 30, 1, 0, 1}));
+		gps.addField(new ASCIIField(GPSTag.GPS_LATITUDE_REF, "N"));
+
+		Assert.assertEquals(2, gps.getSize());
+		Assert.assertEquals(3, gps.getValues().size());
+		Assert.assertEquals(50.5, ((INumericFieldValue) gps.getValue(ExifCompositeTag.GPS_LATITUDE_EX)).getDouble(0), 1e-9);
+
+		gps.removeField(GPSTag.GPS_LATITUDE);
+		for (IFieldValue value : gps.getValues()) {
+			Assert.assertNotSame(ExifCompositeTag.GPS_LATITUDE_EX, value.getDefinition());
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package pixy.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+/**
+ * Verifies that all RandomAccessInputStream implementations behave the same.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class RandomAccessInputStreamTests {
+	private static final int DATA_LENGTH = 10000;
+	private static final MemoryCacheRandomAccessInputStream.BlockPool POOL = new MemoryCacheRandomAccessInputStream.BlockPool(1024, 4);
+
+	private static byte[] createData() {
+		byte[] data = new byte[DATA_LENGTH];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private static File createFile(byte[] data) throws IOException {
+		File file = File.createTempFile("pixy-RAIST-", ".tmp");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	// used by JUnitParamsRunner
+	private Object[] getImplementations() {
+		return new Object[]{
+				"FileCache",
+				"FileCacheSmallPages",
+				"FileCacheNoPages",
+				"MemoryCache",
+				"MemoryCacheSmallBlocks",
+				"MemoryCachePooled",
+				"ByteArray",
+				"MappedFile",
+				"FactoryMapped",
+				"FactoryHybridInMemory",
+				"FactoryHybridSpilled"
+		};
+	}
+
+	protected RandomAccessInputStream createStream(String implementation, byte[] data) throws IOException {
+		if ("FileCache".equals(implementation)) return new FileCacheRandomAccessInputStream(new ByteArrayInputStream(data));
+		if ("FileCacheSmallPages".equals(implementation)) return new FileCacheRandomAccessInputStream(new ByteArrayInputStream(data), 7, 16, 2);
+		if ("FileCacheNoPages".equals(implementation)) return new FileCacheRandomAccessInputStream(new ByteArrayInputStream(data), 4096, 4096, 0);
+		if ("MemoryCache".equals(implementation)) return new MemoryCacheRandomAccessInputStream(new ByteArrayInputStream(data));
+		if ("MemoryCacheSmallBlocks".equals(implementation)) return new MemoryCacheRandomAccessInputStream(new ByteArrayInputStream(data), 16);
+		if ("MemoryCachePooled".equals(implementation)) return new MemoryCacheRandomAccessInputStream(new ByteArrayInputStream(data), POOL);
+		if ("ByteArray".equals(implementation)) return new ByteArrayRandomAccessInputStream(data);
+		if ("MappedFile".equals(implementation)) return new MappedFileRandomAccessInputStream(createFile(data));
+		if ("FactoryMapped".equals(implementation)) return RandomAccessStreamFactory.MAPPED.createInputStream(new ByteArrayInputStream(data));
+		if ("FactoryHybridInMemory".equals(implementation)) return RandomAccessStreamFactory.hybrid(data.length).createInputStream(new ByteArrayInputStream(data));
+		if ("FactoryHybridSpilled".equals(implementation)) return RandomAccessStreamFactory.hybrid(data.length / 2).createInputStream(new ByteArrayInputStream(data));
+		throw new IllegalArgumentException(implementation);
+	}
+
+	@Test
+	@Parameters(method = "getImplementations")
+	public void shouldReadAfterSeek(String implementation) throws IOException {
+		byte[] data = createData();
+		RandomAccessInputStream in = createStream(implementation, data);
+		try {
+			in.seek(5000);
+			Assert.assertEquals(data[5000] & 0xff, in.read());
+			Assert.assertEquals(5001, in.getStreamPointer());
+
+			in.seek(10);
+			byte[] buf = new byte[8000];
+			in.readFully(buf);
+			Assert.assertEquals(data[10], buf[0]);
+			Assert.assertEquals(data[8009], buf[7999]);
+			Assert.assertEquals(8010, in.getStreamPointer());
+		} finally {
+			in.shallowClose();
+		}
+	}
+
+	@Test
+	@Parameters(method = "getImplementations")
+	public void shouldReadSequentially(String implementation) throws IOException {
+		byte[] data = createData();
+		RandomAccessInputStream in = createStream(implementation, data);
+		try {
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals("read " + i, data[i] & 0xff, in.read());
+			}
+			in.seek(3);
+			byte[] buf = new byte[200];
+			in.readFully(buf);
+			for (int i = 0; i < buf.length; i++) {
+				Assert.assertEquals("readFully " + i, data[i + 3], buf[i]);
+			}
+		} finally {
+			in.shallowClose();
+		}
+	}
+
+	@Test
+	@Parameters(method = "getImplementations")
+	public void shouldReadEndian(String implementation) throws IOException {
+		RandomAccessInputStream in = createStream(implementation, new byte[]{1, 2, 3, 4});
+		try {
+			Assert.assertEquals(0x01020304, in.readInt());
+			in.seek(0);
+			in.setReadStrategy(ReadStrategyII.getInstance());
+			Assert.assertEquals(0x04030201, in.readInt());
+			in.seek(2);
+			Assert.assertEquals(0x0403, in.readShort());
+		} finally {
+			in.shallowClose();
+		}
+	}
+
+	@Test
+	@Parameters(method = "getImplementations")
+	public void shouldReturnEndOfStream(String implementation) throws IOException {
+		RandomAccessInputStream in = createStream(implementation, createData());
+		try {
+			in.seek(DATA_LENGTH - 1);
+			Assert.assertTrue(in.read() >= 0);
+			Assert.assertEquals(-1, in.read());
+			Assert.assertEquals(-1, in.read(new byte[10], 0, 10));
+		} finally {
+			in.shallowClose();
+		}
+	}
+
+	@Test
+	@Parameters(method = "getImplementations")
+	public void shouldReadNumbersAcrossBlocks(String implementation) throws IOException {
+		byte[] data = createData();
+		RandomAccessInputStream in = createStream(implementation, data);
+		try {
+			for (int pos = 4090; pos < 4100; pos++) {
+				in.seek(pos);
+				Assert.assertEquals("int at " + pos, IOUtils.readIntMM(data, pos), in.readInt());
+				in.seek(pos);
+				Assert.assertEquals("short at " + pos, IOUtils.readShortMM(data, pos), in.readShort());
+			}
+		} finally {
+			in.shallowClose();
+		}
+	}
+}
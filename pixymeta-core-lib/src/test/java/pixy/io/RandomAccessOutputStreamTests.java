@@ -0,0 +1,60 @@
+package pixy.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+/**
+ * Verifies that all RandomAccessOutputStream implementations created by
+ * {@link RandomAccessStreamFactory} behave the same.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class RandomAccessOutputStreamTests {
+	private static final int DATA_LENGTH = 10000;
+
+	// used by JUnitParamsRunner
+	private Object[] getFactories() {
+		return new Object[]{
+				RandomAccessStreamFactory.FILE,
+				RandomAccessStreamFactory.MEMORY,
+				RandomAccessStreamFactory.MAPPED,
+				RandomAccessStreamFactory.hybrid(DATA_LENGTH * 2),
+				RandomAccessStreamFactory.hybrid(DATA_LENGTH / 3),
+				RandomAccessStreamFactory.hybrid(0)
+		};
+	}
+
+	@Test
+	@Parameters(method = "getFactories")
+	public void shouldWriteAfterSeek(RandomAccessStreamFactory factory) throws IOException {
+		ByteArrayOutputStream dist = new ByteArrayOutputStream();
+		RandomAccessOutputStream out = factory.createOutputStream(dist);
+		try {
+			for (int i = 0; i < DATA_LENGTH; i++) {
+				out.write(i);
+			}
+			// overwrite a range that crosses the hybrid threshold
+			out.seek(DATA_LENGTH / 3 - 2);
+			out.writeInt(0x01020304);
+			Assert.assertEquals(DATA_LENGTH, out.getLength());
+
+			out.seek(0);
+			out.writeToStream(out.getLength());
+		} finally {
+			out.shallowClose();
+		}
+
+		byte[] result = dist.toByteArray();
+		Assert.assertEquals(DATA_LENGTH, result.length);
+		Assert.assertEquals((byte) 5, result[5]);
+		Assert.assertEquals((byte) 1, result[DATA_LENGTH / 3 - 2]);
+		Assert.assertEquals((byte) 4, result[DATA_LENGTH / 3 + 1]);
+		Assert.assertEquals((byte) (DATA_LENGTH - 1), result[DATA_LENGTH - 1]);
+	}
+}
@@ -0,0 +1,121 @@
+package pixy.meta.exif;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import pixy.image.exifFields.ExifField;
+import pixy.image.exifFields.IFD;
+import pixy.io.ByteArrayRandomAccessInputStream;
+import pixy.io.FileCacheRandomAccessInputStream;
+import pixy.io.RandomAccessInputStream;
+
+/**
+ * Verifies that fields read from an in memory exif buffer are decoded on demand
+ * to the same values as fields read eagerly from other streams.
+ */
+public class IfdMetaUtilsTests {
+	/** big endian tiff with one IFD: BitsPerSample SHORT[3], XResolution RATIONAL, 0x9999 UNDEFINED[6] */
+	private static byte[] createTiff() {
+		return new byte[]{
+				'M', 'M', 0, 0x2a, 0, 0, 0, 8,
+				0, 3,
+				0x01, 0x02, 0, 3, 0, 0, 0, 3, 0, 0, 0, 50,
+				0x01, 0x1a, 0, 5, 0, 0, 0, 1, 0, 0, 0, 56,
+				(byte) 0x99, (byte) 0x99, 0, 7, 0, 0, 0, 6, 0, 0, 0, 64,
+				0, 0, 0, 0,
+				0, 8, 0, 8, 0, 8,
+				0, 0, 0, 72, 0, 0, 0, 1,
+				1, 2, 3, 4, 5, 6
+		};
+	}
+
+	private static IFD readIFD(RandomAccessInputStream rin) throws IOException {
+		List<IFD> ifds = new ArrayList<IFD>();
+		try {
+			IfdMetaUtils.readIFDs(ifds, rin);
+		} finally {
+			rin.shallowClose();
+		}
+		Assert.assertEquals(1, ifds.size());
+		return ifds.get(0);
+	}
+
+	private static ExifField<?> getField(IFD ifd, short tag) {
+		for (ExifField<?> field : ifd.getFields()) {
+			if (field.getTag() == tag) return field;
+		}
+		return null;
+	}
+
+	@Test
+	public void shouldDecodeOnDemand() throws IOException {
+		IFD ifd = readIFD(new ByteArrayRandomAccessInputStream(createTiff()));
+		ExifField<?> bitsPerSample = ifd.getField(ExifImageTag.BITS_PER_SAMPLE);
+
+		Assert.assertFalse(bitsPerSample.isDecoded());
+		Assert.assertArrayEquals(new int[]{8, 8, 8}, bitsPerSample.getDataAsLong());
+		Assert.assertTrue(bitsPerSample.isDecoded());
+		Assert.assertArrayEquals(new int[]{72, 1}, ifd.getField(ExifImageTag.X_RESOLUTION).getDataAsLong());
+		Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, (byte[]) getField(ifd, (short) 0x9999).getData());
+	}
+
+	@Test
+	public void shouldDecodeLikeEagerReading() throws IOException {
+		IFD lazy = readIFD(new ByteArrayRandomAccessInputStream(createTiff()));
+		IFD eager = readIFD(new FileCacheRandomAccessInputStream(new ByteArrayInputStream(createTiff())));
+
+		Assert.assertEquals(eager.getFields().size(), lazy.getFields().size());
+		for (ExifField<?> field : eager.getFields()) {
+			Assert.assertTrue(field.isDecoded());
+			Assert.assertEquals(field.getDataAsString(), getField(lazy, field.getTag()).getDataAsString());
+		}
+	}
+
+	@Test
+	public void shouldKeepMalformedSubIfdPointers() throws IOException {
+		byte[] tiff = {
+				'M', 'M', 0, 0x2a, 0, 0, 0, 8,
+				0, 2,
+				(byte) 0x87, 0x69, 0, 1, 0, 0, 0, 1, 8, 0, 0, 0, // exif sub IFD pointer of type BYTE
+				(byte) 0x88, 0x25, 0, 4, 0, 0, 0, 0, 0, 0, 0, 0, // gps sub IFD pointer without value
+				0, 0, 0, 0
+		};
+		IFD lazy = readIFD(new ByteArrayRandomAccessInputStream(tiff));
+		IFD eager = readIFD(new FileCacheRandomAccessInputStream(new ByteArrayInputStream(tiff)));
+
+		for (IFD ifd : new IFD[]{lazy, eager}) {
+			Assert.assertNotNull(ifd.getField(ExifImageTag.EXIF_SUB_IFD));
+			Assert.assertNotNull(ifd.getField(ExifImageTag.GPS_SUB_IFD));
+			Assert.assertTrue(ifd.getChildren().isEmpty());
+		}
+	}
+
+	@Test
+	public void shouldDecodeForConcurrentReaders() throws Exception {
+		final ExifField<?> bitsPerSample = readIFD(new ByteArrayRandomAccessInputStream(createTiff())).getField(ExifImageTag.BITS_PER_SAMPLE);
+		final Object[] results = new Object[8];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					results[index] = bitsPerSample.getData();
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (Object result : results) {
+			Assert.assertArrayEquals(new short[]{8, 8, 8}, (short[]) result);
+		}
+		Assert.assertTrue(bitsPerSample.isDecoded());
+	}
+}
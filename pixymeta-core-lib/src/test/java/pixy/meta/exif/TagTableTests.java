@@ -0,0 +1,59 @@
+package pixy.meta.exif;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import pixy.api.IDataType;
+import pixy.image.exifFields.FieldType;
+
+/**
+ * Verifies that {@link TagTable} finds every tag of the exif tag enums.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class TagTableTests {
+	// used by JUnitParamsRunner
+	private Object[] getTagClasses() {
+		return new Object[]{ExifImageTag.class, ExifSubTag.class, GPSTag.class, InteropTag.class};
+	}
+
+	@Test
+	@Parameters(method = "getTagClasses")
+	public void shouldFindAllTags(Class<? extends Tag> tagClass) {
+		TagTable table = TagTable.of(tagClass);
+		for (Tag tag : tagClass.getEnumConstants()) {
+			Assert.assertSame(tag.getName(), tag, table.fromShort(tag.getValue()));
+		}
+	}
+
+	@Test
+	public void shouldReturnUnknownForMissingTag() {
+		Assert.assertSame(ExifImageTag.UNKNOWN, GPSTag.fromShort((short) 0x7777));
+		Assert.assertSame(ExifImageTag.UNKNOWN, ExifSubTag.fromShort((short) 0xfffe));
+	}
+
+	@Test
+	public void shouldFindTagsOfOtherEnums() {
+		TagTable table = TagTable.of(OtherTag.class);
+		Assert.assertSame(OtherTag.B, table.fromShort((short) 0x8001));
+		Assert.assertSame(table, TagTable.of(OtherTag.class));
+	}
+
+	private enum OtherTag implements Tag {
+		A((short) 0x0001), B((short) 0x8001);
+
+		private final short value;
+
+		OtherTag(short value) {
+			this.value = value;
+		}
+
+		@Override public String getFieldAsString(Object value) { return ""; }
+		@Override public FieldType getFieldType() { return FieldType.SHORT; }
+		@Override public String getName() { return name(); }
+		@Override public short getValue() { return value; }
+		@Override public IDataType getDataType() { return null; }
+	}
+}
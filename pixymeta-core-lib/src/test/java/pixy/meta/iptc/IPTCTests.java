@@ -0,0 +1,51 @@
+package pixy.meta.iptc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Verifies parsing of IPTC blocks that are part of a larger buffer.
+ */
+public class IPTCTests {
+	private static byte[] createIptc(int prefixLength, int keywordCount) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		bout.write(new byte[prefixLength]);
+		new IPTCFieldValue(IPTCApplicationTag.OBJECT_NAME, "title").write(bout);
+		for (int i = 0; i < keywordCount; i++) {
+			new IPTCFieldValue(IPTCApplicationTag.KEY_WORDS, "keyword" + i).write(bout);
+		}
+		return bout.toByteArray();
+	}
+
+	@Test
+	public void shouldReadFromSlice() throws IOException {
+		byte[] data = createIptc(7, 3);
+		IPTC iptc = new IPTC(data, 7, data.length - 7);
+
+		Assert.assertEquals("title", iptc.getAsString("ObjectName"));
+		Assert.assertEquals("keyword0;keyword1;keyword2", iptc.getAsString("Keywords"));
+	}
+
+	@Test
+	public void shouldIgnoreTruncatedDataset() throws IOException {
+		byte[] data = createIptc(0, 2);
+		// cut the last keyword in the middle
+		IPTC iptc = new IPTC(data, 0, data.length - 3);
+
+		Assert.assertEquals("keyword0", iptc.getAsString("Keywords"));
+	}
+
+	@Test
+	public void shouldCompareValuesByContent() throws IOException {
+		byte[] data = createIptc(3, 1);
+		IPTC iptc = new IPTC(data, 3, data.length - 3);
+		IPTCFieldValue fromBlock = iptc.getValue("Keywords").get(0);
+		IPTCFieldValue standalone = new IPTCFieldValue(IPTCApplicationTag.KEY_WORDS, "keyword0");
+
+		Assert.assertEquals(standalone, fromBlock);
+		Assert.assertEquals(standalone.hashCode(), fromBlock.hashCode());
+	}
+}
@@ -0,0 +1,153 @@
+package pixy.meta.jpeg;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import pixy.api.IFieldValue;
+import pixy.fileprocessor.jpg.JpegMetaDef;
+import pixy.fileprocessor.jpg.JpgFileProcessor;
+import pixy.image.jpeg.JpegSegmentMarker;
+import pixy.io.IOUtils;
+import pixy.meta.xmp.XmpTag;
+
+/**
+ * Verifies that {@link JpegXMP} only parses the xml when it is needed and
+ * that xmp that is too big for one segment is written and read as ExtendedXMP.
+ */
+public class JpegXMPTests {
+	@BeforeClass
+	public static void initDirectories() {
+		JpegMetaDef.register();
+	}
+
+	private static final String XML = "<?xpacket begin='' id='W5M0MpCehiHzreSzNTczkc9d'?>"
+			+ "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+			+ "<rdf:Description xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmp:Rating='3'/>"
+			+ "</rdf:RDF></x:xmpmeta><?xpacket end='r'?>";
+
+	/** 4 bytes marker and length in front of the xmp segment */
+	private static final int SEGMENT_HEADER_LENGTH = 4 + JpegMetaDef.XMP_ID.length();
+
+	@Test
+	public void shouldWriteUnchangedPacketWithoutParsing() throws IOException {
+		byte[] packet = ("garbage" + XML).getBytes("UTF-8");
+		JpegXMP xmp = new JpegXMP(packet, 7, packet.length - 7);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		xmp.write(out);
+		byte[] written = out.toByteArray();
+
+		Assert.assertEquals(XML, new String(written, SEGMENT_HEADER_LENGTH, written.length - SEGMENT_HEADER_LENGTH, "UTF-8"));
+		Assert.assertFalse(xmp.isDataRead());
+		Assert.assertTrue(Arrays.equals(XML.getBytes("UTF-8"), xmp.getData()));
+	}
+
+	@Test
+	public void shouldParseOnDemand() throws IOException {
+		byte[] packet = XML.getBytes("UTF-8");
+		JpegXMP xmp = new JpegXMP(packet);
+
+		Assert.assertNotNull(xmp.getXmpDocument());
+		Assert.assertTrue(xmp.isDataRead());
+		Assert.assertTrue(new String(xmp.getData(), "UTF-8").contains("xmp:Rating=\"3\""));
+	}
+
+	/** xmp with more than 64k keywords in its second rdf:Description */
+	private static String createBigXml(int keywordCount) {
+		StringBuilder xml = new StringBuilder("<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+				+ "<rdf:Description xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmp:Rating='3'/>"
+				+ "<rdf:Description xmlns:lr='http://ns.adobe.com/lightroom/1.0/'><lr:hierarchicalSubject><rdf:Bag>");
+		for (int i = 0; i < keywordCount; i++) {
+			xml.append("<rdf:li>keyword|").append(i).append("</rdf:li>");
+		}
+		return xml.append("</rdf:Bag></lr:hierarchicalSubject></rdf:Description></rdf:RDF></x:xmpmeta>").toString();
+	}
+
+	/** @return the segments written by xmp with the ExtendedXMP chunks in reverse order */
+	private static byte[] createJpegWithReversedChunks(JpegXMP xmp) throws IOException {
+		ByteArrayOutputStream segments = new ByteArrayOutputStream();
+		xmp.write(segments);
+		byte[] data = segments.toByteArray();
+
+		List<byte[]> chunks = new ArrayList<byte[]>();
+		int offset = 0;
+		while (offset < data.length) {
+			int length = 2 + IOUtils.readUnsignedShortMM(data, offset + 2);
+			chunks.add(Arrays.copyOfRange(data, offset, offset + length));
+			offset += length;
+		}
+		Collections.reverse(chunks.subList(1, chunks.size()));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		IOUtils.writeShortMM(out, JpegSegmentMarker.JPG_SEGMENT_START_OF_IMAGE_SOI.getValue());
+		for (byte[] chunk : chunks) {
+			out.write(chunk);
+		}
+		IOUtils.writeShortMM(out, JpegSegmentMarker.SOS.getValue());
+		return out.toByteArray();
+	}
+
+	@Test
+	public void shouldSplitAndReassembleExtendedXmp() throws IOException {
+		JpegXMP xmp = new JpegXMP(createBigXml(10000));
+		JpgFileProcessor processor = new JpgFileProcessor(new ByteArrayInputStream(createJpegWithReversedChunks(xmp)))
+				.setVerifyExtendedXmpChecksum(true);
+		processor.load();
+
+		Assert.assertEquals("3", processor.getValue(XmpTag.Xmp_Rating).getValueAsString());
+		IFieldValue keywords = processor.getValue(XmpTag.Lr_HierarchicalSubject);
+		Assert.assertNotNull(keywords);
+		Assert.assertTrue(keywords.getValueAsString().endsWith(";keyword|9999"));
+		Assert.assertNull("guid must be removed after merging", processor.getValue(XmpTag.Note_HasExtendedXMP));
+	}
+
+	@Test
+	public void shouldAddOnlyMatchingChunks() throws IOException {
+		byte[] content = "<x:xmpmeta/>".getBytes("UTF-8");
+		String guid = "0123456789ABCDEF0123456789ABCDEF";
+		ExtendedXmpBuffer buffer = new ExtendedXmpBuffer(guid);
+
+		Assert.assertFalse(buffer.add(createChunk("FEDCBA9876543210FEDCBA9876543210", content, 4, 4), 0, 4 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+		Assert.assertTrue(buffer.add(createChunk(guid, content, 4, 8), 0, 4 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+		Assert.assertFalse(buffer.isComplete());
+		Assert.assertTrue(buffer.add(createChunk(guid, content, 0, 4), 0, 4 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+		Assert.assertTrue(buffer.add(createChunk(guid, content, 8, 4), 0, 4 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+
+		Assert.assertTrue(buffer.isComplete());
+		Assert.assertTrue(Arrays.equals(content, buffer.getData()));
+		Assert.assertFalse(buffer.isChecksumValid());
+	}
+
+	@Test
+	public void shouldNotBeCompleteWithOverlappingChunks() throws IOException {
+		byte[] content = "<x:xmpmeta/>".getBytes("UTF-8");
+		String guid = "0123456789ABCDEF0123456789ABCDEF";
+		ExtendedXmpBuffer buffer = new ExtendedXmpBuffer(guid);
+
+		Assert.assertTrue(buffer.add(createChunk(guid, content, 0, 6), 0, 6 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+		Assert.assertTrue(buffer.add(createChunk(guid, content, 2, 6), 0, 6 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+		Assert.assertFalse("repeated chunk", buffer.add(createChunk(guid, content, 0, 6), 0, 6 + ExtendedXmpBuffer.CHUNK_HEADER_LEN));
+
+		// 12 bytes added but bytes 8..11 are missing
+		Assert.assertEquals(8, buffer.getReceivedLength());
+		Assert.assertFalse(buffer.isComplete());
+	}
+
+	private static byte[] createChunk(String guid, byte[] content, int offset, int length) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(guid.getBytes("UTF-8"));
+		IOUtils.writeIntMM(out, content.length);
+		IOUtils.writeIntMM(out, offset);
+		out.write(content, offset, length);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,67 @@
+package pixy.meta.xmp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import pixy.api.IFieldValue;
+import pixy.meta.jpeg.JpegXMP;
+
+/**
+ * Verifies that {@link XmpPropertyExtractor} understands the different rdf forms of a property.
+ */
+public class XmpPropertyExtractorTests {
+	private static final String XML = "<x:xmpmeta xmlns:x='adobe:ns:meta/'>"
+			+ "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+			+ "<rdf:Description xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmp:Rating='3'/>"
+			+ "<rdf:Description xmlns:d='http://purl.org/dc/elements/1.1/'"
+			+ " xmlns:photoshop='http://ns.adobe.com/photoshop/1.0/'>"
+			+ "<photoshop:DateCreated>2016-07-12T10:11:12</photoshop:DateCreated>"
+			+ "<d:subject><rdf:Bag><rdf:li>tree</rdf:li><rdf:li>sea</rdf:li></rdf:Bag></d:subject>"
+			+ "<d:title><rdf:Alt><rdf:li xml:lang='x-default'>title</rdf:li><rdf:li xml:lang='de'>Titel</rdf:li></rdf:Alt></d:title>"
+			+ "</rdf:Description>"
+			+ "</rdf:RDF></x:xmpmeta>";
+
+	private static String getValue(IFieldValue value) {
+		return (value == null) ? null : value.getValueAsString();
+	}
+
+	@Test
+	public void shouldExtractRequestedTags() throws IOException {
+		IFieldValue[] values = XmpPropertyExtractor.extract(XML.getBytes("UTF-8"),
+				XmpTag.Dc_Subject, XmpTag.Xmp_Rating, XmpTag.Dc_Title, XmpTag.Photoshop_DateCreated, XmpTag.Dc_Creator);
+
+		// namespace prefix "d" instead of "dc" must not matter
+		Assert.assertEquals("tree;sea", getValue(values[0]));
+		Assert.assertEquals("3", getValue(values[1]));
+		Assert.assertEquals("title", getValue(values[2]));
+		Assert.assertEquals("2016-07-12T10:11:12", getValue(values[3]));
+		Assert.assertNull(values[4]);
+	}
+
+	@Test
+	public void shouldGetValueWithoutDocument() throws IOException {
+		XMP xmp = new JpegXMP(XML.getBytes("UTF-8"));
+
+		Assert.assertEquals("2016-07-12T10:11:12", getValue(xmp.getValue(XmpTag.Photoshop_DateCreated)));
+		Assert.assertFalse(xmp.isDataRead());
+	}
+
+	@Test
+	public void shouldGetSameValueFromPacketAndDocument() throws IOException {
+		XMP xmp = new JpegXMP(XML.getBytes("UTF-8"));
+		XmpTag[] tags = {XmpTag.Dc_Subject, XmpTag.Dc_Title, XmpTag.Xmp_Rating, XmpTag.Photoshop_DateCreated, XmpTag.Dc_Creator};
+
+		String[] fromPacket = new String[tags.length];
+		for (int i = 0; i < tags.length; i++) {
+			fromPacket[i] = getValue(xmp.getValue(tags[i]));
+		}
+
+		Assert.assertNotNull(xmp.getXmpDocument());
+		for (int i = 0; i < tags.length; i++) {
+			Assert.assertEquals(tags[i].toString(), fromPacket[i], getValue(xmp.getValue(tags[i])));
+		}
+		Assert.assertEquals("tree;sea", fromPacket[0]);
+	}
+}
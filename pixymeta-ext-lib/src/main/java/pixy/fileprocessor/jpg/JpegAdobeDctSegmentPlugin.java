@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.jpeg.AdobeSegment;
@@ -10,16 +12,23 @@ import pixy.meta.jpeg.JPEGMeta;
  * Created by k3b on 09.07.2016.
  */
 public class JpegAdobeDctSegmentPlugin extends AdobeSegment {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegAdobeDctSegmentPlugin(JpgSegmentPluginFactory.toByteArray(data, offset, length));
+        }
+    };
 
     static {
         JpgSegmentPluginFactory.register(MetadataType.JPG_ADOBE, JpegSegmentMarker.APP14,
-                JPEGMeta.ADOBE_ID, JpegAdobeDctSegmentPlugin.class);
+                JPEGMeta.ADOBE_ID, JpegAdobeDctSegmentPlugin.class, FACTORY);
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
+    /** Created by {@link #FACTORY} */
     public JpegAdobeDctSegmentPlugin(byte[] data) {
         super(data);
     }
@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.exif.ExifMetaSegment;
@@ -11,16 +13,23 @@ import pixy.meta.jpeg.JPEGMeta;
  * Created by k3b on 09.07.2016.
  */
 public class JpegDuckySegmentPlugin extends DuckySegment {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegDuckySegmentPlugin(JpgSegmentPluginFactory.toByteArray(data, offset, length));
+        }
+    };
 
     static {
         JpgSegmentPluginFactory.register(MetadataType.JPG_DUCKY, JpegSegmentMarker.APP12,
-                JPEGMeta.DUCKY_ID, JpegDuckySegmentPlugin.class);
+                JPEGMeta.DUCKY_ID, JpegDuckySegmentPlugin.class, FACTORY);
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
+    /** Created by {@link #FACTORY} */
     public JpegDuckySegmentPlugin(byte[] data) {
         super(data);
     }
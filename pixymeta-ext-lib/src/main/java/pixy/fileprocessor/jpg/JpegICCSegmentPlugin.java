@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.icc.ICCProfile;
@@ -11,24 +13,41 @@ import pixy.util.ArrayUtils;
  * Created by k3b on 09.07.2016.
  */
 public class JpegICCSegmentPlugin extends ICCProfile {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegICCSegmentPlugin(data, offset, length);
+        }
+    };
+
     static {
         JpgSegmentPluginFactory.register(
                 MetadataType.ICC_PROFILE, JpegSegmentMarker.JPG_SEGMENT_ICC_APP2,
-                JPEGMeta.ICC_PROFILE_ID, JpegICCSegmentPlugin.class)
+                JPEGMeta.ICC_PROFILE_ID, JpegICCSegmentPlugin.class, FACTORY)
         ;
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
     public JpegICCSegmentPlugin(byte[] data) {
         super(ArrayUtils.subArray(data, 2, data.length - 2));
     }
 
+    /** Created by {@link #FACTORY} */
+    public JpegICCSegmentPlugin(byte[] data, int offset, int length) {
+        super(ArrayUtils.subArray(data, offset + 2, length - 2));
+    }
+
     public void merge(byte[] data) {
         super.merge(ArrayUtils.subArray(data, 2, data.length - 2));
     }
 
+    @Override
+    public void merge(byte[] data, int offset, int length) {
+        super.merge(ArrayUtils.subArray(data, offset + 2, length - 2));
+    }
+
 
 }
@@ -1,5 +1,7 @@
 package pixy.fileprocessor.jpg;
 
+import pixy.api.IMetadata;
+import pixy.api.IMetadataFactory;
 import pixy.image.jpeg.JpegSegmentMarker;
 import pixy.meta.MetadataType;
 import pixy.meta.jpeg.JFIFSegment;
@@ -11,17 +13,25 @@ import pixy.util.ArrayUtils;
  * Created by k3b on 09.07.2016.
  */
 public class JpegJFIFSegmentPlugin extends JFIFSegment {
+    /** creates the metadata without reflection */
+    private static final IMetadataFactory FACTORY = new IMetadataFactory() {
+        @Override
+        public IMetadata create(byte[] data, int offset, int length) {
+            return new JpegJFIFSegmentPlugin(JpgSegmentPluginFactory.toByteArray(data, offset, length));
+        }
+    };
+
     static {
 
         JpgSegmentPluginFactory.register(MetadataType.JPG_JFIF, JpegSegmentMarker.JPG_SEGMENT_JFIF_APP0,
-                JPEGMeta.JFIF_ID, JpegJFIFSegmentPlugin.class);
+                JPEGMeta.JFIF_ID, JpegJFIFSegmentPlugin.class, FACTORY);
 
     }
 
     /** make shure that static constructor was called */
     public static void register(){}
 
-    /** Created via reflection by {@link pixy.fileprocessor.jpg.JpgSegmentPluginFactory} */
+    /** Created by {@link #FACTORY} */
     public JpegJFIFSegmentPlugin(byte[] data) {
         super(data);
     }
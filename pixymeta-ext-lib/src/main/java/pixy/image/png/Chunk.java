@@ -30,6 +30,8 @@ public class Chunk implements Comparable<Chunk> {
 	private final ChunkType chunkType;
 	private final byte[] data;
 	private final long crc;	
+	/** crc of chunk value and data. Calculated once on demand: data is never modified */
+	private long calculatedCRC = -1;
 	
 	/**
 	 * Compare different chunks according to their Attribute ranking.
@@ -65,8 +67,19 @@ public class Chunk implements Comparable<Chunk> {
 		return this.crc;
 	}
 	
+	/** @return the 4 type bytes as int */
+	public int getChunkValue() {
+		return chunkType.getValue();
+	}
+	
+	/** @return the crc calculated from chunk value and data */
+	protected long getCalculatedCRC() {
+		if (calculatedCRC == -1) calculatedCRC = calculateCRC(getChunkValue(), data);
+		return calculatedCRC;
+	}
+	
 	public boolean isValidCRC() {
-		return (calculateCRC(chunkType.getValue(), data) == crc);
+		return (getCalculatedCRC() == crc);
 	}
 	
 	public void write(OutputStream os) throws IOException {
@@ -88,14 +101,11 @@ public class Chunk implements Comparable<Chunk> {
 		
 		Chunk other = (Chunk)that;
 		
-		long thisCRC = calculateCRC(this.getChunkType().getValue(), this.getData());
-		long otherCRC = calculateCRC(other.getChunkType().getValue(), other.getData());
-
-		return thisCRC == otherCRC;
+		return this.getCalculatedCRC() == other.getCalculatedCRC();
 	}
 	
 	public int hashCode() {
-		return LangUtils.longToIntHashCode(calculateCRC(this.getChunkType().getValue(), this.getData()));
+		return LangUtils.longToIntHashCode(getCalculatedCRC());
 	}
 	
 	public static long calculateCRC(int chunkValue, byte[] data)
@@ -0,0 +1,61 @@
+package pixy.image.png;
+
+/**
+ * Position, type and crc of a png chunk as found by {@link ChunkWalker}.
+ * The data is only available if the chunk type was requested.
+ */
+public class ChunkDescriptor {
+	private final long offset;
+	private final int length;
+	private final int chunkValue;
+	private final long crc;
+	private final byte[] data;
+
+	public ChunkDescriptor(long offset, int length, int chunkValue, long crc, byte[] data) {
+		this.offset = offset;
+		this.length = length;
+		this.chunkValue = chunkValue;
+		this.crc = crc;
+		this.data = data;
+	}
+
+	/** @return position of the length field of the chunk relative to the start of the stream */
+	public long getOffset() {
+		return offset;
+	}
+
+	/** @return number of data bytes without length, type and crc */
+	public int getLength() {
+		return length;
+	}
+
+	/** @return the 4 type bytes as int. Also valid for unknown chunks */
+	public int getChunkValue() {
+		return chunkValue;
+	}
+
+	public ChunkType getChunkType() {
+		return ChunkType.fromInt(chunkValue);
+	}
+
+	public long getCRC() {
+		return crc;
+	}
+
+	/** @return the data of the chunk or null if it was skipped */
+	public byte[] getData() {
+		return data;
+	}
+
+	/** @return the loaded chunk or null if its data was skipped */
+	public Chunk toChunk() {
+		if (data == null) return null;
+		ChunkType chunkType = getChunkType();
+		if (chunkType == ChunkType.UNKNOWN) return new UnknownChunk(length, chunkValue, data, crc);
+		return new Chunk(chunkType, length, data, crc);
+	}
+
+	@Override public String toString() {
+		return getChunkType() + "@" + offset + "[" + length + "]";
+	}
+}
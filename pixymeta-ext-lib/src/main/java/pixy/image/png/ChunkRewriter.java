@@ -0,0 +1,115 @@
+package pixy.image.png;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import pixy.io.IOUtils;
+
+/**
+ * Copies a png stream chunk by chunk to an output stream in one pass while removing and inserting chunks.
+ * Only the data of text chunks that are checked for removal is held in memory. All other chunks
+ * (i.e. IDAT) are copied with a fixed buffer, so memory use does not depend on the image size.
+ *
+ * New chunks are inserted in front of the first chunk of the input with a higher
+ * {@link ChunkType#getRanking()}: i.e. iCCP before PLTE and IDAT, unknown chunks before IEND.
+ *
+ * Usage: new ChunkRewriter().removeText("XML:com.adobe.xmp").insert(xmpChunk).rewrite(is, os);
+ */
+public class ChunkRewriter {
+	private static final Set<ChunkType> TEXT_TYPES = EnumSet.of(ChunkType.TEXT, ChunkType.ZTXT, ChunkType.ITXT);
+
+	private final List<Chunk> inserted = new ArrayList<Chunk>();
+	private final Set<ChunkType> removedTypes = EnumSet.noneOf(ChunkType.class);
+	private final Set<String> removedKeywords = new HashSet<String>();
+
+	private final byte[] buffer = new byte[8192];
+
+	public ChunkRewriter insert(Chunk... chunks) {
+		Collections.addAll(inserted, chunks);
+		return this;
+	}
+
+	public ChunkRewriter insert(List<Chunk> chunks) {
+		inserted.addAll(chunks);
+		return this;
+	}
+
+	/** all chunks of these types are dropped from the input */
+	public ChunkRewriter remove(ChunkType... types) {
+		removedTypes.addAll(Arrays.asList(types));
+		return this;
+	}
+
+	/** tEXt, zTXt and iTXt chunks with this keyword are dropped from the input */
+	public ChunkRewriter removeText(String keyword) {
+		removedKeywords.add(keyword);
+		return this;
+	}
+
+	public void rewrite(InputStream is, OutputStream os) throws IOException {
+		long signature = IOUtils.readLongMM(is);
+		if (signature != ChunkWalker.SIGNATURE) {
+			throw new IOException("Invalid PNG signature");
+		}
+		IOUtils.writeLongMM(os, signature);
+
+		// stable order of equal rankings: same as PNGMeta.serializeChunks()
+		List<Chunk> pending = new ArrayList<Chunk>(inserted);
+		Collections.sort(pending);
+		int nextPending = 0;
+
+		while (true) {
+			int length = IOUtils.readIntMM(is);
+			int chunkValue = IOUtils.readIntMM(is);
+			if (length < 0) throw new IOException("Invalid PNG chunk length " + length);
+			ChunkType chunkType = ChunkType.fromInt(chunkValue);
+
+			if (chunkType != ChunkType.IHDR) {
+				while ((nextPending < pending.size()) && (pending.get(nextPending).getChunkType().getRanking() < chunkType.getRanking())) {
+					pending.get(nextPending++).write(os);
+				}
+			}
+
+			if (removedTypes.contains(chunkType)) {
+				IOUtils.skipFully(is, length + 4);
+			} else if (!removedKeywords.isEmpty() && TEXT_TYPES.contains(chunkType)) {
+				byte[] data = new byte[length];
+				IOUtils.readFully(is, data, 0, length);
+				long crc = IOUtils.readUnsignedIntMM(is);
+				if (!removedKeywords.contains(getKeyword(data))) {
+					new Chunk(chunkType, length, data, crc).write(os);
+				}
+			} else {
+				IOUtils.writeIntMM(os, length);
+				IOUtils.writeIntMM(os, chunkValue);
+				copy(is, os, length + 4); // data + crc
+			}
+
+			if (chunkType == ChunkType.IEND) break;
+		}
+	}
+
+	private void copy(InputStream is, OutputStream os, long count) throws IOException {
+		while (count > 0) {
+			int len = (int) Math.min(buffer.length, count);
+			IOUtils.readFully(is, buffer, 0, len);
+			os.write(buffer, 0, len);
+			count -= len;
+		}
+	}
+
+	/** @return the null terminated keyword at the start of a text chunk */
+	private static String getKeyword(byte[] data) throws IOException {
+		int keywordLength = 0;
+		while ((keywordLength < data.length) && (data[keywordLength] != 0)) keywordLength++;
+		return new String(data, 0, keywordLength, "UTF-8");
+	}
+}
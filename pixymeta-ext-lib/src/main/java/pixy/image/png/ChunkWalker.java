@@ -0,0 +1,128 @@
+package pixy.image.png;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import pixy.io.IOUtils;
+import pixy.io.RandomAccessInputStream;
+import pixy.util.zip.CRC32;
+
+/**
+ * Walks the chunks of a png stream without reading the data of chunks that are not needed
+ * (i.e. the IDAT image data). Skipped data is passed with seek() if the stream is a
+ * {@link RandomAccessInputStream} and with {@link IOUtils#skipFully(InputStream, int)} otherwise.
+ *
+ * With {@link #setVerifyCRC(boolean)} the crc of every chunk is checked while it is read:
+ * skipped data is then read through a small buffer instead.
+ *
+ * Usage: for (ChunkDescriptor chunk = walker.next(); chunk != null; chunk = walker.next()) ...
+ */
+public class ChunkWalker {
+	/** PNG signature constant */
+	public static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+	private final InputStream is;
+	private final RandomAccessInputStream randomAccess;
+
+	/** types of the chunks whose data is read. null means all */
+	private final Set<ChunkType> loadedTypes;
+
+	/** position relative to the start of the png */
+	private long position = 0;
+	/** stream pointer of the png start if the stream is a RandomAccessInputStream */
+	private long start = 0;
+	private boolean finished = false;
+
+	private boolean verifyCRC = false;
+	private CRC32 crc32 = null;
+	private byte[] buffer = null;
+
+	/**
+	 * @param loadedTypes the data of these chunk types is read. null: read all data
+	 */
+	public ChunkWalker(InputStream is, Set<ChunkType> loadedTypes) {
+		this.is = is;
+		this.randomAccess = (is instanceof RandomAccessInputStream) ? (RandomAccessInputStream) is : null;
+		this.loadedTypes = loadedTypes;
+	}
+
+	/** if true {@link #next()} throws an IOException for chunks with a wrong crc */
+	public ChunkWalker setVerifyCRC(boolean verifyCRC) {
+		this.verifyCRC = verifyCRC;
+		return this;
+	}
+
+	/** @return all chunks up to and including IEND */
+	public static List<ChunkDescriptor> readAll(InputStream is, Set<ChunkType> loadedTypes) throws IOException {
+		List<ChunkDescriptor> result = new ArrayList<ChunkDescriptor>();
+		ChunkWalker walker = new ChunkWalker(is, loadedTypes);
+		for (ChunkDescriptor chunk = walker.next(); chunk != null; chunk = walker.next()) {
+			result.add(chunk);
+		}
+		return result;
+	}
+
+	/** @return the next chunk or null after IEND */
+	public ChunkDescriptor next() throws IOException {
+		if (finished) return null;
+		if (position == 0) {
+			if (randomAccess != null) start = randomAccess.getStreamPointer();
+			if (IOUtils.readLongMM(is) != SIGNATURE) {
+				throw new IOException("Invalid PNG signature");
+			}
+			position = 8;
+		}
+
+		long offset = position;
+		int length = IOUtils.readIntMM(is);
+		int chunkValue = IOUtils.readIntMM(is);
+		if (length < 0) throw new IOException("Invalid PNG chunk length " + length + " at " + offset);
+
+		byte[] data = null;
+		long calculatedCRC = -1;
+		if ((loadedTypes == null) || loadedTypes.contains(ChunkType.fromInt(chunkValue))) {
+			data = new byte[length];
+			IOUtils.readFully(is, data, 0, length);
+			if (verifyCRC) calculatedCRC = Chunk.calculateCRC(chunkValue, data);
+		} else if (verifyCRC) {
+			calculatedCRC = readCRC(chunkValue, length);
+		} else if (randomAccess != null) {
+			randomAccess.seek(start + offset + 8 + length);
+		} else {
+			IOUtils.skipFully(is, length);
+		}
+		long crc = IOUtils.readUnsignedIntMM(is);
+		position = offset + 12 + length;
+
+		if (verifyCRC && (calculatedCRC != crc)) {
+			throw new IOException("CRC error in PNG chunk " + ChunkType.fromInt(chunkValue) + " at " + offset
+					+ ": expected 0x" + Long.toHexString(crc) + " but was 0x" + Long.toHexString(calculatedCRC));
+		}
+
+		if (chunkValue == ChunkType.IEND.getValue()) finished = true;
+		return new ChunkDescriptor(offset, length, chunkValue, crc, data);
+	}
+
+	/** @return crc of chunkValue and the next length bytes of the stream that are not kept */
+	private long readCRC(int chunkValue, int length) throws IOException {
+		if (crc32 == null) {
+			crc32 = new CRC32();
+			buffer = new byte[8192];
+		}
+		crc32.reset();
+		crc32.update(chunkValue >>> 24);
+		crc32.update(chunkValue >>> 16);
+		crc32.update(chunkValue >>> 8);
+		crc32.update(chunkValue);
+		while (length > 0) {
+			int len = Math.min(buffer.length, length);
+			IOUtils.readFully(is, buffer, 0, len);
+			crc32.update(buffer, 0, len);
+			length -= len;
+		}
+		return crc32.getValue();
+	}
+}
@@ -12,9 +12,11 @@ package pixy.image.png;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import pixy.util.Builder;
+import pixy.util.zip.ZipPool;
 
 /**
  * PNG iCCP chunk builder
@@ -47,15 +49,18 @@ public class ICCPBuilder extends ChunkBuilder implements Builder<Chunk> {
 		sb.append('\0'); // Null separator
 		sb.append('\0'); // Compression method	
 		ByteArrayOutputStream bo = new ByteArrayOutputStream(1024);	
+		Deflater deflater = ZipPool.obtainDeflater(Deflater.DEFAULT_COMPRESSION);
 		try {
 			bo.write(sb.toString().getBytes("iso-8859-1"));		
-			DeflaterOutputStream ds = new DeflaterOutputStream(bo);
+			DeflaterOutputStream ds = new DeflaterOutputStream(bo, deflater);
 			BufferedOutputStream bout = new BufferedOutputStream(ds);
 			bout.write(profileData);
 			bout.flush();
 			bout.close();
 		} catch(Exception ex) { 
 			ex.printStackTrace();
+		} finally {
+			ZipPool.release(deflater);
 		}
 		
 		return bo.toByteArray();				
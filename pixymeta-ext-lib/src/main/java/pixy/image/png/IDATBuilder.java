@@ -14,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.util.zip.Deflater;
 
 import pixy.util.Builder;
+import pixy.util.zip.ZipPool;
 
 /**
  * PNG IDAT chunk builder
@@ -24,7 +25,9 @@ import pixy.util.Builder;
 public class IDATBuilder extends ChunkBuilder implements Builder<Chunk> {
 
 	private ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
-	private Deflater deflater = new Deflater(5);
+	private int compressionLevel = 5;
+	// Taken from ZipPool on the first build and returned after the finishing build
+	private Deflater deflater;
 		
 	public IDATBuilder() {
 		super(ChunkType.IDAT);		
@@ -32,7 +35,7 @@ public class IDATBuilder extends ChunkBuilder implements Builder<Chunk> {
 	
 	public IDATBuilder(int compressionLevel) {
 		this();
-		deflater = new Deflater(compressionLevel);
+		this.compressionLevel = compressionLevel;
 	}
 	
 	public IDATBuilder data(byte[] data, int offset, int length) {
@@ -48,6 +51,9 @@ public class IDATBuilder extends ChunkBuilder implements Builder<Chunk> {
 
 	@Override
 	protected byte[] buildData() {
+		if(deflater == null)
+			deflater = ZipPool.obtainDeflater(compressionLevel);
+		
 		// Compresses raw data
 		deflater.setInput(bout.toByteArray());
 		
@@ -68,6 +74,11 @@ public class IDATBuilder extends ChunkBuilder implements Builder<Chunk> {
 			
 		bout.reset();
 		
+		if(finish) {
+			ZipPool.release(deflater);
+			deflater = null;
+		}
+		
 		return temp;
 	}
 	
@@ -25,6 +25,9 @@ import pixy.util.Reader;
  * All the IDAT chunks must be merged together before using this reader, as
  * per PNG specification, the compressed data stream is the concatenation of
  * the contents of all the IDAT chunks.
+ * <p>
+ * The whole image is inflated into one array. Use {@link ScanlineReader} to process
+ * the image row by row instead.
  * 
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 04/26/2013
@@ -0,0 +1,202 @@
+package pixy.image.png;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import pixy.util.zip.ZipPool;
+
+/**
+ * Inflates and defilters png image data row by row while the IDAT chunks arrive, so that
+ * i.e. thumbnailing or hashing needs memory for two scan lines instead of the whole image
+ * like {@link IDATReader}.
+ *
+ * The previous and the current row share one array [previous | current] so that the
+ * {@link Filter} defilter methods can be used unchanged. Interlaced images are not supported.
+ *
+ * Usage: ScanlineReader.read(is, handler) or
+ * new ScanlineReader(ihdr, handler).addChunk(idat1).addChunk(idat2).finish()
+ */
+public class ScanlineReader {
+	/** Receives the defiltered rows in top down order */
+	public interface RowHandler {
+		/** called once before the first row */
+		void start(IHDRReader ihdr) throws IOException;
+
+		/**
+		 * @param data contains the defiltered row at offset without filter type byte.
+		 * Only valid during the call: the array is reused for the next row.
+		 */
+		void handleRow(int row, byte[] data, int offset, int length) throws IOException;
+	}
+
+	private final IHDRReader ihdr;
+	private final RowHandler handler;
+	private final int bytesPerPixel;
+	private final int bytesPerScanLine;
+
+	// [previous row | current row]
+	private final byte[] rows;
+	private final byte[] filterType = new byte[1];
+	private Inflater inflater;
+
+	private int row = 0;
+	// -1: the filter type byte of the current row has not been inflated yet
+	private int currentFilter = -1;
+	private int filled = 0;
+
+	public ScanlineReader(IHDRReader ihdr, RowHandler handler) throws IOException {
+		if (ihdr.getInterlaceMethod() != 0) throw new IOException("Interlaced PNG is not supported");
+
+		int bitsPerPixel = getSamplesPerPixel(ColorType.fromInt(ihdr.getColorType())) * ihdr.getBitDepth();
+		this.ihdr = ihdr;
+		this.handler = handler;
+		this.bytesPerPixel = Math.max(1, bitsPerPixel / 8);
+		this.bytesPerScanLine = (int) (((long) ihdr.getWidth() * bitsPerPixel + 7) / 8);
+		this.rows = new byte[2 * bytesPerScanLine];
+		// obtained after start so that a failing handler does not keep it
+		handler.start(ihdr);
+		this.inflater = ZipPool.obtainInflater();
+	}
+
+	/** Reads the rows of a complete png stream. Chunks other than IHDR and IDAT are skipped. */
+	public static void read(InputStream is, RowHandler handler) throws IOException {
+		ChunkWalker walker = new ChunkWalker(is, EnumSet.of(ChunkType.IHDR, ChunkType.IDAT));
+		ScanlineReader reader = null;
+		try {
+			for (ChunkDescriptor chunk = walker.next(); chunk != null; chunk = walker.next()) {
+				if (chunk.getChunkType() == ChunkType.IHDR) {
+					if (reader != null) throw new IOException("Multiple IHDR chunks");
+					reader = new ScanlineReader(new IHDRReader(chunk.toChunk()), handler);
+				} else if (chunk.getChunkType() == ChunkType.IDAT) {
+					if (reader == null) throw new IOException("IDAT before IHDR");
+					reader.addData(chunk.getData(), 0, chunk.getLength());
+				}
+			}
+			if (reader == null) throw new IOException("No IHDR chunk");
+			reader.finish();
+		} finally {
+			if (reader != null) reader.release();
+		}
+	}
+
+	public int getBytesPerScanLine() {
+		return bytesPerScanLine;
+	}
+
+	public IHDRReader getIHDR() {
+		return ihdr;
+	}
+
+	/** @return number of rows passed to the handler so far */
+	public int getRowsRead() {
+		return row;
+	}
+
+	public ScanlineReader addChunk(Chunk chunk) throws IOException {
+		if (chunk == null) throw new IllegalArgumentException("Input chunk is null");
+
+		if (chunk.getChunkType() != ChunkType.IDAT) {
+			throw new IllegalArgumentException("Not a valid IDAT chunk.");
+		}
+
+		byte[] data = chunk.getData();
+		return addData(data, 0, data.length);
+	}
+
+	/**
+	 * Inflates the content of an IDAT chunk and passes all rows that are complete to the handler.
+	 * If it fails the reader is finished.
+	 */
+	public ScanlineReader addData(byte[] data, int offset, int length) throws IOException {
+		if (inflater == null) throw new IllegalStateException("ScanlineReader is finished");
+		inflater.setInput(data, offset, length);
+		boolean success = false;
+		try {
+			while (row < ihdr.getHeight()) {
+				int count;
+				if (currentFilter < 0) {
+					count = inflater.inflate(filterType, 0, 1);
+					if (count > 0) currentFilter = filterType[0] & 0xff;
+				} else {
+					// the first row has no previous row: it is defiltered at offset 0
+					int rowOffset = (row == 0) ? 0 : bytesPerScanLine;
+					count = inflater.inflate(rows, rowOffset + filled, bytesPerScanLine - filled);
+					filled += count;
+					if (filled == bytesPerScanLine) nextRow(rowOffset);
+				}
+				if (count == 0) {
+					if (inflater.needsInput()) break;
+					if (inflater.needsDictionary()) throw new ZipException("Preset dictionary is not supported");
+					if (inflater.finished()) throw new IOException("Missing image data after row " + row + " of " + ihdr.getHeight());
+				}
+			}
+			success = true;
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		} finally {
+			if (!success) release();
+		}
+		return this;
+	}
+
+	private void nextRow(int rowOffset) throws IOException {
+		switch (currentFilter) {
+			case Filter.NONE:
+				break;
+			case Filter.SUB:
+				Filter.defilter_sub(bytesPerPixel, bytesPerScanLine, rows, rowOffset);
+				break;
+			case Filter.UP:
+				Filter.defilter_up(bytesPerScanLine, rows, rowOffset);
+				break;
+			case Filter.AVERAGE:
+				Filter.defilter_average(bytesPerPixel, bytesPerScanLine, rows, rowOffset);
+				break;
+			case Filter.PAETH:
+				Filter.defilter_paeth(bytesPerPixel, bytesPerScanLine, rows, rowOffset);
+				break;
+			default:
+				throw new IOException("Invalid filter type " + currentFilter + " in row " + row);
+		}
+		handler.handleRow(row, rows, rowOffset, bytesPerScanLine);
+
+		// the current row becomes the previous row
+		if (rowOffset != 0) System.arraycopy(rows, rowOffset, rows, 0, bytesPerScanLine);
+		row++;
+		currentFilter = -1;
+		filled = 0;
+	}
+
+	/** @throws IOException if the IDAT chunks did not contain all rows */
+	public void finish() throws IOException {
+		release();
+		if (row < ihdr.getHeight()) {
+			throw new IOException("Missing image data after row " + row + " of " + ihdr.getHeight());
+		}
+	}
+
+	private void release() {
+		ZipPool.release(inflater);
+		inflater = null;
+	}
+
+	private static int getSamplesPerPixel(ColorType colorType) throws IOException {
+		switch (colorType) {
+			case GRAY_SCALE:
+			case INDEX_COLOR:
+				return 1;
+			case GRAY_SCALE_WITH_ALPHA:
+				return 2;
+			case TRUE_COLOR:
+				return 3;
+			case TRUE_COLOR_WITH_ALPHA:
+				return 4;
+			default:
+				throw new IOException("Unknown PNG color type " + colorType);
+		}
+	}
+}
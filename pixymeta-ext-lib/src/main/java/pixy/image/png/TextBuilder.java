@@ -12,10 +12,12 @@ package pixy.image.png;
 
 import java.io.BufferedWriter;
 import java.io.OutputStreamWriter;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.io.ByteArrayOutputStream;
 
 import pixy.util.Builder;
+import pixy.util.zip.ZipPool;
 
 /**
  * Builder for PNG textual chunks: iTXT, zTXT, and tEXT.
@@ -43,6 +45,7 @@ public class TextBuilder extends ChunkBuilder implements Builder<Chunk> {
 		
 		StringBuilder sb = new StringBuilder(this.keyword);
 		sb.append('\0');
+		Deflater deflater = null;
 		
 		switch (chunkType) {
 			case TEXT:
@@ -58,7 +61,8 @@ public class TextBuilder extends ChunkBuilder implements Builder<Chunk> {
 					ByteArrayOutputStream bo = new ByteArrayOutputStream(1024);
 					sb.append('\0');
 					bo.write(sb.toString().getBytes("iso-8859-1"));
-					DeflaterOutputStream ds = new DeflaterOutputStream(bo);
+					deflater = ZipPool.obtainDeflater(Deflater.DEFAULT_COMPRESSION);
+					DeflaterOutputStream ds = new DeflaterOutputStream(bo, deflater);
 					OutputStreamWriter or = new OutputStreamWriter(ds, "iso-8859-1");
 	                BufferedWriter br = new BufferedWriter(or);                       
 					br.write(this.text);
@@ -76,7 +80,8 @@ public class TextBuilder extends ChunkBuilder implements Builder<Chunk> {
 					OutputStreamWriter or = null;
 					if(compressed) {
 						bo.write(new byte[]{1, 0, 0, 0});
-						or = new OutputStreamWriter(new DeflaterOutputStream(bo), "UTF-8");
+						deflater = ZipPool.obtainDeflater(Deflater.DEFAULT_COMPRESSION);
+						or = new OutputStreamWriter(new DeflaterOutputStream(bo, deflater), "UTF-8");
 					} else {
 						bo.write(new byte[]{0, 0, 0, 0});
 						or = new OutputStreamWriter(bo, "UTF-8");
@@ -93,6 +98,8 @@ public class TextBuilder extends ChunkBuilder implements Builder<Chunk> {
 			default: // It will never come this far!				
 		}
 		
+		ZipPool.release(deflater);
+		
 	    return data;
 	}
 	
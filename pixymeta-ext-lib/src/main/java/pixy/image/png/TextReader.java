@@ -14,12 +14,17 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import pixy.util.Reader;
+import pixy.util.zip.ZipPool;
 
 /**
  * Reader for PNG textual chunks: iTXT, zTXT, and tEXT.
+ * <p>
+ * The keyword is read by {@link #setInput(Chunk)}. The text is decoded (and inflated)
+ * on the first call of {@link #getText()}.
  *
  * @author Wen Yu, yuwen_66@yahoo.com
  * @version 1.0 01/01/2013
@@ -29,6 +34,9 @@ public class TextReader implements Reader {
 	private String keyword;
 	private String text;
 	private Chunk chunk;
+	// Start of the text within the chunk data
+	private int textOffset;
+	private boolean compressed;
 	
 	public TextReader() {
 		; // Default constructor
@@ -42,14 +50,31 @@ public class TextReader implements Reader {
 		return this.keyword;
 	}
 	
+	/** @throws RuntimeException wrapping the IOException of {@link #decodeText()} */
 	public String getText() {
+		try {
+			return decodeText();
+		} catch (IOException e) {
+			throw new RuntimeException("TextReader: error reading chunk", e);
+		}
+	}
+	
+	/**
+	 * @return the text. It is decoded (and inflated) on the first call.
+	 * @throws IOException if the compressed text is corrupt
+	 */
+	public String decodeText() throws IOException {
+		if(text == null && chunk != null) {
+			text = readText();
+		}
 		return text;
 	}
 	
-	// Read text chunks to a String
+	// Read the keyword of text chunks. The text itself is read by getText()
    	public void read() throws IOException {       
    		StringBuilder sb = new StringBuilder(1024);
    		byte[] data = chunk.getData();
+   		this.text = null;
    		
         switch (chunk.getChunkType()) {
 		   case ZTXT:
@@ -57,16 +82,8 @@ public class TextReader implements Reader {
 			   int keyword_len = 0;
 			   while(data[keyword_len]!=0) keyword_len++;
 			   this.keyword = new String(data,0,keyword_len,"UTF-8");
-			
-			   InflaterInputStream ii = new InflaterInputStream(new ByteArrayInputStream(data,keyword_len+2, data.length-keyword_len-2));
-			   InputStreamReader ir = new InputStreamReader(ii,"UTF-8");
-               BufferedReader br = new BufferedReader(ir);                       
-			   String read = null;
-               while((read=br.readLine()) != null) {
-                  sb.append(read);
-                  sb.append("\n");
-               }                  
-			   br.close();
+			   this.textOffset = keyword_len+2;
+			   this.compressed = true;
 	
                break;
            }
@@ -75,13 +92,13 @@ public class TextReader implements Reader {
 			   int keyword_len = 0;			   
 			   while(data[keyword_len]!=0) keyword_len++;
 			   this.keyword = new String(data,0,keyword_len,"UTF-8");
-			   sb.append(new String(data,keyword_len+1,data.length-keyword_len-1,"UTF-8"));
+			   this.textOffset = keyword_len+1;
+			   this.compressed = false;
 			
                break;
 		   }
 		   case ITXT:
            {
-			   // System.setOut(new PrintStream(new File("TextChunk.txt"),"UTF-8"));
                /**
 			    * Keyword:             1-79 bytes (character string)
 			    * Null separator:      1 byte
@@ -114,27 +131,8 @@ public class TextReader implements Reader {
 			   sb.append(")");
 			   
 			   this.keyword = sb.toString().replaceFirst("\\(\\)", "");
-			   
-			   sb.setLength(0); // Reset StringBuilder
-			   /////////////////////// End of key.
-			   if(compr) {//Compressed text
-				   InflaterInputStream ii = new InflaterInputStream(new ByteArrayInputStream(data,keyword_len+1, data.length-keyword_len-1));
-				   InputStreamReader ir = new InputStreamReader(ii,"UTF-8");
-				   BufferedReader br = new BufferedReader(ir);                       
-				   String read = null;
-				  
-				   while((read=br.readLine()) != null) {
-					  sb.append(read);
-					  sb.append("\n");
-				   }
-				  
-				   br.close();
-			   } else { //Uncompressed text
-				   sb.append(new String(data,keyword_len+1,data.length-keyword_len-1,"UTF-8"));
-				   sb.append("\n");
-			   }
-			   
-			   sb.deleteCharAt(sb.length() - 1);
+			   this.textOffset = keyword_len+1;
+			   this.compressed = compr;
 			   
 			   break;
 		   }			   
@@ -142,16 +140,51 @@ public class TextReader implements Reader {
            default:
                throw new IllegalArgumentException("Not a valid textual chunk.");
         }
-        this.text = sb.toString();
      }
    	
+   	private String readText() throws IOException {
+   		StringBuilder sb = new StringBuilder(1024);
+   		byte[] data = chunk.getData();
+   		
+   		if(compressed) {
+   			appendLines(data, sb);
+   		} else {
+   			sb.append(new String(data,textOffset,data.length-textOffset,"UTF-8"));
+   			if(chunk.getChunkType() == ChunkType.ITXT)
+   				sb.append("\n");
+   		}
+   		
+   		// iTXt drops the line feed behind the last line
+   		if(chunk.getChunkType() == ChunkType.ITXT && sb.length() > 0)
+   			sb.deleteCharAt(sb.length() - 1);
+   		
+   		return sb.toString();
+   	}
+   	
+   	// Inflates the text and appends it line by line
+   	private void appendLines(byte[] data, StringBuilder sb) throws IOException {
+   		Inflater inflater = ZipPool.obtainInflater();
+   		try {
+   			InflaterInputStream ii = new InflaterInputStream(new ByteArrayInputStream(data,textOffset, data.length-textOffset), inflater);
+   			BufferedReader br = new BufferedReader(new InputStreamReader(ii,"UTF-8"));
+   			String read = null;
+   			while((read=br.readLine()) != null) {
+   				sb.append(read);
+   				sb.append("\n");
+   			}
+   			br.close();
+   		} finally {
+   			ZipPool.release(inflater);
+   		}
+   	}
+   	
    	public void setInput(Chunk chunk) {
    		validate(chunk);		
 		this.chunk = chunk;
 		try {
 			read();
 		} catch (IOException e) {
-			throw new RuntimeException("TextReader: error reading chunk");
+			throw new RuntimeException("TextReader: error reading chunk", e);
 		}
    	}
    	
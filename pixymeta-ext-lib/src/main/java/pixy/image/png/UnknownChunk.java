@@ -30,14 +30,10 @@ public class UnknownChunk extends Chunk {
 		this.chunkValue = chunkValue;
 	}
 	
-	public int getChunkValue(){
+	@Override public int getChunkValue(){
 		return chunkValue;
 	}
 	
-	@Override public boolean isValidCRC() {				 
-		return (calculateCRC(chunkValue, getData()) == getCRC());
-	}
-	
 	@Override public void write(OutputStream os) throws IOException{
 		IOUtils.writeIntMM(os, (int)getLength());
 		IOUtils.writeIntMM(os, this.chunkValue);
@@ -23,7 +23,6 @@
 package pixy.meta;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -32,6 +31,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,20 +40,24 @@ import pixy.api.IMetadata;
 import pixy.image.IBitmap;
 import pixy.image.ImageType;
 import pixy.meta.adobe.AdobyMetadataBase;
+import pixy.fileprocessor.jpg.JpgMetadataEventReader;
 import pixy.meta.exif.ExifMetaSegment;
 import pixy.meta.iptc.IPTCFieldValue;
 import pixy.meta.tiff.TIFFMetaUtils;
+import pixy.meta.tiff.TiffMetadataEventReader;
 import pixy.util.MetadataUtils;
 import pixy.meta.bmp.BMPMeta;
 import pixy.meta.gif.GIFMeta;
+import pixy.meta.gif.GifMetadataEventReader;
 import pixy.meta.jpeg.JPEGMeta;
 import pixy.meta.png.PNGMeta;
+import pixy.meta.png.PngMetadataEventReader;
 import pixy.meta.xmp.XMP;
-import pixy.io.FileCacheRandomAccessInputStream;
-import pixy.io.FileCacheRandomAccessOutputStream;
+import pixy.io.MappedFileRandomAccessInputStream;
 import pixy.io.PeekHeadInputStream;
 import pixy.io.RandomAccessInputStream;
 import pixy.io.RandomAccessOutputStream;
+import pixy.io.RandomAccessStreamFactory;
 
 /**
  * Base class for image metadata.
@@ -68,7 +72,7 @@ public abstract class Metadata extends MetadataBase {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Metadata.class);		
 	
 	public static void  extractThumbnails(File image, String pathToThumbnail) throws IOException {
-		FileInputStream fin = new FileInputStream(image);
+		RandomAccessInputStream fin = new MappedFileRandomAccessInputStream(image);
 		extractThumbnails(fin, pathToThumbnail);
 		fin.close();
 	}
@@ -83,9 +87,9 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.extractThumbnails(peekHeadInputStream, pathToThumbnail);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
 				TIFFMetaUtils.extractThumbnail(randIS, pathToThumbnail);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				break;
 			case PNG:
 				LOGGER.info("PNG image format does not contain any thumbnail");
@@ -121,10 +125,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertComments(peekHeadInputStream, os, comments);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(os);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
+				RandomAccessOutputStream randOS = RandomAccessStreamFactory.getDefault().createOutputStream(os);
 				TIFFMetaUtils.insertComments(comments, randIS, randOS);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -155,6 +159,19 @@ public abstract class Metadata extends MetadataBase {
 		insertExif(is, os, exif, false);
 	}
 	
+	/**
+	 * @param image input image file. It is memory mapped instead of being copied to a temp file.
+	 * @param os output image stream
+	 * @param exif ExifMetaSegment instance
+	 * @param update true to keep the original data, otherwise false
+	 * @throws IOException
+	 */
+	public static void insertExif(File image, OutputStream os, ExifMetaSegment exif, boolean update) throws IOException {
+		RandomAccessInputStream fin = new MappedFileRandomAccessInputStream(image);
+		insertExif(fin, os, exif, update);
+		fin.close();
+	}
+
 	/**
 	 * @param is input image stream 
 	 * @param os output image stream
@@ -163,6 +180,18 @@ public abstract class Metadata extends MetadataBase {
 	 * @throws IOException 
 	 */
 	public static void insertExif(InputStream is, OutputStream os, ExifMetaSegment exif, boolean update) throws IOException {
+		insertExif(is, os, exif, update, RandomAccessStreamFactory.getDefault());
+	}
+
+	/**
+	 * @param is input image stream 
+	 * @param os output image stream
+	 * @param exif ExifMetaSegment instance
+	 * @param update true to keep the original data, otherwise false
+	 * @param factory how TIFF images are cached
+	 * @throws IOException 
+	 */
+	public static void insertExif(InputStream is, OutputStream os, ExifMetaSegment exif, boolean update, RandomAccessStreamFactory factory) throws IOException {
 		// ImageIO.IMAGE_MAGIC_NUMBER_LEN bytes as image magic number
 		PeekHeadInputStream peekHeadInputStream = new PeekHeadInputStream(is, IMAGE_MAGIC_NUMBER_LEN);
 		ImageType imageType = MetadataUtils.guessImageType(peekHeadInputStream);		
@@ -172,10 +201,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertExif(peekHeadInputStream, os, exif, update);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(os);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, factory);
+				RandomAccessOutputStream randOS = factory.createOutputStream(os);
 				TIFFMetaUtils.insertExif(randIS, randOS, exif, update);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case GIF:
@@ -202,10 +231,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertICCProfile(peekHeadInputStream, out, icc_profile);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(out);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
+				RandomAccessOutputStream randOS = RandomAccessStreamFactory.getDefault().createOutputStream(out);
 				TIFFMetaUtils.insertICCProfile(icc_profile, 0, randIS, randOS);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case GIF:
@@ -225,7 +254,23 @@ public abstract class Metadata extends MetadataBase {
 		insertIPTC(is, out, iptcs, false);
 	}
 	
+	/**
+	 * @param image input image file. It is memory mapped instead of being copied to a temp file.
+	 */
+	public static void insertIPTC(File image, OutputStream out, Collection<IPTCFieldValue> iptcs, boolean update) throws IOException {
+		RandomAccessInputStream fin = new MappedFileRandomAccessInputStream(image);
+		insertIPTC(fin, out, iptcs, update);
+		fin.close();
+	}
+
 	public static void insertIPTC(InputStream is, OutputStream out, Collection<IPTCFieldValue> iptcs, boolean update) throws IOException {
+		insertIPTC(is, out, iptcs, update, RandomAccessStreamFactory.getDefault());
+	}
+
+	/**
+	 * @param factory how TIFF images are cached
+	 */
+	public static void insertIPTC(InputStream is, OutputStream out, Collection<IPTCFieldValue> iptcs, boolean update, RandomAccessStreamFactory factory) throws IOException {
 		// ImageIO.IMAGE_MAGIC_NUMBER_LEN bytes as image magic number
 		PeekHeadInputStream peekHeadInputStream = new PeekHeadInputStream(is, IMAGE_MAGIC_NUMBER_LEN);
 		ImageType imageType = MetadataUtils.guessImageType(peekHeadInputStream);		
@@ -235,10 +280,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertIPTC(peekHeadInputStream, out, iptcs, update);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(out);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, factory);
+				RandomAccessOutputStream randOS = factory.createOutputStream(out);
 				TIFFMetaUtils.insertIPTC(randIS, randOS, iptcs, update);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -269,10 +314,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertIRB(peekHeadInputStream, os, bims, update);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(os);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
+				RandomAccessOutputStream randOS = RandomAccessStreamFactory.getDefault().createOutputStream(os);
 				TIFFMetaUtils.insertIRB(randIS, randOS, bims, update);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -299,10 +344,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertIRBThumbnail(peekHeadInputStream, out, thumbnail);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(out);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
+				RandomAccessOutputStream randOS = RandomAccessStreamFactory.getDefault().createOutputStream(out);
 				TIFFMetaUtils.insertThumbnail(randIS, randOS, thumbnail);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -320,6 +365,13 @@ public abstract class Metadata extends MetadataBase {
 	}
 	
 	public static void insertXMP(InputStream is, OutputStream out, XMP xmp) throws IOException {
+		insertXMP(is, out, xmp, RandomAccessStreamFactory.getDefault());
+	}
+
+	/**
+	 * @param factory how TIFF images are cached
+	 */
+	public static void insertXMP(InputStream is, OutputStream out, XMP xmp, RandomAccessStreamFactory factory) throws IOException {
 		// ImageIO.IMAGE_MAGIC_NUMBER_LEN bytes as image magic number
 		PeekHeadInputStream peekHeadInputStream = new PeekHeadInputStream(is, IMAGE_MAGIC_NUMBER_LEN);
 		ImageType imageType = MetadataUtils.guessImageType(peekHeadInputStream);		
@@ -329,10 +381,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertXMP(peekHeadInputStream, out, xmp); // No ExtendedXMP
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(out);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, factory);
+				RandomAccessOutputStream randOS = factory.createOutputStream(out);
 				TIFFMetaUtils.insertXMP(xmp, randIS, randOS);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -363,10 +415,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.insertXMP(peekHeadInputStream, out, xmp, null); // No ExtendedXMP
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(out);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault());
+				RandomAccessOutputStream randOS = RandomAccessStreamFactory.getDefault().createOutputStream(out);
 				TIFFMetaUtils.insertXMP(xmp, randIS, randOS);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PNG:
@@ -387,8 +439,16 @@ public abstract class Metadata extends MetadataBase {
 		peekHeadInputStream.shallowClose();
 	}
 	
+	/**
+	 * Reads all metadata associated with the input image. The image file is
+	 * memory mapped so random access formats like TIFF are not copied to a temp file.
+	 *
+	 * @param image the image file
+	 * @return a list of Metadata for the input file
+	 * @throws IOException
+	 */
 	public static Map<MetadataType, IMetadata> readMetadata(File image) throws IOException {
-		FileInputStream fin = new FileInputStream(image);
+		RandomAccessInputStream fin = new MappedFileRandomAccessInputStream(image);
 		Map<MetadataType, IMetadata> metadataMap = readMetadata(fin);
 		fin.close();
 		
@@ -403,6 +463,45 @@ public abstract class Metadata extends MetadataBase {
 	 * @throws IOException
 	 */
 	public static Map<MetadataType, IMetadata> readMetadata(InputStream is) throws IOException {
+		return readMetadata(is, RandomAccessStreamFactory.getDefault());
+	}
+
+	/**
+	 * Reads all metadata associated with the input image
+	 *
+	 * @param is InputStream for the image
+	 * @param factory how TIFF images are cached
+	 * @return a list of Metadata for the input stream
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, RandomAccessStreamFactory factory) throws IOException {
+		return readMetadata(is, factory, null);
+	}
+
+	/**
+	 * Reads the requested metadata of the input image
+	 *
+	 * @param is InputStream for the image
+	 * @param metadataTypes the metadata types to be read (i.e. EnumSet.of(MetadataType.EXIF)) or null for all.
+	 *                      Jpeg segments that do not contain one of the types are skipped without being read into memory.
+	 * @return the requested metadata of the input stream
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, Set<MetadataType> metadataTypes) throws IOException {
+		return readMetadata(is, RandomAccessStreamFactory.getDefault(), metadataTypes);
+	}
+
+	/**
+	 * Reads the requested metadata of the input image
+	 *
+	 * @param is InputStream for the image
+	 * @param factory how TIFF images are cached
+	 * @param metadataTypes the metadata types to be read or null for all.
+	 *                      Jpeg segments that do not contain one of the types are skipped without being read into memory.
+	 * @return the requested metadata of the input stream
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, RandomAccessStreamFactory factory, Set<MetadataType> metadataTypes) throws IOException {
 		// Metadata map for all the Metadata read
 		Map<MetadataType, IMetadata> metadataMap = new HashMap<MetadataType, IMetadata>();
 		// ImageIO.IMAGE_MAGIC_NUMBER_LEN bytes as image magic number
@@ -411,12 +510,12 @@ public abstract class Metadata extends MetadataBase {
 		// Delegate metadata reading to corresponding image tweakers.
 		switch(imageType) {
 			case JPG:
-				metadataMap = JPEGMeta.readMetadata(peekHeadInputStream);
+				metadataMap = JPEGMeta.readMetadata(peekHeadInputStream, metadataTypes);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, factory);
 				metadataMap = TIFFMetaUtils.readMetadata(randIS);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				break;
 			case PNG:
 				metadataMap = PNGMeta.readMetadata(peekHeadInputStream);
@@ -433,6 +532,9 @@ public abstract class Metadata extends MetadataBase {
 				
 		}	
 		peekHeadInputStream.shallowClose();
+
+		if (metadataTypes != null)
+			metadataMap.keySet().retainAll(metadataTypes);
 		
 		return metadataMap;
 	}
@@ -440,7 +542,46 @@ public abstract class Metadata extends MetadataBase {
 	public static Map<MetadataType, IMetadata> readMetadata(String image) throws IOException {
 		return readMetadata(new File(image));
 	}
+
+	/**
+	 * Creates a pull parser that reports the metadata of the image as events
+	 * without building the metadata objects.
+	 *
+	 * @param is InputStream for the image. It is closed by {@link MetadataEventReader#close()}
+	 * @return the reader for the image type
+	 * @throws IOException
+	 */
+	public static MetadataEventReader createEventReader(InputStream is) throws IOException {
+		PeekHeadInputStream peekHeadInputStream = new PeekHeadInputStream(is, IMAGE_MAGIC_NUMBER_LEN);
+		ImageType imageType = MetadataUtils.guessImageType(peekHeadInputStream);
+		switch(imageType) {
+			case JPG:
+				return new JpgMetadataEventReader(peekHeadInputStream);
+			case TIFF:
+				return new TiffMetadataEventReader(getRandomAccessInputStream(is, peekHeadInputStream, RandomAccessStreamFactory.getDefault()));
+			case PNG:
+				return new PngMetadataEventReader(peekHeadInputStream);
+			case GIF:
+				return new GifMetadataEventReader(peekHeadInputStream);
+			default:
+				peekHeadInputStream.close();
+				throw new IllegalArgumentException("Metadata events are not supported for " + imageType + " image");
+		}
+	}
 	
+	/**
+	 * Remove meta data from image
+	 *
+	 * @param image input image file. It is memory mapped instead of being copied to a temp file.
+	 * @param os OutputStream for the output image
+	 * @throws IOException
+	 */
+	public static void removeMetadata(File image, OutputStream os, MetadataType ...metadataTypes) throws IOException {
+		RandomAccessInputStream fin = new MappedFileRandomAccessInputStream(image);
+		removeMetadata(fin, os, metadataTypes);
+		fin.close();
+	}
+
 	/**
 	 * Remove meta data from image
 	 * 
@@ -449,6 +590,18 @@ public abstract class Metadata extends MetadataBase {
 	 * @throws IOException
 	 */
 	public static void removeMetadata(InputStream is, OutputStream os, MetadataType ...metadataTypes) throws IOException {
+		removeMetadata(is, os, RandomAccessStreamFactory.getDefault(), metadataTypes);
+	}
+
+	/**
+	 * Remove meta data from image
+	 * 
+	 * @param is InputStream for the input image
+	 * @param os OutputStream for the output image
+	 * @param factory how TIFF images are cached
+	 * @throws IOException
+	 */
+	public static void removeMetadata(InputStream is, OutputStream os, RandomAccessStreamFactory factory, MetadataType ...metadataTypes) throws IOException {
 		// ImageIO.IMAGE_MAGIC_NUMBER_LEN bytes as image magic number
 		PeekHeadInputStream peekHeadInputStream = new PeekHeadInputStream(is, IMAGE_MAGIC_NUMBER_LEN);
 		ImageType imageType = MetadataUtils.guessImageType(peekHeadInputStream);		
@@ -458,10 +611,10 @@ public abstract class Metadata extends MetadataBase {
 				JPEGMeta.removeMetadata(peekHeadInputStream, os, metadataTypes);
 				break;
 			case TIFF:
-				RandomAccessInputStream randIS = new FileCacheRandomAccessInputStream(peekHeadInputStream);
-				RandomAccessOutputStream randOS = new FileCacheRandomAccessOutputStream(os);
+				RandomAccessInputStream randIS = getRandomAccessInputStream(is, peekHeadInputStream, factory);
+				RandomAccessOutputStream randOS = factory.createOutputStream(os);
 				TIFFMetaUtils.removeMetadata(randIS, randOS, metadataTypes);
-				randIS.shallowClose();
+				releaseRandomAccessInputStream(is, randIS);
 				randOS.shallowClose();
 				break;
 			case PCX:
@@ -476,6 +629,29 @@ public abstract class Metadata extends MetadataBase {
 		peekHeadInputStream.shallowClose();
 	}
 	
+	/**
+	 * @return is itself if it is a RandomAccessInputStream that starts with the image
+	 * (i.e. a {@link MappedFileRandomAccessInputStream}), else a copy of peekHeadInputStream cached by factory.
+	 */
+	private static RandomAccessInputStream getRandomAccessInputStream(InputStream is, PeekHeadInputStream peekHeadInputStream, RandomAccessStreamFactory factory) throws IOException {
+		if(is instanceof RandomAccessInputStream) {
+			RandomAccessInputStream randIS = (RandomAccessInputStream)is;
+			if(randIS.getStreamPointer() == IMAGE_MAGIC_NUMBER_LEN) {
+				// Only the magic number has been consumed by peekHeadInputStream: no need to copy the image
+				randIS.seek(0);
+				return randIS;
+			}
+		}
+		return factory.createInputStream(peekHeadInputStream);
+	}
+
+	/** Releases randIS unless it is the stream of the caller */
+	private static void releaseRandomAccessInputStream(InputStream is, RandomAccessInputStream randIS) throws IOException {
+		if(randIS != is) {
+			randIS.shallowClose();
+		}
+	}
+
 	public Metadata(MetadataType type, byte[] data) {
 		super(type, data);
 	}
@@ -0,0 +1,165 @@
+package pixy.meta.gif;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import pixy.io.IOUtils;
+import pixy.meta.MetadataEventReader;
+import pixy.meta.MetadataType;
+
+/**
+ * {@link MetadataEventReader} for gif files: walks the blocks like {@link GIFMeta#readMetadata(InputStream)}.
+ *
+ * * comment extensions are reported as COMMENT segment. The text is available with getString().
+ * * the xmp application extension is reported as XMP segment with XMP_PROPERTY events.
+ * * image data and all other extensions are skipped.
+ */
+public class GifMetadataEventReader extends MetadataEventReader {
+    private static final byte[] XMP_ID = {'X', 'M', 'P', ' ', 'D', 'a', 't', 'a', 'X', 'M', 'P'};
+    /** xmp is followed by a "magic trailer" of 258 bytes minus the block terminator */
+    private static final int XMP_TRAILER_LENGTH = 257;
+
+    private final InputStream is;
+
+    /** data of the current extension. Reused for all extensions */
+    private byte[] buffer = new byte[1024];
+    private int bufferLength = 0;
+
+    private boolean started = false;
+    private boolean inSegment = false;
+    private boolean contentPending = false;
+
+    public GifMetadataEventReader(InputStream is) {
+        this.is = is;
+    }
+
+    @Override
+    protected Event nextContainerEvent() throws IOException {
+        if (!started) {
+            started = true;
+            readHeader();
+        }
+        if (inSegment) {
+            if (contentPending) {
+                contentPending = false;
+                Event event = startXmp(buffer, 0, bufferLength);
+                if (event != null) return event;
+            }
+            inSegment = false;
+            return Event.END_SEGMENT;
+        }
+
+        while (true) {
+            int separator = is.read();
+            if ((separator == -1) || (separator == GIFMeta.IMAGE_TRAILER)) {
+                return Event.END_DOCUMENT;
+            }
+            if (separator == GIFMeta.EXTENSION_INTRODUCER) {
+                int label = is.read();
+                if (label == (GIFMeta.COMMENT_EXTENSION_LABEL & 0xff)) {
+                    readSubBlocks(false);
+                    inSegment = true;
+                    Event event = startSegment(MetadataType.COMMENT);
+                    setValue(buffer, 0, bufferLength);
+                    return event;
+                }
+                if ((label == (GIFMeta.APPLICATION_EXTENSION_LABEL & 0xff)) && isXmpApplication()) {
+                    // the xmp sub blocks are raw xml: the length bytes are part of the data
+                    readSubBlocks(true);
+                    bufferLength -= XMP_TRAILER_LENGTH;
+                    if (bufferLength > 0) {
+                        inSegment = true;
+                        contentPending = true;
+                        return startSegment(MetadataType.XMP);
+                    }
+                } else {
+                    skipSubBlocks();
+                }
+            } else if (separator == GIFMeta.IMAGE_SEPARATOR) {
+                skipImage();
+            } else {
+                throw new IOException("Invalid GIF block: " + separator);
+            }
+        }
+    }
+
+    private void readHeader() throws IOException {
+        byte[] header = new byte[6 + 7]; // GIFXXa + logical screen descriptor
+        IOUtils.readFully(is, header);
+        if ((header[0] != 'G') || (header[1] != 'I') || (header[2] != 'F')) {
+            throw new IOException("Invalid GIF signature");
+        }
+        skipPalette(header[6 + 4]);
+    }
+
+    private void skipPalette(byte packedFields) throws IOException {
+        if ((packedFields & 0x80) == 0x80) {
+            int bitsPerPixel = (packedFields & 0x07) + 1;
+            IOUtils.skipFully(is, 3 * (1 << bitsPerPixel));
+        }
+    }
+
+    private void skipImage() throws IOException {
+        byte[] imageDescriptor = new byte[9];
+        IOUtils.readFully(is, imageDescriptor);
+        skipPalette(imageDescriptor[8]);
+        is.read(); // LZW Minimum Code Size
+        skipSubBlocks();
+    }
+
+    /** @return true if the application extension is xmp. The identifier block has been read */
+    private boolean isXmpApplication() throws IOException {
+        int len = is.read();
+        if (len != XMP_ID.length) {
+            IOUtils.skipFully(is, len);
+            return false;
+        }
+        byte[] id = new byte[len];
+        IOUtils.readFully(is, id);
+        for (int i = 0; i < len; i++) {
+            if (id[i] != XMP_ID[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * reads the sub blocks up to the block terminator into buffer.
+     *
+     * @param withLength true: the length bytes are part of the data (xmp)
+     */
+    private void readSubBlocks(boolean withLength) throws IOException {
+        bufferLength = 0;
+        int len;
+        while ((len = IOUtils.read(is)) > 0) {
+            ensureBuffer(bufferLength + len + 1);
+            if (withLength) buffer[bufferLength++] = (byte) len;
+            IOUtils.readFully(is, buffer, bufferLength, len);
+            bufferLength += len;
+        }
+    }
+
+    private void skipSubBlocks() throws IOException {
+        int len;
+        while ((len = IOUtils.read(is)) > 0) {
+            IOUtils.skipFully(is, len);
+        }
+    }
+
+    private void ensureBuffer(int size) {
+        if (buffer.length < size) {
+            byte[] newBuffer = new byte[Math.max(size, 2 * buffer.length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, bufferLength);
+            buffer = newBuffer;
+        }
+    }
+
+    @Override
+    protected void onSkipSegment() {
+        contentPending = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        is.close();
+    }
+}
@@ -50,10 +50,14 @@ public class GifXMP extends XMP {
  		// Write extension introducer and application identifier
  		os.write(buf);
  		// Write the XMP packet
- 		Document doc = getXmpDocument();
-		XMLUtils.insertLeadingPI(doc, "xpacket", "begin='' id='W5M0MpCehiHzreSzNTczkc9d'");
-		XMLUtils.insertTrailingPI(doc, "xpacket", "end='r'");
-		os.write(XMLUtils.serializeToByteArray(doc));
+ 		if(isRawPacket()) { // Unchanged packet already contains its wrapper
+ 			writeRawPacket(os);
+ 		} else {
+ 			Document doc = getXmpDocument();
+ 			XMLUtils.insertLeadingPI(doc, "xpacket", "begin='' id='W5M0MpCehiHzreSzNTczkc9d'");
+ 			XMLUtils.insertTrailingPI(doc, "xpacket", "end='r'");
+ 			os.write(XMLUtils.serializeToByteArray(doc));
+ 		}
  		// Write the magic trailer
  		os.write(magic_trailer);
  		// End of XMP data 		
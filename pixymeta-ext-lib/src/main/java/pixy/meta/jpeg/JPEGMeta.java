@@ -64,6 +64,7 @@ import pixy.image.jpeg.UnknownSegment;
 import pixy.io.FileCacheRandomAccessInputStream;
 import pixy.io.IOUtils;
 import pixy.io.RandomAccessInputStream;
+import pixy.api.IFieldValue;
 import pixy.api.IMetadata;
 import pixy.meta.adobe.AdobeIRBSegment;
 import pixy.meta.adobe.AdobyMetadataBase;
@@ -118,6 +119,8 @@ public class JPEGMeta extends JpegMetaDef {
 	public static final String PICTURE_INFO_ID = "[picture info]"; // no trailing NULL
 	public static final String ADOBE_ID = "Adobe"; // no trailing NULL
 	private static final int GUID_LEN = 32;
+	// length of the longest id at the start of an APPn segment
+	private static final int MAX_APPN_ID_LEN = XMP_EXT_ID.length();
 	
 	public static final EnumSet<JpegSegmentMarker> APPnMarkers = EnumSet.range(JpegSegmentMarker.JPG_SEGMENT_JFIF_APP0, JpegSegmentMarker.APP15);
 	
@@ -479,8 +482,10 @@ public class JPEGMeta extends JpegMetaDef {
 	 */
 	public static void insertExif(InputStream is, OutputStream os, ExifMetaSegment exif, boolean update) throws IOException {
 		// We need thumbnail image but don't have one, create one from the current image input stream
+		RandomAccessInputStream thumbnailCache = null;
 		if(exif.isThumbnailRequired() && !exif.containsThumbnail()) {
-			is = new FileCacheRandomAccessInputStream(is);
+			thumbnailCache = new FileCacheRandomAccessInputStream(is);
+			is = thumbnailCache;
 			// Insert thumbnail into EXIF wrapper
 			exif.setThumbnailImage(MetadataUtils.createThumbnail(is));
 		}
@@ -601,7 +606,7 @@ public class JPEGMeta extends JpegMetaDef {
 						jpegSegments.add(new JpegSegment(currentJpegSegmentMarker, exifBytes));
 						// Read the EXIF data.
 						if(new String(exifBytes, 0, EXIF_ID.length()).equals(EXIF_ID)) { // We assume EXIF data exist only in one JPG_SEGMENT_EXIF_XMP_APP1
-							oldExif = new JpegExif(ArrayUtils.subArray(exifBytes, EXIF_ID.length(), length - EXIF_ID.length() - 2));
+							oldExif = new JpegExif(exifBytes, EXIF_ID.length(), length - EXIF_ID.length() - 2);
 							oldExifIndex = jpegSegments.size() - 1;
 						}										
 						currentJpegSegmentMarkerCode = IOUtils.readShortMM(is);
@@ -618,9 +623,9 @@ public class JPEGMeta extends JpegMetaDef {
 				}
 			}
 	    }
-		// Close the input stream in case it's an instance of RandomAccessInputStream
-		if(is instanceof RandomAccessInputStream)
-			((FileCacheRandomAccessInputStream)is).shallowClose();
+		// Close the thumbnail cache stream but not a RandomAccessInputStream of the caller
+		if(thumbnailCache != null)
+			thumbnailCache.shallowClose();
 	}
 	
 	/**
@@ -1073,7 +1078,7 @@ public class JPEGMeta extends JpegMetaDef {
 			int length = descriptions.getLength();
 			if(length > 0) {
 				Element node = (Element)descriptions.item(length - 1);
-				node.setAttribute("xmlns:xmpNote", "http://ns.adobe.com/xmp/extension/");
+				node.setAttribute("xmlns:xmpNote", "http://ns.adobe.com/xmp/note/");
 				node.setAttribute("xmpNote:HasExtendedXMP", guid);
 			}
 		}
@@ -1247,7 +1252,58 @@ public class JPEGMeta extends JpegMetaDef {
 		m_qTables.addAll(qTables);		
 	}
 	
+	/**
+	 * Reads the metadata of a jpeg image. Reading stops at the first SOS
+	 * because all metadata segments are located before the image data.
+	 *
+	 * @param is InputStream for the image
+	 * @return the metadata found in the image
+	 * @throws IOException
+	 */
 	public static Map<MetadataType, IMetadata> readMetadata(InputStream is) throws IOException {
+		return readMetadata(is, false);
+	}
+
+	/**
+	 * Reads the requested metadata of a jpeg image. Reading stops at the first SOS.
+	 *
+	 * @param is InputStream for the image
+	 * @param metadataTypes the metadata types to be read (i.e. EnumSet.of(MetadataType.EXIF))
+	 *                      or null for all. The payload of segments that do not contain
+	 *                      one of the types is skipped without being read into memory.
+	 * @return the requested metadata found in the image
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, Set<MetadataType> metadataTypes) throws IOException {
+		return readMetadata(is, false, metadataTypes);
+	}
+
+	/**
+	 * Reads the metadata of a jpeg image.
+	 *
+	 * @param is InputStream for the image
+	 * @param readAllScans false: stop at the first SOS (header only).
+	 *                     true: also walk the entropy coded data of all scans
+	 *                     to collect SOF/DQT/DHT of later scans (i.e. progressive jpeg). This is much slower.
+	 * @return the metadata found in the image
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, boolean readAllScans) throws IOException {
+		return readMetadata(is, readAllScans, null);
+	}
+
+	/**
+	 * Reads the metadata of a jpeg image.
+	 *
+	 * @param is InputStream for the image
+	 * @param readAllScans false: stop at the first SOS (header only).
+	 *                     true: also walk the entropy coded data of all scans.
+	 * @param metadataTypes the metadata types to be read or null for all.
+	 *                      The payload of segments that do not contain one of the types is skipped.
+	 * @return the metadata found in the image
+	 * @throws IOException
+	 */
+	public static Map<MetadataType, IMetadata> readMetadata(InputStream is, boolean readAllScans, Set<MetadataType> metadataTypes) throws IOException {
 		Map<MetadataType, IMetadata> metadataMap = new HashMap<MetadataType, IMetadata>();
 		Map<String, Thumbnail> thumbnails = new HashMap<String, Thumbnail>();
 		// Need to wrap the input stream with a BufferedInputStream to
@@ -1305,14 +1361,21 @@ public class JPEGMeta extends JpegMetaDef {
 					case JPG_SEGMENT_IPTC_APP13:
 					case APP14:
 					case APP15:
-						byte[] appBytes = readSegmentData(is);
-						appnSegments.add(new JpegSegment(currentJpegSegmentMarker, appBytes));
+						// null if skipped because its metadata type was not requested
+						byte[] appBytes = readSegmentData(is, currentJpegSegmentMarker, metadataTypes);
+						if(appBytes != null)
+							appnSegments.add(new JpegSegment(currentJpegSegmentMarker, appBytes));
 						currentJpegSegmentMarkerCode = IOUtils.readShortMM(is);
 						break;
 					case JPG_SEGMENT_COMMENT_APP10:
 					case JPG_SEGMENT_COMMNENTS_COM:
-						if(comments == null) comments = new Comments(null);
-						comments.addComment(readSegmentData(is));
+						if(isRequested(MetadataType.COMMENT, metadataTypes)) {
+							if(comments == null) comments = new Comments(null);
+							comments.addComment(readSegmentData(is));
+						} else {
+							length = IOUtils.readUnsignedShortMM(is);
+							IOUtils.skipFully(is, length - 2);
+						}
 						currentJpegSegmentMarkerCode = IOUtils.readShortMM(is);
 				    	break;				   				
 					case DHT:
@@ -1341,8 +1404,14 @@ public class JPEGMeta extends JpegMetaDef {
 						break;
 					case SOS:	
 						SOFReader reader = readers.get(readers.size() - 1);
-						currentJpegSegmentMarkerCode = readSOS(is, reader);
+						readSOSHeader(is, reader);
 						LOGGER.debug("\n{}", sofToString(reader));
+						if(readAllScans) {
+							currentJpegSegmentMarkerCode = skipScanData(is);
+						} else {
+							// Header only: all metadata segments are located before the first SOS
+							finished = true;
+						}
 						break;
 					case JPG: // JPG and JPGn shouldn't appear in the image.
 					case JPG0:
@@ -1381,15 +1450,16 @@ public class JPEGMeta extends JpegMetaDef {
 				// Check for EXIF
 				if(new String(data, 0, EXIF_ID.length()).equals(EXIF_ID)) {
 					// We found EXIF
-					JpegExif exif = new JpegExif(ArrayUtils.subArray(data, EXIF_ID.length(), length - EXIF_ID.length() - 2));
+					JpegExif exif = new JpegExif(data, EXIF_ID.length(), length - EXIF_ID.length() - 2);
 					metadataMap.put(MetadataType.EXIF, exif);
 				} else if(new String(data, 0, XMP_ID.length()).equals(XMP_ID) ||
 						new String(data, 0, NON_STANDARD_XMP_ID.length()).equals(NON_STANDARD_XMP_ID)) {
 					// We found XMP, add it to metadata list (We may later revise it if we have ExtendedXMP)
-					XMP xmp = new JpegXMP(ArrayUtils.subArray(data, XMP_ID.length(), length - XMP_ID.length() - 2));
+					XMP xmp = new JpegXMP(data, XMP_ID.length(), length - XMP_ID.length() - 2);
 					metadataMap.put(MetadataType.XMP, xmp);
-					// Retrieve and remove XMP GUID if available
-					xmpGUID = XMLUtils.getAttribute(xmp.getXmpDocument(), XmpTag.Note_HasExtendedXMP.getXmlElementName(), XmpTag.Note_HasExtendedXMP.getAttribute());
+					// Retrieve XMP GUID if available. getValue does not parse the packet into a document
+					IFieldValue guidValue = xmp.getValue(XmpTag.Note_HasExtendedXMP);
+					xmpGUID = (guidValue == null) ? "" : guidValue.getValueAsString();
 				} else if(new String(data, 0, XMP_EXT_ID.length()).equals(XMP_EXT_ID)) {
 					// We found ExtendedXMP, add the data to ExtendedXMP memory buffer				
 					int i = XMP_EXT_ID.length();
@@ -1480,6 +1550,9 @@ public class JPEGMeta extends JpegMetaDef {
 		}
 		
 		metadataMap.put(MetadataType.IMAGE, new ImageMetadata(null, thumbnails));
+
+		if(metadataTypes != null)
+			metadataMap.keySet().retainAll(metadataTypes);
 		
 		return metadataMap;
 	}
@@ -1491,6 +1564,79 @@ public class JPEGMeta extends JpegMetaDef {
 		
 		return data;
 	}
+
+	/**
+	 * Reads the id at the start of the APPn segment to find out its metadata type.
+	 *
+	 * @return the segment data or null if the rest of the segment was skipped
+	 * because its metadata type is not one of metadataTypes
+	 */
+	private static byte[] readSegmentData(InputStream is, JpegSegmentMarker jpegSegmentMarker, Set<MetadataType> metadataTypes) throws IOException {
+		if(metadataTypes == null) return readSegmentData(is);
+
+		int length = IOUtils.readUnsignedShortMM(is) - 2;
+		int headerLength = Math.min(length, MAX_APPN_ID_LEN);
+		byte[] header = new byte[headerLength];
+		IOUtils.readFully(is, header);
+
+		if(!isRequested(getMetadataType(jpegSegmentMarker, header), metadataTypes)) {
+			IOUtils.skipFully(is, length - headerLength);
+			return null;
+		}
+
+		byte[] data = new byte[length];
+		System.arraycopy(header, 0, data, 0, headerLength);
+		IOUtils.readFully(is, data, headerLength, length - headerLength);
+
+		return data;
+	}
+
+	/** @return the metadata type of the APPn segment starting with header or null if it is not known */
+	private static MetadataType getMetadataType(JpegSegmentMarker jpegSegmentMarker, byte[] header) {
+		switch (jpegSegmentMarker) {
+			case JPG_SEGMENT_JFIF_APP0:
+				return startsWith(header, JFIF_ID) ? MetadataType.JPG_JFIF : null;
+			case JPG_SEGMENT_EXIF_XMP_APP1:
+				if(startsWith(header, EXIF_ID)) return MetadataType.EXIF;
+				if(startsWith(header, XMP_ID) || startsWith(header, NON_STANDARD_XMP_ID) || startsWith(header, XMP_EXT_ID))
+					return MetadataType.XMP;
+				return null;
+			case JPG_SEGMENT_ICC_APP2:
+				return startsWith(header, ICC_PROFILE_ID) ? MetadataType.ICC_PROFILE : null;
+			case APP12:
+				return startsWith(header, DUCKY_ID) ? MetadataType.JPG_DUCKY : null;
+			case JPG_SEGMENT_IPTC_APP13:
+				return startsWith(header, PHOTOSHOP_IRB_ID) ? MetadataType.PHOTOSHOP_IRB : null;
+			case APP14:
+				return startsWith(header, ADOBE_ID) ? MetadataType.JPG_ADOBE : null;
+			default:
+				return null;
+		}
+	}
+
+	/** @return true if segments of metadataType have to be read to get the metadataTypes */
+	private static boolean isRequested(MetadataType metadataType, Set<MetadataType> metadataTypes) {
+		if(metadataTypes == null) return true;
+		if(metadataType == null) return false;
+		if(metadataTypes.contains(metadataType)) return true;
+
+		switch (metadataType) {
+			case PHOTOSHOP_IRB: // contains iptc and a thumbnail
+				return metadataTypes.contains(MetadataType.IPTC) || metadataTypes.contains(MetadataType.IMAGE);
+			case EXIF: // contains a thumbnail
+				return metadataTypes.contains(MetadataType.IMAGE);
+			default:
+				return false;
+		}
+	}
+
+	private static boolean startsWith(byte[] data, String id) {
+		if(data.length < id.length()) return false;
+		for(int i = 0; i < id.length(); i++) {
+			if(data[i] != (byte) id.charAt(i)) return false;
+		}
+		return true;
+	}
 	
 	private static SOFReader readSOF(InputStream is, JpegSegmentMarker jpegSegmentMarker) throws IOException {
 		int len = IOUtils.readUnsignedShortMM(is);
@@ -1503,16 +1649,18 @@ public class JPEGMeta extends JpegMetaDef {
 		return reader;
 	}	
 	
-	// This method is very slow if not wrapped in some kind of cache stream but it works for multiple
-	// SOSs in case of progressive JPEG
-	private static short readSOS(InputStream is, SOFReader sofReader) throws IOException {
+	private static void readSOSHeader(InputStream is, SOFReader sofReader) throws IOException {
 		int len = IOUtils.readUnsignedShortMM(is);
 		byte buf[] = new byte[len - 2];
 		IOUtils.readFully(is, buf);
 		
 		JpegSegment jpegSegment = new JpegSegment(JpegSegmentMarker.SOS, buf);
 		new SOSReader(jpegSegment, sofReader);
-		
+	}
+	
+	// This method is very slow if not wrapped in some kind of cache stream but it works for multiple
+	// SOSs in case of progressive JPEG
+	private static short skipScanData(InputStream is) throws IOException {
 		// Actual image data follow.
 		int nextByte = 0;
 		short currentJpegSegmentMarkerCode = 0;
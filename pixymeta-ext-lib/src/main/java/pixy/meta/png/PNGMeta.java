@@ -22,19 +22,17 @@
 
 package pixy.meta.png;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.InflaterInputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,12 +41,13 @@ import org.w3c.dom.Document;
 import pixy.image.png.ICCPBuilder;
 import pixy.api.IMetadata;
 import pixy.meta.MetadataType;
-import pixy.meta.icc.ICCProfile;
 import pixy.meta.xmp.XMP;
 import pixy.image.png.Chunk;
+import pixy.image.png.ChunkDescriptor;
+import pixy.image.png.ChunkRewriter;
 import pixy.image.png.ChunkType;
+import pixy.image.png.ChunkWalker;
 import pixy.image.png.TextBuilder;
-import pixy.image.png.TextReader;
 import pixy.image.png.UnknownChunk;
 import pixy.io.IOUtils;
 import pixy.string.XMLUtils;
@@ -62,6 +61,10 @@ public class PNGMeta {
 	
 	/** PNG signature constant */
     private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+    /** chunks that are read by {@link #readMetadata(InputStream)} */
+    private static final Set<ChunkType> METADATA_CHUNKS = Collections.unmodifiableSet(
+    		EnumSet.of(ChunkType.ICCP, ChunkType.TEXT, ChunkType.ITXT, ChunkType.ZTXT, ChunkType.TIME));
     
     // Obtain a logger instance
  	private static final Logger LOGGER = LoggerFactory.getLogger(PNGMeta.class);
@@ -70,22 +73,13 @@ public class PNGMeta {
   		insertChunks(is, os, customChunk);
   	}
   	
+  	/** Copies the image in one pass without holding its chunks in memory */
   	public static void insertChunks(InputStream is, OutputStream os, Chunk... chunks) throws IOException {
-  		List<Chunk> list = readChunks(is);  		
-        Collections.addAll(list, chunks);
-    	
-  		IOUtils.writeLongMM(os, SIGNATURE);
-	
-        serializeChunks(list, os);
+  		new ChunkRewriter().insert(chunks).rewrite(is, os);
   	}
   	
   	public static void insertChunks(List<Chunk> chunks, InputStream is, OutputStream os) throws IOException {
-  		List<Chunk> list = readChunks(is);  		
-        list.addAll(chunks);
-    	
-  		IOUtils.writeLongMM(os, SIGNATURE);
-	
-        serializeChunks(list, os);
+  		new ChunkRewriter().insert(chunks).rewrite(is, os);
   	}
   	
   	public static void insertComments(InputStream is, OutputStream os, List<String> comments) throws IOException {
@@ -103,7 +97,8 @@ public class PNGMeta {
   		ICCPBuilder builder = new ICCPBuilder();
   		builder.name(profile_name);
   		builder.data(icc_profile);
-  		insertChunk(builder.build(), is, os);
+  		// Only one iCCP chunk is allowed: replace the old one
+  		new ChunkRewriter().remove(ChunkType.ICCP).insert(builder.build()).rewrite(is, os);
   	}
   	
   	public static void insertTextChunk(ChunkType type, String keyword, String text, InputStream is, OutputStream os) throws IOException {
@@ -132,28 +127,10 @@ public class PNGMeta {
     }
   	
   	private static void insert(InputStream is, OutputStream os, String xmp) throws IOException {
-  		// Read all the chunks first
-  		List<Chunk> chunks = readChunks(is);
-	    ListIterator<Chunk> itr = chunks.listIterator();
-	    
-	    // Remove old XMP chunk
-	    while(itr.hasNext()) {
-	    	Chunk chunk = itr.next();
-	    	if(chunk.getChunkType() == ChunkType.ITXT) {
-	    		TextReader reader = new TextReader(chunk);
-				if(reader.getKeyword().equals("XML:com.adobe.xmp")); // We found XMP data
-					itr.remove();
-	    	}
-	    }
-	    
 	    // Create XMP textual chunk
 		Chunk xmpChunk = new TextBuilder(ChunkType.ITXT).keyword("XML:com.adobe.xmp").text(xmp).build();
-		// Insert XMP textual chunk into image
-	    chunks.add(xmpChunk);
-	    
-	    IOUtils.writeLongMM(os, SIGNATURE);
-	    
-        serializeChunks(chunks, os);
+		// Replace old XMP chunk while copying the image
+		new ChunkRewriter().removeText("XML:com.adobe.xmp").insert(xmpChunk).rewrite(is, os);
     }
   	
    	public static List<Chunk> readChunks(InputStream is) throws IOException {  		
@@ -201,31 +178,27 @@ public class PNGMeta {
         return list;
   	}
    	
-	private static byte[] readICCProfile(byte[] buf) throws IOException {
-		int profileName_len = 0;
-		while(buf[profileName_len] != 0) profileName_len++;
-		String profileName = new String(buf, 0, profileName_len, "UTF-8");
-		
-		InflaterInputStream ii = new InflaterInputStream(new ByteArrayInputStream(buf, profileName_len + 2, buf.length - profileName_len - 2));
-		LOGGER.info("ICCProfile name: {}", profileName);
-		 
-		byte[] icc_profile = IOUtils.readFully(ii, 4096);
-		LOGGER.info("ICCProfile length: {}", icc_profile.length);
-	 		 
-		return icc_profile;
- 	}
-  	
+	/**
+	 * Reads the chunks without their data except for the chunk types in loadedTypes.
+	 * 
+	 * @param loadedTypes types of the chunks whose data is read. null means all chunks.
+	 * @return all chunks up to and including IEND
+	 */
+	public static List<ChunkDescriptor> readChunkDescriptors(InputStream is, Set<ChunkType> loadedTypes) throws IOException {
+		return ChunkWalker.readAll(is, loadedTypes);
+	}
+
 	public static Map<MetadataType, IMetadata> readMetadata(InputStream is) throws IOException {
 		Map<MetadataType, IMetadata> metadataMap = new HashMap<MetadataType, IMetadata>();
-		List<Chunk> chunks = readChunks(is);
-		Iterator<Chunk> iter = chunks.iterator();
+		// IDAT and other chunks without metadata are skipped
+		List<ChunkDescriptor> chunks = readChunkDescriptors(is, METADATA_CHUNKS);
 		TextualChunks textualChunk = null;
-		while (iter.hasNext()) {
-			Chunk chunk = iter.next();
-			ChunkType type = chunk.getChunkType();
-			long length = chunk.getLength();
+		for (ChunkDescriptor descriptor : chunks) {
+			Chunk chunk = descriptor.toChunk();
+			ChunkType type = descriptor.getChunkType();
+			long length = descriptor.getLength();
 			if(type == ChunkType.ICCP)
-				metadataMap.put(MetadataType.ICC_PROFILE, new ICCProfile(readICCProfile(chunk.getData())));
+				metadataMap.put(MetadataType.ICC_PROFILE, new PngICCProfile(chunk.getData()));
 			else if(type == ChunkType.TEXT || type == ChunkType.ITXT || type == ChunkType.ZTXT) {
 				if(textualChunk == null)
 					textualChunk = new TextualChunks();
@@ -234,19 +207,15 @@ public class PNGMeta {
 				metadataMap.put(MetadataType.PNG_TIME, new TIMEChunk(chunk));
 			}
 			
-			LOGGER.info("{} ({}) | {} bytes | 0x{} (CRC)", type.getName(), type.getAttribute(), length, Long.toHexString(chunk.getCRC()));
+			LOGGER.info("{} ({}) | {} bytes | 0x{} (CRC)", type.getName(), type.getAttribute(), length, Long.toHexString(descriptor.getCRC()));
 		}
 		
 		if(textualChunk != null) {
 			metadataMap.put(MetadataType.PNG_TEXTUAL, textualChunk);
 			
-			// We may find XMP data inside iTXT
-			Map<String, String> keyValMap = textualChunk.getKeyValMap();
-			
-			for (Map.Entry<String, String> entry : keyValMap.entrySet()) {
-				if(entry.getKey().equals("XML:com.adobe.xmp"))
-					metadataMap.put(MetadataType.XMP, new PngXMP(entry.getValue()));
-			}
+			// We may find XMP data inside iTXT. Other texts are not decoded here
+			if(textualChunk.getKeywords().contains("XML:com.adobe.xmp"))
+				metadataMap.put(MetadataType.XMP, new PngXMP(textualChunk.getText("XML:com.adobe.xmp")));
 		}
 			
 		is.close();
@@ -0,0 +1,75 @@
+package pixy.meta.png;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import pixy.meta.icc.ICCProfile;
+import pixy.util.zip.ZipPool;
+
+/**
+ * ICC profile of a png iCCP chunk. The chunk data (profile name, compression method
+ * and the compressed profile) is kept and only inflated when the profile is used.
+ */
+public class PngICCProfile extends ICCProfile {
+	// Obtain a logger instance
+	private static final Logger LOGGER = LoggerFactory.getLogger(PngICCProfile.class);
+
+	private final String profileName;
+	// iCCP chunk data. null after it has been inflated
+	private byte[] chunkData;
+	private final int profileOffset;
+
+	public PngICCProfile(byte[] chunkData) throws IOException {
+		super(null);
+		int profileName_len = 0;
+		while(chunkData[profileName_len] != 0) profileName_len++;
+		this.profileName = new String(chunkData, 0, profileName_len, "UTF-8");
+		this.profileOffset = profileName_len + 2; // Null separator and compression method
+		this.chunkData = chunkData;
+		LOGGER.info("ICCProfile name: {}", profileName);
+	}
+
+	public String getProfileName() {
+		return profileName;
+	}
+
+	private void inflate() throws IOException {
+		if (chunkData != null) {
+			byte[] icc_profile = ZipPool.inflate(chunkData, profileOffset, chunkData.length - profileOffset);
+			LOGGER.info("ICCProfile length: {}", icc_profile.length);
+			setData(icc_profile);
+			chunkData = null;
+		}
+	}
+
+	@Override
+	public byte[] getData() {
+		try {
+			inflate();
+		} catch (IOException e) {
+			throw new RuntimeException("PngICCProfile: error inflating iCCP chunk", e);
+		}
+		return super.getData();
+	}
+
+	@Override
+	public int getDataLength() {
+		getData();
+		return super.getDataLength();
+	}
+
+	@Override
+	public void read() throws IOException {
+		inflate();
+		super.read();
+	}
+
+	@Override
+	public void write(OutputStream out) throws IOException {
+		inflate();
+		super.write(out);
+	}
+}
@@ -0,0 +1,122 @@
+package pixy.meta.png;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import pixy.image.png.ChunkType;
+import pixy.io.IOUtils;
+import pixy.meta.MetadataEventReader;
+import pixy.meta.MetadataType;
+import pixy.util.zip.ZipPool;
+
+/**
+ * {@link MetadataEventReader} for png files: walks the chunks like {@link PNGMeta#readChunks(InputStream)}.
+ *
+ * * every chunk is reported as CHUNK. The data of chunks with metadata (text, iCCP, tIME)
+ *   is available with getBytes(). The data of all other chunks (i.e. IDAT) is skipped.
+ * * the xmp iTXt chunk is followed by XMP_PROPERTY events.
+ */
+public class PngMetadataEventReader extends MetadataEventReader {
+    private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+    private static final String XMP_KEYWORD = "XML:com.adobe.xmp";
+
+    private final InputStream is;
+
+    /** data of the current chunk. Reused for all chunks */
+    private byte[] buffer = new byte[1024];
+
+    private boolean started = false;
+    private boolean finished = false;
+    private boolean contentPending = false;
+
+    /** number of bytes of the current chunk (including crc) that have not been read yet */
+    private int remaining = 0;
+
+    public PngMetadataEventReader(InputStream is) {
+        this.is = is;
+    }
+
+    @Override
+    protected Event nextContainerEvent() throws IOException {
+        if (!started) {
+            started = true;
+            if (IOUtils.readLongMM(is) != SIGNATURE) {
+                throw new IOException("Invalid PNG signature");
+            }
+        }
+        if (contentPending) {
+            contentPending = false;
+            Event event = startXmpContent();
+            if (event != null) return event;
+        }
+        if (finished) return Event.END_DOCUMENT;
+
+        IOUtils.skipFully(is, remaining);
+        int length = IOUtils.readIntMM(is);
+        int type = IOUtils.readIntMM(is);
+        remaining = length + 4; // data + crc
+
+        MetadataType metadataType = getMetadataType(type);
+        if (type == ChunkType.IEND.getValue()) finished = true;
+
+        if (metadataType != null) {
+            if (buffer.length < length) buffer = new byte[length];
+            IOUtils.readFully(is, buffer, 0, length);
+            remaining = 4;
+            if ((type == ChunkType.ITXT.getValue()) && startsWith(XMP_KEYWORD, length)) {
+                metadataType = MetadataType.XMP;
+                contentPending = true;
+            }
+        }
+        Event event = chunk(metadataType, type, length);
+        if (metadataType != null) setValue(buffer, 0, length);
+        return event;
+    }
+
+    /** @return the first property of the xmp iTXt chunk in buffer or null if there is none */
+    private Event startXmpContent() throws IOException {
+        final int length = getLength();
+        // keyword\0, compression flag, compression method, language tag\0, translated keyword\0, text
+        int i = XMP_KEYWORD.length() + 1;
+        if (i + 2 > length) return null;
+        boolean compressed = buffer[i] == 1;
+        i += 2;
+        for (int zeros = 0; (zeros < 2) && (i < length); i++) {
+            if (buffer[i] == 0) zeros++;
+        }
+
+        if (compressed) {
+            byte[] xmp = ZipPool.inflate(buffer, i, length - i);
+            return startXmp(xmp, 0, xmp.length);
+        }
+        return startXmp(buffer, i, length - i);
+    }
+
+    private static MetadataType getMetadataType(int type) {
+        if ((type == ChunkType.TEXT.getValue()) || (type == ChunkType.ZTXT.getValue()) || (type == ChunkType.ITXT.getValue())) {
+            return MetadataType.PNG_TEXTUAL;
+        }
+        if (type == ChunkType.ICCP.getValue()) return MetadataType.ICC_PROFILE;
+        if (type == ChunkType.TIME.getValue()) return MetadataType.PNG_TIME;
+        return null;
+    }
+
+    /** @return true if the chunk data in buffer starts with the null terminated keyword */
+    private boolean startsWith(String keyword, int length) {
+        if (keyword.length() >= length) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (buffer[i] != keyword.charAt(i)) return false;
+        }
+        return buffer[keyword.length()] == 0;
+    }
+
+    @Override
+    protected void onSkipSegment() {
+        contentPending = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        is.close();
+    }
+}
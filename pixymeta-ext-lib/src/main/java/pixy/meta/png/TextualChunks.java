@@ -30,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,14 +50,18 @@ public class TextualChunks extends Metadata {
 	 * to chunks list
 	 */
 	private Queue<Chunk> queue;
-	// We keep chunks and keyValMap in sync
+	// We keep chunks and readers in sync
 	private List<Chunk> chunks;
+	// Readers of the read chunks by keyword. Their text is decoded on demand
+	private Map<String, List<TextReader>> readers;
+	// Cache of the decoded texts
 	private Map<String, String> keyValMap;
 	
 	public TextualChunks() {
 		super(MetadataType.PNG_TEXTUAL, null);
 		this.queue = new LinkedList<Chunk>();
 		this.chunks = new ArrayList<Chunk>();
+		this.readers = new HashMap<String, List<TextReader>>();
 		this.keyValMap = new HashMap<String, String>();		
 	}
 		
@@ -65,6 +70,7 @@ public class TextualChunks extends Metadata {
 		validateChunks(chunks);
 		this.queue = new LinkedList<Chunk>(chunks);
 		this.chunks = new ArrayList<Chunk>();
+		this.readers = new HashMap<String, List<TextReader>>();
 		this.keyValMap = new HashMap<String, String>();
 	}
 	
@@ -74,11 +80,51 @@ public class TextualChunks extends Metadata {
 		return chunkList;
 	}
 	
+	/** Decodes the text of all chunks. Use {@link #getText(String)} if only some keywords are needed */
 	public Map<String, String> getKeyValMap() {
 		ensureDataRead();
+		for (String key : readers.keySet()) {
+			getText(key);
+		}
 		return Collections.unmodifiableMap(keyValMap);
 	}
 	
+	/** @return the keywords of all chunks without decoding their text */
+	public Set<String> getKeywords() {
+		ensureDataRead();
+		return Collections.unmodifiableSet(readers.keySet());
+	}
+	
+	/**
+	 * @return the text of the chunks with this keyword joined by "; " or null if there are none.
+	 * Chunks whose text cannot be decoded are logged and skipped.
+	 */
+	public String getText(String keyword) {
+		ensureDataRead();
+		String text = keyValMap.get(keyword);
+		List<TextReader> keywordReaders = readers.get(keyword);
+		if(text == null && keywordReaders != null) {
+			StringBuilder sb = null;
+			for(TextReader reader : keywordReaders) {
+				String readerText;
+				try {
+					readerText = reader.decodeText();
+				} catch (IOException e) {
+					LOGGER.warn("Skipping undecodable textual chunk '" + keyword + "'", e);
+					continue;
+				}
+				if(sb == null) sb = new StringBuilder();
+				else sb.append("; ");
+				sb.append(readerText);
+			}
+			if(sb != null) {
+				text = sb.toString();
+				keyValMap.put(keyword, text);
+			}
+		}
+		return text;
+	}
+	
 	public void addChunk(Chunk chunk) {
 		validateChunkType(chunk.getChunkType());
 		queue.offer(chunk);
@@ -86,13 +132,16 @@ public class TextualChunks extends Metadata {
 	
 	public void read() throws IOException {
 		if(queue.size() > 0) {
-			TextReader reader = new TextReader();
 			for(Chunk chunk : queue) {
-				reader.setInput(chunk);
+				TextReader reader = new TextReader(chunk);
 				String key = reader.getKeyword();
-				String text = reader.getText();
-				String oldText = keyValMap.get(key);
-				keyValMap.put(key, (oldText == null)? text: oldText + "; " + text);
+				List<TextReader> keywordReaders = readers.get(key);
+				if(keywordReaders == null) {
+					keywordReaders = new ArrayList<TextReader>(1);
+					readers.put(key, keywordReaders);
+				}
+				keywordReaders.add(reader);
+				keyValMap.remove(key);
 				chunks.add(chunk);
 			}
 			queue.clear();
@@ -101,11 +150,9 @@ public class TextualChunks extends Metadata {
 	
 	@Override
 	public void showMetadata() {
-		ensureDataRead();
-		
 		LOGGER.info("PNG textual chunk starts =>");
 		
-		for (Map.Entry<String, String> entry : keyValMap.entrySet()) {
+		for (Map.Entry<String, String> entry : getKeyValMap().entrySet()) {
 		    LOGGER.info("{}: {}", entry.getKey(), entry.getValue());
 		}
 		
@@ -0,0 +1,49 @@
+package pixy.meta.tiff;
+
+import java.io.IOException;
+
+import pixy.io.RandomAccessInputStream;
+import pixy.meta.MetadataEventReader;
+import pixy.meta.MetadataType;
+
+/**
+ * {@link MetadataEventReader} for tiff files: the whole file is reported as one EXIF segment
+ * with the events of all IFDs.
+ */
+public class TiffMetadataEventReader extends MetadataEventReader {
+    private final RandomAccessInputStream rin;
+
+    /** 0: before the segment, 1: in the segment, 2: after the segment */
+    private int state = 0;
+
+    public TiffMetadataEventReader(RandomAccessInputStream rin) {
+        this.rin = rin;
+    }
+
+    @Override
+    protected Event nextContainerEvent() throws IOException {
+        switch (state++) {
+            case 0:
+                return startSegment(MetadataType.EXIF);
+            case 1:
+                Event event = startTiff(rin);
+                if (event != null) return event;
+                state++;
+                return Event.END_SEGMENT;
+            case 2:
+                return Event.END_SEGMENT;
+            default:
+                return Event.END_DOCUMENT;
+        }
+    }
+
+    @Override
+    protected void onSkipSegment() {
+        if (state == 1) state = 2;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rin.close();
+    }
+}
@@ -0,0 +1,65 @@
+package pixy.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import pixy.io.IOUtils;
+
+/**
+ * Bounded pool of {@link Inflater}s and {@link Deflater}s so that the native zlib state is reused
+ * instead of being allocated for every compressed png chunk.
+ *
+ * Usage: Inflater inflater = ZipPool.obtainInflater(); try {...} finally {ZipPool.release(inflater);}
+ *
+ * Streams created with an own Inflater/Deflater (i.e. new DeflaterOutputStream(out, deflater))
+ * do not end() it on close(), so the instance can be released afterwards. A released instance
+ * must not be used any more. If the pool is full released instances are end()ed.
+ */
+public final class ZipPool {
+	private static final int MAX_POOLED = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<Inflater>(MAX_POOLED);
+	private static final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<Deflater>(MAX_POOLED);
+
+	private ZipPool() {}
+
+	public static Inflater obtainInflater() {
+		Inflater inflater = inflaters.poll();
+		return (inflater != null) ? inflater : new Inflater();
+	}
+
+	/** @param level i.e. {@link Deflater#DEFAULT_COMPRESSION} */
+	public static Deflater obtainDeflater(int level) {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null) return new Deflater(level);
+		deflater.setLevel(level);
+		return deflater;
+	}
+
+	public static void release(Inflater inflater) {
+		if (inflater == null) return;
+		inflater.reset();
+		if (!inflaters.offer(inflater)) inflater.end();
+	}
+
+	public static void release(Deflater deflater) {
+		if (deflater == null) return;
+		deflater.reset();
+		if (!deflaters.offer(deflater)) deflater.end();
+	}
+
+	/** @return the decompressed content of the zlib stream in the slice of data */
+	public static byte[] inflate(byte[] data, int offset, int length) throws IOException {
+		Inflater inflater = obtainInflater();
+		try {
+			return IOUtils.readFully(new InflaterInputStream(new ByteArrayInputStream(data, offset, length), inflater), 4096);
+		} finally {
+			release(inflater);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package pixy.image.png;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Verifies that {@link ChunkRewriter} replaces chunks at the right position.
+ */
+public class ChunkRewriterTests {
+	private static byte[] createPng() throws IOException {
+		return new PngTestFiles()
+				.chunk(ChunkType.IHDR, new byte[13])
+				.text(ChunkType.ITXT, "XML:com.adobe.xmp", "old")
+				.text(ChunkType.TEXT, "Comment", "hello")
+				.chunk(ChunkType.IDAT, new byte[20000])
+				.toByteArray();
+	}
+
+	@Test
+	public void shouldReplaceXmpAndInsertBeforeIdat() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ChunkRewriter()
+				.removeText("XML:com.adobe.xmp")
+				.insert(PngTestFiles.createChunk(ChunkType.ICCP, new byte[3]), PngTestFiles.createText(ChunkType.ITXT, "XML:com.adobe.xmp", "new"))
+				.rewrite(new ByteArrayInputStream(createPng()), out);
+
+		List<ChunkDescriptor> chunks = ChunkWalker.readAll(new ByteArrayInputStream(out.toByteArray()), null);
+		StringBuilder types = new StringBuilder();
+		for (ChunkDescriptor chunk : chunks) {
+			types.append(chunk.getChunkType().getName()).append(" ");
+			Assert.assertTrue(chunk.toString(), chunk.toChunk().isValidCRC());
+		}
+		Assert.assertEquals("IHDR tEXt iTXt iCCP IDAT IEND ", types.toString());
+		Assert.assertEquals("XML:com.adobe.xmp\0new", new String(chunks.get(2).getData(), "ISO-8859-1"));
+		Assert.assertEquals(20000, chunks.get(4).getLength());
+	}
+}
@@ -0,0 +1,71 @@
+package pixy.image.png;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.List;
+
+import pixy.io.ByteArrayRandomAccessInputStream;
+
+/**
+ * Verifies that {@link ChunkWalker} only reads the data of the requested chunks.
+ */
+public class ChunkWalkerTests {
+	private static byte[] createPng() throws IOException {
+		return new PngTestFiles()
+				.chunk(ChunkType.IHDR, new byte[13])
+				.chunk(ChunkType.IDAT, new byte[5000])
+				.text(ChunkType.TEXT, "Comment", "hello")
+				.toByteArray();
+	}
+
+	private static void checkChunks(InputStream is) throws IOException {
+		List<ChunkDescriptor> chunks = ChunkWalker.readAll(is, EnumSet.of(ChunkType.TEXT));
+
+		Assert.assertEquals(4, chunks.size());
+		ChunkDescriptor idat = chunks.get(1);
+		Assert.assertEquals(ChunkType.IDAT, idat.getChunkType());
+		Assert.assertEquals(8 + 12 + 13, idat.getOffset());
+		Assert.assertEquals(5000, idat.getLength());
+		Assert.assertNull(idat.getData());
+
+		ChunkDescriptor text = chunks.get(2);
+		Assert.assertEquals(idat.getOffset() + 12 + 5000, text.getOffset());
+		Assert.assertTrue(text.toChunk().isValidCRC());
+		Assert.assertEquals(ChunkType.IEND, chunks.get(3).getChunkType());
+	}
+
+	@Test
+	public void shouldSkipUnrequestedChunks() throws IOException {
+		checkChunks(new ByteArrayInputStream(createPng()));
+	}
+
+	@Test
+	public void shouldSeekOverUnrequestedChunks() throws IOException {
+		checkChunks(new ByteArrayRandomAccessInputStream(createPng()));
+	}
+
+	@Test
+	public void shouldVerifyCrcOfSkippedChunks() throws IOException {
+		byte[] png = createPng();
+		ChunkWalker valid = new ChunkWalker(new ByteArrayInputStream(png), EnumSet.of(ChunkType.TEXT)).setVerifyCRC(true);
+		while (valid.next() != null) {
+			// no crc error
+		}
+		// corrupt the IDAT data
+		png[8 + 12 + 13 + 8 + 100]++;
+
+		ChunkWalker walker = new ChunkWalker(new ByteArrayRandomAccessInputStream(png), EnumSet.of(ChunkType.TEXT)).setVerifyCRC(true);
+		Assert.assertEquals(ChunkType.IHDR, walker.next().getChunkType());
+		try {
+			walker.next();
+			Assert.fail("crc error expected");
+		} catch (IOException expected) {
+			Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("IDAT"));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package pixy.image.png;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import pixy.io.IOUtils;
+
+/**
+ * Builds small in memory png files for the png tests.
+ *
+ * Usage: byte[] png = new PngTestFiles().chunk(ChunkType.IHDR, new byte[13]).text(ChunkType.TEXT, "Comment", "hello").toByteArray();
+ */
+class PngTestFiles {
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	PngTestFiles() throws IOException {
+		IOUtils.writeLongMM(out, ChunkWalker.SIGNATURE);
+	}
+
+	/** @return a chunk with a valid crc */
+	static Chunk createChunk(ChunkType type, byte[] data) {
+		return new Chunk(type, data.length, data, Chunk.calculateCRC(type.getValue(), data));
+	}
+
+	/** @return a chunk containing a copy of the slice of data */
+	static Chunk createChunk(ChunkType type, byte[] data, int offset, int length) {
+		return createChunk(type, Arrays.copyOfRange(data, offset, offset + length));
+	}
+
+	/** @return a chunk with the uncompressed data "keyword\0text" */
+	static Chunk createText(ChunkType type, String keyword, String text) throws IOException {
+		return createChunk(type, (keyword + "\0" + text).getBytes("ISO-8859-1"));
+	}
+
+	PngTestFiles chunk(Chunk chunk) throws IOException {
+		chunk.write(out);
+		return this;
+	}
+
+	PngTestFiles chunk(ChunkType type, byte[] data) throws IOException {
+		return chunk(createChunk(type, data));
+	}
+
+	PngTestFiles text(ChunkType type, String keyword, String text) throws IOException {
+		return chunk(createText(type, keyword, text));
+	}
+
+	/** @return the file with an IEND chunk appended */
+	byte[] toByteArray() throws IOException {
+		chunk(ChunkType.IEND, new byte[0]);
+		return out.toByteArray();
+	}
+}
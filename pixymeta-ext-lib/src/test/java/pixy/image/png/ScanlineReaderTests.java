@@ -0,0 +1,119 @@
+package pixy.image.png;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Verifies that {@link ScanlineReader} restores the rows of an image with all filter types
+ * when the compressed data is split over several IDAT chunks.
+ */
+public class ScanlineReaderTests {
+	private static final int WIDTH = 37;
+	private static final int HEIGHT = 11;
+	private static final int BYTES_PER_PIXEL = 3;
+	private static final int BYTES_PER_SCAN_LINE = WIDTH * BYTES_PER_PIXEL;
+
+	/** @param idatLength number of compressed bytes to write. Less than all: truncated image */
+	private static byte[] createPng(byte[] pixels, int idatLength) throws IOException {
+		// filter bottom up so that every row is filtered against the unfiltered row above it
+		byte[] filtered = pixels.clone();
+		for (int row = HEIGHT - 1; row >= 0; row--) {
+			int offset = row * BYTES_PER_SCAN_LINE;
+			switch (row % 5) {
+				case Filter.SUB: Filter.filter_sub(BYTES_PER_PIXEL, BYTES_PER_SCAN_LINE, filtered, offset); break;
+				case Filter.UP: Filter.filter_up(BYTES_PER_SCAN_LINE, filtered, offset); break;
+				case Filter.AVERAGE: Filter.filter_average(BYTES_PER_PIXEL, BYTES_PER_SCAN_LINE, filtered, offset); break;
+				case Filter.PAETH: Filter.filter_paeth(BYTES_PER_PIXEL, BYTES_PER_SCAN_LINE, filtered, offset); break;
+				default:
+			}
+		}
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		for (int row = 0; row < HEIGHT; row++) {
+			raw.write(row % 5);
+			raw.write(filtered, row * BYTES_PER_SCAN_LINE, BYTES_PER_SCAN_LINE);
+		}
+		Deflater deflater = new Deflater(Deflater.NO_COMPRESSION);
+		deflater.setInput(raw.toByteArray());
+		deflater.finish();
+		byte[] compressed = new byte[raw.size() + 100];
+		int compressedLength = deflater.deflate(compressed);
+		deflater.end();
+		compressedLength = Math.min(compressedLength, idatLength);
+
+		PngTestFiles png = new PngTestFiles().chunk(createIHDR());
+		for (int offset = 0; offset < compressedLength; offset += 100) {
+			png.chunk(PngTestFiles.createChunk(ChunkType.IDAT, compressed, offset, Math.min(100, compressedLength - offset)));
+		}
+		return png.toByteArray();
+	}
+
+	private static Chunk createIHDR() {
+		return new IHDRBuilder().width(WIDTH).height(HEIGHT).bitDepth(8).colorType(ColorType.TRUE_COLOR).build();
+	}
+
+	private static class Collector implements ScanlineReader.RowHandler {
+		final ByteArrayOutputStream rows = new ByteArrayOutputStream();
+		int expectedRow = 0;
+
+		@Override
+		public void start(IHDRReader ihdr) {
+			Assert.assertEquals(WIDTH, ihdr.getWidth());
+		}
+
+		@Override
+		public void handleRow(int row, byte[] data, int offset, int length) {
+			Assert.assertEquals(expectedRow++, row);
+			Assert.assertEquals(BYTES_PER_SCAN_LINE, length);
+			rows.write(data, offset, length);
+		}
+	}
+
+	@Test
+	public void shouldDefilterRowsOfAllFilterTypes() throws IOException {
+		byte[] pixels = new byte[BYTES_PER_SCAN_LINE * HEIGHT];
+		new Random(25).nextBytes(pixels);
+
+		Collector collector = new Collector();
+		ScanlineReader.read(new ByteArrayInputStream(createPng(pixels, Integer.MAX_VALUE)), collector);
+		Assert.assertArrayEquals(pixels, collector.rows.toByteArray());
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldFailOnMissingRows() throws IOException {
+		byte[] pixels = new byte[BYTES_PER_SCAN_LINE * HEIGHT];
+		ScanlineReader.read(new ByteArrayInputStream(createPng(pixels, 500)), new Collector());
+	}
+
+	@Test
+	public void shouldFailOnSecondIHDR() throws IOException {
+		byte[] png = new PngTestFiles().chunk(createIHDR()).chunk(createIHDR()).toByteArray();
+		try {
+			ScanlineReader.read(new ByteArrayInputStream(png), new Collector());
+			Assert.fail("second IHDR must fail");
+		} catch (IOException expected) {
+			Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("IHDR"));
+		}
+	}
+
+	@Test
+	public void shouldPassFailureOfHandlerStart() throws IOException {
+		byte[] pixels = new byte[BYTES_PER_SCAN_LINE * HEIGHT];
+		try {
+			ScanlineReader.read(new ByteArrayInputStream(createPng(pixels, Integer.MAX_VALUE)), new Collector() {
+				@Override
+				public void start(IHDRReader ihdr) {
+					throw new IllegalStateException("start failed");
+				}
+			});
+			Assert.fail("failure of start must be passed to the caller");
+		} catch (IllegalStateException expected) {
+			Assert.assertEquals("start failed", expected.getMessage());
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package pixy.image.png;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import pixy.meta.png.TextualChunks;
+
+/**
+ * Verifies that {@link TextReader} and {@link TextualChunks} only inflate the text when it is used.
+ */
+public class TextReaderTests {
+	private static Chunk createText(ChunkType type, String keyword, String text, boolean compressed) {
+		TextBuilder builder = new TextBuilder(type).keyword(keyword).text(text);
+		builder.setCompressed(compressed);
+		return builder.build();
+	}
+
+	@Test
+	public void shouldInflateCompressedText() {
+		Assert.assertEquals("line1\nline2\n", new TextReader(createText(ChunkType.ZTXT, "Comment", "line1\r\nline2", true)).getText());
+		Assert.assertEquals("line1\nline2", new TextReader(createText(ChunkType.ITXT, "Comment", "line1\nline2", true)).getText());
+		Assert.assertEquals("plain", new TextReader(createText(ChunkType.ITXT, "Comment", "plain", false)).getText());
+	}
+
+	@Test
+	public void shouldReadKeywordsWithoutInflatingText() throws IOException {
+		Chunk valid = createText(ChunkType.ZTXT, "Comment", "hello", true);
+		// keyword, null separator, compression method followed by garbage instead of a zlib stream
+		byte[] corrupt = "Broken\0\0garbage".getBytes("ISO-8859-1");
+		Chunk broken = PngTestFiles.createChunk(ChunkType.ZTXT, corrupt);
+
+		TextualChunks texts = new TextualChunks(Arrays.asList(valid, broken));
+		Assert.assertTrue(texts.getKeywords().contains("Broken"));
+		Assert.assertEquals("hello\n", texts.getText("Comment"));
+		// inflating happens on access only: the corrupt text is skipped there
+		Assert.assertNull(texts.getText("Broken"));
+		Assert.assertEquals(Collections.singletonMap("Comment", "hello\n"), texts.getKeyValMap());
+		texts.showMetadata();
+
+		try {
+			new TextReader(broken).getText();
+			Assert.fail("corrupt zTXt must fail when its text is used");
+		} catch (RuntimeException expected) {
+			Assert.assertTrue(expected.getCause() instanceof IOException);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package pixy.meta;
 
+import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -28,6 +29,7 @@ import pixy.demo.j2se.TestPixyMetaJ2se;
 import pixy.fileprocessor.jpg.report.MetaDataReport;
 import pixy.io.IOUtils;
 import pixy.fileprocessor.jpg.JpgFileProcessor;
+import pixy.fileprocessor.jpg.JpgSegmentPluginFactory;
 import pixy.meta.jpeg.JPEGMeta;
 import pixy.util.FileUtils;
 
@@ -98,6 +100,13 @@ public class MetadataRegressionTests {
 		FileUtils.delete(OUTDIR, null);
 		OUTDIR.mkdirs();
 		JPEGMeta.register();
+		// the reports contain the debug messages of the metadata
+		JpgSegmentPluginFactory.setCollectDebugMessages(true);
+	}
+
+	@AfterClass
+	public static void disableDebugMessages() {
+		JpgSegmentPluginFactory.setCollectDebugMessages(false);
 	}
 
 	@Test
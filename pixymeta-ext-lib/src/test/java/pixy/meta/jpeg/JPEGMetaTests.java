@@ -0,0 +1,44 @@
+package pixy.meta.jpeg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import pixy.api.IMetadata;
+import pixy.demo.j2se.TestPixyMetaJ2se;
+import pixy.fileprocessor.jpg.JpegMetaDef;
+import pixy.io.IOUtils;
+import pixy.meta.Metadata;
+import pixy.meta.MetadataType;
+import pixy.meta.xmp.XMP;
+
+/**
+ * Verifies that {@link Metadata#readMetadata} keeps the xmp packet of a jpeg unparsed.
+ */
+public class JPEGMetaTests {
+	@Test
+	public void shouldKeepRawXmpPacket() throws IOException {
+		byte[] jpeg = IOUtils.readFully(TestPixyMetaJ2se.class.getResourceAsStream("images/sea.jpg"), 4096);
+		Map<MetadataType, IMetadata> metadataMap = Metadata.readMetadata(new ByteArrayInputStream(jpeg));
+
+		XMP xmp = (XMP) metadataMap.get(MetadataType.XMP);
+		Assert.assertNotNull(xmp);
+		Assert.assertArrayEquals(getXmpPacket(jpeg), xmp.getData());
+	}
+
+	/** @return the packet of the first standard xmp segment */
+	private static byte[] getXmpPacket(byte[] jpeg) throws IOException {
+		byte[] id = JpegMetaDef.XMP_ID.getBytes("ISO-8859-1");
+		for (int i = 4; i + id.length < jpeg.length; i++) {
+			if (Arrays.equals(id, Arrays.copyOfRange(jpeg, i, i + id.length))) {
+				int segmentEnd = i + IOUtils.readUnsignedShortMM(jpeg, i - 2);
+				return Arrays.copyOfRange(jpeg, i + id.length, segmentEnd - 2);
+			}
+		}
+		throw new IOException("no xmp segment");
+	}
+}
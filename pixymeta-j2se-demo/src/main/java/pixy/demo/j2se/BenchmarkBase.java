@@ -0,0 +1,146 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal timing harness for the benchmarks of the demo app.
+ *
+ * Each benchmark runs a {@link Task} over the in memory content of the
+ * test image collection pixymeta-j2se-demo/src/main/resources/pixy/demo/j2se/images/
+ * so that disk io does not influence the result.
+ */
+public abstract class BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkBase.class);
+
+    protected static final String[] ALL_TEST_FILES = new String[]{
+            "12.jpg",
+            "wizard.jpg",
+            "1.jpg",
+            "10.jpg",
+            "app13.jpg",
+            "bedroom_arithmetic.jpg",
+            "cmykjpg.jpg",
+            "darwin-station-wheelie.jpg",
+            "example.jpg",
+            "exif-jpeg-thumbnail-sony-dsc-p150-inverted-colors.jpg",
+            "exif-rgb-thumbnail-bad-exif-kodak-dc210.jpg",
+            "exif-rgb-thumbnail-sony-d700.jpg",
+            "flower.jpg",
+            "Nikon.jpg",
+            "sea.jpg",
+            "table.jpg",
+
+            "butterfly.png",
+            "colourTestFakeBRG.png",
+            "flowerpink-InMyEasterBonnet-KrystalHartley.png",
+            "ProPhoto.png",
+
+            "exif.tif",
+            "f1.tif",
+            "iptc.tif",
+            "iptc-envelope.tif",
+            "multimax.tif",
+            "packbits.tif",
+
+            "butterfly.gif",
+            "happy_trans-xmp-inserted.gif",
+
+            "niagra_falls.bmp"
+    };
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURE_ITERATIONS = 100;
+
+    /** the code to be measured for one image */
+    public interface Task {
+        void run(byte[] image) throws IOException;
+    }
+
+    /** the result of one {@link #measure(String, byte[][], Task)} */
+    public static class Measurement {
+        public final String name;
+        public final long nanos;
+        public final long bytes;
+
+        Measurement(String name, long nanos, long bytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public double getMegaBytesPerSecond() {
+            return (bytes / (1024.0 * 1024.0)) / (nanos / 1000000000.0);
+        }
+
+        @Override public String toString() {
+            return String.format("%s: %.2f ms per pass, %.2f MB/s", name,
+                    nanos / 1000000.0 / MEASURE_ITERATIONS, getMegaBytesPerSecond());
+        }
+    }
+
+    /** @return content of all test images ending with one of the extensions */
+    protected static byte[][] loadImages(String... extensions) throws IOException {
+        List<byte[]> result = new ArrayList<byte[]>();
+        for (String fileName : ALL_TEST_FILES) {
+            for (String extension : extensions) {
+                if (fileName.toLowerCase().endsWith(extension)) {
+                    result.add(loadImage(fileName));
+                    break;
+                }
+            }
+        }
+        return result.toArray(new byte[result.size()][]);
+    }
+
+    protected static byte[] loadImage(String fileName) throws IOException {
+        InputStream is = TestPixyMetaJ2se.class.getResourceAsStream("images/" + fileName);
+        if (is == null) throw new IOException("Cannot open images/" + fileName);
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            byte[] buffer = new byte[10240];
+            int bytesRead;
+            while((bytesRead = is.read(buffer)) != -1) {
+                bout.write(buffer, 0, bytesRead);
+            }
+            return bout.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    /** runs task on all images: first without measuring to warm up the jit, than measured */
+    protected static Measurement measure(String name, byte[][] images, Task task) throws IOException {
+        long bytesPerPass = 0;
+        for (byte[] image : images) {
+            bytesPerPass += image.length;
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (byte[] image : images) {
+                task.run(image);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            for (byte[] image : images) {
+                task.run(image);
+            }
+        }
+        Measurement result = new Measurement(name, System.nanoTime() - start, bytesPerPass * MEASURE_ITERATIONS);
+        LOGGER.info(result.toString());
+        return result;
+    }
+
+    protected static String ratio(Measurement slow, Measurement fast) {
+        return String.format("%.1f", (double) slow.nanos / fast.nanos);
+    }
+}
@@ -0,0 +1,120 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+
+import pixy.image.png.ChunkType;
+import pixy.image.png.ChunkWalker;
+import pixy.image.png.IENDBuilder;
+import pixy.image.png.IHDRBuilder;
+import pixy.image.png.TextBuilder;
+import pixy.image.png.UnknownChunkBuilder;
+import pixy.io.IOUtils;
+import pixy.util.zip.CRC32;
+
+/**
+ * Measures the crc calculation of png chunks with 64 KB and 8 MB of data
+ * and the overhead of {@link ChunkWalker#setVerifyCRC(boolean)}.
+ *
+ * The table based implementation that {@link CRC32} used before it delegated to
+ * java.util.zip.CRC32 is measured as baseline.
+ */
+public class CrcBenchmark extends BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrcBenchmark.class);
+
+    /** crc table of the previous {@link CRC32} implementation */
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < CRC_TABLE.length; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) {
+                c = ((c & 1) != 0) ? (0xedb88320 ^ (c >>> 1)) : (c >>> 1);
+            }
+            CRC_TABLE[n] = c;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        for (int size : new int[]{64 * 1024, 8 * 1024 * 1024}) {
+            byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+            final byte[][] chunks = new byte[][]{data};
+            final String kb = (size / 1024) + " KB";
+
+            final Measurement table = measure("table based crc (baseline) " + kb, chunks, new Task() {
+                @Override
+                public void run(byte[] chunk) throws IOException {
+                    tableCrc(chunk, 0, chunk.length);
+                }
+            });
+
+            final Measurement update = measure("CRC32.update(byte[]) " + kb, chunks, new Task() {
+                @Override
+                public void run(byte[] chunk) throws IOException {
+                    CRC32 crc32 = new CRC32();
+                    crc32.update(chunk, 0, chunk.length);
+                    crc32.getValue();
+                }
+            });
+
+            measure("CRC32.update(int) byte by byte " + kb, chunks, new Task() {
+                @Override
+                public void run(byte[] chunk) throws IOException {
+                    CRC32 crc32 = new CRC32();
+                    for (byte b : chunk) {
+                        crc32.update(b);
+                    }
+                    crc32.getValue();
+                }
+            });
+
+            LOGGER.info("table based crc takes {} times as long as CRC32.update(byte[])", ratio(table, update));
+
+            final byte[][] pngs = new byte[][]{createPng(data)};
+            final Measurement skip = measure("ChunkWalker png with " + kb + " IDAT", pngs, new Task() {
+                @Override
+                public void run(byte[] png) throws IOException {
+                    ChunkWalker.readAll(new ByteArrayInputStream(png), EnumSet.of(ChunkType.TEXT));
+                }
+            });
+            final Measurement verify = measure("ChunkWalker.setVerifyCRC(true) png with " + kb + " IDAT", pngs, new Task() {
+                @Override
+                public void run(byte[] png) throws IOException {
+                    ChunkWalker walker = new ChunkWalker(new ByteArrayInputStream(png), EnumSet.of(ChunkType.TEXT)).setVerifyCRC(true);
+                    while (walker.next() != null) {
+                        // crc is checked while walking
+                    }
+                }
+            });
+            LOGGER.info("crc verification takes {} times as long as skipping IDAT", ratio(verify, skip));
+        }
+    }
+
+    /** the previous {@link CRC32#update(byte[], int, int)} */
+    private static long tableCrc(byte[] buff, int offset, int size) {
+        int temp = ~0;
+        while (size-- > 0)
+            temp = CRC_TABLE[(temp ^ buff[offset++]) & 0xff] ^ (temp >>> 8);
+        return ~temp & 0xffffffffL;
+    }
+
+    /** @param idat content of the IDAT chunk: it need not be valid zlib data because the chunks are only walked */
+    private static byte[] createPng(byte[] idat) throws IOException {
+        TextBuilder text = new TextBuilder(ChunkType.TEXT).keyword("Comment").text("CrcBenchmark");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.writeLongMM(out, ChunkWalker.SIGNATURE);
+        new IHDRBuilder().width(1).height(1).build().write(out);
+        text.build().write(out);
+        new UnknownChunkBuilder().type(ChunkType.IDAT.getValue()).data(idat).build().write(out);
+        new IENDBuilder().build().write(out);
+        return out.toByteArray();
+    }
+}
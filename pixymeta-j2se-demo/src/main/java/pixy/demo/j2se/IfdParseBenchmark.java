@@ -0,0 +1,62 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import pixy.image.exifFields.IFD;
+import pixy.io.ByteArrayRandomAccessInputStream;
+import pixy.io.FileCacheRandomAccessInputStream;
+import pixy.io.RandomAccessInputStream;
+import pixy.meta.exif.IfdMetaUtils;
+
+/**
+ * Compares the time to parse the IFDs of the tif files of the test image collection
+ * through a FileCacheRandomAccessInputStream without block cache (one RandomAccessFile
+ * seek and read per byte) and with the default block cache.
+ */
+public class IfdParseBenchmark extends BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(IfdParseBenchmark.class);
+
+    public static void main(String[] args) throws IOException {
+        final byte[][] images = loadImages(".tif");
+
+        Measurement noPages = measure("readIFDs(FileCache without block cache)", images, new Task() {
+            @Override
+            public void run(byte[] image) throws IOException {
+                readIFDs(new FileCacheRandomAccessInputStream(new ByteArrayInputStream(image), 4096,
+                        FileCacheRandomAccessInputStream.DEFAULT_PAGE_SIZE, 0));
+            }
+        });
+
+        Measurement pages = measure("readIFDs(FileCache with block cache)", images, new Task() {
+            @Override
+            public void run(byte[] image) throws IOException {
+                readIFDs(new FileCacheRandomAccessInputStream(new ByteArrayInputStream(image)));
+            }
+        });
+
+        measure("readIFDs(ByteArray)", images, new Task() {
+            @Override
+            public void run(byte[] image) throws IOException {
+                readIFDs(new ByteArrayRandomAccessInputStream(image));
+            }
+        });
+
+        LOGGER.info("block cache is {} times faster than no block cache", ratio(noPages, pages));
+    }
+
+    private static void readIFDs(RandomAccessInputStream rin) throws IOException {
+        List<IFD> ifds = new ArrayList<IFD>();
+        try {
+            IfdMetaUtils.readIFDs(ifds, rin);
+        } finally {
+            rin.shallowClose();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import pixy.meta.iptc.IPTC;
+import pixy.meta.iptc.IPTCApplicationTag;
+import pixy.meta.iptc.IPTCFieldValue;
+
+/**
+ * Measures parsing of synthetic keyword heavy IPTC blocks
+ * with 10, 100, 1000 and 10000 keywords.
+ */
+public class IptcParseBenchmark extends BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(IptcParseBenchmark.class);
+
+    public static void main(String[] args) throws IOException {
+        for (int keywordCount = 10; keywordCount <= 10000; keywordCount *= 10) {
+            final byte[][] blocks = new byte[][]{createIptc(keywordCount)};
+            LOGGER.info("IPTC block with {} keywords: {} bytes", keywordCount, blocks[0].length);
+
+            measure("new IPTC(" + keywordCount + " keywords)", blocks, new Task() {
+                @Override
+                public void run(byte[] block) throws IOException {
+                    new IPTC(block).getFieldValueMap();
+                }
+            });
+
+            measure("new IPTC(" + keywordCount + " keywords).getAsString(Keywords)", blocks, new Task() {
+                @Override
+                public void run(byte[] block) throws IOException {
+                    new IPTC(block).getAsString(IPTCApplicationTag.KEY_WORDS.getName());
+                }
+            });
+        }
+    }
+
+    private static byte[] createIptc(int keywordCount) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        new IPTCFieldValue(IPTCApplicationTag.OBJECT_NAME, "IptcParseBenchmark").write(bout);
+        for (int i = 0; i < keywordCount; i++) {
+            new IPTCFieldValue(IPTCApplicationTag.KEY_WORDS, "keyword number " + i).write(bout);
+        }
+        return bout.toByteArray();
+    }
+}
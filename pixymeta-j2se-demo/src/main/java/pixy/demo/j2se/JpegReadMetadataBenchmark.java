@@ -0,0 +1,40 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import pixy.meta.jpeg.JPEGMeta;
+
+/**
+ * Compares the throughput of JPEGMeta.readMetadata header-only (stop at first SOS)
+ * with reading all scans of the jpg files of the test image collection.
+ */
+public class JpegReadMetadataBenchmark extends BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpegReadMetadataBenchmark.class);
+
+    public static void main(String[] args) throws IOException {
+        JPEGMeta.register();
+
+        final byte[][] images = loadImages(".jpg");
+
+        Measurement allScans = measure("readMetadata(allScans)", images, new Task() {
+            @Override
+            public void run(byte[] image) throws IOException {
+                JPEGMeta.readMetadata(new ByteArrayInputStream(image), true);
+            }
+        });
+
+        Measurement headerOnly = measure("readMetadata(headerOnly)", images, new Task() {
+            @Override
+            public void run(byte[] image) throws IOException {
+                JPEGMeta.readMetadata(new ByteArrayInputStream(image), false);
+            }
+        });
+
+        LOGGER.info("headerOnly is {} times faster than allScans", ratio(allScans, headerOnly));
+    }
+}
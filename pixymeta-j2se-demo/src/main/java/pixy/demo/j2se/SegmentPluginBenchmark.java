@@ -0,0 +1,85 @@
+package pixy.demo.j2se;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import pixy.api.IMetadataFactory;
+import pixy.fileprocessor.jpg.JpgFileProcessor;
+import pixy.fileprocessor.jpg.JpgSegmentPluginFactory;
+import pixy.image.jpeg.JpegSegment;
+import pixy.image.jpeg.JpegSegmentMarker;
+import pixy.meta.jpeg.JPEGMeta;
+
+/**
+ * Compares per segment type the time to create the metadata of the jpg segments of the
+ * test image collection through the {@link IMetadataFactory} registered by the plugin and
+ * through reflection ({@link JpgSegmentPluginFactory.ReflectionMetadataFactory}).
+ */
+public class SegmentPluginBenchmark extends BenchmarkBase {
+    // Obtain a logger instance
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPluginBenchmark.class);
+
+    public static void main(String[] args) throws IOException {
+        JPEGMeta.register();
+
+        Map<JpgSegmentPluginFactory, List<byte[]>> segmentsByDefinition = loadSegments(loadImages(".jpg"));
+        for (Map.Entry<JpgSegmentPluginFactory, List<byte[]>> entry : segmentsByDefinition.entrySet()) {
+            final JpgSegmentPluginFactory definition = entry.getKey();
+            final byte[][] segments = entry.getValue().toArray(new byte[entry.getValue().size()][]);
+            final int subMarkerLen = (definition.getSubMarker() == null) ? 0 : definition.getSubMarker().length();
+            final IMetadataFactory reflection = new JpgSegmentPluginFactory.ReflectionMetadataFactory(definition.getMetadataClass());
+
+            Measurement reflected = measure("create " + definition + " by reflection", segments, new Task() {
+                @Override
+                public void run(byte[] segment) throws IOException {
+                    reflection.create(segment, subMarkerLen, segment.length - subMarkerLen);
+                }
+            });
+
+            Measurement registered = measure("create " + definition + " by registered factory", segments, new Task() {
+                @Override
+                public void run(byte[] segment) throws IOException {
+                    definition.tryCreate(segment, 0, segment.length);
+                }
+            });
+
+            LOGGER.info("{}: registered factory is {} times faster than reflection", definition, ratio(reflected, registered));
+        }
+    }
+
+    /** @return the content of all segments of images that have a registered plugin grouped by plugin */
+    private static Map<JpgSegmentPluginFactory, List<byte[]>> loadSegments(byte[][] images) throws IOException {
+        final Map<JpgSegmentPluginFactory, List<byte[]>> result = new LinkedHashMap<JpgSegmentPluginFactory, List<byte[]>>();
+        for (byte[] image : images) {
+            JpgFileProcessor processor = new JpgFileProcessor(new ByteArrayInputStream(image)) {
+                @Override
+                protected JpegSegment onReadSegment(InputStream is, List<JpegSegment> jpegSegments,
+                                                    int segLengthInclMarker,
+                                                    JpegSegmentMarker currentJpegSegmentMarker) throws IOException {
+                    JpegSegment segment = super.onReadSegment(is, jpegSegments, segLengthInclMarker, currentJpegSegmentMarker);
+                    byte[] data = segment.getData();
+                    JpgSegmentPluginFactory definition = JpgSegmentPluginFactory.find(currentJpegSegmentMarker, data);
+                    if (definition != null) {
+                        List<byte[]> segments = result.get(definition);
+                        if (segments == null) {
+                            segments = new ArrayList<byte[]>();
+                            result.put(definition, segments);
+                        }
+                        segments.add(data);
+                    }
+                    return segment;
+                }
+            };
+            processor.load();
+        }
+        return result;
+    }
+}